@@ -0,0 +1,60 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import lib6005.parser.Parser;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures building the ParseTree of a file with lib6005 interpreting the compiled Abc.g against
+ * GeneratedAbcParser, which AbcParser.parse uses: the first parse in the JVM, including compiling
+ * the grammar for lib6005, and the per-parse cost once the JIT has settled.
+ * The first parses are timed generated first, so the interpreted one does not load shared classes for it.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.AbcParserBenchmark [file path] [iterations]
+ */
+public class AbcParserBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String file = args.length > 0 ? args[0] : "sample_abc/fur_elise.abc";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String contents = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        GeneratedAbcParser.parse(contents);
+        double firstGenerated = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        Parser<MusicGrammar> parser = AbcParser.compileGrammar();
+        parser.parse(contents);
+        double firstInterpreted = (System.nanoTime() - start) / 1e6;
+
+        // let the JIT settle on both paths before timing them
+        for (int i = 0; i < iterations; i++) {
+            parser.parse(contents);
+            GeneratedAbcParser.parse(contents);
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parser.parse(contents);
+        }
+        double interpreted = (System.nanoTime() - start) / 1e6 / iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            GeneratedAbcParser.parse(contents);
+        }
+        double generated = (System.nanoTime() - start) / 1e6 / iterations;
+
+        System.out.printf("%s, %d iterations%n", file, iterations);
+        System.out.printf("  first parse, interpreted: %8.3f ms (compiling the grammar included)%n", firstInterpreted);
+        System.out.printf("  first parse, generated:   %8.3f ms%n", firstGenerated);
+        System.out.printf("  interpreted grammar:      %8.3f ms/parse%n", interpreted);
+        System.out.printf("  generated parser:         %8.3f ms/parse%n", generated);
+    }
+}
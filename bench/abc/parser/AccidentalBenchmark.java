@@ -0,0 +1,61 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures the bytes each engine allocates to parse a song full of accidentals, and the time it takes.
+ * The song is a one-line tune in a key with a long signature, every note of which has an accidental
+ * or inherits one, repeated copies times; or the given file's body repeated copies times.
+ * Allocation is read from the HotSpot ThreadMXBean, so this needs a HotSpot-derived JVM.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.AccidentalBenchmark [copies] [iterations] [file path]
+ */
+public class AccidentalBenchmark {
+
+    private static final String HEADER = "X:1\nT:Accidentals\nM:4/4\nL:1/8\nK:C#m\n";
+    private static final String LINE = "^A B =c _d e __F ^^g a|A, =B, c' d'' [^C_E] (3_a=b^c [1 d2 E2 :|[2 _B,8|]\n";
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String header = HEADER;
+        String body = LINE;
+        if (args.length > 2) {
+            String contents = new String(Files.readAllBytes(Paths.get(args[2])), StandardCharsets.UTF_8);
+            int bodyStart = contents.indexOf('\n', contents.indexOf("\nK:") + 1) + 1;
+            header = contents.substring(0, bodyStart);
+            body = contents.substring(bodyStart);
+        }
+        StringBuilder text = new StringBuilder(header);
+        for (int i = 0; i < copies; i++) {
+            text.append(body);
+        }
+        String source = text.toString();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        System.out.printf("%d copies, %d iterations, %d chars%n", copies, iterations, source.length());
+        for (ParserEngine engine : ParserEngine.values()) {
+            // let the JIT settle before measuring
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(source, engine);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(source, engine);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / iterations;
+            long bytes = (threads.getThreadAllocatedBytes(thread) - allocated) / iterations;
+            System.out.printf("  %-18s %8.3f ms/parse %12d bytes/parse %8.1f bytes/char%n",
+                    engine, millis, bytes, (double) bytes / source.length());
+        }
+    }
+}
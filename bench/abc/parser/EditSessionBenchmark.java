@@ -0,0 +1,58 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.Random;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Compares the time to bring a Song up to date after a one-character edit, parsing the whole tune
+ * again against AbcEditSession, on tunes of increasing length.
+ * 
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.EditSessionBenchmark [edits per size]
+ */
+public class EditSessionBenchmark {
+    
+    public static void main(String[] args) throws UnableToParseException, IOException {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        for (int measures : new int[] {500, 5000, 50000}) {
+            StringBuilder text = new StringBuilder("X:1\nT:Long tune\nK:D\n");
+            for (int i = 0; i < measures / 4; i++) {
+                text.append("A B ^c d e2 f g | [CEG] [CEG] _B2 (3ABc d2 | =c4 z2 G,A, | a'2 g f e d c B |\n");
+            }
+            String tune = text.toString();
+            AbcEditSession session = new AbcEditSession(tune);
+            Random random = new Random(0);
+            // warm up, then time edits that replace a note letter with another one
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < edits; i++) {
+                    session.edit(noteAt(tune, random), 1, i % 2 == 0 ? "a" : "b");
+                }
+                double incremental = (System.nanoTime() - start) / 1e3 / edits;
+                start = System.nanoTime();
+                int full = Math.max(1, edits / measures);
+                for (int i = 0; i < full; i++) {
+                    AbcParser.parse(session.getText(), ParserEngine.RECURSIVE_DESCENT);
+                }
+                double whole = (System.nanoTime() - start) / 1e3 / full;
+                if (round == 1) {
+                    System.out.printf("%6d measures: edit session %8.1f us/edit   whole parse %10.1f us/edit%n",
+                            measures, incremental, whole);
+                }
+            }
+        }
+    }
+    
+    // a random index in text of a letter 'a' or 'b' in the body; the edits only swap one for the other,
+    // so the original text will do
+    private static int noteAt(String text, Random random) {
+        while (true) {
+            int at = 30 + random.nextInt(text.length() - 30);
+            if (text.charAt(at) == 'a' || text.charAt(at) == 'b') {
+                return at;
+            }
+        }
+    }
+}
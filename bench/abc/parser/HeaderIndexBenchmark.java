@@ -0,0 +1,71 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures how long it takes to catalogue a directory of many abc files, by scanning only their headers
+ * with AbcHeaderScanner.index, against parsing each file in full with the recursive-descent engine.
+ * The directory is made in a temporary folder from copies of the files in sample_abc/, a hundred to a subdirectory,
+ * and deleted afterwards; the first run of each reads it from the OS cache, as a catalogue browser would on reopening.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.HeaderIndexBenchmark [files]
+ */
+public class HeaderIndexBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        List<byte[]> samples = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                samples.add(Files.readAllBytes(file));
+            }
+        }
+        Path directory = Files.createTempDirectory("header-index");
+        try {
+            List<Path> files = new ArrayList<>();
+            long bytes = 0;
+            for (int i = 0; i < count; i++) {
+                Path folder = directory.resolve("d" + i / 100);
+                if (i % 100 == 0) {
+                    Files.createDirectory(folder);
+                }
+                byte[] contents = samples.get(i % samples.size());
+                files.add(Files.write(folder.resolve(i + ".abc"), contents));
+                bytes += contents.length;
+            }
+            System.out.printf("%d files, %d bytes, %d reading threads%n", count, bytes, AbcHeaderScanner.READ_THREADS);
+
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                HeaderIndex index = AbcHeaderScanner.index(directory);
+                double indexSeconds = (System.nanoTime() - start) / 1e9;
+
+                start = System.nanoTime();
+                for (Path file : files) {
+                    AbcParser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), ParserEngine.RECURSIVE_DESCENT);
+                }
+                double parseSeconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("  run %d: index %.3f s (%d headers, %d errors), full parse one by one %.3f s%n",
+                        run, indexSeconds, index.getHeaders().size(), index.getErrors().size(), parseSeconds);
+            }
+        } finally {
+            try (Stream<Path> walk = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>)walk.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
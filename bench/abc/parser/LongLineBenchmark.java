@@ -0,0 +1,78 @@
+package abc.parser;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures how the grammar engine's parse time grows with the length of a line, parsing tunes whose
+ * body is one line of a given number of notes with and without memoizing (GeneratedAbcParser.parse with
+ * and without memo slots). If parsing is linear, the time per note stays the same as the line grows.
+ * Time spent in garbage collection is reported apart, since it grows with how much of the tree is
+ * still alive rather than with the work the parser does.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.LongLineBenchmark [iterations] [notes per line ...]
+ */
+public class LongLineBenchmark {
+
+    /**
+     * @param notes number of notes in the line, at least 1
+     * @return a tune in C whose body is a single line of notes, four to a measure
+     */
+    static String longLine(int notes) {
+        StringBuilder tune = new StringBuilder("X:1\nT:long line\nK:C\n");
+        for (int i = 0; i < notes; i++) {
+            tune.append("ABcd".charAt(i % 4)).append(i % 3 == 0 ? "/2 " : " ");
+            if (i % 4 == 3) {
+                tune.append("| ");
+            }
+        }
+        return tune.append("\n").toString();
+    }
+
+    // total milliseconds the JVM has spent collecting garbage so far
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws UnableToParseException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int[] sizes = {1250, 2500, 5000, 10000};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // let the JIT settle on both paths before timing them
+        String warmUp = longLine(sizes[0]);
+        for (int i = 0; i < iterations; i++) {
+            GeneratedAbcParser.parse(warmUp);
+            GeneratedAbcParser.parse(warmUp, AbcParser.MEMO_SLOTS);
+        }
+
+        System.out.printf("%d iterations, memo table of at most %d slots%n", iterations, AbcParser.MEMO_SLOTS);
+        System.out.printf("%8s  %-9s %10s %10s %12s%n", "notes", "memo", "ms/parse", "gc ms", "us/note (no gc)");
+        for (int notes : sizes) {
+            String tune = longLine(notes);
+            for (int memoSlots : new int[] {0, AbcParser.MEMO_SLOTS}) {
+                long gcBefore = gcMillis();
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    GeneratedAbcParser.parse(tune, memoSlots);
+                }
+                double parse = (System.nanoTime() - start) / 1e6 / iterations;
+                double gc = (double) (gcMillis() - gcBefore) / iterations;
+                System.out.printf("%8d  %-9s %10.3f %10.3f %12.3f%n",
+                        notes, memoSlots == 0 ? "off" : "packrat", parse, gc, 1000 * (parse - gc) / notes);
+            }
+        }
+    }
+}
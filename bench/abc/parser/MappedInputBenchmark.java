@@ -0,0 +1,130 @@
+package abc.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Compares reading a large songbook into a String, as Main.play used to, with mapping it into memory,
+ * by load time, parse time, peak heap and peak resident set size. Each way runs in its own JVM so
+ * that their peaks do not mix.
+ * 
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.MappedInputBenchmark [songbook file | size in MB]
+ * Given a size, a songbook of copies of the files in sample_abc/ is written to a temporary file first.
+ */
+public class MappedInputBenchmark {
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 2) {
+            measure(args[0], Paths.get(args[1]));
+            return;
+        }
+        String arg = args.length > 0 ? args[0] : "100";
+        Path file;
+        boolean generated = arg.matches("\\d+");
+        if (generated) {
+            file = Files.createTempFile("songbook", ".abc");
+            writeSongbook(file, Long.parseLong(arg) * 1000 * 1000);
+        } else {
+            file = Paths.get(arg);
+        }
+        try {
+            System.out.printf("%s, %.1f MB%n", file, Files.size(file) / 1e6);
+            for (String mode : new String[] {"string", "mapped"}) {
+                Process child = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-classpath", System.getProperty("java.class.path"),
+                        MappedInputBenchmark.class.getName(), mode, file.toString())
+                        .inheritIO().start();
+                child.waitFor();
+            }
+        } finally {
+            if (generated) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    // load and parse file one way, and print the measurements
+    private static void measure(String mode, Path file) throws IOException {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        CharSequence text;
+        if (mode.equals("string")) {
+            text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } else {
+            text = MappedText.open(file);
+        }
+        List<Integer> starts = AbcParser.tuneStarts(text);
+        double load = (System.nanoTime() - start) / 1e6;
+        long loadHeap = peakHeap();
+        // parse every tune without keeping the Songs, so that the input is what takes up memory
+        start = System.nanoTime();
+        long notes = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : text.length();
+            try {
+                notes += AbcRecursiveDescentParser.parse(text.subSequence(starts.get(i), end)).getMusic().duration() > 0 ? 1 : 0;
+            } catch (UnableToParseException e) {
+                // counted as not played
+            }
+        }
+        double parse = (System.nanoTime() - start) / 1e6;
+        System.out.printf("  %-6s load %7.1f ms (%d tunes, peak heap %6.1f MB)   parse %8.1f ms (%d tunes with music)"
+                + "   peak heap %6.1f MB   peak RSS %s%n",
+                mode, load, starts.size(), loadHeap / 1e6, parse, notes, peakHeap() / 1e6, peakRss());
+    }
+    
+    // the sum of the peak usage of every heap memory pool since the last reset
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    
+    // the peak resident set size of this process, from /proc on Linux
+    private static String peakRss() throws IOException {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmHWM:")) {
+                return line.substring("VmHWM:".length()).trim();
+            }
+        }
+        return "n/a";
+    }
+    
+    // write a songbook of at least size bytes made of copies of the files in sample_abc/
+    private static void writeSongbook(Path file, long size) throws IOException {
+        StringBuilder tunes = new StringBuilder();
+        try (java.nio.file.DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path tune : files) {
+                tunes.append(new String(Files.readAllBytes(tune), StandardCharsets.UTF_8)).append("\n");
+            }
+        }
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            while (written < size) {
+                out.write(tunes.toString());
+                written += tunes.length();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures the throughput, in MB of abc text per second, of the recursive-descent engine on one large tune,
+ * parsing its body a line after another and in parallel chunks of lines (ParserEngine.PARALLEL_RECURSIVE_DESCENT).
+ * The tune has a default voice and then two voices taking turns, a dozen lines at a time.
+ * The parallel engine runs on the common ForkJoinPool; to see how it scales, run again with its parallelism
+ * set to each number of threads wanted, e.g. -Djava.util.concurrent.ForkJoinPool.common.parallelism=4.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.ParallelBodyBenchmark [lines] [seconds per engine]
+ */
+public class ParallelBodyBenchmark {
+
+    /**
+     * @param lines number of lines of music in the body, at least 1
+     * @return a tune whose body has the given number of lines of music, and a voice field every dozen of them
+     */
+    static String bigTune(int lines) {
+        StringBuilder tune = new StringBuilder("X:1\nT:big tune\nM:4/4\nL:1/8\nK:D\n");
+        for (int i = 0; i < lines; i++) {
+            if (i >= 12 && i % 12 == 0) {
+                tune.append("V:").append(i / 12 % 2 == 0 ? "upper" : "lower").append("\n");
+            }
+            tune.append("|: A2 B c d2 e f | [1 g4 (3gfe d2 :|[2 [DFA] ^c/2d/2 z =F G,, |\n");
+        }
+        return tune.toString();
+    }
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        String tune = bigTune(lines);
+        System.out.printf("%d lines, %d chars, %d threads in the common pool%n",
+                lines, tune.length(), ForkJoinPool.commonPool().getParallelism());
+        for (ParserEngine engine : new ParserEngine[] {ParserEngine.RECURSIVE_DESCENT, ParserEngine.PARALLEL_RECURSIVE_DESCENT}) {
+            // one untimed run to let the JIT compile the engine
+            run(tune, engine, seconds / 2);
+            long start = System.nanoTime();
+            int rounds = run(tune, engine, seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %-27s %8.3f MB/s %8.3f ms/parse%n",
+                    engine, rounds * tune.length() / 1e6 / elapsed, elapsed * 1000 / rounds);
+        }
+    }
+
+    // parse tune, over and over, for at least seconds; return the number of parses
+    private static int run(String tune, ParserEngine engine, double seconds) throws IOException, UnableToParseException {
+        long deadline = System.nanoTime() + (long)(seconds * 1e9);
+        int rounds = 0;
+        do {
+            AbcParser.parse(tune, engine);
+            rounds++;
+        } while (System.nanoTime() < deadline);
+        return rounds;
+    }
+}
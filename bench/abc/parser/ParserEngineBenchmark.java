@@ -0,0 +1,59 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures the throughput, in MB of abc text per second, of each ParserEngine
+ * over every file in a directory.
+ * 
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.ParserEngineBenchmark [directory] [seconds per engine]
+ */
+public class ParserEngineBenchmark {
+    
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String directory = args.length > 0 ? args[0] : "sample_abc";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        List<String> tunes = new ArrayList<>();
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*.abc")) {
+            for (Path file : files) {
+                byte[] contents = Files.readAllBytes(file);
+                tunes.add(new String(contents, StandardCharsets.UTF_8));
+                bytes += contents.length;
+            }
+        }
+        AbcParser.warmUp();
+        System.out.printf("%s: %d files, %d bytes%n", directory, tunes.size(), bytes);
+        for (ParserEngine engine : ParserEngine.values()) {
+            // one untimed run to let the JIT compile the engine
+            run(tunes, engine, seconds / 2);
+            long start = System.nanoTime();
+            int rounds = run(tunes, engine, seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %-17s %8.3f MB/s (%d rounds)%n", engine, rounds * bytes / 1e6 / elapsed, rounds);
+        }
+    }
+    
+    // parse every tune, over and over, for at least seconds; return the number of rounds
+    private static int run(List<String> tunes, ParserEngine engine, double seconds) throws IOException, UnableToParseException {
+        long deadline = System.nanoTime() + (long)(seconds * 1e9);
+        int rounds = 0;
+        do {
+            for (String tune : tunes) {
+                AbcParser.parse(tune, engine);
+            }
+            rounds++;
+        } while (System.nanoTime() < deadline);
+        return rounds;
+    }
+}
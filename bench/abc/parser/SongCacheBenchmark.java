@@ -0,0 +1,61 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures loading a song with AbcParser.parse against loading it from a SongCache
+ * that already holds it, and reports the size of the cache entry.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.SongCacheBenchmark [file path] [iterations]
+ */
+public class SongCacheBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String file = args.length > 0 ? args[0] : "sample_abc/fur_elise.abc";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String contents = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Path directory = Files.createTempDirectory("songcache");
+        try {
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            AbcParser.warmUp();
+
+            // let the JIT settle on both paths before timing them
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(contents);
+                cache.parse(contents);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(contents);
+            }
+            double parse = (System.nanoTime() - start) / 1e6 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                cache.parse(contents);
+            }
+            double hit = (System.nanoTime() - start) / 1e6 / iterations;
+
+            System.out.printf("%s, %d iterations, %d byte source, %d byte entry%n",
+                    file, iterations, contents.length(), cache.sizeInBytes());
+            System.out.printf("  parse:     %.3f ms/load%n", parse);
+            System.out.printf("  cache hit: %.3f ms/load%n", hit);
+        } finally {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    Files.delete(entry);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
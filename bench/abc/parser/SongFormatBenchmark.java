@@ -0,0 +1,77 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures loading a large song from its SongFormat binary form against parsing its abc text
+ * with each engine. The song is the given file with its body repeated copies times.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.SongFormatBenchmark [file path] [copies] [iterations]
+ */
+public class SongFormatBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String file = args.length > 0 ? args[0] : "sample_abc/fur_elise.abc";
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String contents = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        int bodyStart = contents.indexOf('\n', contents.indexOf("\nK:") + 1) + 1;
+        StringBuilder text = new StringBuilder(contents);
+        for (int i = 1; i < copies; i++) {
+            text.append(contents, bodyStart, contents.length());
+        }
+        String source = text.toString();
+
+        Song song = AbcParser.parse(source, ParserEngine.RECURSIVE_DESCENT);
+        Path binary = Files.createTempFile("song", ".song");
+        try {
+            try (OutputStream out = Files.newOutputStream(binary)) {
+                SongFormat.write(song, out);
+            }
+            if (!SongFormat.read(binary).equals(song)) {
+                throw new AssertionError("binary form does not read back as the same song");
+            }
+
+            // let the JIT settle on every path before timing them
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(source, ParserEngine.GRAMMAR);
+                AbcParser.parse(source, ParserEngine.RECURSIVE_DESCENT);
+                SongFormat.read(binary);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(source, ParserEngine.GRAMMAR);
+            }
+            double grammar = (System.nanoTime() - start) / 1e6 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.parse(source, ParserEngine.RECURSIVE_DESCENT);
+            }
+            double descent = (System.nanoTime() - start) / 1e6 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                SongFormat.read(binary);
+            }
+            double read = (System.nanoTime() - start) / 1e6 / iterations;
+
+            System.out.printf("%s x %d, %d iterations, %d byte text, %d byte binary%n",
+                    file, copies, iterations, source.length(), Files.size(binary));
+            System.out.printf("  grammar parse:     %8.3f ms/load%n", grammar);
+            System.out.printf("  descent parse:     %8.3f ms/load%n", descent);
+            System.out.printf("  SongFormat.read:   %8.3f ms/load (%.1f%% of grammar parse)%n", read, 100 * read / grammar);
+        } finally {
+            Files.delete(binary);
+        }
+    }
+}
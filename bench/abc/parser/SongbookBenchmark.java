@@ -0,0 +1,44 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Compares parsing a songbook one tune at a time with AbcParser.parseAll,
+ * on a book made of copies of one tune.
+ * 
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.SongbookBenchmark [abc file] [copies] [engine]
+ */
+public class SongbookBenchmark {
+    
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String file = args.length > 0 ? args[0] : "sample_abc/fur_elise.abc";
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        ParserEngine engine = args.length > 2 ? ParserEngine.valueOf(args[2]) : ParserEngine.RECURSIVE_DESCENT;
+        String tune = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        StringBuilder book = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            book.append(tune).append("\n");
+        }
+        String text = book.toString();
+        AbcParser.warmUp();
+        System.out.printf("%s x %d, %s, %d cores%n", file, copies, engine, Runtime.getRuntime().availableProcessors());
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < copies; i++) {
+                AbcParser.parse(tune, engine);
+            }
+            double sequential = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            Songbook songbook = AbcParser.parseAll(text, engine);
+            double parallel = (System.nanoTime() - start) / 1e6;
+            System.out.printf("  one at a time %8.1f ms   parseAll %8.1f ms   (%d tunes, %d errors)%n",
+                    sequential, parallel, songbook.size(), songbook.getErrors().size());
+        }
+    }
+}
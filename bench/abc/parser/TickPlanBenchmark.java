@@ -0,0 +1,69 @@
+package abc.parser;
+
+import java.io.IOException;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+
+import abc.sound.Music;
+import abc.sound.SequencePlayer;
+import abc.sound.TickPlan;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Plans the ticks per beat of a long generated score, two hours of 4/4 at 120 beats per minute by default,
+ * and compares the last tick it plays at with the last tick at the fixed Song.TICKS_PER_BEAT, which no longer
+ * fits in an int after about 9,900 beats. If there is a MIDI sequencer, it also times scheduling the score
+ * at both resolutions; without one, only the plan is measured.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.TickPlanBenchmark [measures] [voices] [iterations]
+ */
+public class TickPlanBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        long measures = args.length > 0 ? Long.parseLong(args[0]) : 3600;
+        int voices = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        // no repeats, so the score plays for exactly the measures written
+        String text = AbcCorpusGenerator.DEFAULT.withMeasures(measures).withVoices(voices).withRepeatDensity(0).generate();
+        Song song = AbcParser.parse(text, ParserEngine.RECURSIVE_DESCENT);
+        Music music = song.getMusic();
+        double beats = music.duration();
+        System.out.printf("%d measures x %d voices, %.0f beats, %.1f minutes at %.0f beats per minute%n",
+                measures, voices, beats, beats / song.getHeader().getBeatsPerMinute(),
+                song.getHeader().getBeatsPerMinute());
+
+        for (int i = 0; i < iterations; i++) {
+            TickPlan.resolution(music);
+        }
+        long start = System.nanoTime();
+        long resolution = 0;
+        for (int i = 0; i < iterations; i++) {
+            resolution = TickPlan.resolution(music);
+        }
+        double planning = (System.nanoTime() - start) / 1e6 / iterations;
+        int ticksPerBeat = TickPlan.ticksPerBeat(music);
+        System.out.printf("planned %d ticks per beat (resolution %d) in %.2f ms%n", ticksPerBeat, resolution, planning);
+        System.out.printf("last tick: planned %,d, fixed %,d (int holds up to %,d)%n",
+                (long) Math.ceil(beats * ticksPerBeat), (long) Math.ceil(beats * Song.TICKS_PER_BEAT), Integer.MAX_VALUE);
+
+        try {
+            for (int perBeat : new int[] {ticksPerBeat, Song.TICKS_PER_BEAT}) {
+                double total = 0;
+                int events = 0;
+                for (int i = 0; i < iterations; i++) {
+                    SequencePlayer player = new SequencePlayer(120, perBeat);
+                    start = System.nanoTime();
+                    music.play(player, 0);
+                    total += System.nanoTime() - start;
+                    events = player.getEventCount();
+                }
+                System.out.printf("scheduled %,d MIDI events at %d ticks per beat in %.1f ms%n",
+                        events, perBeat, total / 1e6 / iterations);
+            }
+        } catch (MidiUnavailableException | InvalidMidiDataException e) {
+            System.out.println("no MIDI sequencer, so scheduling is not measured: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package abc.parser;
+
+import java.io.IOException;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+
+import abc.sound.Music;
+import abc.sound.SequencePlayer;
+import abc.sound.Timeline;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Compiles a generated score of about a million notes into a Timeline, and reports the time that takes and
+ * the memory the timeline and the music model take per note. If there is a MIDI sequencer, it also times
+ * scheduling the score by walking the music with Music.play against ingesting the timeline with
+ * SequencePlayer.addAll; without one, scheduling is not measured.
+ *
+ * Run from the root of the package, with enough heap for the score:
+ *   java -Xmx2g -classpath src:bench:lib/parserlib.jar abc.parser.TimelineBenchmark [measures] [voices] [iterations]
+ */
+public class TimelineBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        long measures = args.length > 0 ? Long.parseLong(args[0]) : 57000;
+        int voices = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String text = AbcCorpusGenerator.DEFAULT.withMeasures(measures).withVoices(voices).generate();
+
+        long before = usedHeap();
+        Song song = AbcParser.parse(text, ParserEngine.RECURSIVE_DESCENT);
+        Music music = song.getMusic();
+        music.duration();
+        long modelBytes = usedHeap() - before;
+
+        Timeline timeline = null;
+        for (int i = 0; i < iterations; i++) {
+            timeline = Timeline.compile(music);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            timeline = Timeline.compile(music);
+        }
+        double compiling = (System.nanoTime() - start) / 1e6 / iterations;
+        int notes = timeline.size();
+        System.out.printf("%d measures x %d voices: %,d notes at %d ticks per beat%n",
+                measures, voices, notes, timeline.ticksPerBeat());
+        System.out.printf("compiled in %.1f ms, %.0f ns per note%n", compiling, compiling * 1e6 / notes);
+        System.out.printf("timeline %.1f bytes per note, music model with repeats unrolled %.1f bytes per note%n",
+                (double) timeline.sizeInBytes() / notes, (double) modelBytes / notes);
+
+        try {
+            double walking = 0;
+            double ingesting = 0;
+            for (int i = 0; i < iterations; i++) {
+                SequencePlayer player = new SequencePlayer(120, timeline.ticksPerBeat());
+                start = System.nanoTime();
+                music.play(player, 0);
+                walking += System.nanoTime() - start;
+                player = new SequencePlayer(120, timeline.ticksPerBeat());
+                start = System.nanoTime();
+                player.addAll(timeline);
+                ingesting += System.nanoTime() - start;
+            }
+            System.out.printf("scheduled with Music.play in %.1f ms, with SequencePlayer.addAll in %.1f ms%n",
+                    walking / 1e6 / iterations, ingesting / 1e6 / iterations);
+        } catch (MidiUnavailableException | InvalidMidiDataException e) {
+            System.out.println("no MIDI sequencer, so scheduling is not measured: " + e.getMessage());
+        }
+    }
+
+    // bytes of heap in use, after collecting garbage
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
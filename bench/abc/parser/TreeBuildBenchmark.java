@@ -0,0 +1,45 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import lib6005.parser.ParseTree;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Measures the time and the bytes allocated to build a Song from a parse tree that has already been made,
+ * i.e. AbcParser.buildAST on its own, without parsing. Allocation is read from the JVM's count of bytes
+ * allocated by this thread (com.sun.management.ThreadMXBean), so it needs a HotSpot-based JVM.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.TreeBuildBenchmark [abc file] [iterations]
+ */
+public class TreeBuildBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        String file = args.length > 0 ? args[0] : "sample_abc/fur_elise.abc";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        String tune = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        ParseTree<MusicGrammar> tree = GeneratedAbcParser.parse(tune);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // let the JIT compile the builder before measuring it
+        for (int i = 0; i < iterations; i++) {
+            AbcParser.buildAST(tree, Runnable::run);
+        }
+        for (int run = 0; run < 3; run++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AbcParser.buildAST(tree, Runnable::run);
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / iterations;
+            double bytes = (double) (threads.getThreadAllocatedBytes(thread) - bytesBefore) / iterations;
+            System.out.printf("%s: %10.1f us/build %12.0f bytes/build%n", file, micros, bytes);
+        }
+    }
+}
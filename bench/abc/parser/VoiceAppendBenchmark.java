@@ -0,0 +1,86 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import abc.sound.Measure;
+import abc.sound.Music;
+import abc.sound.Note;
+import abc.sound.Pitch;
+import abc.sound.Voice;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Times building a voice a line at a time with Voice.append, as the parser does, for doubling numbers of lines
+ * up to 20,000 by default. The time per line should stay about the same as the voice grows. For comparison, it also
+ * times copying the whole list of measures for every line, as Voice.append used to. Last, it parses a generated
+ * single-voice tune of the largest number of lines.
+ *
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.VoiceAppendBenchmark [lines] [measures per line]
+ */
+public class VoiceAppendBenchmark {
+
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        int maxLines = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int perLine = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        List<List<Measure>> lines = new ArrayList<>();
+        for (int i = 0; i < maxLines; i++) {
+            List<Measure> line = new ArrayList<>();
+            for (int m = 0; m < perLine; m++) {
+                List<Music> notes = Arrays.asList(new Note(1, Pitch.MIDDLE_C.transpose((i + m) % 12)));
+                line.add(new Measure(notes, 1, false, false, false, false, false));
+            }
+            lines.add(line);
+        }
+        // let the JIT settle before timing
+        for (int round = 0; round < 3; round++) {
+            appendLines(lines, maxLines / 4);
+            copyLines(lines, maxLines / 4);
+        }
+        for (int n = maxLines / 8; n <= maxLines; n *= 2) {
+            long start = System.nanoTime();
+            Voice voice = appendLines(lines, n);
+            double appending = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            int copied = copyLines(lines, n);
+            double copying = (System.nanoTime() - start) / 1e6;
+            if (copied != voice.getNumMeasures()) {
+                throw new AssertionError("voice has " + voice.getNumMeasures() + " measures, not " + copied);
+            }
+            System.out.printf("%6d lines: Voice.append %8.1f ms (%6.0f ns per line)   copying %9.1f ms (%8.0f ns per line)%n",
+                    n, appending, appending * 1e6 / n, copying, copying * 1e6 / n);
+        }
+
+        String text = AbcCorpusGenerator.DEFAULT.withMeasures((long) maxLines * 4).withRepeatDensity(0).generate();
+        for (ParserEngine engine : ParserEngine.values()) {
+            AbcParser.parse(text, engine);
+            long start = System.nanoTime();
+            AbcParser.parse(text, engine);
+            System.out.printf("parsed a %d-line voice with %s in %.1f ms%n",
+                    maxLines, engine, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    // a voice of the first n lines, appended one at a time
+    private static Voice appendLines(List<List<Measure>> lines, int n) {
+        Voice voice = new Voice();
+        for (int i = 0; i < n; i++) {
+            voice = voice.append(lines.get(i));
+        }
+        return voice;
+    }
+
+    // the number of measures in the first n lines, copying all of them so far for each line
+    private static int copyLines(List<List<Measure>> lines, int n) {
+        List<Measure> measures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Measure> copy = new ArrayList<>(measures);
+            copy.addAll(lines.get(i));
+            measures = new ArrayList<>(copy);
+        }
+        return measures.size();
+    }
+}
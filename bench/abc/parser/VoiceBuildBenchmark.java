@@ -0,0 +1,62 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lib6005.parser.ParseTree;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Compares building the Song for a synthetic many-voice score one voice after another
+ * with building the voices in parallel. Only the building is timed; the score is parsed once up front.
+ * 
+ * Run from the root of the package:
+ *   java -classpath src:bench:lib/parserlib.jar abc.parser.VoiceBuildBenchmark [voices] [measures per voice] [threads]
+ */
+public class VoiceBuildBenchmark {
+    
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        int voices = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int measures = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String score = score(voices, measures);
+        long start = System.nanoTime();
+        ParseTree<MusicGrammar> tree = AbcParser.getParser().parse(score);
+        System.out.printf("%d voices x %d measures, %d bytes, parsed in %.1f ms, %d threads%n",
+                voices, measures, score.length(), (System.nanoTime() - start) / 1e6, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                AbcParser.buildAST(tree, Runnable::run);
+                double sequential = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                AbcParser.buildAST(tree, pool);
+                double parallel = (System.nanoTime() - start) / 1e6;
+                System.out.printf("  one voice at a time %8.1f ms   parallel %8.1f ms%n", sequential, parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    // a score with the given number of voices, each playing the given number of measures of 4/4,
+    // with accidentals, chords and tuplets, 8 measures to a line
+    private static String score(int voices, int measures) {
+        StringBuilder score = new StringBuilder("X:1\nT:Synthetic score\nM:4/4\nL:1/8\nK:D\n");
+        for (int v = 1; v <= voices; v++) {
+            score.append("V:").append(v).append("\n");
+        }
+        String[] bars = {"A B ^c d e2 f g |", "[CEG] [CEG] _B2 (3ABc d2 |", "=c4 z2 G,A, |", "a'2 g f e d c B |"};
+        for (int v = 1; v <= voices; v++) {
+            score.append("V:").append(v).append("\n");
+            for (int m = 0; m < measures; m++) {
+                score.append(bars[(m + v) % bars.length]);
+                score.append(m % 8 == 7 ? "\n" : " ");
+            }
+            score.append("\n");
+        }
+        return score.toString();
+    }
+}
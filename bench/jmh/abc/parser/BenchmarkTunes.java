@@ -0,0 +1,48 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * The tunes the JMH benchmarks run on: the files of sample_abc/, and big tunes made by AbcCorpusGenerator.
+ */
+public class BenchmarkTunes {
+
+    /**
+     * Prefix of the name of a generated tune, followed by its measures per voice, "x", and its voices,
+     * e.g. "generated-2000x2"
+     */
+    public static final String GENERATED = "generated-";
+
+    private BenchmarkTunes() {
+    }
+
+    /**
+     * @param name the name of a file in sample_abc/, or GENERATED followed by measures and voices
+     * @return the text of the tune; a generated tune is made from AbcCorpusGenerator.DEFAULT
+     * @throws IOException if the file cannot be read
+     */
+    public static String text(String name) throws IOException {
+        if (name.startsWith(GENERATED)) {
+            String[] size = name.substring(GENERATED.length()).split("x");
+            return AbcCorpusGenerator.DEFAULT.withMeasures(Long.parseLong(size[0]))
+                    .withVoices(Integer.parseInt(size[1])).generate();
+        }
+        return new String(Files.readAllBytes(Paths.get("sample_abc", name)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param name as for text
+     * @return the tune parsed by the recursive-descent engine
+     * @throws IOException if the file cannot be read, or the tune cannot be parsed
+     */
+    public static Song song(String name) throws IOException {
+        try {
+            return AbcParser.parse(text(name), ParserEngine.RECURSIVE_DESCENT);
+        } catch (lib6005.parser.UnableToParseException e) {
+            throw new IOException("cannot parse " + name, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Throughput of AbcParser.parse, in parses a second, on big tunes made by AbcCorpusGenerator, from one voice
+ * of a thousand measures (about 20 KB) to four voices of twenty thousand (about 2 MB), with every engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GeneratedParserBenchmarks {
+
+    @Param({BenchmarkTunes.GENERATED + "1000x1", BenchmarkTunes.GENERATED + "20000x1",
+        BenchmarkTunes.GENERATED + "20000x4"})
+    public String tune;
+
+    // every engine when no values are given
+    @Param
+    public ParserEngine engine;
+
+    private String text;
+
+    @Setup
+    public void generate() throws IOException {
+        text = BenchmarkTunes.text(tune);
+    }
+
+    @Benchmark
+    public Song parse() throws UnableToParseException, IOException {
+        return AbcParser.parse(text, engine);
+    }
+}
@@ -0,0 +1,52 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Throughput of AbcParser.parse, in parses a second, on every file of sample_abc/ with every engine.
+ * The text is read once, before the benchmark, so only parsing and building the Song are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmarks {
+
+    @Param({"abc_song.abc", "bohemian_rhapsody.abc", "carry_on.abc", "fur_elise.abc", "invention.abc",
+        "little_night_music.abc", "paddy.abc", "phantom.abc", "piece1.abc", "piece2.abc", "prelude.abc",
+        "sample1.abc", "sample2.abc", "sample3.abc", "scale.abc", "waxies_dargle.abc"})
+    public String file;
+
+    // every engine when no values are given
+    @Param
+    public ParserEngine engine;
+
+    private String text;
+
+    @Setup
+    public void read() throws IOException {
+        text = BenchmarkTunes.text(file);
+    }
+
+    @Benchmark
+    public Song parse() throws UnableToParseException, IOException {
+        return AbcParser.parse(text, engine);
+    }
+}
@@ -0,0 +1,27 @@
+package abc.player;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of bench/jmh with JMH's GC profiler, which adds to each throughput result the bytes
+ * allocated per operation (gc.alloc.rate.norm), the allocation rate, and the number and time of collections,
+ * so a change that makes a hot path allocate more shows up next to its speed.
+ *
+ * Run from the root of the package, with the JMH jars in JMH (see README.txt):
+ *   java -classpath out:lib/parserlib.jar:$JMH abc.player.BenchmarkSuite [regex of benchmarks]
+ * e.g. abc.player.BenchmarkSuite ModelBenchmarks.expandRepeats
+ */
+public class BenchmarkSuite {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "abc\\..*Benchmarks")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
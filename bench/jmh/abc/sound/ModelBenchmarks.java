@@ -0,0 +1,90 @@
+package abc.sound;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import abc.parser.BenchmarkTunes;
+
+/**
+ * Throughput of the music model without a MIDI sequencer: unrolling the repeats of every voice of a tune,
+ * rescaling a tune, and transposing pitches and turning them into MIDI notes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmarks {
+
+    @Param({"fur_elise.abc", "invention.abc", "little_night_music.abc", BenchmarkTunes.GENERATED + "2000x2"})
+    public String tune;
+
+    private Voices music;
+    private final List<List<Measure>> written = new ArrayList<>();
+    private final List<Pitch> pitches = new ArrayList<>();
+
+    @Setup
+    public void parse() throws IOException {
+        music = (Voices) BenchmarkTunes.song(tune).getMusic();
+        for (Music voice : music.getVoices().values()) {
+            written.add(((Voice) voice).measures());
+        }
+        for (int semitones = -24; semitones < 24; semitones++) {
+            pitches.add(Pitch.MIDDLE_C.transpose(semitones));
+        }
+    }
+
+    /**
+     * Unroll every voice, as Voice.duration and Voice.getNumMeasures do the first time either is called.
+     * Each voice is made afresh from its written measures, which it shares rather than copies, so nothing is cached.
+     */
+    @Benchmark
+    public void expandRepeats(Blackhole sink) {
+        for (List<Measure> measures : written) {
+            Voice voice = new Voice(measures);
+            sink.consume(voice.duration());
+            sink.consume(voice.getNumMeasures());
+        }
+    }
+
+    @Benchmark
+    public Music rescale() {
+        return music.rescale(1.5);
+    }
+
+    // the number of pitches each call of the pitch benchmarks goes through
+    private static final int PITCHES = 48;
+
+    @Benchmark
+    @OperationsPerInvocation(PITCHES)
+    public void transpose(Blackhole sink) {
+        for (int i = 0; i < PITCHES; i++) {
+            sink.consume(pitches.get(i).transpose(7));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PITCHES)
+    public void toMidiNote(Blackhole sink) {
+        for (int i = 0; i < PITCHES; i++) {
+            sink.consume(pitches.get(i).toMidiNote());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package abc.sound;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import abc.parser.BenchmarkTunes;
+
+/**
+ * Throughput of scheduling music on a SequencePlayer: a whole tune with Voices.play, the same tune compiled
+ * into a Timeline with SequencePlayer.addAll, and single notes with SequencePlayer.addNote. Each call schedules onto an empty player, made before the call and not measured,
+ * so the MIDI track does not grow from one call to the next. Making a SequencePlayer needs a MIDI sequencer,
+ * as playing a song does; on a machine without one, these benchmarks fail in their setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerBenchmarks {
+
+    @Param({"fur_elise.abc", "invention.abc", "little_night_music.abc", BenchmarkTunes.GENERATED + "2000x2"})
+    public String tune;
+
+    private Music music;
+    private Timeline timeline;
+    private SequencePlayer player;
+
+    @Setup
+    public void parse() throws IOException {
+        music = BenchmarkTunes.song(tune).getMusic();
+        // unroll the repeats now, so that only scheduling is measured
+        music.duration();
+        timeline = Timeline.compile(music);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyPlayer() throws MidiUnavailableException, InvalidMidiDataException {
+        player = new SequencePlayer(120, timeline.ticksPerBeat());
+    }
+
+    @Benchmark
+    public SequencePlayer playVoices() {
+        music.play(player, 0);
+        return player;
+    }
+
+    @Benchmark
+    public SequencePlayer addTimeline() {
+        player.addAll(timeline);
+        return player;
+    }
+
+    // the number of notes each call of addNote schedules
+    private static final int NOTES = 1024;
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public SequencePlayer addNote() {
+        for (int i = 0; i < NOTES; i++) {
+            player.addNote(48 + i % 24, i * 0.5, 0.5);
+        }
+        return player;
+    }
+}
@@ -3,6 +3,8 @@ package abc.header;
 import java.util.ArrayList;
 import java.util.List;
 
+import abc.sound.Rational;
+
 /**
  * Header contains all of the header information of a song
  * Header is an immutable datatype
@@ -11,13 +13,14 @@ public class Header {
     
     //AF: title represents the name of the song
     //    keySignature is represented by the integer denotes the Music's semitones up from middle C
-    //    defaultLength represents the default length of a note or rest
+    //    defaultLength represents the default length of a note or rest, exactly
     //    meter represents the time signature of the song
     //    tempo represents the speed of the song based on defaultLength
     //    composerName represents the name of the composer of the song
     //    indexNumber represents the index number of the song
     //    voice represents the names of all the voices in the song
     //    beatsPerDefaultNote represents how many beats (beat size is based off of meter) are contained in each note of length defaultLength
+    //    exactBeatsPerDefaultNote is beatsPerDefaultNote as an exact fraction
     //RI: defaultLength > 0
     //    indexNumber >= 1
     //    beatsPerDefaultNote > 0
@@ -28,26 +31,27 @@ public class Header {
     //fields
     private final String composerName;
     private final KeySignature keySignature;
-    private final double defaultLength;
+    private final Rational defaultLength;
     private final Meter meter;
     private final Tempo tempo;
     private final String title;
     private final int indexNumber;
     private final List<String> voice;
     private final double beatsPerDefaultNote;
+    private final Rational exactBeatsPerDefaultNote;
     
     /**
      * Create a new header
      * @param voice list of names of voices if there are multiple voices
      * @param composerName name of composer
      * @param keySignature semitones up from middle C of key
-     * @param defaultLength default length of note or rest
+     * @param defaultLength default length of note or rest, > 0
      * @param meter time signature
      * @param tempo speed of song
      * @param title title of song
      * @param indexNumber index number of song
      */
-    public Header(List<String> voice, String composerName, KeySignature keySignature, double defaultLength, Meter meter, Tempo tempo, String title, int indexNumber) {
+    public Header(List<String> voice, String composerName, KeySignature keySignature, Rational defaultLength, Meter meter, Tempo tempo, String title, int indexNumber) {
         this.composerName = composerName;
         this.keySignature = keySignature;
         this.defaultLength = defaultLength;
@@ -56,7 +60,8 @@ public class Header {
         this.title = title;
         this.indexNumber = indexNumber;
         this.voice = new ArrayList<>(voice);
-        this.beatsPerDefaultNote = defaultLength*meter.getDenominator();
+        this.exactBeatsPerDefaultNote = defaultLength.times(meter.getDenominator());
+        this.beatsPerDefaultNote = exactBeatsPerDefaultNote.toDouble();
         checkRep();
     }
     
@@ -64,7 +69,7 @@ public class Header {
      * check RI
      */
     private void checkRep() {
-        assert (defaultLength > 0);
+        assert defaultLength.signum() > 0;
         assert indexNumber >= 1;
         assert beatsPerDefaultNote >= 0;
         assert keySignature != null;
@@ -81,6 +86,14 @@ public class Header {
         return this.beatsPerDefaultNote;
     }
     
+    /**
+     * Get the number of beats for the default note length, exactly
+     * @return number of beats
+     */
+    public Rational getExactBeatsPerDefaultNote(){
+        return this.exactBeatsPerDefaultNote;
+    }
+    
     /**
      * Get the name of the composer
      * @return composer's name or "Unknown"
@@ -102,6 +115,14 @@ public class Header {
      * @return default length
      */
     public double getDefaultLength() {
+        return defaultLength.toDouble();
+    }
+    
+    /**
+     * Get default length of note, exactly
+     * @return default length
+     */
+    public Rational getExactDefaultLength() {
         return defaultLength;
     }
     
@@ -179,7 +200,7 @@ public class Header {
             Header that = (Header)thatObject;
             return this.composerName.equals(that.composerName) 
                     && this.keySignature.equals(that.keySignature)
-                    && this.defaultLength == that.defaultLength
+                    && this.defaultLength.equals(that.defaultLength)
                     && this.meter.equals(that.meter)
                     && this.tempo.equals(that.tempo) 
                     && this.title.equals(that.title)
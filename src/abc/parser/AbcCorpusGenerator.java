@@ -0,0 +1,428 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable recipe for a synthetic abc tune, as big as wanted, for benchmarks and stress tests.
+ * Every tune it makes follows Abc.g and parses with every ParserEngine into a Song with the given number of
+ * voices, each with the given number of written measures of 4/4, and the same tune is made from the same recipe
+ * every time. The music is random, drawn from the seed: notes of various lengths, octaves and accidentals,
+ * rests, chords and tuplets, in sections of SECTION_MEASURES measures that may repeat and have first and
+ * second endings. The voices take turns a line of MEASURES_PER_LINE measures at a time, so a tune of any size is
+ * written out as it is made, in constant memory.
+ * Start from DEFAULT and change what is wanted, e.g. DEFAULT.withVoices(3).withMeasures(1_000_000).withSeed(7).
+ *
+ * To write a tune to a file, run from the root of the package:
+ *   java -classpath src:lib/parserlib.jar abc.parser.AbcCorpusGenerator file measures [voices] [seed]
+ */
+public class AbcCorpusGenerator {
+
+    /**
+     * Measures in a line of the tune
+     */
+    public static final int MEASURES_PER_LINE = 4;
+
+    /**
+     * Measures in a section, the unit that may repeat
+     */
+    public static final int SECTION_MEASURES = 2 * MEASURES_PER_LINE;
+
+    /**
+     * Every key the tune may be in
+     */
+    public static final List<String> KEYS = Arrays.asList(
+            "C", "G", "D", "A", "E", "B", "F#", "C#", "F", "Bb", "Eb", "Ab", "Db", "Gb", "Cb",
+            "Am", "Em", "Bm", "F#m", "C#m", "G#m", "D#m", "A#m", "Dm", "Gm", "Cm", "Fm", "Bbm", "Ebm", "Abm");
+
+    /**
+     * A tune of one voice of 64 measures in a key drawn from seed 0, with some of everything
+     */
+    public static final AbcCorpusGenerator DEFAULT = new AbcCorpusGenerator(1, 64, 0.1, 0.05, 0.1, 0.5, 0.5, null, 0);
+
+    // eighth notes in a measure of 4/4, with L:1/8
+    private static final int MEASURE_UNITS = 8;
+    // how often a note is a rest
+    private static final double REST_DENSITY = 0.08;
+    private static final String BASENOTES = "CDEFGABcdefgab";
+    private static final String[] ACCIDENTALS = {"^", "_", "=", "^^", "__"};
+
+    private final int voices;
+    private final long measures;
+    private final double chordDensity;
+    private final double tupletDensity;
+    private final double accidentalDensity;
+    private final double repeatDensity;
+    private final double endingDensity;
+    private final String key;
+    private final long seed;
+
+    //AF:
+    //  represents the tune of voices voices, each of measures written measures, where each element of a measure
+    //  is a chord with probability chordDensity, a tuplet with probability tupletDensity, and otherwise a note or
+    //  rest; each note has an accidental with probability accidentalDensity; each full section repeats with
+    //  probability repeatDensity, and a repeating section has first and second endings with probability
+    //  endingDensity; the key is key, or drawn from seed if key is null; and all the random choices are drawn
+    //  from a java.util.Random seeded with seed
+    //RI:
+    //  voices >= 1, measures >= 1
+    //  every density is in [0, 1], and chordDensity + tupletDensity <= 1
+    //  key is null or in KEYS
+    //rep exposure:
+    //  all fields are private final, and immutable
+
+    // check RI
+    private void checkRep() {
+        assert voices >= 1 && measures >= 1;
+        assert chordDensity + tupletDensity <= 1;
+        for (double density : new double[] {chordDensity, tupletDensity, accidentalDensity, repeatDensity, endingDensity}) {
+            assert density >= 0 && density <= 1;
+        }
+        assert key == null || KEYS.contains(key);
+    }
+
+    private AbcCorpusGenerator(int voices, long measures, double chordDensity, double tupletDensity,
+            double accidentalDensity, double repeatDensity, double endingDensity, String key, long seed) {
+        this.voices = voices;
+        this.measures = measures;
+        this.chordDensity = chordDensity;
+        this.tupletDensity = tupletDensity;
+        this.accidentalDensity = accidentalDensity;
+        this.repeatDensity = repeatDensity;
+        this.endingDensity = endingDensity;
+        this.key = key;
+        this.seed = seed;
+        checkRep();
+    }
+
+    // check that a new density is a probability
+    private static double density(double density) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("a density must be between 0 and 1: " + density);
+        }
+        return density;
+    }
+
+    /**
+     * @param voices number of voices, >= 1
+     * @return this recipe with that many voices, named v1, v2, ...; a single voice is the default voice
+     * @throws IllegalArgumentException if voices < 1
+     */
+    public AbcCorpusGenerator withVoices(int voices) {
+        if (voices < 1) {
+            throw new IllegalArgumentException("a tune needs a voice: " + voices);
+        }
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param measures number of measures written in each voice, >= 1
+     * @return this recipe with that many measures
+     * @throws IllegalArgumentException if measures < 1
+     */
+    public AbcCorpusGenerator withMeasures(long measures) {
+        if (measures < 1) {
+            throw new IllegalArgumentException("a tune needs a measure: " + measures);
+        }
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param density chance that an element of a measure is a chord, in [0, 1]
+     * @return this recipe with that chance
+     * @throws IllegalArgumentException if density is not in [0, 1], or it and the tuplet density add up to over 1
+     */
+    public AbcCorpusGenerator withChordDensity(double density) {
+        if (density(density) + tupletDensity > 1) {
+            throw new IllegalArgumentException("chords and tuplets cannot be more than every element");
+        }
+        return new AbcCorpusGenerator(voices, measures, density, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param density chance that an element of a measure is a tuplet, in [0, 1]
+     * @return this recipe with that chance
+     * @throws IllegalArgumentException if density is not in [0, 1], or it and the chord density add up to over 1
+     */
+    public AbcCorpusGenerator withTupletDensity(double density) {
+        if (chordDensity + density(density) > 1) {
+            throw new IllegalArgumentException("chords and tuplets cannot be more than every element");
+        }
+        return new AbcCorpusGenerator(voices, measures, chordDensity, density, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param density chance that a note has an accidental, in [0, 1]
+     * @return this recipe with that chance
+     * @throws IllegalArgumentException if density is not in [0, 1]
+     */
+    public AbcCorpusGenerator withAccidentalDensity(double density) {
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, density(density),
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param density chance that a section of SECTION_MEASURES measures repeats, in [0, 1];
+     *        a last section with fewer measures never does
+     * @return this recipe with that chance
+     * @throws IllegalArgumentException if density is not in [0, 1]
+     */
+    public AbcCorpusGenerator withRepeatDensity(double density) {
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                density(density), endingDensity, key, seed);
+    }
+
+    /**
+     * @param density chance that a repeating section ends with a first and a second ending, in [0, 1]
+     * @return this recipe with that chance
+     * @throws IllegalArgumentException if density is not in [0, 1]
+     */
+    public AbcCorpusGenerator withEndingDensity(double density) {
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, density(density), key, seed);
+    }
+
+    /**
+     * @param key the key of the tune, one of KEYS, or null to draw it from the seed
+     * @return this recipe in that key
+     * @throws IllegalArgumentException if key is not null or in KEYS
+     */
+    public AbcCorpusGenerator withKey(String key) {
+        if (key != null && !KEYS.contains(key)) {
+            throw new IllegalArgumentException("no key signature for " + key);
+        }
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @param seed seed of every random choice
+     * @return this recipe with that seed
+     */
+    public AbcCorpusGenerator withSeed(long seed) {
+        return new AbcCorpusGenerator(voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed);
+    }
+
+    /**
+     * @return the number of voices
+     */
+    public int getVoices() {
+        return voices;
+    }
+
+    /**
+     * @return the number of measures written in each voice
+     */
+    public long getMeasures() {
+        return measures;
+    }
+
+    /**
+     * Write the tune.
+     * @param out where to write it, a line at a time; not closed
+     * @throws IOException if out cannot be written to
+     */
+    public void write(Writer out) throws IOException {
+        Random random = new Random(seed);
+        String tuneKey = key != null ? key : KEYS.get(random.nextInt(KEYS.size()));
+        out.write("X:1\n");
+        out.write("T:synthetic tune " + seed + "\n");
+        out.write("C:AbcCorpusGenerator\n");
+        out.write("M:4/4\nL:1/8\nQ:1/4=120\n");
+        for (int v = 1; v <= voices && voices > 1; v++) {
+            out.write("V:v" + v + "\n");
+        }
+        out.write("K:" + tuneKey + "\n");
+
+        StringBuilder line = new StringBuilder();
+        for (long section = 0; section * SECTION_MEASURES < measures; section++) {
+            long first = section * SECTION_MEASURES;
+            int length = (int) Math.min(SECTION_MEASURES, measures - first);
+            boolean repeats = length == SECTION_MEASURES && random.nextDouble() < repeatDensity;
+            boolean endings = repeats && random.nextDouble() < endingDensity;
+            for (int lineStart = 0; lineStart < length; lineStart += MEASURES_PER_LINE) {
+                int lineEnd = Math.min(length, lineStart + MEASURES_PER_LINE);
+                for (int v = 1; v <= voices; v++) {
+                    if (voices > 1) {
+                        out.write("V:v" + v + "\n");
+                    }
+                    line.setLength(0);
+                    for (int m = lineStart; m < lineEnd; m++) {
+                        measure(line, random, m, length, repeats, endings);
+                    }
+                    line.append('\n');
+                    out.write(line.toString());
+                }
+            }
+        }
+        out.flush();
+    }
+
+    // append measure m of a section of length measures to line
+    private void measure(StringBuilder line, Random random, int m, int length, boolean repeats, boolean endings) {
+        if (m == 0) {
+            // a repeat starts at the measure prefix ":", and goes back to the start of the tune without one
+            line.append(repeats ? ": " : "| ");
+        }
+        if (endings && m == length - 2) {
+            line.append("[1 ");
+        } else if (endings && m == length - 1) {
+            line.append("[2 ");
+        }
+        int units = MEASURE_UNITS;
+        while (units > 0) {
+            units -= element(line, random, units);
+            line.append(' ');
+        }
+        if (m == length - 1) {
+            line.append(repeats && !endings ? ":|" : "|]");
+        } else if (endings && m == length - 2) {
+            line.append(":|");
+        } else {
+            line.append('|');
+        }
+        line.append(' ');
+    }
+
+    // append an element of at most units eighth notes to line, and return how many it takes
+    private int element(StringBuilder line, Random random, int units) {
+        double kind = random.nextDouble();
+        if (kind < chordDensity) {
+            int length = units >= 2 && random.nextBoolean() ? 2 : 1;
+            int size = 2 + random.nextInt(3);
+            line.append('[');
+            for (int i = 0; i < size; i++) {
+                pitch(line, random);
+                length(line, length);
+            }
+            line.append(']');
+            return length;
+        }
+        if (kind < chordDensity + tupletDensity && units >= 3) {
+            // (2 and (4 of eighths take 3 eighths, (3 takes 2
+            int size = 2 + random.nextInt(3);
+            line.append('(').append(size);
+            // the notes of a tuplet follow each other without spaces, and the space after the last one ends it
+            for (int i = 0; i < size; i++) {
+                pitch(line, random);
+            }
+            return size == 3 ? 2 : 3;
+        }
+        int length = Math.min(units, new int[] {1, 1, 1, 2, 2, 3, 4, 0}[random.nextInt(8)]);
+        if (length == 0) {
+            // a pair of sixteenths
+            pitch(line, random);
+            line.append("/2 ");
+            pitch(line, random);
+            line.append("/2");
+            return 1;
+        }
+        if (random.nextDouble() < REST_DENSITY) {
+            line.append('z');
+        } else {
+            pitch(line, random);
+        }
+        length(line, length);
+        return length;
+    }
+
+    // append a random pitch to line
+    private void pitch(StringBuilder line, Random random) {
+        if (random.nextDouble() < accidentalDensity) {
+            line.append(ACCIDENTALS[random.nextInt(ACCIDENTALS.length)]);
+        }
+        char basenote = BASENOTES.charAt(random.nextInt(BASENOTES.length()));
+        line.append(basenote);
+        int octave = random.nextInt(8);
+        if (octave == 0) {
+            line.append(Character.isUpperCase(basenote) ? "," : "'");
+        }
+    }
+
+    // append the length of a note of the given number of eighths to line
+    private static void length(StringBuilder line, int length) {
+        if (length != 1) {
+            line.append(length);
+        }
+    }
+
+    /**
+     * @return the tune
+     */
+    public String generate() {
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new AssertionError("a StringWriter does not throw", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write the tune to a file, as UTF-8, replacing anything already in it.
+     * @param file path of the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(out);
+        }
+    }
+
+    @Override
+    public boolean equals(Object thatObject) {
+        if (!(thatObject instanceof AbcCorpusGenerator)) {
+            return false;
+        }
+        AbcCorpusGenerator that = (AbcCorpusGenerator) thatObject;
+        return voices == that.voices && measures == that.measures && chordDensity == that.chordDensity
+                && tupletDensity == that.tupletDensity && accidentalDensity == that.accidentalDensity
+                && repeatDensity == that.repeatDensity && endingDensity == that.endingDensity
+                && (key == null ? that.key == null : key.equals(that.key)) && seed == that.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[] {voices, measures, chordDensity, tupletDensity, accidentalDensity,
+                repeatDensity, endingDensity, key, seed});
+    }
+
+    @Override
+    public String toString() {
+        return "voices=" + voices + " measures=" + measures + " chords=" + chordDensity + " tuplets=" + tupletDensity
+                + " accidentals=" + accidentalDensity + " repeats=" + repeatDensity + " endings=" + endingDensity
+                + " key=" + (key == null ? "from seed" : key) + " seed=" + seed;
+    }
+
+    /**
+     * Write a tune made from DEFAULT to a file.
+     * @param args the file, the number of measures, and optionally the number of voices and the seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        AbcCorpusGenerator generator = DEFAULT.withMeasures(Long.parseLong(args[1]));
+        if (args.length > 2) {
+            generator = generator.withVoices(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator = generator.withSeed(Long.parseLong(args[3]));
+        }
+        Path file = Paths.get(args[0]);
+        generator.write(file);
+        System.out.println(file + ": " + Files.size(file) + " bytes, " + generator);
+    }
+}
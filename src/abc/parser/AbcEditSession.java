@@ -0,0 +1,597 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import abc.header.Header;
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Mutable text of an abc file being edited, together with the Song it describes.
+ * After an edit, only the lines of the body that the edit touched are parsed again, plus any
+ * lines after them whose voice changed; the measures of every other line, and the Voice of every
+ * voice the edit did not touch, are reused from the last parse. The measures of the lines parsed again
+ * are spliced into the Voice of each voice they belong to, so an edit inside a line takes about the same
+ * time however long the file is. An edit to the header parses everything again, since the key and default
+ * note length affect every measure.
+ *
+ * Parses with the recursive-descent engine; the Song is always equal to the one AbcParser.parse
+ * builds from the same text.
+ */
+public class AbcEditSession {
+
+    /**
+     * The result of one call to AbcRecursiveDescentParser.nextLine.
+     */
+    private static class Segment {
+        private final String voice;
+        private final boolean named;
+        private final List<Measure> measures;
+
+        /**
+         * @param voice the voice the measures belong to
+         * @param named true iff the segment comes after the default voice's lines, so that voice
+         *        exists even if it has no measures
+         * @param measures the measures read
+         */
+        Segment(String voice, boolean named, List<Measure> measures) {
+            this.voice = voice;
+            this.named = named;
+            this.measures = new ArrayList<>(measures);
+        }
+    }
+
+    /**
+     * One line of the body: everything from just after one newline to just after the next.
+     */
+    private static class Line {
+        private final int length;
+        private final List<Segment> segments;
+        private final boolean inVoicesAfter;
+        private final String voiceNameAfter;
+
+        /**
+         * @param length number of characters in the line, including its newline if it has one
+         * @param segments what the parser read from the line, in order
+         * @param inVoicesAfter true iff the default voice's lines are over after this line
+         * @param voiceNameAfter name in the last voice field up to the end of this line, or null
+         */
+        Line(int length, List<Segment> segments, boolean inVoicesAfter, String voiceNameAfter) {
+            this.length = length;
+            this.segments = new ArrayList<>(segments);
+            this.inVoicesAfter = inVoicesAfter;
+            this.voiceNameAfter = voiceNameAfter;
+        }
+    }
+
+    /**
+     * An immutable sequence of lines, kept as a tree balanced by height, so that the line at a position in the body
+     * can be found, and runs of lines cut out and joined, in time logarithmic in their number. Each node counts
+     * the characters of its lines, and the measures each voice has in them.
+     */
+    private static final class LineTree {
+        private static final LineTree EMPTY = new LineTree(null);
+
+        private final Line line;
+        private final LineTree left;
+        private final LineTree right;
+        private final int size;
+        private final int length;
+        private final int height;
+        private final Map<String, Integer> measures;
+        private final Set<String> voices;
+
+        //AF:
+        //  if left == null, represents line alone, or no lines if line is null; otherwise, the lines of left
+        //  followed by those of right
+        //RI:
+        //  left and right are both null or both not empty, and then line is null
+        //  branch: height == 1 + max(left.height, right.height), |left.height - right.height| <= 1
+        //  size is the number of lines, length the sum of their lengths, measures maps each voice with segments
+        //  in them to its number of measures, and voices holds the voices that a segment of them makes exist
+        //rep exposure:
+        //  all fields are private and final; the maps and sets are made here or shared between nodes,
+        //  and never changed after
+
+        // the tree of line alone, or of no lines if line is null
+        private LineTree(Line line) {
+            this.line = line;
+            this.left = null;
+            this.right = null;
+            this.size = line == null ? 0 : 1;
+            this.length = line == null ? 0 : line.length;
+            this.height = 0;
+            Map<String, Integer> counts = new HashMap<>();
+            Set<String> made = new HashSet<>();
+            for (Segment segment : line == null ? Collections.<Segment>emptyList() : line.segments) {
+                counts.merge(segment.voice, segment.measures.size(), Integer::sum);
+                if (segment.named || !segment.measures.isEmpty()) {
+                    made.add(segment.voice);
+                }
+            }
+            this.measures = counts.isEmpty() ? Collections.emptyMap() : counts;
+            this.voices = made.isEmpty() ? Collections.emptySet() : made;
+        }
+
+        // the tree of left followed by right, which are nonempty and balanced with each other
+        private LineTree(LineTree left, LineTree right) {
+            assert left.size > 0 && right.size > 0 && Math.abs(left.height - right.height) <= 1;
+            this.line = null;
+            this.left = left;
+            this.right = right;
+            this.size = left.size + right.size;
+            this.length = left.length + right.length;
+            this.height = 1 + Math.max(left.height, right.height);
+            if (right.measures.isEmpty()) {
+                this.measures = left.measures;
+            } else if (left.measures.isEmpty()) {
+                this.measures = right.measures;
+            } else {
+                Map<String, Integer> counts = new HashMap<>(left.measures);
+                right.measures.forEach((voice, count) -> counts.merge(voice, count, Integer::sum));
+                this.measures = counts;
+            }
+            if (left.voices.containsAll(right.voices)) {
+                this.voices = left.voices;
+            } else if (right.voices.containsAll(left.voices)) {
+                this.voices = right.voices;
+            } else {
+                Set<String> made = new HashSet<>(left.voices);
+                made.addAll(right.voices);
+                this.voices = made;
+            }
+        }
+
+        /**
+         * @param lines lines in order
+         * @return a balanced tree of lines, taking time linear in their number
+         */
+        static LineTree of(List<Line> lines) {
+            return of(lines, 0, lines.size());
+        }
+
+        // a balanced tree of lines[from, to)
+        private static LineTree of(List<Line> lines, int from, int to) {
+            if (to - from <= 1) {
+                return from == to ? EMPTY : new LineTree(lines.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            return new LineTree(of(lines, from, middle), of(lines, middle, to));
+        }
+
+        /**
+         * @param that lines to follow these
+         * @return the lines of this followed by those of that, taking time O(log size)
+         */
+        LineTree append(LineTree that) {
+            if (that.size == 0) {
+                return this;
+            }
+            if (this.size == 0) {
+                return that;
+            }
+            if (height > that.height + 1) {
+                return balanced(left, right.append(that));
+            }
+            if (that.height > height + 1) {
+                return balanced(this.append(that.left), that.right);
+            }
+            return new LineTree(this, that);
+        }
+
+        // a branch of left and right, which are nonempty and differ in height by at most 2, rotated to be balanced
+        private static LineTree balanced(LineTree left, LineTree right) {
+            if (left.height > right.height + 1) {
+                if (left.left.height >= left.right.height) {
+                    return new LineTree(left.left, balanced(left.right, right));
+                }
+                return new LineTree(balanced(left.left, left.right.left), balanced(left.right.right, right));
+            }
+            if (right.height > left.height + 1) {
+                if (right.right.height >= right.left.height) {
+                    return new LineTree(balanced(left, right.left), right.right);
+                }
+                return new LineTree(balanced(left, right.left.left), balanced(right.left.right, right.right));
+            }
+            return new LineTree(left, right);
+        }
+
+        /**
+         * @param from index of the first line to keep, 0 <= from <= to
+         * @param to index just past the last line to keep, to <= size()
+         * @return the lines of this from from up to to, taking time O(log size)
+         */
+        LineTree subTree(int from, int to) {
+            if (from == 0 && to == size) {
+                return this;
+            }
+            if (from == to) {
+                return EMPTY;
+            }
+            if (to <= left.size) {
+                return left.subTree(from, to);
+            }
+            if (from >= left.size) {
+                return right.subTree(from - left.size, to - left.size);
+            }
+            return left.subTree(from, left.size).append(right.subTree(0, to - left.size));
+        }
+
+        /**
+         * @return the number of lines
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the number of characters in the lines
+         */
+        int length() {
+            return length;
+        }
+
+        /**
+         * @param index 0 <= index < size()
+         * @return the line at index
+         */
+        Line get(int index) {
+            LineTree node = this;
+            while (node.left != null) {
+                if (index < node.left.size) {
+                    node = node.left;
+                } else {
+                    index -= node.left.size;
+                    node = node.right;
+                }
+            }
+            return node.line;
+        }
+
+        /**
+         * @param position number of characters from the start of the first line, >= 0; size() > 0
+         * @return the index of the line the character at position is on, or the last line if position is
+         *         past the end
+         */
+        int indexAt(int position) {
+            LineTree node = this;
+            int index = 0;
+            while (node.left != null) {
+                if (position < node.left.length) {
+                    node = node.left;
+                } else {
+                    position -= node.left.length;
+                    index += node.left.size;
+                    node = node.right;
+                }
+            }
+            return index;
+        }
+
+        /**
+         * @param index 0 <= index <= size()
+         * @return the number of characters in the lines before index
+         */
+        int startOf(int index) {
+            LineTree node = this;
+            int start = 0;
+            while (node.left != null) {
+                if (index < node.left.size) {
+                    node = node.left;
+                } else {
+                    index -= node.left.size;
+                    start += node.left.length;
+                    node = node.right;
+                }
+            }
+            return index == 0 ? start : start + node.length;
+        }
+
+        /**
+         * @param voice name of a voice
+         * @return the number of measures of voice in these lines
+         */
+        int measures(String voice) {
+            return measures.getOrDefault(voice, 0);
+        }
+
+        /**
+         * @param voice name of a voice
+         * @return true iff a voice field in these lines names voice, or voice is the default voice
+         *         and has measures in them
+         */
+        boolean makes(String voice) {
+            return voices.contains(voice);
+        }
+    }
+
+    private final StringBuilder text;
+    private Header header;
+    private int bodyStart;
+    private LineTree lines;
+    private Song song;
+    private boolean upToDate;
+    private int reparsedLines;
+
+    //AF:
+    //  represents the abc file text being edited, where song is the Song of the last version of text that parsed,
+    //  and upToDate is true iff that version is the current one; if upToDate, header is the header of text,
+    //  the body of text starts at bodyStart, and lines are the lines of the body in order
+    //  reparsedLines is the number of lines parsed by the last edit
+    //RI:
+    //  text != null, song != null
+    //  if upToDate: header != null, 0 <= bodyStart <= text.length(),
+    //  and the lengths of lines add up to text.length() - bodyStart
+    //  song's voices are those lines make, and each has the measures of its segments in lines, in order
+    //rep exposure:
+    //  all fields are private; text, lines and their contents are never returned,
+    //  and getText returns a copy; Header, Song and Measure are immutable
+
+    /**
+     * check RI
+     */
+    private void checkRep() {
+        assert text != null;
+        assert song != null;
+        if (upToDate) {
+            assert header != null;
+            assert 0 <= bodyStart && bodyStart <= text.length();
+            assert bodyStart + lines.length() == text.length();
+        }
+    }
+
+    /**
+     * Start editing an abc file.
+     * @param text text of the abc file
+     * @throws UnableToParseException if text is not in the language of Abc.g
+     */
+    public AbcEditSession(String text) throws UnableToParseException {
+        this.text = new StringBuilder(text);
+        parseAll();
+        checkRep();
+    }
+
+    /**
+     * @return the current text of the file
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * @return the Song of the current text if isUpToDate(), otherwise of the last text that parsed
+     */
+    public Song getSong() {
+        return song;
+    }
+
+    /**
+     * @return true iff the current text parsed, so that getSong() describes it
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+
+    /**
+     * @return the number of lines of the body parsed by the last edit, or by the constructor
+     */
+    int reparsedLines() {
+        return reparsedLines;
+    }
+
+    /**
+     * Replace part of the text and bring the Song up to date.
+     * If the new text does not parse, it is kept anyway, getSong() goes on returning the last Song,
+     * and the next edit parses the whole text again.
+     * @param offset index in the text of the first character to replace
+     * @param length number of characters to replace, 0 to insert
+     * @param replacement text to put in their place, "" to delete
+     * @return the Song of the new text
+     * @throws UnableToParseException if the new text is not in the language of Abc.g
+     * @throws IndexOutOfBoundsException if offset and length do not describe a part of the text
+     */
+    public Song edit(int offset, int length, String replacement) throws UnableToParseException {
+        if (offset < 0 || length < 0 || offset + length > text.length()) {
+            throw new IndexOutOfBoundsException("edit of " + length + " at " + offset + " in text of length " + text.length());
+        }
+        boolean wasUpToDate = upToDate;
+        upToDate = false;
+        text.replace(offset, offset + length, replacement);
+        if (!wasUpToDate || offset <= bodyStart || lines.size() == 0) {
+            parseAll();
+        } else {
+            parseEdit(offset, length, replacement.length() - length);
+        }
+        checkRep();
+        return song;
+    }
+
+    /**
+     * Parse the whole text, replacing everything known about it.
+     * @throws UnableToParseException if text does not parse; the rep is unchanged apart from upToDate
+     */
+    private void parseAll() throws UnableToParseException {
+        upToDate = false;
+        AbcRecursiveDescentParser parser = new AbcRecursiveDescentParser(text);
+        Header newHeader = parser.abcHeader();
+        int newBodyStart = parser.position();
+        List<Line> newLines = parseLines(newHeader, newBodyStart, false, null, text.length(), -1).lines;
+        header = newHeader;
+        bodyStart = newBodyStart;
+        lines = LineTree.of(newLines);
+        reparsedLines = lines.size();
+        Map<String, List<Measure>> measures = measuresByVoice(newLines);
+        Map<String, Voice> voices = new HashMap<>();
+        for (String name : measures.keySet()) {
+            if (lines.makes(name)) {
+                voices.put(name, new Voice(measures.get(name)));
+            }
+        }
+        song = new Song(new Voices(voices), header);
+        upToDate = true;
+    }
+
+    /**
+     * Parse again the lines touched by an edit that has already been made to text, and splice them into lines.
+     * @param offset index of the start of the edit
+     * @param length number of characters the edit replaced
+     * @param delta change in the length of the text
+     * @throws UnableToParseException if text does not parse; the rep is unchanged apart from upToDate
+     */
+    private void parseEdit(int offset, int length, int delta) throws UnableToParseException {
+        // find the first and last lines the edit touches, by their old positions
+        int first = lines.indexAt(offset - bodyStart);
+        int last = lines.indexAt(offset + length - bodyStart);
+        int firstStart = bodyStart + lines.startOf(first);
+        int regionEnd = bodyStart + lines.startOf(last + 1) + delta;
+        boolean inVoices = first > 0 && lines.get(first - 1).inVoicesAfter;
+        String voiceName = first > 0 ? lines.get(first - 1).voiceNameAfter : null;
+
+        Parsed parsed = parseLines(header, firstStart, inVoices, voiceName, regionEnd, last + 1);
+        LineTree before = lines.subTree(0, first);
+        LineTree replaced = lines.subTree(first, parsed.resumeAt);
+        LineTree after = lines.subTree(parsed.resumeAt, lines.size());
+        lines = before.append(LineTree.of(parsed.lines)).append(after);
+        reparsedLines = parsed.lines.size();
+
+        // splice the new measures of each voice in place of the old ones; a voice's measures are those of its
+        // segments in order, so the old ones start after its measures in the lines before the edit
+        Set<String> touched = new HashSet<>();
+        for (int i = 0; i < replaced.size(); i++) {
+            for (Segment segment : replaced.get(i).segments) {
+                touched.add(segment.voice);
+            }
+        }
+        Map<String, List<Measure>> measures = measuresByVoice(parsed.lines);
+        touched.addAll(measures.keySet());
+        Map<String, Voice> voices = new HashMap<>();
+        for (Map.Entry<String, Music> voice : ((Voices)song.getMusic()).getVoices().entrySet()) {
+            voices.put(voice.getKey(), (Voice)voice.getValue());
+        }
+        for (String name : touched) {
+            if (!lines.makes(name)) {
+                voices.remove(name);
+                continue;
+            }
+            List<Measure> inserted = measures.getOrDefault(name, Collections.emptyList());
+            Voice old = voices.get(name);
+            if (old == null) {
+                // a voice that did not exist had no measures
+                voices.put(name, new Voice(inserted));
+            } else {
+                int from = before.measures(name);
+                voices.put(name, old.replace(from, from + replaced.measures(name), inserted));
+            }
+        }
+        song = new Song(new Voices(voices), header);
+        upToDate = true;
+    }
+
+    /**
+     * @param lines lines of the body in order
+     * @return the measures of each voice with segments in lines, in order
+     */
+    private static Map<String, List<Measure>> measuresByVoice(List<Line> lines) {
+        Map<String, List<Measure>> measures = new HashMap<>();
+        for (Line line : lines) {
+            for (Segment segment : line.segments) {
+                measures.computeIfAbsent(segment.voice, name -> new ArrayList<>()).addAll(segment.measures);
+            }
+        }
+        return measures;
+    }
+
+    /**
+     * Lines parsed from part of the text, and where the old lines take over again.
+     */
+    private static class Parsed {
+        private final List<Line> lines;
+        private final int resumeAt;
+
+        /**
+         * @param lines the lines parsed
+         * @param resumeAt index in the old lines of the first one still valid, or the number of old lines
+         */
+        Parsed(List<Line> lines, int resumeAt) {
+            this.lines = lines;
+            this.resumeAt = resumeAt;
+        }
+    }
+
+    /**
+     * Parse lines of the body of text from start, until past regionEnd at the start of an old line
+     * that the parser reaches in the same state it was in last time, or until the end of the text.
+     * @param header header of the tune
+     * @param start index of the start of a line of the body
+     * @param inVoices parser state at start
+     * @param voiceName parser state at start
+     * @param regionEnd index that parsing must get to before it can stop early
+     * @param oldFirst index in lines of the old line that now starts at regionEnd, or -1 to parse to the end
+     * @return the new lines, and the index of the first old line to keep after them
+     * @throws UnableToParseException if the body does not parse
+     */
+    private Parsed parseLines(Header header, int start, boolean inVoices, String voiceName, int regionEnd,
+            int oldFirst) throws UnableToParseException {
+        AbcRecursiveDescentParser parser = new AbcRecursiveDescentParser(text, header, start, inVoices, voiceName);
+        List<Line> parsedLines = new ArrayList<>();
+        List<Segment> segments = new ArrayList<>();
+        List<Measure> measures = new ArrayList<>();
+        int lineStart = start;
+        // the next old line that parsing might stop at, and where it now starts
+        int nextOld = oldFirst;
+        int nextOldStart = regionEnd;
+        while (true) {
+            String name = parser.nextLine(measures);
+            if (name == null) {
+                if (lineStart < text.length()) {
+                    parsedLines.add(new Line(text.length() - lineStart, segments, parser.inVoices(), parser.voiceName()));
+                }
+                return new Parsed(parsedLines, oldFirst < 0 ? 0 : lines.size());
+            }
+            segments.add(new Segment(name, parser.inVoices(), measures));
+            measures.clear();
+            int newLineStart = lineStartBefore(parser.position());
+            if (newLineStart > lineStart) {
+                parsedLines.add(new Line(newLineStart - lineStart, segments, parser.inVoices(), parser.voiceName()));
+                segments.clear();
+                lineStart = newLineStart;
+                if (oldFirst < 0) {
+                    continue;
+                }
+                while (nextOld < lines.size() && nextOldStart < lineStart) {
+                    nextOldStart += lines.get(nextOld).length;
+                    nextOld++;
+                }
+                if (nextOld < lines.size() && nextOldStart == lineStart) {
+                    Line before = lines.get(nextOld - 1);
+                    if (before.inVoicesAfter == parser.inVoices() && Objects.equals(before.voiceNameAfter, parser.voiceName())) {
+                        return new Parsed(parsedLines, nextOld);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param position index into text
+     * @return the index of the start of the line position is on, if only spaces and tabs come between
+     *         them; otherwise -1
+     */
+    private int lineStartBefore(int position) {
+        int pos = position;
+        while (pos > 0 && (text.charAt(pos - 1) == ' ' || text.charAt(pos - 1) == '\t')) {
+            pos--;
+        }
+        if (pos == 0 || text.charAt(pos - 1) == '\n' || text.charAt(pos - 1) == '\r') {
+            return pos;
+        }
+        return -1;
+    }
+}
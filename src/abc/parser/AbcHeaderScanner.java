@@ -0,0 +1,121 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import abc.header.Header;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Reads the headers of abc files without parsing their bodies, for catalogues of many files.
+ * A header is parsed by the recursive-descent parser's abc_header rule, up to and including the K: field,
+ * with the same field semantics as AbcParser.parse (through HeaderBuilder: the default length inferred
+ * from the meter, and the tempo following the default length until Q: is given); nothing after the K: line
+ * is looked at, so a file whose body is not in the language of Abc.g still has a header.
+ */
+public class AbcHeaderScanner {
+
+    /**
+     * Threads that read files at once in index(Path); reading is mostly waiting for the disk,
+     * so there are more of them than there are cores.
+     */
+    static final int READ_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Read the header of an abc file.
+     * @param text the text of the abc file
+     * @return the header of the tune, equal to AbcParser.parse(text).getHeader() if text parses
+     * @throws If the header is not in the language of Abc.g, this will throw an UnableToParseException.
+     */
+    public static Header scan(CharSequence text) throws UnableToParseException {
+        return new AbcRecursiveDescentParser(text).abcHeader();
+    }
+
+    /**
+     * Read the header of an abc file, reading no more of in than the header and the lexer's buffer after it.
+     * @param in source of the text of the abc file; not closed
+     * @return the header of the tune
+     * @throws If the header is not in the language of Abc.g, this will throw an UnableToParseException.
+     * @throws If in throws an IOException, so does this method.
+     */
+    public static Header scan(Reader in) throws UnableToParseException, IOException {
+        try {
+            return new AbcRecursiveDescentParser(in).abcHeader();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Read the header of an abc file, read as UTF-8, reading only the start of the file.
+     * @param file path of the abc file
+     * @return the header of the tune
+     * @throws If the header is not in the language of Abc.g, this will throw an UnableToParseException.
+     * @throws If the file cannot be read or its start is not UTF-8, this will throw an IOException.
+     */
+    public static Header scan(Path file) throws UnableToParseException, IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return scan(in);
+        }
+    }
+
+    /**
+     * Read the header of every abc file in a directory and its subdirectories, READ_THREADS files at a time.
+     * A file that cannot be read or scanned is recorded in the index without stopping the others.
+     * @param directory the directory to index
+     * @return the header of every regular file under directory whose name ends in ".abc"
+     * @throws If the directory cannot be listed, this will throw an IOException.
+     */
+    public static HeaderIndex index(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(file -> file.getFileName().toString().endsWith(".abc") && Files.isRegularFile(file))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        List<FutureTask<Header>> tasks = new ArrayList<>();
+        ExecutorService readers = Executors.newFixedThreadPool(Math.min(READ_THREADS, Math.max(1, files.size())));
+        try {
+            for (Path file : files) {
+                FutureTask<Header> task = new FutureTask<>(() -> scan(file));
+                tasks.add(task);
+                readers.execute(task);
+            }
+            Map<Path, Header> headers = new HashMap<>();
+            Map<Path, Exception> errors = new HashMap<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    headers.put(files.get(i), tasks.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error)
+                        throw (Error)e.getCause();
+                    // the parser turns fields that match abc_header but cannot make a Header into parse errors;
+                    // anything else it throws for this file is still this file's error, not a failure of the index
+                    errors.put(files.get(i), e.getCause() instanceof RuntimeException
+                            ? new UnableToParseException(e.getCause().toString()) : (Exception)e.getCause());
+                }
+            }
+            return new HeaderIndex(headers, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while indexing " + directory, e);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+}
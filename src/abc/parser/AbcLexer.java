@@ -0,0 +1,274 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Character-level lexer over the text of an abc file, used by AbcRecursiveDescentParser.
+ * Whether whitespace is significant depends on where we are in the tune (it is skipped in the header
+ * but separates elements in the body), so the lexer hands out one lexeme at a time on request
+ * instead of producing a token stream up front. Every method looks at each character at most once.
+ * 
+ * A lexer made from a Reader reads from it only as far as it has been asked to look, so a parser
+ * can act on the start of a file before the rest of it has been read. An IOException from the Reader
+ * is thrown as an UncheckedIOException, for the parser to unwrap.
+ */
+class AbcLexer {
+
+    /**
+     * Returned by peek past the end of the input.
+     */
+    static final int EOF = -1;
+
+    private static final int READ_SIZE = 8192;
+
+    private final CharSequence input;
+    private Reader reader;
+    private int pos = 0;
+    // line number and start of the line containing index countedTo, so that error need not recount from 0
+    private int countedTo = 0;
+    private int countedLine = 1;
+    private int countedLineStart = 0;
+    private Diagnostic lastError = null;
+
+    //AF:
+    //  represents the remaining input, input[pos:] followed by whatever is left in reader,
+    //  of an abc file being lexed; lastError is the failure described by the last call to error, if any
+    //RI:
+    //  0 <= pos <= input.length()
+    //  0 <= countedLineStart <= countedTo <= input.length(), and input[0:countedTo] holds countedLine - 1 newlines,
+    //  the last of which, if any, is at countedLineStart - 1
+    //  if reader != null, input is a StringBuilder holding everything read from reader so far
+    //rep exposure:
+    //  input is never modified except by appending from reader; the lexer never returns it
+
+    // check RI
+    private void checkRep() {
+        assert 0 <= pos && pos <= input.length();
+        assert 0 <= countedLineStart && countedLineStart <= countedTo && countedTo <= input.length();
+    }
+
+    /**
+     * Make a lexer positioned at the start of input.
+     * @param input text of an abc file
+     */
+    AbcLexer(CharSequence input) {
+        this.input = input;
+        this.reader = null;
+        checkRep();
+    }
+
+    /**
+     * Make a lexer positioned at the start of the text read from in.
+     * @param in source of the text of an abc file; the lexer reads it on demand but does not close it
+     */
+    AbcLexer(Reader in) {
+        this.input = new StringBuilder();
+        this.reader = in;
+        checkRep();
+    }
+
+    /**
+     * @param index index into the whole input
+     * @return true iff the input has a character at index, reading more from reader if needed
+     */
+    private boolean available(int index) {
+        while (index >= input.length() && reader != null) {
+            char[] chunk = new char[READ_SIZE];
+            try {
+                int read = reader.read(chunk);
+                if (read < 0) {
+                    reader = null;
+                } else {
+                    ((StringBuilder) input).append(chunk, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return index < input.length();
+    }
+
+    /**
+     * @return the index of the next character to be read
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Move back to an earlier position, to abandon a partial match.
+     * @param position a value previously returned by position()
+     */
+    void reset(int position) {
+        pos = position;
+        checkRep();
+    }
+
+    /**
+     * @return true iff all of the input has been read
+     */
+    boolean atEnd() {
+        return !available(pos);
+    }
+
+    /**
+     * @return the next character, or EOF
+     */
+    int peek() {
+        return peek(0);
+    }
+
+    /**
+     * @param ahead number of characters to look past the next one
+     * @return the character ahead characters after the next one, or EOF
+     */
+    int peek(int ahead) {
+        return available(pos + ahead) ? input.charAt(pos + ahead) : EOF;
+    }
+
+    /**
+     * Read c if it is the next character.
+     * @param c expected character
+     * @return true iff c was read
+     */
+    boolean accept(char c) {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read literal if the input continues with it.
+     * @param literal expected text
+     * @return true iff literal was read
+     */
+    boolean accept(String literal) {
+        if (lookingAt(literal)) {
+            pos += literal.length();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param literal expected text
+     * @return true iff the input continues with literal
+     */
+    boolean lookingAt(String literal) {
+        if (!available(pos + literal.length() - 1)) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (input.charAt(pos + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read WHITESPACE*, i.e. any run of spaces and tabs.
+     */
+    void skipWhitespace() {
+        while (peek() == ' ' || peek() == '\t') {
+            pos++;
+        }
+    }
+
+    /**
+     * @return true iff the next character is a DIGIT
+     */
+    boolean atDigit() {
+        return peek() >= '0' && peek() <= '9';
+    }
+
+    /**
+     * Read DIGIT*.
+     * @return the digits read, possibly empty
+     */
+    String digits() {
+        int start = pos;
+        while (atDigit()) {
+            pos++;
+        }
+        return substring(start, pos);
+    }
+
+    /**
+     * Read text, i.e. everything up to the end of the line.
+     * @return the text read, possibly empty
+     */
+    String text() {
+        int start = pos;
+        while (available(pos) && peek() != '\n' && peek() != '\r') {
+            pos++;
+        }
+        return substring(start, pos);
+    }
+
+    /**
+     * Read a NEWLINE, "\n" or "\r" optionally followed by "\n".
+     * @return true iff a NEWLINE was read
+     */
+    boolean newline() {
+        if (accept('\n')) {
+            return true;
+        }
+        if (accept('\r')) {
+            accept('\n');
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return the input between start and end
+     */
+    String substring(int start, int end) {
+        return input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Make an exception describing a failure to match at the current position, and remember the failure.
+     * @param expected description of what the grammar allows here
+     * @return exception whose message gives the line and column of the failure, as lastError().toString() does
+     */
+    UnableToParseException error(String expected) {
+        if (pos < countedTo) {
+            countedTo = 0;
+            countedLine = 1;
+            countedLineStart = 0;
+        }
+        // a line ends at "\n", "\r\n" or a lone "\r", as a NEWLINE does
+        for (; countedTo < pos; countedTo++) {
+            char c = input.charAt(countedTo);
+            if (c == '\n' || (c == '\r' && !(available(countedTo + 1) && input.charAt(countedTo + 1) == '\n'))) {
+                countedLine++;
+                countedLineStart = countedTo + 1;
+            }
+        }
+        int lineEnd = pos;
+        while (available(lineEnd) && input.charAt(lineEnd) != '\n' && input.charAt(lineEnd) != '\r') {
+            lineEnd++;
+        }
+        String saw = atEnd() ? "end of input" : "\"" + substring(pos, lineEnd) + "\"";
+        lastError = new Diagnostic(countedLine, pos - countedLineStart + 1, expected, saw);
+        checkRep();
+        return new UnableToParseException(lastError.toString());
+    }
+
+    /**
+     * @return the failure described by the last call to error, or null if it has not been called
+     */
+    Diagnostic lastError() {
+        return lastError;
+    }
+}
@@ -3,15 +3,23 @@ package abc.parser;
 import abc.sound.*;
 import abc.header.*;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
 
 import lib6005.parser.GrammarCompiler;
 import lib6005.parser.ParseTree;
@@ -21,6 +29,10 @@ import lib6005.parser.UnableToParseException;
 /**
  * 
  * Parser for parsing abc file contents into Song
+ * 
+ * The methods that parse text already in memory never throw IOException. They still declare it because
+ * parse(String) once compiled Abc.g from disk on every call, and callers written against that still
+ * catch it or pass it on.
  */
 public class AbcParser {
     private static final String END_REPEAT = ":|";
@@ -28,36 +40,450 @@ public class AbcParser {
     private static final String START_FIRST_ENDING = "[1";
     private static final String START_SECOND_ENDING = "[2";
     private static final Set<String> SECTION_ENDINGS = new HashSet<>(Arrays.asList("||", "[|", "|]"));
+    private static final String GRAMMAR_FILE = "Abc.g";
+    
+    // runs each task in the thread that hands it over, for building voices one after another
+    private static final Executor SAME_THREAD = Runnable::run;
+    
+    // compiled grammar shared by every parse; null until first needed, then never changes.
+    // Parser keeps no state between calls to parse, so one instance is safe to share across threads.
+    private static volatile Parser<MusicGrammar> parser;
+    
+    /**
+     * Most results of a rule at a position the grammar engine remembers while parsing one tune,
+     * so that the parse takes time linear in the tune's length however often the grammar backtracks
+     */
+    static final int MEMO_SLOTS = 1 << 16;
+    
+    private static final String WARM_UP_TUNE = "X:1\nT:warm up\nK:C\nC D E F|\n";
+    // whether warmUp has run; racing calls just parse the tune twice
+    private static volatile boolean warm = false;
+    
     /**
-     * Parse a string into an integer arithmetic expression, displaying various
-     * debugging output.
+     * Parse a string into a Song with the grammar engine. The tree is built by GeneratedAbcParser,
+     * which ParserGenerator wrote from Abc.g, so no grammar is compiled at run time;
+     * it memoizes rules in up to MEMO_SLOTS slots.
      * @param string the string representation of the text contained in an abc file
+     * @return the Song described by string
      * @throws If the string cannot be parsed, this method throws an UnableToParseException.
-     * @throws If the grammar file Abc.g is not present, this will throw an IOException.
-     * @throws If the grammar file is corrupted and cannot be parsed, the method will also throw an UnableToParseException.
      */
     public static Song parse(String string) throws UnableToParseException, IOException{
-         Parser<MusicGrammar> parser = GrammarCompiler.compile(new File("src/abc/parser/Abc.g"), MusicGrammar.ABC_TUNE);
-         ParseTree<MusicGrammar> tree = parser.parse(string);
-         Song song = buildAST(tree);
+         ParseTree<MusicGrammar> tree = GeneratedAbcParser.parse(string, MEMO_SLOTS);
+         Song song = buildAST(tree, SAME_THREAD);
          return song;
     }
     
+    /**
+     * Parse a string into a Song with the grammar engine, building the music of each voice as a separate
+     * task on voiceExecutor. The voices share nothing but the header, so they can be built at the same time;
+     * the calling thread waits for all of them, and the Song is the same as the one parse(string) returns.
+     * @param string the string representation of the text contained in an abc file
+     * @param voiceExecutor runs the task for each voice; must not need the calling thread to make progress,
+     *        e.g. a bounded pool that the caller itself is running on
+     * @throws If the string cannot be parsed, this method throws an UnableToParseException.
+     */
+    public static Song parse(String string, Executor voiceExecutor) throws UnableToParseException, IOException{
+        return buildAST(GeneratedAbcParser.parse(string, MEMO_SLOTS), voiceExecutor);
+    }
+    
+    /**
+     * Parse a string into a Song using the given engine. Both engines accept the same
+     * language, Abc.g, and build equal Songs from it.
+     * @param string the string representation of the text contained in an abc file
+     * @param engine the parser to use
+     * @return the Song described by string
+     * @throws If the string cannot be parsed, this method throws an UnableToParseException.
+     */
+    public static Song parse(String string, ParserEngine engine) throws UnableToParseException, IOException{
+        return parseText(string, engine, ParseLimits.UNLIMITED);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, into a Song using the given engine.
+     * The file is mapped into memory rather than read into a String; the recursive-descent engine
+     * parses straight from the mapping, while the grammar engine needs the text copied into a String first.
+     * @param file path of the abc file
+     * @param engine the parser to use
+     * @return the Song described by the file
+     * @throws If the text of the file cannot be parsed, this method throws an UnableToParseException.
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static Song parse(Path file, ParserEngine engine) throws UnableToParseException, IOException{
+        return parseText(MappedText.open(file), engine, ParseLimits.UNLIMITED);
+    }
+    
+    /**
+     * Parse the text of an abc file that may have come from anyone, e.g. an upload, into a Song using the given
+     * engine, giving up as soon as the parse goes past one of limits. Voices are built on the calling thread.
+     * @param string the text of an abc file
+     * @param engine the parser to use
+     * @param limits the most the parse may read and do
+     * @return the Song described by string
+     * @throws If the parse goes past a limit, this method throws a ParseLimitException naming it.
+     * @throws If the string cannot be parsed, this method throws an UnableToParseException.
+     */
+    public static Song parse(String string, ParserEngine engine, ParseLimits limits) throws UnableToParseException{
+        return parseText(string, engine, limits);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, as parse(String, ParserEngine, ParseLimits) does. The length of
+     * the file in bytes is checked against the limit on the input before any of it is read.
+     * @param file path of the abc file
+     * @param engine the parser to use
+     * @param limits the most the parse may read and do
+     * @return the Song described by the file
+     * @throws If the parse goes past a limit, this method throws a ParseLimitException naming it.
+     * @throws If the text of the file cannot be parsed, this method throws an UnableToParseException.
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static Song parse(Path file, ParserEngine engine, ParseLimits limits) throws UnableToParseException, IOException{
+        checkSize(file, limits);
+        return parseText(MappedText.open(file), engine, limits);
+    }
+    
+    /**
+     * Parse a string into a Song using the given engine, as parse(String, ParserEngine) does,
+     * recording how long parsing and building took and how much they made in metrics.
+     * @param string the string representation of the text contained in an abc file
+     * @param engine the parser to use
+     * @param metrics where to record the PARSE and BUILD phases, and the TREE_NODES and TOKENS made
+     * @return the Song described by string
+     * @throws If the string cannot be parsed, this method throws an UnableToParseException.
+     */
+    public static Song parse(String string, ParserEngine engine, PlaybackMetrics metrics) throws UnableToParseException{
+        return parseText(string, engine, ParseLimits.UNLIMITED, metrics);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, as parse(Path, ParserEngine) does, recording its phases in metrics
+     * as parse(String, ParserEngine, PlaybackMetrics) does. Mapping the file is not part of any phase.
+     * @param file path of the abc file
+     * @param engine the parser to use
+     * @param metrics where to record the PARSE and BUILD phases, and the TREE_NODES and TOKENS made
+     * @return the Song described by the file
+     * @throws If the text of the file cannot be parsed, this method throws an UnableToParseException.
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static Song parse(Path file, ParserEngine engine, PlaybackMetrics metrics) throws UnableToParseException, IOException{
+        return parseText(MappedText.open(file), engine, ParseLimits.UNLIMITED, metrics);
+    }
+    
+    // throw if file is longer than limits allow
+    private static void checkSize(Path file, ParseLimits limits) throws ParseLimitException, IOException{
+        if (Files.size(file) > limits.getMaxInputLength()){
+            throw new ParseLimitException(ParseLimits.Limit.INPUT_LENGTH, limits.getMaxInputLength());
+        }
+    }
+    
+    /**
+     * Parse the text of an abc file into as much of a Song as it can, using the recursive-descent engine,
+     * and report every error in one pass instead of stopping at the first. After an error in the header
+     * the parse goes on at the next line; after an error in the body, after the next barline or at the next line.
+     * @param string the text of an abc file
+     * @return the Song made from everything that could be parsed, with a diagnostic for each error;
+     *         if there are no errors, the Song is the one parse returns
+     */
+    public static ParseResult parseRecovering(CharSequence string){
+        return AbcRecursiveDescentParser.parseRecovering(string);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, as parseRecovering(CharSequence) does.
+     * The file is mapped into memory rather than read into a String.
+     * @param file path of the abc file
+     * @return the Song made from everything that could be parsed, with a diagnostic for each error
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static ParseResult parseRecovering(Path file) throws IOException{
+        return parseRecovering(MappedText.open(file));
+    }
+    
+    // parse text with engine within limits, copying it into a String only if the engine needs one
+    private static Song parseText(CharSequence text, ParserEngine engine, ParseLimits limits) throws UnableToParseException{
+        return parseText(text, engine, limits, PlaybackMetrics.NONE);
+    }
+    
+    // parse text as above, recording the PARSE and BUILD phases and what they made in metrics
+    private static Song parseText(CharSequence text, ParserEngine engine, ParseLimits limits, PlaybackMetrics metrics)
+            throws UnableToParseException{
+        ParseBudget budget = new ParseBudget(limits);
+        budget.input(text.length());
+        Song song;
+        switch (engine){
+        case RECURSIVE_DESCENT:
+        case PARALLEL_RECURSIVE_DESCENT:
+            // these engines build the Song as they go, so building is part of PARSE
+            PlaybackMetrics.Span parsing = metrics.start(PlaybackMetrics.Phase.PARSE);
+            try {
+                song = engine == ParserEngine.RECURSIVE_DESCENT ? AbcRecursiveDescentParser.parse(text, budget)
+                        : LineParallelParser.parse(text, budget);
+            } finally {
+                parsing.close();
+            }
+            break;
+        case GRAMMAR:
+        default:
+            ParseTree<MusicGrammar> tree;
+            PlaybackMetrics.Span grammar = metrics.start(PlaybackMetrics.Phase.PARSE);
+            try {
+                tree = GeneratedAbcParser.parse(text.toString(), MEMO_SLOTS, budget);
+            } finally {
+                grammar.close();
+            }
+            PlaybackMetrics.Span building = metrics.start(PlaybackMetrics.Phase.BUILD);
+            try {
+                song = buildAST(tree, SAME_THREAD);
+            } finally {
+                building.close();
+            }
+            if (metrics.isEnabled()){
+                metrics.add(PlaybackMetrics.Count.TREE_NODES, countNodes(tree));
+            }
+        }
+        metrics.add(PlaybackMetrics.Count.TOKENS, budget.tokens());
+        return song;
+    }
+    
+    // number of nodes in tree, including tree itself
+    private static long countNodes(ParseTree<MusicGrammar> tree){
+        if (tree.isTerminal()){
+            return 1;
+        }
+        long nodes = 1;
+        for (ParseTree<MusicGrammar> child : IndexedParseTree.of(tree).inOrder()){
+            nodes += countNodes(child);
+        }
+        return nodes;
+    }
+    
+    /**
+     * Parse a file holding any number of tunes, each starting with its own X: field, using the grammar engine.
+     * @param string the text of the abc file
+     * @return the tunes of the file
+     */
+    public static Songbook parseAll(String string) throws IOException{
+        return parseAll(string, ParserEngine.GRAMMAR);
+    }
+    
+    /**
+     * Parse a file holding any number of tunes, each starting with its own X: field.
+     * Every line whose first non-blank characters are "X:" starts a new tune, which runs up to the next one;
+     * anything before the first tune is ignored. The tunes are parsed in parallel on the common ForkJoinPool,
+     * and a tune that cannot be parsed is recorded in the Songbook without stopping the others.
+     * @param string the text of the abc file
+     * @param engine the parser to use for each tune
+     * @return the tunes of the file
+     */
+    public static Songbook parseAll(CharSequence string, ParserEngine engine) throws IOException{
+        return parseAll(string, engine, ParseLimits.UNLIMITED);
+    }
+    
+    /**
+     * Parse a file holding any number of tunes, as parseAll(CharSequence, ParserEngine) does, but with each tune
+     * parsed within limits, so that no one tune can hold up the pool. A tune that goes past a limit is
+     * recorded in the Songbook with a ParseLimitException naming the limit.
+     * @param string the text of the abc file
+     * @param engine the parser to use for each tune
+     * @param limits the most the parse of each tune may read and do
+     * @return the tunes of the file
+     */
+    public static Songbook parseAll(CharSequence string, ParserEngine engine, ParseLimits limits){
+        List<Integer> starts = tuneStarts(string);
+        List<Integer> startLines = new ArrayList<>();
+        List<TuneTask> tasks = new ArrayList<>();
+        int line = 1;
+        int counted = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            for (; counted < starts.get(i); counted++) {
+                if (string.charAt(counted) == '\n' || (string.charAt(counted) == '\r'
+                        && (counted + 1 == string.length() || string.charAt(counted + 1) != '\n'))) {
+                    line++;
+                }
+            }
+            startLines.add(line);
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : string.length();
+            tasks.add(new TuneTask(string.subSequence(starts.get(i), end), engine, limits));
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        Map<Integer, Song> songs = new TreeMap<>();
+        Map<Integer, UnableToParseException> errors = new TreeMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            TuneTask task = tasks.get(i);
+            if (task.song != null)
+                songs.put(i, task.song);
+            else
+                errors.put(i, task.error);
+        }
+        return new Songbook(startLines, songs, errors);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, holding any number of tunes, as parseAll(CharSequence, ParserEngine) does.
+     * The file is mapped into memory rather than read into a String. With the recursive-descent engine
+     * no copy of the text is made at all; with the grammar engine, each tune is copied into its own String
+     * only while it is being parsed.
+     * @param file path of the abc file
+     * @param engine the parser to use for each tune
+     * @return the tunes of the file
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static Songbook parseAll(Path file, ParserEngine engine) throws IOException{
+        return parseAll(MappedText.open(file), engine);
+    }
+    
+    /**
+     * Parse an abc file, read as UTF-8, holding any number of tunes, as parseAll(CharSequence, ParserEngine, ParseLimits)
+     * does. The length of the whole file in bytes is checked against the limit on the input before any of it is read.
+     * @param file path of the abc file
+     * @param engine the parser to use for each tune
+     * @param limits the most the parse of each tune may read and do, and the longest the file may be
+     * @return the tunes of the file
+     * @throws If the file is longer than limits allow, this will throw a ParseLimitException.
+     * @throws If the file cannot be read or is not UTF-8, this will throw an IOException.
+     */
+    public static Songbook parseAll(Path file, ParserEngine engine, ParseLimits limits) throws ParseLimitException, IOException{
+        checkSize(file, limits);
+        return parseAll(MappedText.open(file), engine, limits);
+    }
+    
+    /**
+     * Find where each tune of a multi-tune file starts, without parsing it.
+     * @param string the text of the abc file
+     * @return the index in string of the start of every line whose first characters
+     *         other than spaces and tabs are "X:", in increasing order
+     */
+    static List<Integer> tuneStarts(CharSequence string) {
+        List<Integer> starts = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < string.length()) {
+            int pos = lineStart;
+            while (pos < string.length() && (string.charAt(pos) == ' ' || string.charAt(pos) == '\t'))
+                pos++;
+            if (pos + 1 < string.length() && string.charAt(pos) == 'X' && string.charAt(pos + 1) == ':')
+                starts.add(lineStart);
+            while (pos < string.length() && string.charAt(pos) != '\n' && string.charAt(pos) != '\r')
+                pos++;
+            if (pos + 1 < string.length() && string.charAt(pos) == '\r' && string.charAt(pos + 1) == '\n')
+                pos++;
+            lineStart = pos + 1;
+        }
+        return starts;
+    }
+    
+    /**
+     * Parses one tune of a songbook, catching whatever goes wrong so that the other tunes carry on.
+     */
+    private static class TuneTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final CharSequence tune;
+        private final ParserEngine engine;
+        private final ParseLimits limits;
+        // exactly one of these is set once the task has run
+        private Song song;
+        private UnableToParseException error;
+        
+        TuneTask(CharSequence tune, ParserEngine engine, ParseLimits limits) {
+            this.tune = tune;
+            this.engine = engine;
+            this.limits = limits;
+        }
+        
+        @Override
+        protected void compute() {
+            try {
+                song = parseText(tune, engine, limits);
+            } catch (UnableToParseException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                // building the Song can still fail on input the grammar accepts, e.g. an out of range number
+                error = new UnableToParseException(e.toString());
+            }
+        }
+    }
+    
+    /**
+     * Start parsing an abc file measure by measure, reading only as much of it as each measure needs.
+     * @param in source of the text of the abc file; not closed
+     * @return stream of the measures of the tune, whose header has already been parsed
+     * @throws If the header cannot be parsed, this method throws an UnableToParseException.
+     * @throws If in throws an IOException, so does this method.
+     */
+    public static MeasureStream stream(Reader in) throws UnableToParseException, IOException{
+        return new MeasureStream(in);
+    }
+    
+    /**
+     * Load and run the grammar engine once on a tiny tune, so that the first tune
+     * loaded does not pay for loading its classes. Calling this more than once has no further effect.
+     * @throws UnableToParseException never, since the tune is valid
+     */
+    public static void warmUp() throws UnableToParseException, IOException{
+        if (!warm){
+            parse(WARM_UP_TUNE);
+            warm = true;
+        }
+    }
+    
+    /**
+     * Get the shared parser for Abc.g, compiling it from the classpath on first use.
+     * The grammar engine no longer uses it; it is the reference GeneratedAbcParser is checked against.
+     * @return parser whose root is MusicGrammar.ABC_TUNE
+     * @throws IOException if Abc.g is not on the classpath
+     * @throws UnableToParseException if Abc.g is not a valid grammar
+     */
+    static Parser<MusicGrammar> getParser() throws UnableToParseException, IOException{
+        Parser<MusicGrammar> result = parser;
+        if (result == null){
+            synchronized (AbcParser.class){
+                result = parser;
+                if (result == null){
+                    result = compileGrammar();
+                    parser = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Compile Abc.g, read from the classpath next to this class.
+     * @return a new parser whose root is MusicGrammar.ABC_TUNE
+     * @throws IOException if Abc.g is not on the classpath
+     * @throws UnableToParseException if Abc.g is not a valid grammar
+     */
+    static Parser<MusicGrammar> compileGrammar() throws UnableToParseException, IOException{
+        InputStream grammar = AbcParser.class.getResourceAsStream(GRAMMAR_FILE);
+        if (grammar == null){
+            throw new IOException("Cannot find grammar file " + GRAMMAR_FILE + " on the classpath");
+        }
+        try {
+            return GrammarCompiler.compile(grammar, MusicGrammar.ABC_TUNE);
+        } finally {
+            grammar.close();
+        }
+    }
+    
     /**
      * Function converts a ParseTree to a Song. 
      * @param p
      *  ParseTree<MusicGrammar> that is assumed to have been constructed by the grammar in Abc.g
+     * @param voiceExecutor runs the building of each voice
      * @return Song constructed from ParseTree p
      * @throws UnableToParseException If the song cannot be parsed, this method throws an UnableToParseException.
      */
-    private static Song buildAST(ParseTree<MusicGrammar> p) throws UnableToParseException{
+    static Song buildAST(ParseTree<MusicGrammar> p, Executor voiceExecutor) throws UnableToParseException{
         
         if (p.getName().equals(MusicGrammar.ABC_TUNE)){
-            Header header = buildHeaderAST(p.childrenByName(MusicGrammar.ABC_HEADER).get(0));
-            KeySignature key = header.getKeySignature();
-            KeySignatureMap keyMap = new KeySignatureMap();
-            Map<Character, Accidental> accidentals = keyMap.getKey(key);
-            Music music = buildMusicAST(p.childrenByName(MusicGrammar.ABC_MUSIC).get(0), header, accidentals);
+            IndexedParseTree<MusicGrammar> tune = IndexedParseTree.of(p);
+            Header header = buildHeaderAST(tune.first(MusicGrammar.ABC_HEADER));
+            Music music = buildVoicesAST(tune.first(MusicGrammar.ABC_MUSIC), header, voiceExecutor);
             return new Song(music, header);
         }   
         /*
@@ -74,115 +500,137 @@ public class AbcParser {
      * @throws UnableToParseException
      */
     private static Header buildHeaderAST(ParseTree<MusicGrammar> p) throws UnableToParseException{
-        final int defaultTempo = 100;
-        final double eighth = 1.0/8.0;
-        final double sixteenth = 1.0/16.0;
-        List<String> voice = new ArrayList<>();
-        String composerName = "Unknown";
-        String keyBase = "C";
-        String keyAccidental = "=";
-        boolean ifMinor = false;
-        KeySignature keySignature = new KeySignature("C");
-        Meter meter = new Meter("C");
-        double defaultLength = eighth;
-        boolean ifSetDefaultLength = false;
-        Tempo tempo = new Tempo(defaultLength, defaultTempo);
-        boolean specifiedTempo = false;
-        String title = "Untitled";
-        int indexNumber = 0;
+        HeaderBuilder header = new HeaderBuilder();
         if (p.getName().equals(MusicGrammar.ABC_HEADER)) {
+            IndexedParseTree<MusicGrammar> headerNode = IndexedParseTree.of(p);
             String indexString = "";
-            for (ParseTree<MusicGrammar> digit : p.childrenByName(MusicGrammar.FIELD_NUMBER).get(0).childrenByName(MusicGrammar.DIGIT)) {
-                indexString += digit.getContents();
-            }
-            indexNumber = Integer.parseInt(indexString);
-            title = p.childrenByName(MusicGrammar.FIELD_TITLE).get(0)
-                    .childrenByName(MusicGrammar.TEXT).get(0).getContents();
-            ParseTree<MusicGrammar> keySubtree = p.childrenByName(MusicGrammar.FIELD_KEY).get(0)
-                    .childrenByName(MusicGrammar.KEY).get(0);
-            ifMinor = !keySubtree.childrenByName(MusicGrammar.MODE_MINOR).isEmpty();
-            keyBase = keySubtree.childrenByName(MusicGrammar.KEYNOTE).get(0)
-                    .childrenByName(MusicGrammar.BASENOTE).get(0).getContents();
-            try {
-                keyAccidental = keySubtree.childrenByName(MusicGrammar.KEYNOTE).get(0)
-                        .childrenByName(MusicGrammar.KEY_ACCIDENTAL).get(0).getContents();
-            } catch (IndexOutOfBoundsException e) {
-                keyAccidental = "=";
+            for (ParseTree<MusicGrammar> digit : headerNode.child(MusicGrammar.FIELD_NUMBER).inOrder()) {
+                if (digit.getName() == MusicGrammar.DIGIT) {
+                    indexString += digit.getContents();
+                }
             }
-            keySignature = new KeySignature(keyBase, keyAccidental, ifMinor);
-            List<ParseTree<MusicGrammar>> optionals = p.childrenByName(MusicGrammar.OTHER_FIELDS);
-            for(ParseTree<MusicGrammar> optional: optionals) {
-                ParseTree<MusicGrammar> field = optional.children().get(0);
-                switch(field.getName()) {
+            header.setIndexNumber(indexString);
+            header.setTitle(headerNode.child(MusicGrammar.FIELD_TITLE).contents(MusicGrammar.TEXT));
+            IndexedParseTree<MusicGrammar> keySubtree = headerNode.child(MusicGrammar.FIELD_KEY).child(MusicGrammar.KEY);
+            boolean ifMinor = keySubtree.has(MusicGrammar.MODE_MINOR);
+            IndexedParseTree<MusicGrammar> keynote = keySubtree.child(MusicGrammar.KEYNOTE);
+            String keyBase = keynote.contents(MusicGrammar.BASENOTE);
+            String keyAccidental = keynote.has(MusicGrammar.KEY_ACCIDENTAL) ? keynote.contents(MusicGrammar.KEY_ACCIDENTAL) : "=";
+            header.setKey(keyBase, keyAccidental, ifMinor);
+            for(ParseTree<MusicGrammar> optional: headerNode.inOrder()) {
+                if (optional.getName() != MusicGrammar.OTHER_FIELDS) {
+                    continue;
+                }
+                ParseTree<MusicGrammar> fieldTree = IndexedParseTree.of(optional).inOrder().get(0);
+                IndexedParseTree<MusicGrammar> field = IndexedParseTree.of(fieldTree);
+                switch(fieldTree.getName()) {
                 case FIELD_COMPOSER: {
-                    composerName = field.childrenByName(MusicGrammar.TEXT).get(0).getContents();
+                    header.setComposer(field.contents(MusicGrammar.TEXT));
                     break;
                 }
                 case FIELD_DEFAULT_LENGTH: {
-                    defaultLength = getDuration(field, true);
-                    ifSetDefaultLength = true;
-                    if(!specifiedTempo)
-                        tempo = new Tempo(defaultLength, defaultTempo);
+                    header.setDefaultLength(field.contents(MusicGrammar.NOTE_LENGTH_STRICT));
                     break;
                 }
                 case FIELD_METER: {
-                    if (field.childrenByName(MusicGrammar.METER).get(0)
-                            .childrenByName(MusicGrammar.METER_FRACTION).isEmpty()) {
-                        String meterString = field.childrenByName(MusicGrammar.METER).get(0).getContents();
-                        try {
-                            meter = new Meter(meterString);
-                        } catch(IllegalArgumentException e) {
-                            throw new UnableToParseException("invalid meter");
-                        }
-                        if (!ifSetDefaultLength) {
-                            if ((double)meter.getNumerator() / (double)meter.getDenominator() >= 0.75)
-                                defaultLength = eighth;
-                            else
-                                defaultLength = sixteenth;
-                        }
+                    IndexedParseTree<MusicGrammar> meter = field.child(MusicGrammar.METER);
+                    if (!meter.has(MusicGrammar.METER_FRACTION)) {
+                        header.setMeter(meter.getContents());
                     }
                     else {
-                        String meterFraction = field.childrenByName(MusicGrammar.METER).get(0)
-                                                       .childrenByName(MusicGrammar.METER_FRACTION).get(0).getContents();
-                        String[] ratio = meterFraction.split("/");
-                        meter = new Meter(Integer.parseInt(ratio[0]), Integer.parseInt(ratio[1]));
+                        header.setMeterFraction(meter.contents(MusicGrammar.METER_FRACTION));
                     }
                     break;
                 }
                 case FIELD_TEMPO: {
-                    String tempoString = field.childrenByName(MusicGrammar.TEMPO).get(0).getContents();
-                    String[] dividedString = tempoString.split("=");
-                    
-                    String meterFraction = field.childrenByName(MusicGrammar.TEMPO).get(0)
-                                                   .childrenByName(MusicGrammar.METER_FRACTION).get(0).getContents();
-                    String[] ratio = meterFraction.split("/");
-                    tempo = new Tempo(Double.parseDouble(ratio[0]) / Double.parseDouble(ratio[1]), Integer.parseInt(dividedString[1]));
-                    specifiedTempo = true;
+                    IndexedParseTree<MusicGrammar> tempo = field.child(MusicGrammar.TEMPO);
+                    header.setTempo(tempo.getContents(), tempo.contents(MusicGrammar.METER_FRACTION));
                     break;
                 }
                 case FIELD_VOICE: {
-                    voice.add(field.childrenByName(MusicGrammar.TEXT).get(0).getContents());
+                    header.addVoice(field.contents(MusicGrammar.TEXT));
                     break;
                 }
                 default:
                     throw new UnableToParseException("invalid header");
                 }
             }
-            return new Header(voice, composerName, keySignature, defaultLength, meter, tempo, title, indexNumber);
+            return header.build();
         }
         else
             throw new UnableToParseException("unable to parse header");
     }
+    /**
+     * Function converts the ParseTree of the body of a tune to Voices, building each voice on executor
+     * and putting them together in the order they appear in the tree.
+     * @param p
+     *  ParseTree<MusicGrammar> that is assumed to have been constructed by the abc_music rule in Abc.g
+     * @param header the Header containing the information about this song
+     * @param executor runs the building of each voice
+     * @return Voices constructed from ParseTree p
+     * @throws UnableToParseException unable to parse
+     */
+    private static Voices buildVoicesAST(ParseTree<MusicGrammar> p, Header header, Executor executor) throws UnableToParseException{
+        List<ParseTree<MusicGrammar>> defaultLines = new ArrayList<>();
+        List<ParseTree<MusicGrammar>> voiceTrees = new ArrayList<>();
+        for (ParseTree<MusicGrammar> child : IndexedParseTree.of(p).inOrder()){
+            if (child.getName() == MusicGrammar.VOICE){
+                voiceTrees.add(child);
+            } else if (child.getName() == MusicGrammar.ABC_LINE && IndexedParseTree.of(child).has(MusicGrammar.MEASURE)){
+                defaultLines.add(child);
+            }
+        }
+        List<String> names = new ArrayList<>();
+        List<FutureTask<Voice>> tasks = new ArrayList<>();
+        if (!defaultLines.isEmpty()){
+            names.add(Voices.DEFAULT_VOICE);
+            tasks.add(new FutureTask<>(() -> {
+                MeasureAccidentals accidentals = new MeasureAccidentals(header.getKeySignature());
+                Voice tune = new Voice();
+                for (ParseTree<MusicGrammar> line : defaultLines){
+                    tune = tune.append((Voice)buildMusicAST(line, header, accidentals));
+                }
+                return tune;
+            }));
+        }
+        for (ParseTree<MusicGrammar> voice : voiceTrees){
+            names.add(getName(voice));
+            tasks.add(new FutureTask<>(() -> (Voice)buildMusicAST(voice, header, new MeasureAccidentals(header.getKeySignature()))));
+        }
+        for (FutureTask<Voice> task : tasks){
+            executor.execute(task);
+        }
+        Voices voices = new Voices();
+        try {
+            for (int i = 0; i < tasks.size(); i++){
+                voices = voices.append(names.get(i), tasks.get(i).get());
+            }
+        } catch (ExecutionException e) {
+            for (FutureTask<Voice> task : tasks){
+                task.cancel(false);
+            }
+            if (e.getCause() instanceof UnableToParseException)
+                throw (UnableToParseException)e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error)e.getCause();
+            throw (RuntimeException)e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnableToParseException("interrupted while building voices");
+        }
+        return voices;
+    }
+    
     /**
      * Function converts a ParseTree to music. 
      * @param p
      *  ParseTree<MusicGrammar> that is assumed to have been constructed by the Music grammar in Abc.g
      * @param header the Header containing the information about this song
-     * @param accidentals the key signature map
+     * @param accidentals the accidentals in effect, reset at the start of each measure
      * @return Music constructed from ParseTree p
      * @throws UnableToParseException unable to parse
      */
-    private static Music buildMusicAST(ParseTree<MusicGrammar> p, Header header, Map<Character, Accidental> accidentals) throws UnableToParseException{
+    private static Music buildMusicAST(ParseTree<MusicGrammar> p, Header header, MeasureAccidentals accidentals) throws UnableToParseException{
         
         switch(p.getName()){
         /*
@@ -192,162 +640,100 @@ public class AbcParser {
          */
         case VOICE:
             Voice voiceTune = new Voice();
-            for (ParseTree<MusicGrammar> line : p.childrenByName(MusicGrammar.ABC_LINE)){
-                voiceTune = voiceTune.append((Voice)buildMusicAST(line, header, accidentals));
+            for (ParseTree<MusicGrammar> line : IndexedParseTree.of(p).inOrder()){
+                if (line.getName() == MusicGrammar.ABC_LINE){
+                    voiceTune = voiceTune.append((Voice)buildMusicAST(line, header, accidentals));
+                }
             }
             return voiceTune;
         case ABC_MUSIC:
-            Voices voices = new Voices();
-            List<ParseTree<MusicGrammar>> defaultVoice = p.childrenByName(MusicGrammar.ABC_LINE);
-            if(defaultVoice.size() > 0){
-                Voice tune = new Voice();
-                boolean empty = true;
-                for (ParseTree<MusicGrammar> line : defaultVoice){
-                    if (line.childrenByName(MusicGrammar.MEASURE).size()>0){
-                        tune = tune.append((Voice)buildMusicAST(line, header, accidentals));
-                        empty = false;
-                    }
-                }
-                if (!empty){
-                    voices = new Voices(tune);
-                }
-            }
-            for (ParseTree<MusicGrammar> voice : p.childrenByName(MusicGrammar.VOICE)){
-                String name = getName(voice);
-                voices = voices.append(name, (Voice)buildMusicAST(voice, header, accidentals));
-            }
-            return voices;
+            return buildVoicesAST(p, header, SAME_THREAD);
         case ABC_LINE:
             List<Measure> measures = new ArrayList<>();
-            for (ParseTree<MusicGrammar> child : p.childrenByName(MusicGrammar.MEASURE)){
-                measures.add((Measure)buildMusicAST(child, header, accidentals));
+            for (ParseTree<MusicGrammar> child : IndexedParseTree.of(p).inOrder()){
+                if (child.getName() == MusicGrammar.MEASURE){
+                    measures.add((Measure)buildMusicAST(child, header, accidentals));
+                }
             }
             return new Voice(measures);
         case MEASURE:
-            Map<Character, Accidental> measureAccidentals = new HashMap<>(accidentals);
+            accidentals.reset();
             List<Music> measureElements = new ArrayList<>();
-            for (ParseTree<MusicGrammar> child : p.childrenByName(MusicGrammar.ELEMENT)){
-                measureElements.add(buildMusicAST(child, header, measureAccidentals));
-            }
-            boolean startSecondEnding = false;
-            boolean startFirstEnding = false;
-            boolean endRepeat = false;
-            boolean startRepeat = false;
-            boolean endMajorSection = false;
-            if (p.childrenByName(MusicGrammar.BARLINE).size() > 0){
-                String bar = p.childrenByName(MusicGrammar.BARLINE).get(0).getContents();
-                if (bar.equals(END_REPEAT)){
-                    endRepeat = true;
-                }
-                if (SECTION_ENDINGS.contains(bar)){
-                    endMajorSection = true;
+            String bar = null;
+            String prefix = null;
+            for (ParseTree<MusicGrammar> child : IndexedParseTree.of(p).inOrder()){
+                switch (child.getName()){
+                case ELEMENT:
+                    measureElements.add(buildMusicAST(child, header, accidentals));
+                    break;
+                case BARLINE:
+                    bar = bar == null ? child.getContents() : bar;
+                    break;
+                case MEASURE_PREFIX:
+                    prefix = prefix == null ? child.getContents() : prefix;
+                    break;
+                default:
+                    break;
                 }
             }
-            List<ParseTree<MusicGrammar>> prefixList = p.childrenByName(MusicGrammar.MEASURE_PREFIX);
-            if (prefixList.size() > 0){
-                String prefix = prefixList.get(0).getContents();
-                if (prefix.equals(START_REPEAT)){
-                    startRepeat = true;
-                }
-                else if (prefix.equals(START_FIRST_ENDING)){
-                    startFirstEnding = true;
-                }
-                else if (prefix.equals(START_SECOND_ENDING)){
-                    startSecondEnding = true;
-                }
-            }     
-            return new Measure(measureElements, header.getMeter().getNumerator(), startRepeat, endRepeat, startFirstEnding, startSecondEnding, endMajorSection);
+            return buildMeasure(measureElements, bar, prefix, header);
         case ELEMENT:
-            List<ParseTree<MusicGrammar>> noteElementChild = p.childrenByName(MusicGrammar.NOTE_ELEMENT);
-            if (noteElementChild.size() > 0){
-                return buildMusicAST(noteElementChild.get(0), header, accidentals);
+            IndexedParseTree<MusicGrammar> element = IndexedParseTree.of(p);
+            if (element.has(MusicGrammar.NOTE_ELEMENT)){
+                return buildMusicAST(element.first(MusicGrammar.NOTE_ELEMENT), header, accidentals);
             }
-            List<ParseTree<MusicGrammar>> tupletElementList = p.childrenByName(MusicGrammar.TUPLET_ELEMENT);
-            if (tupletElementList.size() >0){
-                return buildMusicAST(tupletElementList.get(0), header, accidentals);
+            if (element.has(MusicGrammar.TUPLET_ELEMENT)){
+                return buildMusicAST(element.first(MusicGrammar.TUPLET_ELEMENT), header, accidentals);
             }
-            return new Rest(0);
+            return new Rest(Rational.ZERO);
         case NOTE_ELEMENT:
-            return buildMusicAST(p.children().get(0), header, accidentals);
+            return buildMusicAST(IndexedParseTree.of(p).inOrder().get(0), header, accidentals);
         case NOTE:
-            Music noteOrRest = buildMusicAST(p.childrenByName(MusicGrammar.NOTE_OR_REST).get(0), header, accidentals);
-            double duration = getDuration(p, false);
-            return noteOrRest.rescale(duration);
+            IndexedParseTree<MusicGrammar> note = IndexedParseTree.of(p);
+            Music noteOrRest = buildMusicAST(note.first(MusicGrammar.NOTE_OR_REST), header, accidentals);
+            String noteLength = note.contents(MusicGrammar.NOTE_LENGTH);
+            try {
+                Rational duration = noteLength != null ? getLength(noteLength) : Rational.ONE;
+                return noteOrRest.rescale(duration);
+            } catch (ArithmeticException e) {
+                throw new UnableToParseException("invalid note length: " + noteLength);
+            }
         case NOTE_OR_REST:
-            return buildMusicAST(p.children().get(0), header, accidentals);
+            return buildMusicAST(IndexedParseTree.of(p).inOrder().get(0), header, accidentals);
         case PITCH:
-            char baseNote = p.childrenByName(MusicGrammar.BASENOTE).get(0).getContents().charAt(0);
-            boolean isLowerCase = Character.isLowerCase(baseNote);
-            baseNote = Character.toUpperCase(baseNote);
-            Pitch pitch = new Pitch(baseNote);
-            if (isLowerCase){
-                pitch = pitch.addOctave();
-            }
-            List<ParseTree<MusicGrammar>> accidentalList = p.childrenByName(MusicGrammar.ACCIDENTAL);
-            if (accidentalList.size() > 0){
-                String accidental = accidentalList.get(0).getContents();
-                if (accidental.contains("^")){
-                    pitch = pitch.addSharp();
-                    accidentals.put(baseNote, Accidental.SHARP);
-                }
-                else if(accidental.contains("_")){
-                    pitch = pitch.addFlat();
-                    accidentals.put(baseNote, Accidental.FLAT);
-                }
-                if (accidental.equals("^^")){
-                    pitch = pitch.addSharp();
-                    accidentals.put(baseNote, Accidental.DOUBLESHARP);
-                }
-                else if(accidental.equals("__")){
-                    pitch = pitch.addFlat();
-                    accidentals.put(baseNote, Accidental.DOUBLEFLAT);
-                }
-                else if(accidental.equals("=")){
-                    accidentals.put(baseNote, Accidental.NATURAL);
-                }
-            }
-            else if (accidentals.containsKey(baseNote)){
-                Accidental accidental = accidentals.get(baseNote);
-                if (accidental.equals(Accidental.FLAT)){
-                    pitch = pitch.addFlat();
-                }
-                else if (accidental.equals(Accidental.DOUBLEFLAT)){
-                    pitch = pitch.addDoubleFlat();
-                }
-                else if (accidental.equals(Accidental.DOUBLESHARP)){
-                    pitch = pitch.addDoubleSharp();
-                }
-                else if (accidental.equals(Accidental.SHARP)){
-                    pitch = pitch.addSharp();
-                }
-            }
-            List<ParseTree<MusicGrammar>> octaveList = p.childrenByName(MusicGrammar.OCTAVE);
-            if (octaveList.size() > 0){
-                char[] octaves = octaveList.get(0).getContents().toCharArray();
-                for (char octave: octaves){
-                    if (octave == '\''){
-                        pitch = pitch.addOctave();
-                    }
-                    else if (octave == ','){
-                        pitch = pitch.subtractOctave();
-                    }
-                }
-            }
-            return new Note(header.getBeatsPerDefaultNote(), pitch);
+            IndexedParseTree<MusicGrammar> pitchNode = IndexedParseTree.of(p);
+            char baseNote = pitchNode.contents(MusicGrammar.BASENOTE).charAt(0);
+            String accidental = pitchNode.contents(MusicGrammar.ACCIDENTAL);
+            String octave = pitchNode.contents(MusicGrammar.OCTAVE);
+            Pitch pitch = accidentals.resolve(baseNote, MeasureAccidentals.accidental(accidental), MeasureAccidentals.octaves(octave));
+            return new Note(header.getExactBeatsPerDefaultNote(), pitch);
         case REST:
-            return new Rest(header.getBeatsPerDefaultNote());
+            return new Rest(header.getExactBeatsPerDefaultNote());
         case MULTI_NOTE:
             Set<Note> notes = new HashSet<>();
-            List<ParseTree<MusicGrammar>> noteList = p.childrenByName(MusicGrammar.NOTE);
-            for (ParseTree<MusicGrammar> noteTree: noteList){
-                notes.add((Note)buildMusicAST(noteTree, header, accidentals));
+            for (ParseTree<MusicGrammar> noteTree: IndexedParseTree.of(p).inOrder()){
+                if (noteTree.getName() == MusicGrammar.NOTE){
+                    Music chordNote = buildMusicAST(noteTree, header, accidentals);
+                    // the grammar lets a chord hold a rest, but a Chord can only hold notes
+                    if (!(chordNote instanceof Note)){
+                        throw new UnableToParseException("rest in a chord");
+                    }
+                    notes.add((Note)chordNote);
+                }
             }
             return new Chord(notes);
         case TUPLET_ELEMENT:
-            List<ParseTree<MusicGrammar>> noteElementList = p.childrenByName(MusicGrammar.NOTE_ELEMENT);
-            Music[] tupletElements = new Music[noteElementList.size()];
-            for (int i = 0; i < tupletElements.length; i++){
-                tupletElements[i] = buildMusicAST(noteElementList.get(i), header, accidentals);
+            List<ParseTree<MusicGrammar>> tupletChildren = IndexedParseTree.of(p).inOrder();
+            int tupletSize = 0;
+            for (ParseTree<MusicGrammar> child : tupletChildren){
+                tupletSize += child.getName() == MusicGrammar.NOTE_ELEMENT ? 1 : 0;
+            }
+            Music[] tupletElements = new Music[tupletSize];
+            int next = 0;
+            for (ParseTree<MusicGrammar> child : tupletChildren){
+                if (child.getName() == MusicGrammar.NOTE_ELEMENT){
+                    tupletElements[next++] = buildMusicAST(child, header, accidentals);
+                }
             }
             return new Tuplet(tupletElements);
         default:
@@ -361,41 +747,70 @@ public class AbcParser {
      * @return name of voice
      */
     private static String getName(ParseTree<MusicGrammar> voice) {
-        ParseTree<MusicGrammar> fieldVoice = voice.childrenByName(MusicGrammar.MID_TUNE_FIELD).get(0).childrenByName(MusicGrammar.FIELD_VOICE).get(0);
-        String name = fieldVoice.childrenByName(MusicGrammar.TEXT).get(0).getContents();
-        return name;
+        return IndexedParseTree.of(voice).child(MusicGrammar.MID_TUNE_FIELD).child(MusicGrammar.FIELD_VOICE).contents(MusicGrammar.TEXT);
     }
 
     /**
-     * Parse the duration of a note/rest
-     * @param p parse tree
-     * @param ifStrict true if the abc file text follows the strict definition of note length, false otherwise
-     * @return duration
+     * Make a measure, the way both parser engines do.
+     * @param elements the notes, chords, rests and tuplets of the measure, in order
+     * @param bar the first barline of the measure (its opening barline if it has one), or null if it has none
+     * @param prefix the measure prefix ":", "[1" or "[2", or null if it has none
+     * @param header the Header containing the information about this song
+     * @return the measure
      */
-    private static double getDuration(ParseTree<MusicGrammar> p, boolean ifStrict){
-        double numerator = 1;
-        double denominator = 1;
-        List<ParseTree<MusicGrammar>> children;
-        if (ifStrict) 
-            children = p.childrenByName(MusicGrammar.NOTE_LENGTH_STRICT);
-        else
-            children = p.childrenByName(MusicGrammar.NOTE_LENGTH);
-        if (children.size() > 0){
-            String noteLength = children.get(0).getContents();
-            if (noteLength.equals("/")){
-                return 1;
+    static Measure buildMeasure(List<Music> elements, String bar, String prefix, Header header){
+        boolean startSecondEnding = false;
+        boolean startFirstEnding = false;
+        boolean endRepeat = false;
+        boolean startRepeat = false;
+        boolean endMajorSection = false;
+        if (bar != null){
+            if (bar.equals(END_REPEAT)){
+                endRepeat = true;
+            }
+            if (SECTION_ENDINGS.contains(bar)){
+                endMajorSection = true;
+            }
+        }
+        if (prefix != null){
+            if (prefix.equals(START_REPEAT)){
+                startRepeat = true;
             }
-            String[] ratio = noteLength.split("/");
+            else if (prefix.equals(START_FIRST_ENDING)){
+                startFirstEnding = true;
+            }
+            else if (prefix.equals(START_SECOND_ENDING)){
+                startSecondEnding = true;
+            }
+        }
+        return new Measure(elements, header.getMeter().getNumerator(), startRepeat, endRepeat, startFirstEnding, startSecondEnding, endMajorSection);
+    }
+    
+    /**
+     * Parse the duration of a note/rest exactly
+     * @param noteLength note length as written, e.g. "3/2", "/4", "2" or ""
+     * @return duration as a multiple of the default length
+     * @throws ArithmeticException If the denominator is 0, or a number is too large for a long
+     */
+    static Rational getLength(String noteLength){
+        long numerator = 1;
+        long denominator = 1;
+        if (noteLength.equals("/")){
+            return Rational.ONE;
+        }
+        String[] ratio = noteLength.split("/");
+        try {
             if (ratio[0].length()>0){
-                numerator = Double.parseDouble(ratio[0]);
+                numerator = Long.parseLong(ratio[0]);
             }
             if (ratio.length > 1 && ratio[1].length()>0){
-               denominator = Double.parseDouble(ratio[1]);
+               denominator = Long.parseLong(ratio[1]);
             }
+        } catch (NumberFormatException e) {
+            throw new ArithmeticException("note length too large: " + noteLength);
         }
-        
-        return numerator/denominator;
+        return Rational.of(numerator, denominator);
     }
 
 
-}
\ No newline at end of file
+}
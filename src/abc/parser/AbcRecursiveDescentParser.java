@@ -0,0 +1,810 @@
+package abc.parser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import abc.header.Header;
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Hand-written recursive-descent parser for the language of Abc.g.
+ * Builds the Header and Music of a Song while it reads, in one pass over the input,
+ * without making a ParseTree first.
+ *
+ * There is one method per rule of Abc.g, named after the rule. Like lib6005's Parser, every
+ * repetition is greedy and every choice takes the longest alternative, so each method only has to
+ * look a few characters ahead; the only backtracking is out of a measure or element that turns out
+ * not to be one, which never rereads more than a handful of characters.
+ * Rules inside the @skip whitespace block of Abc.g skip spaces and tabs around each of their parts.
+ */
+class AbcRecursiveDescentParser {
+
+    private final AbcLexer lexer;
+    private final ParseBudget budget;
+    private Header header;
+    private MeasureAccidentals accidentals;
+    private boolean inVoices = false;
+    private String voiceName = null;
+    private List<Diagnostic> diagnostics = null;
+
+    //AF:
+    //  represents a parse in progress of the abc file lexed by lexer;
+    //  header is the header of the tune, once parsed, and accidentals those in effect in the measure being parsed;
+    //  inVoices is true once the lines of the default voice are over,
+    //  and voiceName is the name in the last voice field read, if any;
+    //  if diagnostics is not null, the parse recovers from errors, recording each one there, instead of stopping;
+    //  budget counts the rules tried and tokens read, and stops the parse when they go past its limits
+    //RI:
+    //  lexer != null, budget != null
+    //  header == null iff accidentals == null
+    //  voiceName != null implies inVoices
+    //rep exposure:
+    //  all fields are private and never returned; Header is immutable; budget is made by the parser
+    //  or handed to it by a caller that does not use it for anything else
+    //  every UnableToParseException the parser throws, other than a ParseLimitException, is made by lexer.error,
+    //  so lexer.lastError() describes it
+
+    /**
+     * Parse the text of an abc file into a Song.
+     * @param input text of an abc file
+     * @return the Song described by input, equal to the one AbcParser builds from Abc.g's parse tree
+     * @throws UnableToParseException if input is not in the language of Abc.g
+     */
+    static Song parse(CharSequence input) throws UnableToParseException {
+        return new AbcRecursiveDescentParser(input).abcTune();
+    }
+
+    /**
+     * Parse the text of an abc file into a Song, within the limits of budget. Each rule tried is a step,
+     * and each note, rest, barline, measure prefix, tuplet or chord opening, header field and comment is a token.
+     * @param input text of an abc file
+     * @param budget account of the parse, not used by any other
+     * @return the Song described by input, equal to the one AbcParser builds from Abc.g's parse tree
+     * @throws ParseLimitException if the parse goes past a limit of budget
+     * @throws UnableToParseException if input is not in the language of Abc.g
+     */
+    static Song parse(CharSequence input, ParseBudget budget) throws UnableToParseException {
+        budget.input(input.length());
+        return new AbcRecursiveDescentParser(new AbcLexer(input), budget).abcTune();
+    }
+
+    /**
+     * Parse the text of an abc file into a Song, skipping over the parts that are not in the language of Abc.g.
+     * A bad header field is skipped to the end of its line, and a missing X:, T: or K: field is left at its default;
+     * if the body starts before a key field, it is parsed in the default key.
+     * A bad part of the body is skipped through the next barline, or to the end of its line if it has none.
+     * @param input text of an abc file
+     * @return the Song made from the rest of input, and a diagnostic for each part skipped;
+     *         if there are none, the Song is the one parse returns
+     */
+    static ParseResult parseRecovering(CharSequence input) {
+        AbcRecursiveDescentParser parser = new AbcRecursiveDescentParser(input);
+        parser.diagnostics = new ArrayList<>();
+        try {
+            return new ParseResult(parser.abcTune(), parser.diagnostics);
+        } catch (UnableToParseException e) {
+            throw new AssertionError("a recovering parse records its errors instead of throwing them", e);
+        }
+    }
+
+    /**
+     * Make a parser positioned at the start of input.
+     * @param input text of an abc file
+     */
+    AbcRecursiveDescentParser(CharSequence input) {
+        this(new AbcLexer(input), new ParseBudget(ParseLimits.UNLIMITED));
+    }
+
+    /**
+     * Make a parser positioned at the start of the text read from in.
+     * @param in source of the text of an abc file; read only as far as parsing has got, and not closed
+     */
+    AbcRecursiveDescentParser(Reader in) {
+        this(new AbcLexer(in), new ParseBudget(ParseLimits.UNLIMITED));
+    }
+
+    /**
+     * Make a parser positioned at the start of input that works within the limits of budget.
+     * @param input text of an abc file
+     * @param budget account of the parse, not used by any other
+     */
+    AbcRecursiveDescentParser(CharSequence input, ParseBudget budget) {
+        this(new AbcLexer(input), budget);
+    }
+
+    // make a parser that reads from lexer within the limits of budget
+    private AbcRecursiveDescentParser(AbcLexer lexer, ParseBudget budget) {
+        this.lexer = lexer;
+        this.budget = budget;
+        checkRep();
+    }
+
+    /**
+     * Make a parser that picks up part way through the body of a tune, in the state it would be in
+     * after parsing everything before position. Used to re-parse some lines of a tune without the rest.
+     * @param input text of an abc file
+     * @param header the header of the tune
+     * @param position index in input of the start of a line of the body
+     * @param inVoices true iff the lines of the default voice are over by position
+     * @param voiceName name in the last voice field before position, or null if there is none
+     */
+    AbcRecursiveDescentParser(CharSequence input, Header header, int position, boolean inVoices, String voiceName) {
+        this(input, header, position, inVoices, voiceName, new ParseBudget(ParseLimits.UNLIMITED));
+    }
+
+    /**
+     * Make a parser that picks up part way through the body of a tune, as the constructor above does,
+     * and works within the limits of budget.
+     * @param input text of an abc file
+     * @param header the header of the tune
+     * @param position index in input of the start of a line of the body
+     * @param inVoices true iff the lines of the default voice are over by position
+     * @param voiceName name in the last voice field before position, or null if there is none
+     * @param budget account of this part of the parse, not used by any other
+     */
+    AbcRecursiveDescentParser(CharSequence input, Header header, int position, boolean inVoices, String voiceName,
+            ParseBudget budget) {
+        this.lexer = new AbcLexer(input);
+        this.budget = budget;
+        lexer.reset(position);
+        this.header = header;
+        this.accidentals = new MeasureAccidentals(header.getKeySignature());
+        this.inVoices = inVoices;
+        this.voiceName = voiceName;
+        checkRep();
+    }
+
+    /**
+     * @return the index of the next character to be parsed
+     */
+    int position() {
+        return lexer.position();
+    }
+
+    /**
+     * @return true iff the lines of the default voice are over
+     */
+    boolean inVoices() {
+        return inVoices;
+    }
+
+    /**
+     * @return name in the last voice field read, or null if there has been none
+     */
+    String voiceName() {
+        return voiceName;
+    }
+
+    // check RI
+    private void checkRep() {
+        assert lexer != null && budget != null;
+        assert (header == null) == (accidentals == null);
+        assert voiceName == null || inVoices;
+    }
+
+    // abc_tune ::= abc_header abc_music;
+    private Song abcTune() throws UnableToParseException {
+        abcHeader();
+        Music music = abcMusic();
+        return new Song(music, header);
+    }
+
+    // ---------------------------------------------------------------- header
+
+    // abc_header ::= field_number comment* field_title other_fields* field_key;
+    /**
+     * Parse the header and remember it, along with the accidentals of its key.
+     * Must be called once, before nextLine.
+     * @return the header
+     * @throws UnableToParseException if the header is not in the language of Abc.g
+     */
+    Header abcHeader() throws UnableToParseException {
+        lexer.skipWhitespace();
+        HeaderBuilder builder = new HeaderBuilder();
+        requiredField("X:", () -> fieldNumber(builder));
+        while (lexer.peek() == '%') {
+            headerLine(() -> comment(true));
+            lexer.skipWhitespace();
+        }
+        requiredField("T:", () -> fieldTitle(builder));
+        while (!lexer.lookingAt("K:") && (diagnostics == null || lookingAtHeaderLine())) {
+            headerLine(() -> otherFields(builder));
+            lexer.skipWhitespace();
+        }
+        requiredField("K:", () -> fieldKey(builder));
+        header = builder.build();
+        accidentals = new MeasureAccidentals(header.getKeySignature());
+        lexer.skipWhitespace();
+        checkRep();
+        return header;
+    }
+
+    // one line of the header, parsed into a HeaderBuilder
+    private interface HeaderField {
+        void parse() throws UnableToParseException;
+    }
+
+    // parse a line of the header with field; when recovering, record a failure and skip the rest of the line
+    private void headerLine(HeaderField field) throws UnableToParseException {
+        budget.enter();
+        budget.token();
+        try {
+            field.parse();
+        } catch (UnableToParseException e) {
+            recover(e);
+            lexer.text();
+            lexer.newline();
+            lexer.skipWhitespace();
+        }
+        budget.exit();
+    }
+
+    // parse a field that the header must have, starting with name; when recovering and the field is missing,
+    // record that and leave the line for whatever comes next
+    private void requiredField(String name, HeaderField field) throws UnableToParseException {
+        if (diagnostics != null && !lexer.lookingAt(name)) {
+            recover(lexer.error("\"" + name + "\""));
+        } else {
+            headerLine(field);
+        }
+    }
+
+    // true iff the input continues with something that could be a line of the header: a field or a comment
+    private boolean lookingAtHeaderLine() {
+        int next = lexer.peek();
+        return next == '%' || (((next >= 'A' && next <= 'Z') || (next >= 'a' && next <= 'z')) && lexer.peek(1) == ':');
+    }
+
+    // field_number ::= "X:" DIGIT+ end_of_line;
+    private void fieldNumber(HeaderBuilder builder) throws UnableToParseException {
+        expect("X:");
+        lexer.skipWhitespace();
+        int start = lexer.position();
+        String digits = "";
+        do {
+            if (!lexer.atDigit()) {
+                throw lexer.error("a digit");
+            }
+            digits += (char) lexer.peek();
+            lexer.accept((char) lexer.peek());
+            lexer.skipWhitespace();
+        } while (lexer.atDigit());
+        try {
+            builder.setIndexNumber(digits);
+        } catch (UnableToParseException e) {
+            lexer.reset(start);
+            throw lexer.error("an index number that fits in an int");
+        }
+        endOfLine();
+        lexer.skipWhitespace();
+    }
+
+    // field_title ::= "T:" text end_of_line;
+    private void fieldTitle(HeaderBuilder builder) throws UnableToParseException {
+        builder.setTitle(textField("T:"));
+    }
+
+    // other_fields ::= field_composer | field_default_length | field_meter | field_tempo | field_voice | comment;
+    private void otherFields(HeaderBuilder builder) throws UnableToParseException {
+        if (lexer.lookingAt("C:")) {
+            builder.setComposer(textField("C:"));
+        } else if (lexer.lookingAt("L:")) {
+            fieldDefaultLength(builder);
+        } else if (lexer.lookingAt("M:")) {
+            fieldMeter(builder);
+        } else if (lexer.lookingAt("Q:")) {
+            fieldTempo(builder);
+        } else if (lexer.lookingAt("V:")) {
+            builder.addVoice(textField("V:"));
+        } else if (lexer.peek() == '%') {
+            // in the language of Abc.g, but AbcParser.buildHeaderAST has never accepted it
+            throw lexer.error("a header field other than a comment");
+        } else {
+            throw lexer.error("a header field");
+        }
+    }
+
+    // field_default_length ::= "L:" note_length_strict end_of_line;
+    private void fieldDefaultLength(HeaderBuilder builder) throws UnableToParseException {
+        expect("L:");
+        lexer.skipWhitespace();
+        // note_length_strict ::= DIGIT+ "/" DIGIT+;
+        int start = lexer.position();
+        if (lexer.digits().isEmpty() || !lexer.accept('/') || lexer.digits().isEmpty()) {
+            lexer.reset(start);
+            throw lexer.error("a note length of the form n/d");
+        }
+        try {
+            builder.setDefaultLength(lexer.substring(start, lexer.position()));
+        } catch (UnableToParseException e) {
+            lexer.reset(start);
+            throw lexer.error("a nonzero note length that fits in longs");
+        }
+        lexer.skipWhitespace();
+        endOfLine();
+        lexer.skipWhitespace();
+    }
+
+    // field_meter ::= "M:" meter end_of_line;
+    // meter ::= "C" | "C|" | meter_fraction;
+    private void fieldMeter(HeaderBuilder builder) throws UnableToParseException {
+        expect("M:");
+        lexer.skipWhitespace();
+        int start = lexer.position();
+        if (lexer.accept('C')) {
+            lexer.accept('|');
+            lexer.skipWhitespace();
+            builder.setMeter(lexer.substring(start, lexer.position()));
+        } else {
+            meterFraction();
+            try {
+                builder.setMeterFraction(lexer.substring(start, lexer.position()));
+            } catch (UnableToParseException e) {
+                lexer.reset(start);
+                throw lexer.error("a meter that fits in ints");
+            }
+        }
+        endOfLine();
+        lexer.skipWhitespace();
+    }
+
+    // field_tempo ::= "Q:" tempo end_of_line;
+    // tempo ::= meter_fraction "=" DIGIT+;
+    private void fieldTempo(HeaderBuilder builder) throws UnableToParseException {
+        expect("Q:");
+        lexer.skipWhitespace();
+        int start = lexer.position();
+        meterFraction();
+        String meterFraction = lexer.substring(start, lexer.position());
+        expect("=");
+        lexer.skipWhitespace();
+        skippedDigits();
+        try {
+            builder.setTempo(lexer.substring(start, lexer.position()), meterFraction);
+        } catch (UnableToParseException e) {
+            lexer.reset(start);
+            throw lexer.error("a tempo that fits in an int");
+        }
+        endOfLine();
+        lexer.skipWhitespace();
+    }
+
+    // meter_fraction ::= DIGIT+ "/" DIGIT+;
+    private void meterFraction() throws UnableToParseException {
+        skippedDigits();
+        expect("/");
+        lexer.skipWhitespace();
+        skippedDigits();
+    }
+
+    // DIGIT+ inside the @skip block: digits, each followed by any whitespace
+    private void skippedDigits() throws UnableToParseException {
+        if (!lexer.atDigit()) {
+            throw lexer.error("a digit");
+        }
+        while (lexer.atDigit()) {
+            lexer.digits();
+            lexer.skipWhitespace();
+        }
+    }
+
+    // field_key ::= "K:" key end_of_line;
+    // key ::= keynote mode_minor?;
+    // keynote ::= basenote key_accidental?;
+    private void fieldKey(HeaderBuilder builder) throws UnableToParseException {
+        expect("K:");
+        lexer.skipWhitespace();
+        int keyStart = lexer.position();
+        if (!isBasenote(lexer.peek())) {
+            throw lexer.error("a key");
+        }
+        String keyBase = String.valueOf((char) lexer.peek());
+        lexer.accept(keyBase);
+        lexer.skipWhitespace();
+        String keyAccidental = "=";
+        if (lexer.peek() == '#' || lexer.peek() == 'b') {
+            // key_accidental is in the @skip block, so like the grammar keep its trailing whitespace
+            int start = lexer.position();
+            lexer.accept((char) lexer.peek());
+            lexer.skipWhitespace();
+            keyAccidental = lexer.substring(start, lexer.position());
+        }
+        boolean ifMinor = lexer.accept('m');
+        lexer.skipWhitespace();
+        try {
+            builder.setKey(keyBase, keyAccidental, ifMinor);
+        } catch (UnableToParseException e) {
+            lexer.reset(keyStart);
+            throw lexer.error("a key with a key signature");
+        }
+        endOfLine();
+        lexer.skipWhitespace();
+    }
+
+    // field_composer, field_title and field_voice ::= name text end_of_line;
+    private String textField(String name) throws UnableToParseException {
+        expect(name);
+        lexer.skipWhitespace();
+        String text = lexer.text();
+        endOfLine();
+        lexer.skipWhitespace();
+        return text;
+    }
+
+    // ---------------------------------------------------------------- body
+
+    // abc_music ::= (abc_line* voice+)+ | abc_line+;
+    private Music abcMusic() throws UnableToParseException {
+        VoiceLines voices = new VoiceLines();
+        nextLines(Integer.MAX_VALUE, voices);
+        return voices.toVoices();
+    }
+
+    /**
+     * Parse pieces of the body with nextLine, from where the parser is, until the body ends
+     * or the parser gets to or past end.
+     * @param end index in the input to stop at, the start of a line of the body
+     * @param voices gathers the measures of each piece
+     * @return true iff the body has ended
+     * @throws UnableToParseException if a piece is not in the language of Abc.g
+     */
+    boolean nextLines(int end, VoiceLines voices) throws UnableToParseException {
+        List<Measure> measures = new ArrayList<>();
+        while (lexer.position() < end) {
+            String name = nextLine(measures);
+            if (name == null) {
+                return true;
+            }
+            voices.add(name, inVoices, measures);
+            measures.clear();
+        }
+        return false;
+    }
+
+    /**
+     * Parse the next piece of the body: either one abc_line, or the field_voice at the start of a voice.
+     * Lines before the first voice field belong to the default voice; after that,
+     * each line belongs to the voice named by the last voice field.
+     * @param measures list to add the measures of the line to, in order
+     * When recovering, input that is neither is recorded and skipped through the next barline or to the end of the line,
+     * and counts as a piece with no measures in the voice it was found in.
+     * @return name of the voice the measures belong to (Voices.DEFAULT_VOICE for the default voice),
+     *         or null if the body has ended
+     * @throws UnableToParseException if the body has ended but the input has not
+     */
+    String nextLine(List<Measure> measures) throws UnableToParseException {
+        boolean wasInVoices = inVoices;
+        if (!inVoices) {
+            if (bodyLine(measures)) {
+                return Voices.DEFAULT_VOICE;
+            }
+            inVoices = true;
+        }
+        // voice ::= mid_tune_field abc_line*;
+        // mid_tune_field ::= field_voice;
+        if (voiceName != null && bodyLine(measures)) {
+            return voiceName;
+        }
+        if (lookingAtVoice()) {
+            lexer.skipWhitespace();
+            voiceName = textField("V:");
+            return voiceName;
+        }
+        lexer.skipWhitespace();
+        if (lexer.atEnd()) {
+            return null;
+        }
+        recover(lexer.error("a measure, comment, or voice field"));
+        inVoices = wasInVoices;
+        skipToBarline();
+        return inVoices ? voiceName : Voices.DEFAULT_VOICE;
+    }
+
+    // parse an abc_line as abcLine does; when recovering, record an error part way through it, keep the measures
+    // before the error, and skip through the next barline
+    private boolean bodyLine(List<Measure> measures) throws UnableToParseException {
+        try {
+            return abcLine(measures);
+        } catch (UnableToParseException e) {
+            recover(e);
+            skipToBarline();
+            return true;
+        }
+    }
+
+    // skip everything up to and including the next barline, or up to the end of the line if there is none
+    private void skipToBarline() throws ParseLimitException {
+        while (!lexer.atEnd() && lexer.peek() != '\n' && lexer.peek() != '\r' && barline() == null) {
+            lexer.accept((char) lexer.peek());
+        }
+    }
+
+    // true iff the input continues with a field_voice
+    private boolean lookingAtVoice() {
+        int start = lexer.position();
+        lexer.skipWhitespace();
+        boolean result = lexer.lookingAt("V:");
+        lexer.reset(start);
+        return result;
+    }
+
+    // abc_line ::= (measure+|comment|WHITESPACE*) end_of_line?;
+    /**
+     * Parse one abc_line, adding its measures to measures.
+     * @return true iff any input was read
+     */
+    private boolean abcLine(List<Measure> measures) throws UnableToParseException {
+        budget.enter();
+        int start = lexer.position();
+        try {
+            boolean anyMeasures = false;
+            for (Measure measure = measure(); measure != null; measure = measure()) {
+                measures.add(measure);
+                anyMeasures = true;
+            }
+            if (!anyMeasures && !comment(false)) {
+                lexer.skipWhitespace();
+            }
+            if (!comment(false)) {
+                lexer.newline();
+            }
+        } finally {
+            budget.exit();
+        }
+        return lexer.position() > start;
+    }
+
+    // measure ::= barline? measure_prefix? element+ barline?;
+    private Measure measure() throws UnableToParseException {
+        budget.enter();
+        int start = lexer.position();
+        String openingBar;
+        String prefix;
+        List<Music> elements = new ArrayList<>();
+        try {
+            openingBar = barline();
+            prefix = measurePrefix();
+            accidentals.reset();
+            for (Music element = element(); element != null; element = element()) {
+                elements.add(element);
+            }
+        } finally {
+            budget.exit();
+        }
+        if (elements.isEmpty()) {
+            lexer.reset(start);
+            return null;
+        }
+        String closingBar = barline();
+        return AbcParser.buildMeasure(elements, openingBar != null ? openingBar : closingBar, prefix, header);
+    }
+
+    // barline ::= "|" | "||" | "[|" | "|]" | ":|" | "|:";
+    private String barline() throws ParseLimitException {
+        String bar = null;
+        if (lexer.peek() == '|') {
+            int next = lexer.peek(1);
+            bar = next == '|' ? "||" : next == ']' ? "|]" : next == ':' ? "|:" : "|";
+            lexer.accept(bar);
+        } else if (lexer.accept("[|")) {
+            bar = "[|";
+        } else if (lexer.accept(":|")) {
+            bar = ":|";
+        }
+        if (bar != null) {
+            budget.token();
+        }
+        return bar;
+    }
+
+    // measure_prefix ::= ":" | "[1" | "[2";
+    private String measurePrefix() throws ParseLimitException {
+        for (String prefix : new String[] {":", "[1", "[2"}) {
+            if (lexer.accept(prefix)) {
+                budget.token();
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    // element ::= WHITESPACE* (note_element | tuplet_element) WHITESPACE*;
+    private Music element() throws UnableToParseException {
+        budget.enter();
+        int start = lexer.position();
+        Music element;
+        try {
+            lexer.skipWhitespace();
+            element = lexer.peek() == '(' ? tupletElement() : noteElement();
+        } finally {
+            budget.exit();
+        }
+        if (element == null) {
+            lexer.reset(start);
+            return null;
+        }
+        lexer.skipWhitespace();
+        return element;
+    }
+
+    // note_element ::= note | multi_note;
+    private Music noteElement() throws UnableToParseException {
+        return lexer.peek() == '[' ? multiNote() : note();
+    }
+
+    // note ::= note_or_rest note_length?;
+    // note_or_rest ::= pitch | rest;
+    // rest ::= "z";
+    private Music note() throws UnableToParseException {
+        budget.enter();
+        Music noteOrRest;
+        if (lexer.accept('z')) {
+            noteOrRest = new Rest(header.getExactBeatsPerDefaultNote());
+        } else {
+            noteOrRest = pitch();
+        }
+        budget.exit();
+        if (noteOrRest == null) {
+            return null;
+        }
+        budget.token();
+        int lengthStart = lexer.position();
+        String noteLength = noteLength();
+        try {
+            return noteOrRest.rescale(AbcParser.getLength(noteLength));
+        } catch (ArithmeticException e) {
+            lexer.reset(lengthStart);
+            throw lexer.error("a note length with a nonzero denominator that fits in longs");
+        }
+    }
+
+    // pitch ::= accidental? basenote octave?;
+    // accidental ::= "^" | "^^" | "_" | "__" | "=";
+    // octave ::= "'"+ | ","+;
+    private Note pitch() {
+        int start = lexer.position();
+        int accidental = MeasureAccidentals.NO_ACCIDENTAL;
+        if (lexer.accept('^')) {
+            accidental = lexer.accept('^') ? 2 : 1;
+        } else if (lexer.accept('_')) {
+            accidental = lexer.accept('_') ? -2 : -1;
+        } else if (lexer.accept('=')) {
+            accidental = 0;
+        }
+        int baseNote = lexer.peek();
+        if (!isBasenote(baseNote)) {
+            lexer.reset(start);
+            return null;
+        }
+        lexer.accept((char) baseNote);
+        int octaves = 0;
+        while (lexer.accept('\'')) {
+            octaves++;
+        }
+        if (octaves == 0) {
+            while (lexer.accept(',')) {
+                octaves--;
+            }
+        }
+        Pitch pitch = accidentals.resolve((char) baseNote, accidental, octaves);
+        return new Note(header.getExactBeatsPerDefaultNote(), pitch);
+    }
+
+    // note_length ::= (DIGIT+)? ("/" (DIGIT+)?)?;
+    private String noteLength() {
+        int start = lexer.position();
+        lexer.digits();
+        if (lexer.accept('/')) {
+            lexer.digits();
+        }
+        return lexer.substring(start, lexer.position());
+    }
+
+    // multi_note ::= "[" (WHITESPACE* note WHITESPACE*)+ "]";
+    // the grammar lets a chord hold a rest, but a Chord can only hold notes, so a rest in one is an error
+    private Chord multiNote() throws UnableToParseException {
+        int start = lexer.position();
+        lexer.accept('[');
+        budget.token();
+        Set<Note> notes = new HashSet<>();
+        while (true) {
+            int noteStart = lexer.position();
+            lexer.skipWhitespace();
+            int restStart = lexer.position();
+            Music note = note();
+            if (note == null) {
+                lexer.reset(noteStart);
+                break;
+            }
+            if (!(note instanceof Note)) {
+                lexer.reset(restStart);
+                throw lexer.error("a note");
+            }
+            notes.add((Note) note);
+            lexer.skipWhitespace();
+        }
+        if (notes.isEmpty() || !lexer.accept(']')) {
+            lexer.reset(start);
+            return null;
+        }
+        return new Chord(notes);
+    }
+
+    // tuplet_element ::= tuplet_spec note_element+;
+    // tuplet_spec ::= "(" DIGIT;
+    private Tuplet tupletElement() throws UnableToParseException {
+        int start = lexer.position();
+        lexer.accept('(');
+        if (!lexer.atDigit()) {
+            lexer.reset(start);
+            return null;
+        }
+        lexer.accept((char) lexer.peek());
+        budget.token();
+        List<Music> elements = new ArrayList<>();
+        for (Music element = noteElement(); element != null; element = noteElement()) {
+            elements.add(element);
+        }
+        if (elements.isEmpty()) {
+            lexer.reset(start);
+            return null;
+        }
+        return new Tuplet(elements.toArray(new Music[elements.size()]));
+    }
+
+    // ---------------------------------------------------------------- shared
+
+    // comment ::= "%" text NEWLINE;
+    /**
+     * Parse a comment.
+     * @param required true if the grammar allows nothing else here
+     * @return true iff a comment was read
+     * @throws UnableToParseException if required and the input does not continue with a comment
+     */
+    private boolean comment(boolean required) throws UnableToParseException {
+        int start = lexer.position();
+        if (lexer.accept('%')) {
+            lexer.text();
+            if (lexer.newline()) {
+                budget.token();
+                return true;
+            }
+        }
+        lexer.reset(start);
+        if (required) {
+            throw lexer.error("a comment ending in a newline");
+        }
+        return false;
+    }
+
+    // end_of_line ::= comment | NEWLINE;
+    private void endOfLine() throws UnableToParseException {
+        if (!comment(false) && !lexer.newline()) {
+            throw lexer.error("end of line");
+        }
+    }
+
+    // record an error made by lexer.error and carry on if recovering, or throw it if not or if it is a limit
+    private void recover(UnableToParseException e) throws UnableToParseException {
+        if (diagnostics == null || e instanceof ParseLimitException) {
+            throw e;
+        }
+        diagnostics.add(lexer.lastError());
+    }
+
+    // read literal, which the grammar requires here
+    private void expect(String literal) throws UnableToParseException {
+        if (!lexer.accept(literal)) {
+            throw lexer.error("\"" + literal + "\"");
+        }
+    }
+
+    // basenote ::= "C" | "D" | "E" | "F" | "G" | "A" | "B" | "c" | "d" | "e" | "f" | "g" | "a" | "b";
+    private static boolean isBasenote(int c) {
+        return (c >= 'A' && c <= 'G') || (c >= 'a' && c <= 'g');
+    }
+}
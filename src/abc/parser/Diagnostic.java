@@ -0,0 +1,96 @@
+package abc.parser;
+
+/**
+ * Immutable description of one place where the text of an abc file is not in the language of Abc.g.
+ */
+public class Diagnostic {
+
+    private final int line;
+    private final int column;
+    private final String expected;
+    private final String found;
+
+    //AF:
+    //  represents the error at line line, column column of a file, where the grammar allows expected
+    //  but the file has found
+    //RI:
+    //  line >= 1, column >= 1
+    //  expected, found != null
+    //rep exposure:
+    //  all fields are private final primitives or Strings
+
+    // check RI
+    private void checkRep() {
+        assert line >= 1 && column >= 1;
+        assert expected != null && found != null;
+    }
+
+    /**
+     * Make a diagnostic.
+     * @param line line of the error, counting from 1
+     * @param column column of the error within its line, counting from 1
+     * @param expected description of what the grammar allows there
+     * @param found description of what is there instead, e.g. the rest of the line in quotes
+     */
+    public Diagnostic(int line, int column, String expected, String found) {
+        this.line = line;
+        this.column = column;
+        this.expected = expected;
+        this.found = found;
+        checkRep();
+    }
+
+    /**
+     * @return the line of the error, counting from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column of the error within its line, counting from 1
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return description of what the grammar allows at the error
+     */
+    public String getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return description of what is at the error instead
+     */
+    public String getFound() {
+        return found;
+    }
+
+    /**
+     * 2 Diagnostics are equal if and only if they have the same position, expected and found
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof Diagnostic) {
+            Diagnostic that = (Diagnostic)thatObject;
+            return this.line == that.line && this.column == that.column
+                    && this.expected.equals(that.expected) && this.found.equals(that.found);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (line * 31 + column) * 31 + expected.hashCode();
+    }
+
+    /**
+     * @return the diagnostic in the form "line L col C: expected E but saw F"
+     */
+    @Override
+    public String toString() {
+        return "line " + line + " col " + column + ": expected " + expected + " but saw " + found;
+    }
+}
@@ -0,0 +1,2616 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lib6005.parser.ParseTree;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Parser for the grammar of MusicGrammar, generated by ParserGenerator. Do not edit;
+ * change the grammar and run ParserGenerator again instead.
+ * Builds the same ParseTree as lib6005's Parser for the grammar.
+ */
+final class GeneratedAbcParser {
+
+    private static final int FAIL = -1;
+    private static final int MISS = -2;
+    private static final int RULES = 45;
+
+    private final String input;
+    private final int length;
+    private final List<ParseTree<MusicGrammar>> kids = new ArrayList<>();
+    private int furthest = 0;
+    private final long[] memoKeys;
+    private final int[] memoEnds;
+    private final ParseTree<MusicGrammar>[] memoTrees;
+    private final ParseBudget budget;
+
+    //AF:
+    //  represents a parse in progress of input; kids holds, in order, the trees of the rules matched so far
+    //  that are not yet inside the tree of an enclosing rule, and furthest is the furthest position
+    //  at which a terminal failed to match; if memoKeys is not null, each slot i with memoKeys[i] >= 0
+    //  remembers that the rule with ordinal memoKeys[i] % RULES, at position memoKeys[i] / RULES,
+    //  returned memoEnds[i] after adding the tree memoTrees[i] to kids; budget counts the rules tried
+    //  and the leaves of the tree made
+    //RI:
+    //  length == input.length(), 0 <= furthest <= length
+    //  every method for a term returns FAIL with kids as it found them, or the position after its match
+    //  with the trees of the rules it matched added to kids
+    //  memoKeys, memoEnds and memoTrees are all null, or all the same power of two length;
+    //  memoTrees[i] is null iff memoEnds[i] == FAIL
+    //rep exposure:
+    //  all fields are private; only the finished tree is returned, and no reference to it is kept
+
+    private GeneratedAbcParser(String input, int memoSlots, ParseBudget budget) {
+        this.input = input;
+        this.budget = budget;
+        this.length = input.length();
+        if (memoSlots > 0) {
+            // enough slots for a few rules at every position, but no more than asked for
+            int slots = Integer.highestOneBit((int) Math.min(memoSlots, Math.max(length, 1) * 8L));
+            memoKeys = new long[slots];
+            Arrays.fill(memoKeys, -1);
+            memoEnds = new int[slots];
+            @SuppressWarnings("unchecked")
+            ParseTree<MusicGrammar>[] trees = (ParseTree<MusicGrammar>[]) new ParseTree<?>[slots];
+            memoTrees = trees;
+        } else {
+            memoKeys = null;
+            memoEnds = null;
+            memoTrees = null;
+        }
+    }
+
+    /**
+     * Parse input with the rule abc_tune, without memoizing.
+     * @param input text to parse
+     * @return the parse tree of input, the same as lib6005's Parser makes
+     * @throws UnableToParseException if input does not match the grammar
+     */
+    static ParseTree<MusicGrammar> parse(String input) throws UnableToParseException {
+        return parse(input, 0);
+    }
+
+    /**
+     * Parse input with the rule abc_tune.
+     * With memoSlots > 0 the parse is a packrat parse: the result of each rule at each position is
+     * remembered in a table of at most memoSlots slots, and a rule tried again at the same position
+     * reuses it instead of reading the input again. The table is direct mapped, so a result is forgotten
+     * when another lands in its slot; while the table has room for every result the parse takes time
+     * linear in the length of input.
+     * @param input text to parse
+     * @param memoSlots most results to remember, or 0 not to memoize
+     * @return the parse tree of input, the same as lib6005's Parser makes
+     * @throws UnableToParseException if input does not match the grammar
+     */
+    static ParseTree<MusicGrammar> parse(String input, int memoSlots) throws UnableToParseException {
+        return parse(input, memoSlots, new ParseBudget(ParseLimits.UNLIMITED));
+    }
+
+    /**
+     * Parse input as parse(input, memoSlots) does, within the limits of budget: each rule tried
+     * is a step, and each leaf of the tree a token.
+     * @param input text to parse
+     * @param memoSlots most results to remember, or 0 not to memoize
+     * @param budget account of the parse, not used by any other
+     * @return the parse tree of input, the same as lib6005's Parser makes
+     * @throws ParseLimitException if the parse goes past a limit of budget
+     * @throws UnableToParseException if input does not match the grammar
+     */
+    static ParseTree<MusicGrammar> parse(String input, int memoSlots, ParseBudget budget) throws UnableToParseException {
+        budget.input(input.length());
+        GeneratedAbcParser parser = new GeneratedAbcParser(input, memoSlots, budget);
+        int end = parser.abcTune(0);
+        if (end == FAIL) {
+            throw new UnableToParseException("String does not match grammar\nError in " + parser.position(parser.furthest));
+        }
+        if (end < input.length()) {
+            throw new UnableToParseException("Only parsed up to " + parser.position(end) + " the rest of the input did not parse"
+                    + (parser.furthest > end ? "\nError in " + parser.position(parser.furthest) : ""));
+        }
+        return parser.kids.get(0);
+    }
+
+    // "line L col C" for index pos of input, both counting from 1
+    private String position(int pos) {
+        int line = 1;
+        int lineStart = 0;
+        for (int i = 0; i < pos; i++) {
+            if (input.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return "line " + line + " col " + (pos - lineStart + 1);
+    }
+
+    // note that a terminal failed to match at pos
+    private int fail(int pos) {
+        if (pos > furthest) {
+            furthest = pos;
+        }
+        return FAIL;
+    }
+
+    // drop the trees added to kids since it had size mark
+    private void truncate(int mark) {
+        for (int i = kids.size() - 1; i >= mark; i--) {
+            kids.remove(i);
+        }
+    }
+
+    // remove and return the trees added to kids since it had size mark
+    private List<ParseTree<MusicGrammar>> take(int mark) {
+        List<ParseTree<MusicGrammar>> taken = new ArrayList<>(kids.subList(mark, kids.size()));
+        truncate(mark);
+        return taken;
+    }
+
+    // replace the trees added to kids since it had size mark by one tree for rule name matching input[start:end]
+    private int node(MusicGrammar name, int start, int end, int mark) throws ParseLimitException {
+        String contents = input.substring(start, end);
+        ParseTree<MusicGrammar> tree;
+        if (kids.size() == mark) {
+            budget.token();
+            tree = new ParseTree<>(contents);
+            tree.setName(name);
+        } else {
+            tree = IndexedParseTree.create(name, contents, take(mark));
+        }
+        kids.add(tree);
+        return end;
+    }
+
+    // slot of the memo table for key, the rule ordinal plus RULES times the position
+    private int memoSlot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (memoKeys.length - 1);
+    }
+
+    // what the rule with ordinal rule returned at pos, replaying its tree onto kids, or MISS if not remembered
+    private int recall(int rule, int pos) {
+        if (memoKeys == null) {
+            return MISS;
+        }
+        long key = (long) pos * RULES + rule;
+        int slot = memoSlot(key);
+        if (memoKeys[slot] != key) {
+            return MISS;
+        }
+        if (memoEnds[slot] != FAIL) {
+            kids.add(memoTrees[slot]);
+        }
+        return memoEnds[slot];
+    }
+
+    // remember that the rule with ordinal rule returned end at pos, with its tree last in kids; returns end
+    private int remember(int rule, int pos, int end) {
+        if (memoKeys != null) {
+            long key = (long) pos * RULES + rule;
+            int slot = memoSlot(key);
+            memoKeys[slot] = key;
+            memoEnds[slot] = end;
+            memoTrees[slot] = end == FAIL ? null : kids.get(kids.size() - 1);
+        }
+        return end;
+    }
+
+    private static boolean character0(char c) {
+        return ((c >= '0' && c <= '9'));
+    }
+
+    private static boolean character1(char c) {
+        return !(c == '\n' || c == '\r');
+    }
+
+    // abc_tune ::= (whitespace*((abc_headerwhitespace*)abc_music)whitespace*)
+    private int abcTune(int pos) throws ParseLimitException {
+        int recalled = recall(0, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = abcTune1(pos);
+        budget.exit();
+        return remember(0, pos, end == FAIL ? FAIL : node(MusicGrammar.ABC_TUNE, pos, end, mark));
+    }
+
+    // (whitespace*((abc_headerwhitespace*)abc_music)whitespace*)
+    private int abcTune1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcHeader(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcMusic(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // whitespace*
+    private int abcTune2(int pos) throws ParseLimitException {
+        int end = whitespace(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = whitespace(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // abc_header ::= (whitespace*((field_numberwhitespace*)(((commentwhitespace*)*whitespace*)((field_titlewhitespace*)(((other_fieldswhitespace*)*whitespace*)field_key))))whitespace*)
+    private int abcHeader(int pos) throws ParseLimitException {
+        int recalled = recall(1, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = abcHeader1(pos);
+        budget.exit();
+        return remember(1, pos, end == FAIL ? FAIL : node(MusicGrammar.ABC_HEADER, pos, end, mark));
+    }
+
+    // (whitespace*((field_numberwhitespace*)(((commentwhitespace*)*whitespace*)((field_titlewhitespace*)(((other_fieldswhitespace*)*whitespace*)field_key))))whitespace*)
+    private int abcHeader1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = fieldNumber(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcHeader2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = fieldTitle(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcHeader4(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = fieldKey(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (commentwhitespace*)*
+    private int abcHeader2(int pos) throws ParseLimitException {
+        int end = abcHeader3(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = abcHeader3(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // (commentwhitespace*)
+    private int abcHeader3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = comment(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (other_fieldswhitespace*)*
+    private int abcHeader4(int pos) throws ParseLimitException {
+        int end = abcHeader5(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = abcHeader5(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // (other_fieldswhitespace*)
+    private int abcHeader5(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = otherFields(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_number ::= (whitespace*(('X:'whitespace*)(((digitwhitespace*)+whitespace*)end_of_line))whitespace*)
+    private int fieldNumber(int pos) throws ParseLimitException {
+        int recalled = recall(2, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldNumber1(pos);
+        budget.exit();
+        return remember(2, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_NUMBER, pos, end, mark));
+    }
+
+    // (whitespace*(('X:'whitespace*)(((digitwhitespace*)+whitespace*)end_of_line))whitespace*)
+    private int fieldNumber1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("X:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = fieldNumber2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (digitwhitespace*)+
+    private int fieldNumber2(int pos) throws ParseLimitException {
+        int end = fieldNumber3(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = fieldNumber3(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // (digitwhitespace*)
+    private int fieldNumber3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = digit(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_title ::= (whitespace*(('T:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldTitle(int pos) throws ParseLimitException {
+        int recalled = recall(3, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldTitle1(pos);
+        budget.exit();
+        return remember(3, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_TITLE, pos, end, mark));
+    }
+
+    // (whitespace*(('T:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldTitle1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("T:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = text(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // other_fields ::= (whitespace*(((((field_composer|field_default_length)|field_meter)|field_tempo)|field_voice)|comment)whitespace*)
+    private int otherFields(int pos) throws ParseLimitException {
+        int recalled = recall(4, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = otherFields1(pos);
+        budget.exit();
+        return remember(4, pos, end == FAIL ? FAIL : node(MusicGrammar.OTHER_FIELDS, pos, end, mark));
+    }
+
+    // (whitespace*(((((field_composer|field_default_length)|field_meter)|field_tempo)|field_voice)|comment)whitespace*)
+    private int otherFields1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = otherFields2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (((((field_composer|field_default_length)|field_meter)|field_tempo)|field_voice)|comment)
+    private int otherFields2(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = fieldComposer(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = fieldDefaultLength(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = fieldMeter(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = fieldTempo(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = fieldVoice(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = comment(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // field_composer ::= (whitespace*(('C:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldComposer(int pos) throws ParseLimitException {
+        int recalled = recall(5, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldComposer1(pos);
+        budget.exit();
+        return remember(5, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_COMPOSER, pos, end, mark));
+    }
+
+    // (whitespace*(('C:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldComposer1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("C:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = text(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_default_length ::= (whitespace*(('L:'whitespace*)((note_length_strictwhitespace*)end_of_line))whitespace*)
+    private int fieldDefaultLength(int pos) throws ParseLimitException {
+        int recalled = recall(6, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldDefaultLength1(pos);
+        budget.exit();
+        return remember(6, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_DEFAULT_LENGTH, pos, end, mark));
+    }
+
+    // (whitespace*(('L:'whitespace*)((note_length_strictwhitespace*)end_of_line))whitespace*)
+    private int fieldDefaultLength1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("L:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = noteLengthStrict(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_meter ::= (whitespace*(('M:'whitespace*)((meterwhitespace*)end_of_line))whitespace*)
+    private int fieldMeter(int pos) throws ParseLimitException {
+        int recalled = recall(7, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldMeter1(pos);
+        budget.exit();
+        return remember(7, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_METER, pos, end, mark));
+    }
+
+    // (whitespace*(('M:'whitespace*)((meterwhitespace*)end_of_line))whitespace*)
+    private int fieldMeter1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("M:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = meter(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_tempo ::= (whitespace*(('Q:'whitespace*)((tempowhitespace*)end_of_line))whitespace*)
+    private int fieldTempo(int pos) throws ParseLimitException {
+        int recalled = recall(8, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldTempo1(pos);
+        budget.exit();
+        return remember(8, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_TEMPO, pos, end, mark));
+    }
+
+    // (whitespace*(('Q:'whitespace*)((tempowhitespace*)end_of_line))whitespace*)
+    private int fieldTempo1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("Q:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = tempo(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_voice ::= (whitespace*(('V:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldVoice(int pos) throws ParseLimitException {
+        int recalled = recall(9, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldVoice1(pos);
+        budget.exit();
+        return remember(9, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_VOICE, pos, end, mark));
+    }
+
+    // (whitespace*(('V:'whitespace*)((textwhitespace*)end_of_line))whitespace*)
+    private int fieldVoice1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("V:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = text(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // field_key ::= (whitespace*(('K:'whitespace*)((keywhitespace*)end_of_line))whitespace*)
+    private int fieldKey(int pos) throws ParseLimitException {
+        int recalled = recall(10, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldKey1(pos);
+        budget.exit();
+        return remember(10, pos, end == FAIL ? FAIL : node(MusicGrammar.FIELD_KEY, pos, end, mark));
+    }
+
+    // (whitespace*(('K:'whitespace*)((keywhitespace*)end_of_line))whitespace*)
+    private int fieldKey1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (input.startsWith("K:", pos) ? pos + 2 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = key(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = endOfLine(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // key ::= (whitespace*((keynotewhitespace*)(mode_minorwhitespace*)?)whitespace*)
+    private int key(int pos) throws ParseLimitException {
+        int recalled = recall(11, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = key1(pos);
+        budget.exit();
+        return remember(11, pos, end == FAIL ? FAIL : node(MusicGrammar.KEY, pos, end, mark));
+    }
+
+    // (whitespace*((keynotewhitespace*)(mode_minorwhitespace*)?)whitespace*)
+    private int key1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = keynote(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = key2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (mode_minorwhitespace*)?
+    private int key2(int pos) throws ParseLimitException {
+        int end = key3(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // (mode_minorwhitespace*)
+    private int key3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = modeMinor(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // keynote ::= (whitespace*((basenotewhitespace*)(key_accidentalwhitespace*)?)whitespace*)
+    private int keynote(int pos) throws ParseLimitException {
+        int recalled = recall(12, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = keynote1(pos);
+        budget.exit();
+        return remember(12, pos, end == FAIL ? FAIL : node(MusicGrammar.KEYNOTE, pos, end, mark));
+    }
+
+    // (whitespace*((basenotewhitespace*)(key_accidentalwhitespace*)?)whitespace*)
+    private int keynote1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = basenote(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = keynote2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (key_accidentalwhitespace*)?
+    private int keynote2(int pos) throws ParseLimitException {
+        int end = keynote3(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // (key_accidentalwhitespace*)
+    private int keynote3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = keyAccidental(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // key_accidental ::= (whitespace*('#'|'b')whitespace*)
+    private int keyAccidental(int pos) throws ParseLimitException {
+        int recalled = recall(13, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = keyAccidental1(pos);
+        budget.exit();
+        return remember(13, pos, end == FAIL ? FAIL : node(MusicGrammar.KEY_ACCIDENTAL, pos, end, mark));
+    }
+
+    // (whitespace*('#'|'b')whitespace*)
+    private int keyAccidental1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = keyAccidental2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // ('#'|'b')
+    private int keyAccidental2(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == '#' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'b' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // mode_minor ::= (whitespace*'m'whitespace*)
+    private int modeMinor(int pos) throws ParseLimitException {
+        int recalled = recall(14, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = modeMinor1(pos);
+        budget.exit();
+        return remember(14, pos, end == FAIL ? FAIL : node(MusicGrammar.MODE_MINOR, pos, end, mark));
+    }
+
+    // (whitespace*'m'whitespace*)
+    private int modeMinor1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (pos < length && input.charAt(pos) == 'm' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // meter ::= (whitespace*(('C'|'C|')|meter_fraction)whitespace*)
+    private int meter(int pos) throws ParseLimitException {
+        int recalled = recall(15, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = meter1(pos);
+        budget.exit();
+        return remember(15, pos, end == FAIL ? FAIL : node(MusicGrammar.METER, pos, end, mark));
+    }
+
+    // (whitespace*(('C'|'C|')|meter_fraction)whitespace*)
+    private int meter1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = meter2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (('C'|'C|')|meter_fraction)
+    private int meter2(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = (pos < length && input.charAt(pos) == 'C' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = (input.startsWith("C|", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = meterFraction(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // meter_fraction ::= (whitespace*(((digitwhitespace*)+whitespace*)(('/'whitespace*)(digitwhitespace*)+))whitespace*)
+    private int meterFraction(int pos) throws ParseLimitException {
+        int recalled = recall(16, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = meterFraction1(pos);
+        budget.exit();
+        return remember(16, pos, end == FAIL ? FAIL : node(MusicGrammar.METER_FRACTION, pos, end, mark));
+    }
+
+    // (whitespace*(((digitwhitespace*)+whitespace*)(('/'whitespace*)(digitwhitespace*)+))whitespace*)
+    private int meterFraction1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = fieldNumber2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = (pos < length && input.charAt(pos) == '/' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = fieldNumber2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // tempo ::= (whitespace*((meter_fractionwhitespace*)(('='whitespace*)(digitwhitespace*)+))whitespace*)
+    private int tempo(int pos) throws ParseLimitException {
+        int recalled = recall(17, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = tempo1(pos);
+        budget.exit();
+        return remember(17, pos, end == FAIL ? FAIL : node(MusicGrammar.TEMPO, pos, end, mark));
+    }
+
+    // (whitespace*((meter_fractionwhitespace*)(('='whitespace*)(digitwhitespace*)+))whitespace*)
+    private int tempo1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = meterFraction(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = (pos < length && input.charAt(pos) == '=' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = fieldNumber2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // abc_music ::= ((abc_line*voice+)+|abc_line+)
+    private int abcMusic(int pos) throws ParseLimitException {
+        int recalled = recall(18, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = abcMusic1(pos);
+        budget.exit();
+        return remember(18, pos, end == FAIL ? FAIL : node(MusicGrammar.ABC_MUSIC, pos, end, mark));
+    }
+
+    // ((abc_line*voice+)+|abc_line+)
+    private int abcMusic1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = abcMusic2(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = abcMusic6(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // (abc_line*voice+)+
+    private int abcMusic2(int pos) throws ParseLimitException {
+        int end = abcMusic3(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = abcMusic3(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // (abc_line*voice+)
+    private int abcMusic3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcMusic4(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcMusic5(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // abc_line*
+    private int abcMusic4(int pos) throws ParseLimitException {
+        int end = abcLine(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = abcLine(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // voice+
+    private int abcMusic5(int pos) throws ParseLimitException {
+        int end = voice(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = voice(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // abc_line+
+    private int abcMusic6(int pos) throws ParseLimitException {
+        int end = abcLine(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = abcLine(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // abc_line ::= (((measure+|comment)|whitespace*)end_of_line?)
+    private int abcLine(int pos) throws ParseLimitException {
+        int recalled = recall(19, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = abcLine1(pos);
+        budget.exit();
+        return remember(19, pos, end == FAIL ? FAIL : node(MusicGrammar.ABC_LINE, pos, end, mark));
+    }
+
+    // (((measure+|comment)|whitespace*)end_of_line?)
+    private int abcLine1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcLine2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcLine4(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // ((measure+|comment)|whitespace*)
+    private int abcLine2(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = abcLine3(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = comment(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = abcTune2(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // measure+
+    private int abcLine3(int pos) throws ParseLimitException {
+        int end = measure(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = measure(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // end_of_line?
+    private int abcLine4(int pos) throws ParseLimitException {
+        int end = endOfLine(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // element ::= (whitespace*((note_element|tuplet_element)whitespace*))
+    private int element(int pos) throws ParseLimitException {
+        int recalled = recall(20, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = element1(pos);
+        budget.exit();
+        return remember(20, pos, end == FAIL ? FAIL : node(MusicGrammar.ELEMENT, pos, end, mark));
+    }
+
+    // (whitespace*((note_element|tuplet_element)whitespace*))
+    private int element1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = element2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (note_element|tuplet_element)
+    private int element2(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = noteElement(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = tupletElement(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // note_element ::= (note|multi_note)
+    private int noteElement(int pos) throws ParseLimitException {
+        int recalled = recall(21, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = noteElement1(pos);
+        budget.exit();
+        return remember(21, pos, end == FAIL ? FAIL : node(MusicGrammar.NOTE_ELEMENT, pos, end, mark));
+    }
+
+    // (note|multi_note)
+    private int noteElement1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = note(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = multiNote(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // note ::= (note_or_restnote_length?)
+    private int note(int pos) throws ParseLimitException {
+        int recalled = recall(22, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = note1(pos);
+        budget.exit();
+        return remember(22, pos, end == FAIL ? FAIL : node(MusicGrammar.NOTE, pos, end, mark));
+    }
+
+    // (note_or_restnote_length?)
+    private int note1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = noteOrRest(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = note2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // note_length?
+    private int note2(int pos) throws ParseLimitException {
+        int end = noteLength(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // note_or_rest ::= (pitch|rest)
+    private int noteOrRest(int pos) throws ParseLimitException {
+        int recalled = recall(23, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = noteOrRest1(pos);
+        budget.exit();
+        return remember(23, pos, end == FAIL ? FAIL : node(MusicGrammar.NOTE_OR_REST, pos, end, mark));
+    }
+
+    // (pitch|rest)
+    private int noteOrRest1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = pitch(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = rest(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // pitch ::= (accidental?(basenoteoctave?))
+    private int pitch(int pos) throws ParseLimitException {
+        int recalled = recall(24, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = pitch1(pos);
+        budget.exit();
+        return remember(24, pos, end == FAIL ? FAIL : node(MusicGrammar.PITCH, pos, end, mark));
+    }
+
+    // (accidental?(basenoteoctave?))
+    private int pitch1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = pitch2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = basenote(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = pitch3(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // accidental?
+    private int pitch2(int pos) throws ParseLimitException {
+        int end = accidental(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // octave?
+    private int pitch3(int pos) throws ParseLimitException {
+        int end = octave(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // octave ::= ('''+|','+)
+    private int octave(int pos) throws ParseLimitException {
+        int recalled = recall(25, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = octave1(pos);
+        budget.exit();
+        return remember(25, pos, end == FAIL ? FAIL : node(MusicGrammar.OCTAVE, pos, end, mark));
+    }
+
+    // ('''+|','+)
+    private int octave1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = octave2(pos);
+        if (end > best) {
+            best = end;
+        }
+        end = octave3(pos);
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // '''+
+    private int octave2(int pos) throws ParseLimitException {
+        int end = (pos < length && input.charAt(pos) == '\'' ? pos + 1 : fail(pos));
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            pos = end;
+            end = (pos < length && input.charAt(pos) == '\'' ? pos + 1 : fail(pos));
+            if (end == FAIL) {
+                return pos;
+            }
+        }
+        return pos;
+    }
+
+    // ','+
+    private int octave3(int pos) throws ParseLimitException {
+        int end = (pos < length && input.charAt(pos) == ',' ? pos + 1 : fail(pos));
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            pos = end;
+            end = (pos < length && input.charAt(pos) == ',' ? pos + 1 : fail(pos));
+            if (end == FAIL) {
+                return pos;
+            }
+        }
+        return pos;
+    }
+
+    // note_length ::= (digit+?('/'digit+?)?)
+    private int noteLength(int pos) throws ParseLimitException {
+        int recalled = recall(26, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = noteLength1(pos);
+        budget.exit();
+        return remember(26, pos, end == FAIL ? FAIL : node(MusicGrammar.NOTE_LENGTH, pos, end, mark));
+    }
+
+    // (digit+?('/'digit+?)?)
+    private int noteLength1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = noteLength2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = noteLength4(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // digit+?
+    private int noteLength2(int pos) throws ParseLimitException {
+        int end = noteLength3(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // digit+
+    private int noteLength3(int pos) throws ParseLimitException {
+        int end = digit(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = digit(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // ('/'digit+?)?
+    private int noteLength4(int pos) throws ParseLimitException {
+        int end = noteLength5(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // ('/'digit+?)
+    private int noteLength5(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = (pos < length && input.charAt(pos) == '/' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = noteLength2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // note_length_strict ::= (digit+('/'digit+))
+    private int noteLengthStrict(int pos) throws ParseLimitException {
+        int recalled = recall(27, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = noteLengthStrict1(pos);
+        budget.exit();
+        return remember(27, pos, end == FAIL ? FAIL : node(MusicGrammar.NOTE_LENGTH_STRICT, pos, end, mark));
+    }
+
+    // (digit+('/'digit+))
+    private int noteLengthStrict1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = noteLength3(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = (pos < length && input.charAt(pos) == '/' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = noteLength3(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // accidental ::= (((('^'|'^^')|'_')|'__')|'=')
+    private int accidental(int pos) throws ParseLimitException {
+        int recalled = recall(28, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = accidental1(pos);
+        budget.exit();
+        return remember(28, pos, end == FAIL ? FAIL : node(MusicGrammar.ACCIDENTAL, pos, end, mark));
+    }
+
+    // (((('^'|'^^')|'_')|'__')|'=')
+    private int accidental1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == '^' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("^^", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == '_' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("__", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == '=' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // basenote ::= ((((((((((((('C'|'D')|'E')|'F')|'G')|'A')|'B')|'c')|'d')|'e')|'f')|'g')|'a')|'b')
+    private int basenote(int pos) throws ParseLimitException {
+        int recalled = recall(29, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = basenote1(pos);
+        budget.exit();
+        return remember(29, pos, end == FAIL ? FAIL : node(MusicGrammar.BASENOTE, pos, end, mark));
+    }
+
+    // ((((((((((((('C'|'D')|'E')|'F')|'G')|'A')|'B')|'c')|'d')|'e')|'f')|'g')|'a')|'b')
+    private int basenote1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == 'C' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'D' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'E' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'F' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'G' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'A' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'B' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'c' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'd' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'e' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'f' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'g' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'a' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == 'b' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // rest ::= 'z'
+    private int rest(int pos) throws ParseLimitException {
+        int recalled = recall(30, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = (pos < length && input.charAt(pos) == 'z' ? pos + 1 : fail(pos));
+        budget.exit();
+        return remember(30, pos, end == FAIL ? FAIL : node(MusicGrammar.REST, pos, end, mark));
+    }
+
+    // tuplet_element ::= (tuplet_specnote_element+)
+    private int tupletElement(int pos) throws ParseLimitException {
+        int recalled = recall(31, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = tupletElement1(pos);
+        budget.exit();
+        return remember(31, pos, end == FAIL ? FAIL : node(MusicGrammar.TUPLET_ELEMENT, pos, end, mark));
+    }
+
+    // (tuplet_specnote_element+)
+    private int tupletElement1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = tupletSpec(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = tupletElement2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // note_element+
+    private int tupletElement2(int pos) throws ParseLimitException {
+        int end = noteElement(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = noteElement(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // tuplet_spec ::= ('('digit)
+    private int tupletSpec(int pos) throws ParseLimitException {
+        int recalled = recall(32, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = tupletSpec1(pos);
+        budget.exit();
+        return remember(32, pos, end == FAIL ? FAIL : node(MusicGrammar.TUPLET_SPEC, pos, end, mark));
+    }
+
+    // ('('digit)
+    private int tupletSpec1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = (pos < length && input.charAt(pos) == '(' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = digit(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // multi_note ::= ('['((whitespace*(notewhitespace*))+']'))
+    private int multiNote(int pos) throws ParseLimitException {
+        int recalled = recall(33, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = multiNote1(pos);
+        budget.exit();
+        return remember(33, pos, end == FAIL ? FAIL : node(MusicGrammar.MULTI_NOTE, pos, end, mark));
+    }
+
+    // ('['((whitespace*(notewhitespace*))+']'))
+    private int multiNote1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = (pos < length && input.charAt(pos) == '[' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = multiNote2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = (pos < length && input.charAt(pos) == ']' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // (whitespace*(notewhitespace*))+
+    private int multiNote2(int pos) throws ParseLimitException {
+        int end = multiNote3(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = multiNote3(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // (whitespace*(notewhitespace*))
+    private int multiNote3(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = note(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = abcTune2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // barline ::= ((((('|'|'||')|'[|')|'|]')|':|')|'|:')
+    private int barline(int pos) throws ParseLimitException {
+        int recalled = recall(34, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = barline1(pos);
+        budget.exit();
+        return remember(34, pos, end == FAIL ? FAIL : node(MusicGrammar.BARLINE, pos, end, mark));
+    }
+
+    // ((((('|'|'||')|'[|')|'|]')|':|')|'|:')
+    private int barline1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == '|' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("||", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("[|", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("|]", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith(":|", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("|:", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // mid_tune_field ::= field_voice
+    private int midTuneField(int pos) throws ParseLimitException {
+        int recalled = recall(35, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = fieldVoice(pos);
+        budget.exit();
+        return remember(35, pos, end == FAIL ? FAIL : node(MusicGrammar.MID_TUNE_FIELD, pos, end, mark));
+    }
+
+    // comment ::= ('%'(textnewline))
+    private int comment(int pos) throws ParseLimitException {
+        int recalled = recall(36, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = comment1(pos);
+        budget.exit();
+        return remember(36, pos, end == FAIL ? FAIL : node(MusicGrammar.COMMENT, pos, end, mark));
+    }
+
+    // ('%'(textnewline))
+    private int comment1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = (pos < length && input.charAt(pos) == '%' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = text(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = newline(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // end_of_line ::= (comment|newline)
+    private int endOfLine(int pos) throws ParseLimitException {
+        int recalled = recall(37, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = endOfLine1(pos);
+        budget.exit();
+        return remember(37, pos, end == FAIL ? FAIL : node(MusicGrammar.END_OF_LINE, pos, end, mark));
+    }
+
+    // (comment|newline)
+    private int endOfLine1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        int mark = kids.size();
+        List<ParseTree<MusicGrammar>> bestKids = null;
+        end = comment(pos);
+        if (end > best) {
+            best = end;
+            bestKids = take(mark);
+        } else {
+            truncate(mark);
+        }
+        end = newline(pos);
+        if (end > best) {
+            return end;
+        }
+        truncate(mark);
+        if (bestKids != null) {
+            kids.addAll(bestKids);
+        }
+        return best;
+    }
+
+    // digit ::= [0-9]
+    private int digit(int pos) throws ParseLimitException {
+        int recalled = recall(38, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = (pos < length && character0(input.charAt(pos)) ? pos + 1 : fail(pos));
+        budget.exit();
+        return remember(38, pos, end == FAIL ? FAIL : node(MusicGrammar.DIGIT, pos, end, mark));
+    }
+
+    // newline ::= ('\n'|('\r''\n'?))
+    private int newline(int pos) throws ParseLimitException {
+        int recalled = recall(39, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = newline1(pos);
+        budget.exit();
+        return remember(39, pos, end == FAIL ? FAIL : node(MusicGrammar.NEWLINE, pos, end, mark));
+    }
+
+    // ('\n'|('\r''\n'?))
+    private int newline1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == '\n' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = newline2(pos);
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // ('\r''\n'?)
+    private int newline2(int pos) throws ParseLimitException {
+        pos = (pos < length && input.charAt(pos) == '\r' ? pos + 1 : fail(pos));
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = newline3(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // '\n'?
+    private int newline3(int pos) throws ParseLimitException {
+        int end = (pos < length && input.charAt(pos) == '\n' ? pos + 1 : fail(pos));
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // whitespace ::= (' '|'\t')
+    private int whitespace(int pos) throws ParseLimitException {
+        int recalled = recall(40, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = whitespace1(pos);
+        budget.exit();
+        return remember(40, pos, end == FAIL ? FAIL : node(MusicGrammar.WHITESPACE, pos, end, mark));
+    }
+
+    // (' '|'\t')
+    private int whitespace1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == ' ' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (pos < length && input.charAt(pos) == '\t' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+
+    // text ::= [^\\n\\r]*
+    private int text(int pos) throws ParseLimitException {
+        int recalled = recall(41, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = text1(pos);
+        budget.exit();
+        return remember(41, pos, end == FAIL ? FAIL : node(MusicGrammar.TEXT, pos, end, mark));
+    }
+
+    // [^\\n\\r]*
+    private int text1(int pos) throws ParseLimitException {
+        int end = (pos < length && character1(input.charAt(pos)) ? pos + 1 : fail(pos));
+        if (end == FAIL) {
+            return pos;
+        }
+        while (end != pos) {
+            pos = end;
+            end = (pos < length && character1(input.charAt(pos)) ? pos + 1 : fail(pos));
+            if (end == FAIL) {
+                return pos;
+            }
+        }
+        return pos;
+    }
+
+    // voice ::= (mid_tune_fieldabc_line*)
+    private int voice(int pos) throws ParseLimitException {
+        int recalled = recall(42, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = voice1(pos);
+        budget.exit();
+        return remember(42, pos, end == FAIL ? FAIL : node(MusicGrammar.VOICE, pos, end, mark));
+    }
+
+    // (mid_tune_fieldabc_line*)
+    private int voice1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = midTuneField(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = abcMusic4(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // measure ::= (barline?(measure_prefix?(element+barline?)))
+    private int measure(int pos) throws ParseLimitException {
+        int recalled = recall(43, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = measure1(pos);
+        budget.exit();
+        return remember(43, pos, end == FAIL ? FAIL : node(MusicGrammar.MEASURE, pos, end, mark));
+    }
+
+    // (barline?(measure_prefix?(element+barline?)))
+    private int measure1(int pos) throws ParseLimitException {
+        int mark = kids.size();
+        pos = measure2(pos);
+        if (pos == FAIL) {
+            return FAIL;
+        }
+        pos = measure3(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = measure4(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        pos = measure2(pos);
+        if (pos == FAIL) {
+            truncate(mark);
+            return FAIL;
+        }
+        return pos;
+    }
+
+    // barline?
+    private int measure2(int pos) throws ParseLimitException {
+        int end = barline(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // measure_prefix?
+    private int measure3(int pos) throws ParseLimitException {
+        int end = measurePrefix(pos);
+        if (end == FAIL) {
+            return pos;
+        }
+        return end;
+    }
+
+    // element+
+    private int measure4(int pos) throws ParseLimitException {
+        int end = element(pos);
+        if (end == FAIL) {
+            return FAIL;
+        }
+        while (end != pos) {
+            int mark = kids.size();
+            pos = end;
+            end = element(pos);
+            if (end == FAIL) {
+                return pos;
+            }
+            if (end == pos) {
+                truncate(mark);
+            }
+        }
+        return pos;
+    }
+
+    // measure_prefix ::= ((':'|'[1')|'[2')
+    private int measurePrefix(int pos) throws ParseLimitException {
+        int recalled = recall(44, pos);
+        if (recalled != MISS) {
+            return recalled;
+        }
+        budget.enter();
+        int mark = kids.size();
+        int end = measurePrefix1(pos);
+        budget.exit();
+        return remember(44, pos, end == FAIL ? FAIL : node(MusicGrammar.MEASURE_PREFIX, pos, end, mark));
+    }
+
+    // ((':'|'[1')|'[2')
+    private int measurePrefix1(int pos) throws ParseLimitException {
+        int best = FAIL;
+        int end;
+        end = (pos < length && input.charAt(pos) == ':' ? pos + 1 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("[1", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        end = (input.startsWith("[2", pos) ? pos + 2 : fail(pos));
+        if (end > best) {
+            best = end;
+        }
+        return best;
+    }
+}
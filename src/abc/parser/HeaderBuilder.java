@@ -0,0 +1,160 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import abc.header.*;
+import abc.sound.Rational;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Mutable accumulator for the fields of an abc header, applied in the order they appear in the file.
+ * Holds the defaulting rules shared by every parser that builds a Header
+ * (default note length inferred from the meter, tempo following the default length until Q: is given).
+ */
+class HeaderBuilder {
+    private static final int DEFAULT_TEMPO = 100;
+    private static final Rational EIGHTH = Rational.of(1, 8);
+    private static final Rational SIXTEENTH = Rational.of(1, 16);
+
+    private final List<String> voice = new ArrayList<>();
+    private String composerName = "Unknown";
+    private KeySignature keySignature = new KeySignature("C");
+    private Meter meter = new Meter("C");
+    private Rational defaultLength = EIGHTH;
+    private boolean ifSetDefaultLength = false;
+    private Tempo tempo = new Tempo(defaultLength.toDouble(), DEFAULT_TEMPO);
+    private boolean specifiedTempo = false;
+    private String title = "Untitled";
+    private int indexNumber = 1;
+
+    /**
+     * Set the index number from the X: field
+     * @param digits the digits of the field, in order
+     * @throws UnableToParseException if the number is too large for an int
+     */
+    void setIndexNumber(String digits) throws UnableToParseException {
+        try {
+            indexNumber = Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            throw new UnableToParseException("invalid index number");
+        }
+    }
+
+    /**
+     * Set the title from the T: field
+     * @param title text of the field
+     */
+    void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Set the composer from the C: field
+     * @param composerName text of the field
+     */
+    void setComposer(String composerName) {
+        this.composerName = composerName;
+    }
+
+    /**
+     * Set the default note length from the L: field
+     * @param noteLength note length of the form n/d
+     * @throws UnableToParseException if the length is 0, or its numbers are too large for a long
+     */
+    void setDefaultLength(String noteLength) throws UnableToParseException {
+        Rational length;
+        try {
+            length = AbcParser.getLength(noteLength);
+        } catch (ArithmeticException e) {
+            throw new UnableToParseException("invalid default length");
+        }
+        if (length.signum() <= 0) {
+            throw new UnableToParseException("invalid default length");
+        }
+        defaultLength = length;
+        ifSetDefaultLength = true;
+        if (!specifiedTempo)
+            tempo = new Tempo(defaultLength.toDouble(), DEFAULT_TEMPO);
+    }
+
+    /**
+     * Set a symbolic meter, "C" or "C|", from the M: field
+     * @param meterString the meter as written
+     * @throws UnableToParseException if meterString is not a symbolic meter
+     */
+    void setMeter(String meterString) throws UnableToParseException {
+        try {
+            meter = new Meter(meterString);
+        } catch(IllegalArgumentException e) {
+            throw new UnableToParseException("invalid meter");
+        }
+        if (!ifSetDefaultLength) {
+            if ((double)meter.getNumerator() / (double)meter.getDenominator() >= 0.75)
+                defaultLength = EIGHTH;
+            else
+                defaultLength = SIXTEENTH;
+        }
+    }
+
+    /**
+     * Set a fractional meter from the M: field
+     * @param meterFraction the meter of the form n/d, possibly with whitespace between its digits
+     * @throws UnableToParseException if n or d is too large for an int
+     */
+    void setMeterFraction(String meterFraction) throws UnableToParseException {
+        String[] ratio = meterFraction.replaceAll("\\s", "").split("/");
+        try {
+            meter = new Meter(Integer.parseInt(ratio[0]), Integer.parseInt(ratio[1]));
+        } catch (NumberFormatException e) {
+            throw new UnableToParseException("invalid meter");
+        }
+    }
+
+    /**
+     * Set the tempo from the Q: field
+     * @param tempoString the whole tempo, of the form n/d=bpm, possibly with whitespace between its digits
+     * @param meterFraction the beat length part of tempoString, of the form n/d
+     * @throws UnableToParseException if bpm is too large for an int
+     */
+    void setTempo(String tempoString, String meterFraction) throws UnableToParseException {
+        String[] dividedString = tempoString.replaceAll("\\s", "").split("=");
+        String[] ratio = meterFraction.replaceAll("\\s", "").split("/");
+        try {
+            tempo = new Tempo(Double.parseDouble(ratio[0]) / Double.parseDouble(ratio[1]), Integer.parseInt(dividedString[1]));
+        } catch (NumberFormatException e) {
+            throw new UnableToParseException("invalid tempo");
+        }
+        specifiedTempo = true;
+    }
+
+    /**
+     * Add a voice name from a V: field
+     * @param name text of the field
+     */
+    void addVoice(String name) {
+        voice.add(name);
+    }
+
+    /**
+     * Set the key signature from the K: field
+     * @param keyBase base note of the key
+     * @param keyAccidental "#", "b", or "=" if the key has no accidental
+     * @param ifMinor true if the key is minor
+     * @throws UnableToParseException if the key has no key signature, e.g. G# major
+     */
+    void setKey(String keyBase, String keyAccidental, boolean ifMinor) throws UnableToParseException {
+        KeySignature key = new KeySignature(keyBase, keyAccidental, ifMinor);
+        if (KeySignatureMap.offsets(key) == null) {
+            throw new UnableToParseException("invalid key");
+        }
+        keySignature = key;
+    }
+
+    /**
+     * @return the header described by the fields set so far
+     */
+    Header build() {
+        return new Header(voice, composerName, keySignature, defaultLength, meter, tempo, title, indexNumber);
+    }
+}
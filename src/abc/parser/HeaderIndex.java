@@ -0,0 +1,121 @@
+package abc.parser;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import abc.header.Header;
+
+/**
+ * Immutable catalogue of the headers of the abc files in a directory, each of which either
+ * was scanned into a Header or failed on its own.
+ */
+public class HeaderIndex {
+
+    //AF:
+    //  represents the abc files found in a directory, where the file at each key of headers
+    //  has that header, and the file at each key of errors could not be read or scanned for that reason
+    //RI:
+    //  headers, errors != null, with disjoint key sets
+    //  no keys or values are null
+    //rep exposure:
+    //  all fields are private and final, defensively copied in the constructor and never returned;
+    //  Path and Header are immutable, and an exception is never modified after it is thrown
+
+    private final Map<Path, Header> headers;
+    private final Map<Path, Exception> errors;
+
+    /**
+     * check RI
+     */
+    private void checkRep() {
+        assert headers != null && errors != null;
+        for (Path file : headers.keySet()) {
+            assert !errors.containsKey(file);
+            assert headers.get(file) != null;
+        }
+        assert !errors.containsValue(null);
+    }
+
+    /**
+     * Make an index.
+     * @param headers the header of each file that was scanned
+     * @param errors why each other file was not, an UnableToParseException or IOException
+     */
+    public HeaderIndex(Map<Path, Header> headers, Map<Path, Exception> errors) {
+        this.headers = new TreeMap<>(headers);
+        this.errors = new TreeMap<>(errors);
+        checkRep();
+    }
+
+    /**
+     * @return the number of files in the index, scanned or not
+     */
+    public int size() {
+        return headers.size() + errors.size();
+    }
+
+    /**
+     * Get the header of one file.
+     * @param file a file in the index
+     * @return the header of file
+     * @throws Exception the reason the file could not be scanned, if it could not
+     * @throws IllegalArgumentException if file is not in the index
+     */
+    public Header getHeader(Path file) throws Exception {
+        if (errors.containsKey(file)) {
+            throw errors.get(file);
+        }
+        if (!headers.containsKey(file)) {
+            throw new IllegalArgumentException("not in the index: " + file);
+        }
+        return headers.get(file);
+    }
+
+    /**
+     * @return the header of every file that was scanned, keyed by its path, in order of path
+     */
+    public Map<Path, Header> getHeaders() {
+        return new TreeMap<>(headers);
+    }
+
+    /**
+     * @return why each file that could not be scanned failed, keyed by its path, in order of path
+     */
+    public Map<Path, Exception> getErrors() {
+        return new TreeMap<>(errors);
+    }
+
+    /**
+     * 2 HeaderIndexes are equal if and only if they have the same files with the same headers,
+     * and the same files failed
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof HeaderIndex) {
+            HeaderIndex that = (HeaderIndex)thatObject;
+            return this.headers.equals(that.headers) && this.errors.keySet().equals(that.errors.keySet());
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return headers.hashCode() + errors.keySet().hashCode();
+    }
+
+    /**
+     * Get human readable string representation of HeaderIndex
+     */
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (Map.Entry<Path, Header> file : headers.entrySet()) {
+            string.append(file.getKey()).append(": ").append(file.getValue().getTitle()).append("\n");
+        }
+        for (Map.Entry<Path, Exception> file : errors.entrySet()) {
+            string.append(file.getKey()).append(": error: ").append(file.getValue().getMessage()).append("\n");
+        }
+        return string.toString();
+    }
+}
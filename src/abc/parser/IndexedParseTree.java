@@ -0,0 +1,124 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lib6005.parser.ParseTree;
+
+/**
+ * A lib6005 ParseTree node that also knows which rules its children come from, for walking the tree fast.
+ * The generated parsers make every node with children this way, in the one pass over the children they
+ * already make for childrenByName; a builder walking the tree can then find a child by its rule without the
+ * map lookup and the new list that every call to childrenByName or children costs, and asking for a rule
+ * no child comes from costs nothing at all. To go through every child of one rule, loop over inOrder()
+ * and check each one's name.
+ * Trees made some other way, e.g. by lib6005's Parser, can still be walked the same way through of.
+ * @param <Symbols> enum of the rules of the grammar, of at most Long.SIZE values
+ */
+class IndexedParseTree<Symbols extends Enum<Symbols>> extends ParseTree<Symbols> {
+
+    private final List<ParseTree<Symbols>> inOrder;
+    private final long rules;
+
+    //AF:
+    //  represents the node of a parse tree named by its rule, matching its contents, whose children in order
+    //  are inOrder, and where bit i of rules is set iff some child is named by the rule of ordinal i
+    //RI:
+    //  inOrder is the list of children the ParseTree was made with
+    //rep exposure:
+    //  inOrder is returned by inOrder() to callers in this package, which must not change it;
+    //  every other view of it is lib6005's unmodifiable one
+
+    // make a node whose children have the given rules, and childrenByName map byName
+    private IndexedParseTree(Symbols name, String contents, Map<Symbols, List<ParseTree<Symbols>>> byName,
+            List<ParseTree<Symbols>> inOrder, long rules) {
+        super(name, contents, byName, inOrder);
+        this.inOrder = inOrder;
+        this.rules = rules;
+    }
+
+    /**
+     * Make a node of a parse tree.
+     * @param name the rule the node matched
+     * @param contents the text the node matched
+     * @param inOrder the children of the node, in order, all named; taken over by the node, and not to be changed
+     * @return the node
+     */
+    static <Symbols extends Enum<Symbols>> IndexedParseTree<Symbols> create(Symbols name, String contents,
+            List<ParseTree<Symbols>> inOrder) {
+        Map<Symbols, List<ParseTree<Symbols>>> byName = new HashMap<>();
+        long rules = 0;
+        for (int i = 0; i < inOrder.size(); i++) {
+            ParseTree<Symbols> kid = inOrder.get(i);
+            byName.computeIfAbsent(kid.getName(), symbol -> new ArrayList<>()).add(kid);
+            assert kid.getName().ordinal() < Long.SIZE;
+            rules |= 1L << kid.getName().ordinal();
+        }
+        return new IndexedParseTree<>(name, contents, byName, inOrder, rules);
+    }
+
+    /**
+     * @param tree a named node of a parse tree
+     * @return tree, if it was made by create; otherwise a copy of the node with the same name, contents and children
+     */
+    static <Symbols extends Enum<Symbols>> IndexedParseTree<Symbols> of(ParseTree<Symbols> tree) {
+        if (tree instanceof IndexedParseTree) {
+            return (IndexedParseTree<Symbols>) tree;
+        }
+        return create(tree.getName(), tree.getContents(), new ArrayList<>(tree.children()));
+    }
+
+    /**
+     * @return the children of the node, in order; not to be changed
+     */
+    List<ParseTree<Symbols>> inOrder() {
+        return inOrder;
+    }
+
+    /**
+     * @param rule a rule of the grammar
+     * @return true iff some child of the node is named by rule
+     */
+    boolean has(Symbols rule) {
+        return (rules & (1L << rule.ordinal())) != 0;
+    }
+
+    /**
+     * @param rule a rule of the grammar
+     * @return the first child of the node named by rule, or null if there is none
+     */
+    ParseTree<Symbols> first(Symbols rule) {
+        if (has(rule)) {
+            for (int i = 0; i < inOrder.size(); i++) {
+                if (inOrder.get(i).getName() == rule) {
+                    return inOrder.get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param rule a rule of the grammar
+     * @return the first child of the node named by rule, indexed as of does
+     * @throws IllegalArgumentException if there is none
+     */
+    IndexedParseTree<Symbols> child(Symbols rule) {
+        ParseTree<Symbols> child = first(rule);
+        if (child == null) {
+            throw new IllegalArgumentException("no " + rule + " in " + getName());
+        }
+        return of(child);
+    }
+
+    /**
+     * @param rule a rule of the grammar
+     * @return the text of the first child of the node named by rule, or null if there is none
+     */
+    String contents(Symbols rule) {
+        ParseTree<Symbols> child = first(rule);
+        return child == null ? null : child.getContents();
+    }
+}
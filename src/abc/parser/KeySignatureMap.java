@@ -7,116 +7,101 @@ import abc.header.KeySignature;
 import abc.sound.Accidental;
 
 /**
- * 
- * Wrapped key signature map mapping key signature to a map from character to accidental
+ *
+ * Wrapped key signature map mapping key signature to a map from character to accidental.
+ * The accidentals of every key are worked out once, into a static table of semitone offsets
+ * indexed by key and note letter, which the parsers read directly through offsets.
  */
 public class KeySignatureMap {
-    private final Map<KeySignature, Map<Character, Accidental>> keys = new HashMap<>();
-    private final static KeySignature cMajor = new KeySignature("C", false);
-    private final static Map<Character, Accidental> cMajorMap = new HashMap<>();
-    private final static KeySignature gMajor = new KeySignature("G", false);
-    private final static KeySignature dMajor = new KeySignature("D", false);
-    private final static KeySignature aMajor = new KeySignature("A", false);
-    private final static KeySignature eMajor = new KeySignature("E", false);
-    private final static KeySignature bMajor = new KeySignature("B", false);
-    private final static KeySignature fSharpMajor = new KeySignature("F","#", false);
-    private final static KeySignature cSharpMajor = new KeySignature("C","#", false);
-    private final static KeySignature fMajor = new KeySignature("F", false);
-    private final static KeySignature bFlatMajor = new KeySignature("B", "b", false);
-    private final static KeySignature eFlatMajor = new KeySignature("E", "b", false);
-    private final static KeySignature aFlatMajor = new KeySignature("A", "b", false);
-    private final static KeySignature dFlatMajor = new KeySignature("D", "b", false);
-    private final static KeySignature gFlatMajor = new KeySignature("G", "b", false);
-    private final static KeySignature cFlatMajor = new KeySignature("C", "b", false);
-    
-    private final static KeySignature cMinor = new KeySignature("C", true);
-    private final static KeySignature gMinor = new KeySignature("G", true);
-    private final static KeySignature dMinor = new KeySignature("D", true);
-    private final static KeySignature aMinor = new KeySignature("A", true);
-    private final static KeySignature eMinor = new KeySignature("E", true);
-    private final static KeySignature bMinor = new KeySignature("B", true);
-    private final static KeySignature fSharpMinor = new KeySignature("F","#", true);
-    private final static KeySignature cSharpMinor = new KeySignature("C","#", true);
-    private final static KeySignature fMinor = new KeySignature("F", true);
-    private final static KeySignature bFlatMinor = new KeySignature("B", "b", true);
-    private final static KeySignature eFlatMinor = new KeySignature("E", "b", true);
-    private final static KeySignature aFlatMinor = new KeySignature("A", "b", true);
-    private final static KeySignature gSharpMinor = new KeySignature("G","#", true);
-    private final static KeySignature dSharpMinor = new KeySignature("D","#", true);
-    private final static KeySignature aSharpMinor = new KeySignature("A","#", true);
-    
+
+    /**
+     * Number of note letters, A-G
+     */
+    static final int LETTERS = 7;
+
+    private static final String SHARP_ORDER = "FCGDAEB";
+    private static final String FLAT_ORDER = "BEADGCF";
+    private static final Accidental[] KEY_ACCIDENTALS = {Accidental.NATURAL, Accidental.SHARP, Accidental.FLAT};
+
+    // offsets of each key, at index(key), or null for a key that has no signature
+    private static final byte[][] OFFSETS = new byte[LETTERS * KEY_ACCIDENTALS.length * 2][];
+
+    static {
+        String[] majorSharps = {"C", "G", "D", "A", "E", "B", "F#", "C#"};
+        String[] minorSharps = {"A", "E", "B", "F#", "C#", "G#", "D#", "A#"};
+        String[] majorFlats = {"F", "Bb", "Eb", "Ab", "Db", "Gb", "Cb"};
+        String[] minorFlats = {"D", "G", "C", "F", "Bb", "Eb", "Ab"};
+        for (int sharps = 0; sharps < majorSharps.length; sharps++) {
+            put(majorSharps[sharps], false, SHARP_ORDER, sharps, 1);
+            put(minorSharps[sharps], true, SHARP_ORDER, sharps, 1);
+        }
+        for (int flats = 0; flats < majorFlats.length; flats++) {
+            put(majorFlats[flats], false, FLAT_ORDER, flats + 1, -1);
+            put(minorFlats[flats], true, FLAT_ORDER, flats + 1, -1);
+        }
+    }
+
+    // record that key (a letter optionally followed by # or b) has the first count letters of order raised by offset
+    private static void put(String key, boolean isMinor, String order, int count, int offset) {
+        byte[] offsets = new byte[LETTERS];
+        for (int i = 0; i < count; i++) {
+            offsets[order.charAt(i) - 'A'] = (byte) offset;
+        }
+        String keyAccidental = key.length() > 1 ? key.substring(1) : "=";
+        OFFSETS[index(new KeySignature(key.substring(0, 1), keyAccidental, isMinor))] = offsets;
+    }
+
+    // position of key in OFFSETS, or -1 if its base is not an uppercase letter
+    private static int index(KeySignature key) {
+        if (key.getKeyBase().length() != 1) {
+            return -1;
+        }
+        int letter = key.getKeyBase().charAt(0) - 'A';
+        if (letter < 0 || letter >= LETTERS) {
+            return -1;
+        }
+        int accidental = 0;
+        while (KEY_ACCIDENTALS[accidental] != key.getKeyAccidental()) {
+            accidental++;
+        }
+        return (letter * KEY_ACCIDENTALS.length + accidental) * 2 + (key.getIsMinor() ? 1 : 0);
+    }
+
+    /**
+     * Get the semitone offsets of a key signature.
+     * @param key key signature
+     * @return array of LETTERS offsets, the i-th of which is how many semitones the key raises the letter 'A' + i,
+     *         or null if key has no signature (e.g. G# major); shared, so must not be modified
+     */
+    static byte[] offsets(KeySignature key) {
+        int index = index(key);
+        return index < 0 ? null : OFFSETS[index];
+    }
+
     public KeySignatureMap(){
-        keys.put(cMajor, cMajorMap);
-        Map<Character, Accidental> gMajorMap = new HashMap<>();
-        gMajorMap.put('F', Accidental.SHARP);
-        keys.put(gMajor, gMajorMap);
-        Map<Character, Accidental> dMajorMap = new HashMap<>(gMajorMap);
-        dMajorMap.put('C', Accidental.SHARP);
-        keys.put(dMajor, dMajorMap);
-        Map<Character, Accidental> aMajorMap = new HashMap<>(dMajorMap);
-        aMajorMap.put('G', Accidental.SHARP);
-        keys.put(aMajor, aMajorMap);
-        Map<Character, Accidental> eMajorMap = new HashMap<>(aMajorMap);
-        eMajorMap.put('D', Accidental.SHARP);
-        keys.put(eMajor, eMajorMap);
-        Map<Character, Accidental> bMajorMap = new HashMap<>(eMajorMap);
-        bMajorMap.put('A', Accidental.SHARP);
-        keys.put(bMajor, bMajorMap);
-        Map<Character, Accidental> fSharpMajorMap = new HashMap<>(bMajorMap);
-        fSharpMajorMap.put('E', Accidental.SHARP);
-        keys.put(fSharpMajor, fSharpMajorMap);
-        Map<Character, Accidental> cSharpMajorMap = new HashMap<>(fSharpMajorMap);
-        cSharpMajorMap.put('B', Accidental.SHARP);
-        keys.put(cSharpMajor, cSharpMajorMap);
-        
-        Map<Character, Accidental> fMajorMap = new HashMap<>();
-        fMajorMap.put('B', Accidental.FLAT);
-        keys.put(fMajor, fMajorMap);
-        Map<Character, Accidental> bFlatMajorMap = new HashMap<>(fMajorMap);
-        bFlatMajorMap.put('E', Accidental.FLAT);
-        keys.put(bFlatMajor, bFlatMajorMap);
-        Map<Character, Accidental> eFlatMajorMap = new HashMap<>(bFlatMajorMap);
-        eFlatMajorMap.put('A', Accidental.FLAT);
-        keys.put(eFlatMajor, eFlatMajorMap);
-        Map<Character, Accidental> aFlatMajorMap = new HashMap<>(eFlatMajorMap);
-        aFlatMajorMap.put('D', Accidental.FLAT);
-        keys.put(aFlatMajor, aFlatMajorMap);
-        Map<Character, Accidental> dFlatMajorMap = new HashMap<>(aFlatMajorMap);
-        dFlatMajorMap.put('G', Accidental.FLAT);
-        keys.put(dFlatMajor, dFlatMajorMap);
-        Map<Character, Accidental> gFlatMajorMap = new HashMap<>(dFlatMajorMap);
-        gFlatMajorMap.put('C', Accidental.FLAT);
-        keys.put(gFlatMajor, gFlatMajorMap);
-        Map<Character, Accidental> cFlatMajorMap = new HashMap<>(gFlatMajorMap);
-        cFlatMajorMap.put('F', Accidental.FLAT);
-        keys.put(cFlatMajor, cFlatMajorMap);
-        
-        keys.put(aMinor, cMajorMap);
-        keys.put(eMinor, gMajorMap);
-        keys.put(bMinor, dMajorMap);
-        keys.put(fSharpMinor, aMajorMap);
-        keys.put(cSharpMinor, eMajorMap);
-        keys.put(gSharpMinor, bMajorMap);
-        keys.put(dSharpMinor, fSharpMajorMap);
-        keys.put(aSharpMinor, cSharpMajorMap);
-        keys.put(dMinor, fMajorMap);
-        keys.put(gMinor, bFlatMajorMap);
-        keys.put(cMinor, eFlatMajorMap);
-        keys.put(fMinor, aFlatMajorMap);
-        keys.put(bFlatMinor, dFlatMajorMap);
-        keys.put(eFlatMinor, gFlatMajorMap);
-        keys.put(aFlatMinor, cFlatMajorMap);
     }
-    
+
     /**
      * Get the accidentals of a key signature
-     * @param key key signature
+     * @param key key signature that has a signature
      * @return a map from character to accidental
      */
     public Map<Character, Accidental> getKey(KeySignature key){
-        return new HashMap<>(keys.get(key));
+        byte[] offsets = offsets(key);
+        if (offsets == null) {
+            throw new IllegalArgumentException("no key signature for " + key);
+        }
+        Map<Character, Accidental> accidentals = new HashMap<>();
+        for (int letter = 0; letter < LETTERS; letter++) {
+            if (offsets[letter] > 0) {
+                accidentals.put((char) ('A' + letter), Accidental.SHARP);
+            } else if (offsets[letter] < 0) {
+                accidentals.put((char) ('A' + letter), Accidental.FLAT);
+            }
+        }
+        return accidentals;
     }
-    
+
     /**
      * KeySignatureMaps are always equal (since they are basically the same map)
      */
@@ -127,14 +112,26 @@ public class KeySignatureMap {
         else
             return false;
     }
-    
+
     @Override
     public int hashCode() {
         return 0;
     }
-    
+
     @Override
     public String toString() {
+        Map<KeySignature, Map<Character, Accidental>> keys = new HashMap<>();
+        for (int letter = 0; letter < LETTERS; letter++) {
+            for (Accidental accidental : KEY_ACCIDENTALS) {
+                for (boolean isMinor : new boolean[] {false, true}) {
+                    String keyAccidental = accidental == Accidental.SHARP ? "#" : accidental == Accidental.FLAT ? "b" : "=";
+                    KeySignature key = new KeySignature(String.valueOf((char) ('A' + letter)), keyAccidental, isMinor);
+                    if (offsets(key) != null) {
+                        keys.put(key, getKey(key));
+                    }
+                }
+            }
+        }
         return keys.toString();
     }
 }
@@ -0,0 +1,196 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import abc.header.Header;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Parses the text of an abc file with AbcRecursiveDescentParser, splitting the body of the tune
+ * into chunks of whole lines that are parsed into measures in parallel on the common ForkJoinPool,
+ * then put back together in order.
+ *
+ * A chunk cannot know for sure which voice its first line belongs to until the chunks before it are parsed,
+ * so it is parsed in the state guessed by scanning the lines before it for voice fields, the way nextLine reads them.
+ * The chunks are then checked in order: if one did not start where, and in the state in which, the one before it
+ * ended, e.g. because a voice field started part way through a line, it is parsed again from there on this thread.
+ * So the Song, and the first error found if there is one, are always those AbcRecursiveDescentParser.parse gives.
+ */
+class LineParallelParser {
+
+    // fewest characters of body worth a chunk of their own
+    static final int MIN_CHUNK = 2048;
+    // chunks per thread of the pool, so that a thread with short lines can take work from one with long lines
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Parse the text of an abc file into a Song, within the limits of budget, parsing the lines of its body in parallel.
+     * Each chunk of the body is limited in depth and time as a whole parse is; the steps and tokens of all of them
+     * together are limited as those of a whole parse are, though they are only added up after every chunk is parsed.
+     * @param input text of an abc file; read by several threads at once
+     * @param budget account of the parse, not used by any other
+     * @return the Song described by input, equal to the one AbcRecursiveDescentParser.parse returns
+     * @throws ParseLimitException if the parse goes past a limit of budget
+     * @throws UnableToParseException if input is not in the language of Abc.g
+     */
+    static Song parse(CharSequence input, ParseBudget budget) throws UnableToParseException {
+        budget.input(input.length());
+        AbcRecursiveDescentParser headerParser = new AbcRecursiveDescentParser(input, budget);
+        Header header = headerParser.abcHeader();
+        List<Chunk> chunks = split(input, header, headerParser.position(), budget);
+        if (chunks.size() == 1) {
+            chunks.get(0).compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+        }
+        VoiceLines voices = new VoiceLines();
+        Chunk previous = null;
+        for (Chunk chunk : chunks) {
+            if (previous != null && !chunk.startsAfter(previous)) {
+                chunk = new Chunk(input, header, previous.endPosition, previous.endInVoices, previous.endVoiceName,
+                        chunk.end, budget.fork());
+                chunk.compute();
+            }
+            chunk.rethrow();
+            budget.charge(chunk.budget);
+            voices.addAll(chunk.voices);
+            if (chunk.bodyEnded) {
+                break;
+            }
+            previous = chunk;
+        }
+        return new Song(voices.toVoices(), header);
+    }
+
+    /**
+     * Split the body of a tune into chunks of whole lines, each in the state guessed from the voice fields before it.
+     * @param input text of an abc file
+     * @param header header of the tune
+     * @param bodyStart index in input where the body starts
+     * @param budget account of the parse, forked for each chunk
+     * @return at least one chunk, in order; the first starts at bodyStart and the last ends after the end of input
+     */
+    private static List<Chunk> split(CharSequence input, Header header, int bodyStart, ParseBudget budget) {
+        int threads = ForkJoinPool.commonPool().getParallelism();
+        int chunkLength = Math.max(MIN_CHUNK, (input.length() - bodyStart) / (threads * CHUNKS_PER_THREAD));
+        List<Chunk> chunks = new ArrayList<>();
+        int start = bodyStart;
+        boolean inVoices = false;
+        String voiceName = null;
+        boolean startInVoices = inVoices;
+        String startVoiceName = voiceName;
+        int lineStart = bodyStart;
+        while (lineStart < input.length()) {
+            if (lineStart - start >= chunkLength) {
+                chunks.add(new Chunk(input, header, start, startInVoices, startVoiceName, lineStart, budget.fork()));
+                start = lineStart;
+                startInVoices = inVoices;
+                startVoiceName = voiceName;
+            }
+            int pos = lineStart;
+            while (pos < input.length() && (input.charAt(pos) == ' ' || input.charAt(pos) == '\t')) {
+                pos++;
+            }
+            boolean voiceField = pos + 1 < input.length() && input.charAt(pos) == 'V' && input.charAt(pos + 1) == ':';
+            if (voiceField) {
+                pos += 2;
+                while (pos < input.length() && (input.charAt(pos) == ' ' || input.charAt(pos) == '\t')) {
+                    pos++;
+                }
+            }
+            int textStart = pos;
+            while (pos < input.length() && input.charAt(pos) != '\n' && input.charAt(pos) != '\r') {
+                pos++;
+            }
+            if (voiceField) {
+                inVoices = true;
+                voiceName = input.subSequence(textStart, pos).toString();
+            }
+            if (pos + 1 < input.length() && input.charAt(pos) == '\r' && input.charAt(pos + 1) == '\n') {
+                pos++;
+            }
+            lineStart = pos + 1;
+        }
+        chunks.add(new Chunk(input, header, start, startInVoices, startVoiceName, Integer.MAX_VALUE, budget.fork()));
+        return chunks;
+    }
+
+    /**
+     * Parses the lines of the body from start up to end, in a given state, catching whatever goes wrong
+     * so that it can be thrown, if this chunk turns out to have been parsed in the right state, in order.
+     */
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence input;
+        private final Header header;
+        private final int start;
+        private final boolean startInVoices;
+        private final String startVoiceName;
+        private final int end;
+        private final ParseBudget budget;
+        private final VoiceLines voices = new VoiceLines();
+        // where and in what state the parse stopped, once the task has run without error
+        private int endPosition;
+        private boolean endInVoices;
+        private String endVoiceName;
+        private boolean bodyEnded;
+        // set if the task failed
+        private UnableToParseException error;
+        private RuntimeException failure;
+
+        Chunk(CharSequence input, Header header, int start, boolean startInVoices, String startVoiceName, int end,
+                ParseBudget budget) {
+            this.input = input;
+            this.header = header;
+            this.start = start;
+            this.startInVoices = startInVoices;
+            this.startVoiceName = startVoiceName;
+            this.end = end;
+            this.budget = budget;
+        }
+
+        @Override
+        protected void compute() {
+            AbcRecursiveDescentParser parser =
+                    new AbcRecursiveDescentParser(input, header, start, startInVoices, startVoiceName, budget);
+            try {
+                bodyEnded = parser.nextLines(end, voices);
+                endPosition = parser.position();
+                endInVoices = parser.inVoices();
+                endVoiceName = parser.voiceName();
+            } catch (UnableToParseException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                // building a measure can fail on input the grammar accepts; only thrown if it is reached in order
+                failure = e;
+            }
+        }
+
+        // true iff this chunk was parsed from where, and in the state in which, previous ended without error
+        private boolean startsAfter(Chunk previous) {
+            return start == previous.endPosition && startInVoices == previous.endInVoices
+                    && (startVoiceName == null ? previous.endVoiceName == null : startVoiceName.equals(previous.endVoiceName));
+        }
+
+        // throw whatever went wrong with this chunk, if anything
+        private void rethrow() throws UnableToParseException {
+            if (error != null) {
+                throw error;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable CharSequence over a range of ASCII bytes, usually a file mapped into memory,
+ * one char per byte. Reading a file this way keeps it out of the Java heap: characters are
+ * read straight from the mapped bytes as the parser asks for them, and subSequence shares them.
+ */
+class MappedText implements CharSequence {
+    
+    private static final byte[] BYTE_ORDER_MARK = {(byte)0xEF, (byte)0xBB, (byte)0xBF};
+    
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int length;
+    
+    //AF:
+    //  represents the text whose i-th character is the byte at index start + i of bytes, for 0 <= i < length
+    //RI:
+    //  bytes != null, 0 <= start, 0 <= length, start + length <= bytes.limit()
+    //  every byte in the range is ASCII, i.e. >= 0
+    //rep exposure:
+    //  all fields are private and final; bytes is never returned, and only read with absolute gets,
+    //  which do not change it, so sharing it between MappedTexts is safe
+    
+    // check RI
+    private void checkRep() {
+        assert bytes != null;
+        assert 0 <= start && 0 <= length && start + length <= bytes.limit();
+    }
+    
+    /**
+     * Read a file as UTF-8 text without copying it into the Java heap if it can be helped.
+     * A file of only ASCII (after an optional UTF-8 byte order mark) is read through its mapping;
+     * any other UTF-8 file is decoded from its mapping into a CharBuffer, skipping the byte[] and String
+     * copies that reading it into a String would make.
+     * @param file path of the file
+     * @return the text of the file
+     * @throws IOException if the file cannot be read, is larger than 2GB, or is not valid UTF-8
+     */
+    static CharSequence open(Path file) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2GB");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int start = 0;
+        if (mapped.limit() >= BYTE_ORDER_MARK.length && mapped.get(0) == BYTE_ORDER_MARK[0]
+                && mapped.get(1) == BYTE_ORDER_MARK[1] && mapped.get(2) == BYTE_ORDER_MARK[2]) {
+            start = BYTE_ORDER_MARK.length;
+        }
+        for (int i = start; i < mapped.limit(); i++) {
+            if (mapped.get(i) < 0) {
+                return decode(mapped, start);
+            }
+        }
+        return new MappedText(mapped, start, mapped.limit() - start);
+    }
+    
+    /**
+     * @param bytes UTF-8 text
+     * @param start index in bytes of the first byte of text
+     * @return the decoded text
+     * @throws CharacterCodingException if bytes is not valid UTF-8
+     */
+    private static CharBuffer decode(ByteBuffer bytes, int start) throws CharacterCodingException {
+        ByteBuffer text = bytes.duplicate();
+        text.position(start);
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(text);
+    }
+    
+    /**
+     * Make text over a range of bytes.
+     * @param bytes the bytes, all ASCII in the range; not changed afterwards
+     * @param start index of the first byte
+     * @param length number of bytes
+     */
+    MappedText(ByteBuffer bytes, int start, int length) {
+        this.bytes = bytes;
+        this.start = start;
+        this.length = length;
+        checkRep();
+    }
+    
+    @Override
+    public int length() {
+        return length;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + length);
+        }
+        return (char)bytes.get(start + index);
+    }
+    
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("range " + from + " to " + to + " of " + length);
+        }
+        return new MappedText(bytes, start + from, to - from);
+    }
+    
+    /**
+     * @return the text as a String, which copies it into the heap
+     */
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,120 @@
+package abc.parser;
+
+import abc.header.KeySignature;
+import abc.sound.Pitch;
+
+/**
+ * Mutable record of the accidentals in effect in the measure being built, used by both parser
+ * engines to resolve pitches. Each letter's accidental is a semitone offset in a 7-slot array,
+ * reset from the key's row of KeySignatureMap's table at the start of every measure, so resolving
+ * a pitch allocates nothing but the Pitch itself.
+ * Not safe to share between threads; each voice being built needs its own.
+ */
+class MeasureAccidentals {
+
+    /**
+     * Passed to resolve for a note with no accidental written
+     */
+    static final int NO_ACCIDENTAL = Integer.MIN_VALUE;
+
+    // semitones from C up to each letter in the octave of middle C, indexed by letter - 'A'
+    private static final int[] LETTER_SEMITONES = new int[KeySignatureMap.LETTERS];
+
+    static {
+        for (int letter = 0; letter < LETTER_SEMITONES.length; letter++) {
+            LETTER_SEMITONES[letter] = new Pitch((char) ('A' + letter)).difference(Pitch.MIDDLE_C);
+        }
+    }
+
+    private final byte[] key;
+    private final byte[] offsets = new byte[KeySignatureMap.LETTERS];
+
+    //AF:
+    //  represents the accidentals in effect part way through a measure of a tune in the key whose
+    //  offsets are key: the letter 'A' + i is raised offsets[i] semitones (lowered if negative)
+    //RI:
+    //  key.length == offsets.length == KeySignatureMap.LETTERS
+    //  -2 <= offsets[i] <= 2
+    //rep exposure:
+    //  key is KeySignatureMap's shared row, which is only read; offsets is private and never returned
+
+    // check RI
+    private void checkRep() {
+        assert key.length == KeySignatureMap.LETTERS && offsets.length == KeySignatureMap.LETTERS;
+        for (byte offset : offsets) {
+            assert -2 <= offset && offset <= 2;
+        }
+    }
+
+    /**
+     * Make the accidentals in effect at the start of a measure.
+     * @param key key of the tune; must have a signature in KeySignatureMap
+     */
+    MeasureAccidentals(KeySignature key) {
+        this.key = KeySignatureMap.offsets(key);
+        if (this.key == null) {
+            throw new IllegalArgumentException("no key signature for " + key);
+        }
+        reset();
+    }
+
+    /**
+     * Forget the accidentals written so far, going back to the key's, for the start of a measure.
+     */
+    void reset() {
+        System.arraycopy(key, 0, offsets, 0, offsets.length);
+        checkRep();
+    }
+
+    /**
+     * Resolve the pitch of a note against the accidentals in effect.
+     * An explicit accidental stays in effect for the rest of the measure.
+     * @param baseNote basenote as written, A-G or a-g
+     * @param accidental semitones of the accidental written, as returned by accidental, or NO_ACCIDENTAL
+     * @param octaves octaves up (down if negative) written after baseNote, as returned by octaves
+     * @return the pitch of the note
+     */
+    Pitch resolve(char baseNote, int accidental, int octaves) {
+        boolean isLowerCase = baseNote >= 'a';
+        int letter = (isLowerCase ? baseNote - 'a' : baseNote - 'A');
+        if (accidental != NO_ACCIDENTAL) {
+            offsets[letter] = (byte) accidental;
+        }
+        int octave = octaves + (isLowerCase ? 1 : 0);
+        return Pitch.MIDDLE_C.transpose(LETTER_SEMITONES[letter] + offsets[letter] + octave * Pitch.OCTAVE);
+    }
+
+    /**
+     * @param written accidental as written ("^", "^^", "_", "__" or "="), or null if there is none
+     * @return semitones it raises a note by, or NO_ACCIDENTAL if written is null
+     */
+    static int accidental(String written) {
+        if (written == null) {
+            return NO_ACCIDENTAL;
+        }
+        int semitones = 0;
+        for (int i = 0; i < written.length(); i++) {
+            if (written.charAt(i) == '^') {
+                semitones++;
+            } else if (written.charAt(i) == '_') {
+                semitones--;
+            }
+        }
+        return semitones;
+    }
+
+    /**
+     * @param written octave marks as written (all "'" or all ","), or null if there are none
+     * @return octaves they move a note up, negative for down
+     */
+    static int octaves(String written) {
+        if (written == null) {
+            return 0;
+        }
+        int octaves = 0;
+        for (int i = 0; i < written.length(); i++) {
+            octaves += written.charAt(i) == '\'' ? 1 : -1;
+        }
+        return octaves;
+    }
+}
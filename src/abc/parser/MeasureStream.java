@@ -0,0 +1,95 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import abc.header.Header;
+import abc.sound.Measure;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Reads the measures of an abc file one at a time, parsing only as much of the file as it needs to.
+ * The header is parsed when the stream is made; after that, each call to next parses at most one more
+ * line of the body, so a player can start on the first measures while the rest are still unread.
+ * Uses the recursive-descent engine, and accepts the same language as AbcParser.parse.
+ */
+public class MeasureStream {
+    
+    private final AbcRecursiveDescentParser parser;
+    private final Header header;
+    private final Queue<VoiceMeasure> pending = new ArrayDeque<>();
+    private boolean ended = false;
+    
+    //AF:
+    //  represents the measures of the abc file read by parser, in the order they are written:
+    //  the measures in pending, followed by those in the rest of the file unless ended
+    //RI:
+    //  parser != null, header != null
+    //rep exposure:
+    //  all fields are private and final or primitive; header and VoiceMeasure are immutable
+    
+    /**
+     * check RI
+     */
+    private void checkRep() {
+        assert parser != null;
+        assert header != null;
+    }
+    
+    /**
+     * Start reading an abc file, parsing its header.
+     * @param in source of the text of an abc file; read on demand, and not closed
+     * @throws UnableToParseException if the header is not in the language of Abc.g
+     * @throws IOException if in throws an IOException
+     */
+    public MeasureStream(Reader in) throws UnableToParseException, IOException {
+        this.parser = new AbcRecursiveDescentParser(in);
+        try {
+            this.header = parser.abcHeader();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        checkRep();
+    }
+    
+    /**
+     * @return the header of the tune
+     */
+    public Header getHeader() {
+        return header;
+    }
+    
+    /**
+     * Read the next measure of the file.
+     * Measures of different voices come in the order they are written in the file,
+     * so all of one voice's lines may come before any of the next voice's.
+     * @return the next measure and the voice that plays it, or null if there are no more
+     * @throws UnableToParseException if the rest of the file is not in the language of Abc.g;
+     *         measures before the error have already been returned
+     * @throws IOException if the underlying Reader throws an IOException
+     */
+    public VoiceMeasure next() throws UnableToParseException, IOException {
+        List<Measure> measures = new ArrayList<>();
+        while (pending.isEmpty() && !ended) {
+            String voice;
+            try {
+                voice = parser.nextLine(measures);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (voice == null) {
+                ended = true;
+            }
+            for (Measure measure : measures) {
+                pending.add(new VoiceMeasure(voice, measure));
+            }
+            measures.clear();
+        }
+        return pending.poll();
+    }
+}
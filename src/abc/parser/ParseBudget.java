@@ -0,0 +1,149 @@
+package abc.parser;
+
+/**
+ * Mutable account of the work one parse has done so far, checked against its ParseLimits as the parse goes.
+ * Parsers call enter and exit around each rule they try, and token for each token they read;
+ * the clock starts when the budget is made, and is looked at every CLOCK_INTERVAL steps and tokens.
+ * Good for one parse only; not safe to share between threads.
+ */
+class ParseBudget {
+
+    // how many steps or tokens go by between looks at the clock; a power of two
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final ParseLimits limits;
+    private final long deadline;
+    private long steps = 0;
+    private long tokens = 0;
+    private long depth = 0;
+
+    //AF:
+    //  represents the work done by a parse limited by limits: steps rules tried, tokens read, depth rules
+    //  being parsed right now, and the System.nanoTime() at which its time runs out, deadline,
+    //  or Long.MAX_VALUE if it has no time limit
+    //RI:
+    //  steps, tokens, depth >= 0
+    //  steps <= limits.getMaxSteps(), tokens <= limits.getMaxTokens(), depth <= limits.getMaxDepth()
+    //rep exposure:
+    //  all fields are private; ParseLimits is immutable
+
+    // check RI
+    private void checkRep() {
+        assert steps >= 0 && tokens >= 0 && depth >= 0;
+        assert steps <= limits.getMaxSteps() && tokens <= limits.getMaxTokens() && depth <= limits.getMaxDepth();
+    }
+
+    /**
+     * Start the account of a parse, and its clock.
+     * @param limits limits of the parse
+     */
+    ParseBudget(ParseLimits limits) {
+        this(limits, limits.getMaxMillis() >= Long.MAX_VALUE / 2_000_000 ? Long.MAX_VALUE
+                : System.nanoTime() + limits.getMaxMillis() * 1_000_000);
+    }
+
+    // make an account with nothing spent yet whose time runs out at deadline
+    private ParseBudget(ParseLimits limits, long deadline) {
+        this.limits = limits;
+        this.deadline = deadline;
+        checkRep();
+    }
+
+    /**
+     * Start the account of a piece of this parse that runs separately, e.g. on another thread.
+     * @return budget with the same limits and the same clock as this one, and nothing spent yet;
+     *         its steps and tokens count towards this parse only once passed to charge
+     */
+    ParseBudget fork() {
+        return new ParseBudget(limits, deadline);
+    }
+
+    /**
+     * Add the steps and tokens spent by a piece of this parse to this account.
+     * @param piece a budget made by fork, whose parse is over
+     * @throws ParseLimitException if that takes the steps or tokens of this parse over their limits
+     */
+    void charge(ParseBudget piece) throws ParseLimitException {
+        if (piece.steps > limits.getMaxSteps() - steps) {
+            throw new ParseLimitException(ParseLimits.Limit.STEPS, limits.getMaxSteps());
+        }
+        if (piece.tokens > limits.getMaxTokens() - tokens) {
+            throw new ParseLimitException(ParseLimits.Limit.TOKENS, limits.getMaxTokens());
+        }
+        steps += piece.steps;
+        tokens += piece.tokens;
+        checkRep();
+    }
+
+    /**
+     * Check the length of the input before parsing it.
+     * @param length characters of text, or bytes of a file
+     * @throws ParseLimitException if length is over the limit
+     */
+    void input(long length) throws ParseLimitException {
+        if (length > limits.getMaxInputLength()) {
+            throw new ParseLimitException(ParseLimits.Limit.INPUT_LENGTH, limits.getMaxInputLength());
+        }
+    }
+
+    /**
+     * Count a step and go one rule deeper, for a rule that is about to be tried.
+     * @throws ParseLimitException if that takes the steps or depth over their limits, or time has run out
+     */
+    void enter() throws ParseLimitException {
+        if (steps == limits.getMaxSteps()) {
+            throw new ParseLimitException(ParseLimits.Limit.STEPS, limits.getMaxSteps());
+        }
+        if (depth == limits.getMaxDepth()) {
+            throw new ParseLimitException(ParseLimits.Limit.DEPTH, limits.getMaxDepth());
+        }
+        steps++;
+        depth++;
+        if ((steps & (CLOCK_INTERVAL - 1)) == 0) {
+            checkClock();
+        }
+    }
+
+    /**
+     * Go one rule shallower, for a rule that has been tried; must follow a call to enter.
+     */
+    void exit() {
+        depth--;
+        assert depth >= 0;
+    }
+
+    /**
+     * Count a token that has been read.
+     * @throws ParseLimitException if that takes the tokens over their limit, or time has run out
+     */
+    void token() throws ParseLimitException {
+        if (tokens == limits.getMaxTokens()) {
+            throw new ParseLimitException(ParseLimits.Limit.TOKENS, limits.getMaxTokens());
+        }
+        tokens++;
+        if ((tokens & (CLOCK_INTERVAL - 1)) == 0) {
+            checkClock();
+        }
+    }
+
+    // throw if the time of the parse has run out
+    private void checkClock() throws ParseLimitException {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new ParseLimitException(ParseLimits.Limit.TIME, limits.getMaxMillis());
+        }
+    }
+
+    /**
+     * @return rules tried so far
+     */
+    long steps() {
+        return steps;
+    }
+
+    /**
+     * @return tokens read so far
+     */
+    long tokens() {
+        return tokens;
+    }
+}
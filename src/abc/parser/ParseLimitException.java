@@ -0,0 +1,41 @@
+package abc.parser;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Thrown when a parse stops because the input went past one of its ParseLimits.
+ * It is an UnableToParseException, so callers that already give up on text they cannot parse
+ * give up on text that is too costly to parse the same way.
+ */
+public class ParseLimitException extends UnableToParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ParseLimits.Limit limit;
+    private final long max;
+
+    /**
+     * Make an exception for a parse that went past a limit.
+     * @param limit the limit that was reached
+     * @param max the value of that limit
+     */
+    public ParseLimitException(ParseLimits.Limit limit, long max) {
+        super("parse limit reached: " + limit.name().toLowerCase().replace('_', ' ') + " over " + max);
+        this.limit = limit;
+        this.max = max;
+    }
+
+    /**
+     * @return the limit that was reached
+     */
+    public ParseLimits.Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the value of the limit that was reached
+     */
+    public long getMax() {
+        return max;
+    }
+}
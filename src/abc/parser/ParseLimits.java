@@ -0,0 +1,189 @@
+package abc.parser;
+
+/**
+ * Immutable bounds on how much a parse of untrusted abc text may read and do: the length of the input,
+ * the number of tokens and parse steps, how deeply rules may nest, and the wall-clock time taken.
+ * A parse that would go past any of them stops with a ParseLimitException.
+ * Start from UNLIMITED and tighten the limits wanted, e.g. UNLIMITED.withMaxInputLength(1 << 20).withMaxMillis(2000).
+ */
+public class ParseLimits {
+
+    /**
+     * The different limits, as reported by ParseLimitException.getLimit
+     */
+    public enum Limit {
+        /** characters of text, or bytes of a file */
+        INPUT_LENGTH,
+        /** terminal pieces of the tune read: leaves of the parse tree for the grammar engine; notes, rests,
+         *  barlines, measure prefixes, tuplet and chord openings, header fields and comments for the other */
+        TOKENS,
+        /** rules of Abc.g being parsed inside one another */
+        DEPTH,
+        /** rules of Abc.g tried, whether or not they match */
+        STEPS,
+        /** milliseconds of wall-clock time since the parse started */
+        TIME
+    }
+
+    /**
+     * Value of a limit that does not limit anything
+     */
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    /**
+     * Limits that let every parse run to the end
+     */
+    public static final ParseLimits UNLIMITED = new ParseLimits(NO_LIMIT, NO_LIMIT, NO_LIMIT, NO_LIMIT, NO_LIMIT);
+
+    private final long maxInputLength;
+    private final long maxTokens;
+    private final long maxDepth;
+    private final long maxSteps;
+    private final long maxMillis;
+
+    //AF:
+    //  represents the limits of at most maxInputLength characters of input, maxTokens tokens, maxDepth nested
+    //  rules, maxSteps steps and maxMillis milliseconds, where NO_LIMIT means that quantity is not limited
+    //RI:
+    //  every field is >= 0
+    //rep exposure:
+    //  all fields are private final primitives
+
+    // check RI
+    private void checkRep() {
+        assert maxInputLength >= 0 && maxTokens >= 0 && maxDepth >= 0 && maxSteps >= 0 && maxMillis >= 0;
+    }
+
+    private ParseLimits(long maxInputLength, long maxTokens, long maxDepth, long maxSteps, long maxMillis) {
+        this.maxInputLength = maxInputLength;
+        this.maxTokens = maxTokens;
+        this.maxDepth = maxDepth;
+        this.maxSteps = maxSteps;
+        this.maxMillis = maxMillis;
+        checkRep();
+    }
+
+    // check that a new limit is not negative
+    private static long limit(long max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("a limit cannot be negative: " + max);
+        }
+        return max;
+    }
+
+    /**
+     * @param max most characters of text allowed, or bytes of a file; NO_LIMIT for any
+     * @return these limits with the input length limited to max
+     * @throws IllegalArgumentException if max < 0
+     */
+    public ParseLimits withMaxInputLength(long max) {
+        return new ParseLimits(limit(max), maxTokens, maxDepth, maxSteps, maxMillis);
+    }
+
+    /**
+     * @param max most tokens allowed, as described by Limit.TOKENS; NO_LIMIT for any
+     * @return these limits with the number of tokens limited to max
+     * @throws IllegalArgumentException if max < 0
+     */
+    public ParseLimits withMaxTokens(long max) {
+        return new ParseLimits(maxInputLength, limit(max), maxDepth, maxSteps, maxMillis);
+    }
+
+    /**
+     * @param max most rules allowed to be parsed inside one another; NO_LIMIT for any
+     * @return these limits with the nesting of rules limited to max
+     * @throws IllegalArgumentException if max < 0
+     */
+    public ParseLimits withMaxDepth(long max) {
+        return new ParseLimits(maxInputLength, maxTokens, limit(max), maxSteps, maxMillis);
+    }
+
+    /**
+     * @param max most rules allowed to be tried; NO_LIMIT for any
+     * @return these limits with the number of steps limited to max
+     * @throws IllegalArgumentException if max < 0
+     */
+    public ParseLimits withMaxSteps(long max) {
+        return new ParseLimits(maxInputLength, maxTokens, maxDepth, limit(max), maxMillis);
+    }
+
+    /**
+     * @param max most milliseconds a parse may take; NO_LIMIT for any
+     * @return these limits with the time taken limited to max
+     * @throws IllegalArgumentException if max < 0
+     */
+    public ParseLimits withMaxMillis(long max) {
+        return new ParseLimits(maxInputLength, maxTokens, maxDepth, maxSteps, limit(max));
+    }
+
+    /**
+     * @return most characters of text, or bytes of a file, allowed; NO_LIMIT if not limited
+     */
+    public long getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * @return most tokens allowed; NO_LIMIT if not limited
+     */
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * @return most rules allowed to be parsed inside one another; NO_LIMIT if not limited
+     */
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return most rules allowed to be tried; NO_LIMIT if not limited
+     */
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * @return most milliseconds a parse may take; NO_LIMIT if not limited
+     */
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * 2 ParseLimits are equal if and only if all their limits are the same
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof ParseLimits) {
+            ParseLimits that = (ParseLimits)thatObject;
+            return this.maxInputLength == that.maxInputLength && this.maxTokens == that.maxTokens
+                    && this.maxDepth == that.maxDepth && this.maxSteps == that.maxSteps
+                    && this.maxMillis == that.maxMillis;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode((((maxInputLength * 31 + maxTokens) * 31 + maxDepth) * 31 + maxSteps) * 31 + maxMillis);
+    }
+
+    /**
+     * @return the limits in the form "input <= N, tokens <= N, depth <= N, steps <= N, ms <= N",
+     *         leaving out those that are not limited
+     */
+    @Override
+    public String toString() {
+        StringBuilder limits = new StringBuilder();
+        String[] names = {"input", "tokens", "depth", "steps", "ms"};
+        long[] values = {maxInputLength, maxTokens, maxDepth, maxSteps, maxMillis};
+        for (int i = 0; i < names.length; i++) {
+            if (values[i] != NO_LIMIT) {
+                limits.append(limits.length() > 0 ? ", " : "").append(names[i]).append(" <= ").append(values[i]);
+            }
+        }
+        return limits.length() > 0 ? limits.toString() : "unlimited";
+    }
+}
@@ -0,0 +1,97 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable outcome of parsing an abc file while recovering from errors: the song made from
+ * everything that could be parsed, and a diagnostic for each error skipped over on the way.
+ */
+public class ParseResult {
+
+    private final Song song;
+    private final List<Diagnostic> diagnostics;
+
+    //AF:
+    //  represents the parse of a file into song, which leaves out the parts of the file at each of diagnostics;
+    //  the file is in the language of Abc.g iff diagnostics is empty
+    //RI:
+    //  song != null, diagnostics != null and contains no nulls
+    //  diagnostics is in the order the errors appear in the file
+    //rep exposure:
+    //  all fields are private and final; diagnostics is copied in the constructor and never returned;
+    //  Song and Diagnostic are immutable
+
+    // check RI
+    private void checkRep() {
+        assert song != null && diagnostics != null;
+        for (int i = 0; i < diagnostics.size(); i++) {
+            Diagnostic diagnostic = diagnostics.get(i);
+            assert diagnostic != null;
+            assert i == 0 || diagnostics.get(i - 1).getLine() < diagnostic.getLine()
+                    || (diagnostics.get(i - 1).getLine() == diagnostic.getLine()
+                            && diagnostics.get(i - 1).getColumn() <= diagnostic.getColumn());
+        }
+    }
+
+    /**
+     * Make a parse result.
+     * @param song the song made from the parts of the file that could be parsed
+     * @param diagnostics the errors in the file, in the order they appear
+     */
+    public ParseResult(Song song, List<Diagnostic> diagnostics) {
+        this.song = song;
+        this.diagnostics = new ArrayList<>(diagnostics);
+        checkRep();
+    }
+
+    /**
+     * @return the song made from the parts of the file that could be parsed; the whole file if isValid()
+     */
+    public Song getSong() {
+        return song;
+    }
+
+    /**
+     * @return the errors in the file, in the order they appear
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return new ArrayList<>(diagnostics);
+    }
+
+    /**
+     * @return true iff the file had no errors, so getSong() is what AbcParser.parse would return
+     */
+    public boolean isValid() {
+        return diagnostics.isEmpty();
+    }
+
+    /**
+     * 2 ParseResults are equal if and only if their songs and diagnostics are equal
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof ParseResult) {
+            ParseResult that = (ParseResult)thatObject;
+            return this.song.equals(that.song) && this.diagnostics.equals(that.diagnostics);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return song.hashCode() + diagnostics.hashCode();
+    }
+
+    /**
+     * @return the title of the song followed by one diagnostic per line
+     */
+    @Override
+    public String toString() {
+        String string = song.getHeader().getTitle() + "\n";
+        for (Diagnostic diagnostic : diagnostics) {
+            string += diagnostic + "\n";
+        }
+        return string;
+    }
+}
@@ -0,0 +1,22 @@
+package abc.parser;
+
+/**
+ * 
+ * enum the ways AbcParser can turn the text of an abc file into a Song
+ */
+public enum ParserEngine {
+    /**
+     * parse into a lib6005 ParseTree with GeneratedAbcParser, written from Abc.g by ParserGenerator,
+     * then build the Song from the tree
+     */
+    GRAMMAR,
+    /**
+     * hand-written recursive-descent parser for the same language that builds the Song as it reads
+     */
+    RECURSIVE_DESCENT,
+    /**
+     * the recursive-descent parser, with the body of the tune split into chunks of lines
+     * that are parsed in parallel; worth it only for tunes of many thousands of characters
+     */
+    PARALLEL_RECURSIVE_DESCENT
+}
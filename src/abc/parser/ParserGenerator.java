@@ -0,0 +1,677 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lib6005.parser.GrammarCompiler;
+import lib6005.parser.Parser;
+import lib6005.parser.UnableToParseException;
+import lib6005.parser.grammar.Choice;
+import lib6005.parser.grammar.Concatenation;
+import lib6005.parser.grammar.Constant;
+import lib6005.parser.grammar.GrammarTerm;
+import lib6005.parser.grammar.NonTerminal;
+import lib6005.parser.grammar.OneCharacterRegex;
+import lib6005.parser.grammar.Repetition;
+
+/**
+ * Build-time tool that turns a lib6005 grammar file into the Java source of a parser specialized to it.
+ * The generated parser has one method per rule and per compound term, tests characters inline instead
+ * of going through lib6005's combinator objects, and builds the same ParseTree as lib6005's Parser
+ * for the same grammar, so anything that walks the tree works with either.
+ *
+ * The grammar is read by lib6005's own GrammarCompiler, so the generated code follows exactly the terms
+ * lib6005 would interpret, with the whitespace skips of @skip blocks already spliced in.
+ * Like lib6005, every repetition is greedy, stops at the first repetition that reads nothing,
+ * and every choice tries all its alternatives and takes the one that reads the most (the first on a tie).
+ *
+ * Run from the root of the package after changing Abc.g:
+ *   java -classpath src:lib/parserlib.jar abc.parser.ParserGenerator src/abc/parser/Abc.g abc.parser.MusicGrammar ABC_TUNE src/abc/parser/GeneratedAbcParser.java
+ */
+public class ParserGenerator {
+
+    // names the generated class uses for its own members, which no rule may take
+    private static final Set<String> RESERVED = new HashSet<>(Arrays.asList(
+            "parse", "node", "fail", "truncate", "take", "position", "input", "length", "kids", "furthest",
+            "recall", "remember", "memoSlot", "memoKeys", "memoEnds", "memoTrees", "budget"));
+
+    private final Map<?, ? extends GrammarTerm<?>> grammar;
+    private final String symbols;
+    private final Set<String> methodNames = new HashSet<>();
+    private final Map<String, String> termMethods = new HashMap<>();
+    private final List<String> characterTests = new ArrayList<>();
+    private final StringBuilder methods = new StringBuilder();
+    private String rule;
+    private int termCount;
+
+    //AF:
+    //  represents the generation in progress of a parser for grammar, whose nonterminals are the values of
+    //  the enum named symbols; methods holds the methods generated so far, and characterTests the bodies
+    //  of the character predicates they call, the i-th being named "character" + i;
+    //  termMethods maps each compound term generated so far, written as lib6005 writes it, to its method;
+    //  while a rule is being generated, rule is the name of its method and termCount the number of
+    //  methods made for its compound terms so far
+    //RI:
+    //  grammar and symbols are not null; every name in methodNames is a method in methods
+    //rep exposure:
+    //  all fields are private and never returned
+
+    // check RI
+    private void checkRep() {
+        assert grammar != null && symbols != null;
+    }
+
+    private ParserGenerator(Map<?, ? extends GrammarTerm<?>> grammar, String symbols) {
+        this.grammar = grammar;
+        this.symbols = symbols;
+        checkRep();
+    }
+
+    /**
+     * Generate the source of a parser for a grammar.
+     * @param grammarText text of a lib6005 grammar file
+     * @param root the rule to parse input with; every value of its enum must name a rule of the grammar,
+     *        and the enum must be in this package, since the generated class keeps to a ParseBudget
+     * @param className simple name of the class to generate, in the package of root's enum
+     * @return Java source of a package-private final class className with methods
+     *         static ParseTree parse(String input), parse(String input, int memoSlots) and
+     *         parse(String input, int memoSlots, ParseBudget budget), all throwing UnableToParseException,
+     *         which return the same tree as lib6005's Parser for the grammar, made of IndexedParseTree nodes
+     *         wherever a node has children, and throw when it would;
+     *         the last two memoize rules in a table of at most memoSlots slots, and the last stops with
+     *         a ParseLimitException when the parse goes past a limit of budget
+     * @throws UnableToParseException if grammarText is not a valid grammar for root's enum
+     * @throws IllegalArgumentException if root's enum is in another package or has more than Long.SIZE values
+     *         for IndexedParseTree to index, the grammar uses a character class
+     *         this generator cannot translate, or a rule's method name would clash with another method of the
+     *         generated class
+     */
+    public static <Sym extends Enum<Sym>> String generate(String grammarText, Sym root, String className)
+            throws UnableToParseException {
+        if (root.getDeclaringClass().getPackage() != ParserGenerator.class.getPackage()) {
+            throw new IllegalArgumentException(root.getDeclaringClass().getName() + " is not in the package of ParseBudget");
+        }
+        if (root.getDeclaringClass().getEnumConstants().length > Long.SIZE) {
+            throw new IllegalArgumentException(root.getDeclaringClass().getName() + " has too many rules for IndexedParseTree");
+        }
+        Parser<Sym> parser = GrammarCompiler.compile(grammarText, root);
+        ParserGenerator generator = new ParserGenerator(terms(parser), root.getDeclaringClass().getSimpleName());
+        return generator.generateClass(root, className);
+    }
+
+    // the rules of a compiled grammar; lib6005 keeps them in a private field of Parser with no accessor
+    @SuppressWarnings("unchecked")
+    private static <Sym extends Enum<Sym>> Map<Sym, GrammarTerm<Sym>> terms(Parser<Sym> parser) {
+        try {
+            Field field = Parser.class.getDeclaredField("grammar");
+            field.setAccessible(true);
+            return (Map<Sym, GrammarTerm<Sym>>) field.get(parser);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("this version of lib6005 does not keep its grammar in Parser.grammar", e);
+        }
+    }
+
+    // generate the whole class
+    private String generateClass(Enum<?> root, String className) {
+        for (Enum<?> symbol : root.getDeclaringClass().getEnumConstants()) {
+            String name = ruleMethod(symbol);
+            if (RESERVED.contains(name) || !methodNames.add(name)) {
+                throw new IllegalArgumentException("rule " + symbol + " would need the method name " + name + ", which is taken");
+            }
+        }
+        for (Enum<?> symbol : root.getDeclaringClass().getEnumConstants()) {
+            generateRule(symbol);
+        }
+        String packageName = root.getDeclaringClass().getPackage().getName();
+        String tree = "ParseTree<" + symbols + ">";
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import java.util.Arrays;\n");
+        out.append("import java.util.List;\n\n");
+        out.append("import lib6005.parser.ParseTree;\n");
+        out.append("import lib6005.parser.UnableToParseException;\n\n");
+        out.append("/**\n");
+        out.append(" * Parser for the grammar of ").append(symbols).append(", generated by ParserGenerator. Do not edit;\n");
+        out.append(" * change the grammar and run ParserGenerator again instead.\n");
+        out.append(" * Builds the same ParseTree as lib6005's Parser for the grammar.\n");
+        out.append(" */\n");
+        out.append("final class ").append(className).append(" {\n\n");
+        out.append("    private static final int FAIL = -1;\n");
+        out.append("    private static final int MISS = -2;\n");
+        out.append("    private static final int RULES = ").append(root.getDeclaringClass().getEnumConstants().length).append(";\n\n");
+        out.append("    private final String input;\n");
+        out.append("    private final int length;\n");
+        out.append("    private final List<").append(tree).append("> kids = new ArrayList<>();\n");
+        out.append("    private int furthest = 0;\n");
+        out.append("    private final long[] memoKeys;\n");
+        out.append("    private final int[] memoEnds;\n");
+        out.append("    private final ").append(tree).append("[] memoTrees;\n");
+        out.append("    private final ParseBudget budget;\n\n");
+        out.append("    //AF:\n");
+        out.append("    //  represents a parse in progress of input; kids holds, in order, the trees of the rules matched so far\n");
+        out.append("    //  that are not yet inside the tree of an enclosing rule, and furthest is the furthest position\n");
+        out.append("    //  at which a terminal failed to match; if memoKeys is not null, each slot i with memoKeys[i] >= 0\n");
+        out.append("    //  remembers that the rule with ordinal memoKeys[i] % RULES, at position memoKeys[i] / RULES,\n");
+        out.append("    //  returned memoEnds[i] after adding the tree memoTrees[i] to kids; budget counts the rules tried\n");
+        out.append("    //  and the leaves of the tree made\n");
+        out.append("    //RI:\n");
+        out.append("    //  length == input.length(), 0 <= furthest <= length\n");
+        out.append("    //  every method for a term returns FAIL with kids as it found them, or the position after its match\n");
+        out.append("    //  with the trees of the rules it matched added to kids\n");
+        out.append("    //  memoKeys, memoEnds and memoTrees are all null, or all the same power of two length;\n");
+        out.append("    //  memoTrees[i] is null iff memoEnds[i] == FAIL\n");
+        out.append("    //rep exposure:\n");
+        out.append("    //  all fields are private; only the finished tree is returned, and no reference to it is kept\n\n");
+        out.append("    private ").append(className).append("(String input, int memoSlots, ParseBudget budget) {\n");
+        out.append("        this.input = input;\n");
+        out.append("        this.budget = budget;\n");
+        out.append("        this.length = input.length();\n");
+        out.append("        if (memoSlots > 0) {\n");
+        out.append("            // enough slots for a few rules at every position, but no more than asked for\n");
+        out.append("            int slots = Integer.highestOneBit((int) Math.min(memoSlots, Math.max(length, 1) * 8L));\n");
+        out.append("            memoKeys = new long[slots];\n");
+        out.append("            Arrays.fill(memoKeys, -1);\n");
+        out.append("            memoEnds = new int[slots];\n");
+        out.append("            @SuppressWarnings(\"unchecked\")\n");
+        out.append("            ").append(tree).append("[] trees = (").append(tree).append("[]) new ParseTree<?>[slots];\n");
+        out.append("            memoTrees = trees;\n");
+        out.append("        } else {\n");
+        out.append("            memoKeys = null;\n");
+        out.append("            memoEnds = null;\n");
+        out.append("            memoTrees = null;\n");
+        out.append("        }\n");
+        out.append("    }\n\n");
+        out.append("    /**\n");
+        out.append("     * Parse input with the rule ").append(root.name().toLowerCase()).append(", without memoizing.\n");
+        out.append("     * @param input text to parse\n");
+        out.append("     * @return the parse tree of input, the same as lib6005's Parser makes\n");
+        out.append("     * @throws UnableToParseException if input does not match the grammar\n");
+        out.append("     */\n");
+        out.append("    static ").append(tree).append(" parse(String input) throws UnableToParseException {\n");
+        out.append("        return parse(input, 0);\n");
+        out.append("    }\n\n");
+        out.append("    /**\n");
+        out.append("     * Parse input with the rule ").append(root.name().toLowerCase()).append(".\n");
+        out.append("     * With memoSlots > 0 the parse is a packrat parse: the result of each rule at each position is\n");
+        out.append("     * remembered in a table of at most memoSlots slots, and a rule tried again at the same position\n");
+        out.append("     * reuses it instead of reading the input again. The table is direct mapped, so a result is forgotten\n");
+        out.append("     * when another lands in its slot; while the table has room for every result the parse takes time\n");
+        out.append("     * linear in the length of input.\n");
+        out.append("     * @param input text to parse\n");
+        out.append("     * @param memoSlots most results to remember, or 0 not to memoize\n");
+        out.append("     * @return the parse tree of input, the same as lib6005's Parser makes\n");
+        out.append("     * @throws UnableToParseException if input does not match the grammar\n");
+        out.append("     */\n");
+        out.append("    static ").append(tree).append(" parse(String input, int memoSlots) throws UnableToParseException {\n");
+        out.append("        return parse(input, memoSlots, new ParseBudget(ParseLimits.UNLIMITED));\n");
+        out.append("    }\n\n");
+        out.append("    /**\n");
+        out.append("     * Parse input as parse(input, memoSlots) does, within the limits of budget: each rule tried\n");
+        out.append("     * is a step, and each leaf of the tree a token.\n");
+        out.append("     * @param input text to parse\n");
+        out.append("     * @param memoSlots most results to remember, or 0 not to memoize\n");
+        out.append("     * @param budget account of the parse, not used by any other\n");
+        out.append("     * @return the parse tree of input, the same as lib6005's Parser makes\n");
+        out.append("     * @throws ParseLimitException if the parse goes past a limit of budget\n");
+        out.append("     * @throws UnableToParseException if input does not match the grammar\n");
+        out.append("     */\n");
+        out.append("    static ").append(tree).append(" parse(String input, int memoSlots, ParseBudget budget) throws UnableToParseException {\n");
+        out.append("        budget.input(input.length());\n");
+        out.append("        ").append(className).append(" parser = new ").append(className).append("(input, memoSlots, budget);\n");
+        out.append("        int end = parser.").append(ruleMethod(root)).append("(0);\n");
+        out.append("        if (end == FAIL) {\n");
+        out.append("            throw new UnableToParseException(\"String does not match grammar\\nError in \" + parser.position(parser.furthest));\n");
+        out.append("        }\n");
+        out.append("        if (end < input.length()) {\n");
+        out.append("            throw new UnableToParseException(\"Only parsed up to \" + parser.position(end) + \" the rest of the input did not parse\"\n");
+        out.append("                    + (parser.furthest > end ? \"\\nError in \" + parser.position(parser.furthest) : \"\"));\n");
+        out.append("        }\n");
+        out.append("        return parser.kids.get(0);\n");
+        out.append("    }\n\n");
+        out.append("    // \"line L col C\" for index pos of input, both counting from 1\n");
+        out.append("    private String position(int pos) {\n");
+        out.append("        int line = 1;\n");
+        out.append("        int lineStart = 0;\n");
+        out.append("        for (int i = 0; i < pos; i++) {\n");
+        out.append("            if (input.charAt(i) == '\\n') {\n");
+        out.append("                line++;\n");
+        out.append("                lineStart = i + 1;\n");
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        return \"line \" + line + \" col \" + (pos - lineStart + 1);\n");
+        out.append("    }\n\n");
+        out.append("    // note that a terminal failed to match at pos\n");
+        out.append("    private int fail(int pos) {\n");
+        out.append("        if (pos > furthest) {\n");
+        out.append("            furthest = pos;\n");
+        out.append("        }\n");
+        out.append("        return FAIL;\n");
+        out.append("    }\n\n");
+        out.append("    // drop the trees added to kids since it had size mark\n");
+        out.append("    private void truncate(int mark) {\n");
+        out.append("        for (int i = kids.size() - 1; i >= mark; i--) {\n");
+        out.append("            kids.remove(i);\n");
+        out.append("        }\n");
+        out.append("    }\n\n");
+        out.append("    // remove and return the trees added to kids since it had size mark\n");
+        out.append("    private List<").append(tree).append("> take(int mark) {\n");
+        out.append("        List<").append(tree).append("> taken = new ArrayList<>(kids.subList(mark, kids.size()));\n");
+        out.append("        truncate(mark);\n");
+        out.append("        return taken;\n");
+        out.append("    }\n\n");
+        out.append("    // replace the trees added to kids since it had size mark by one tree for rule name matching input[start:end]\n");
+        out.append("    private int node(").append(symbols).append(" name, int start, int end, int mark) throws ParseLimitException {\n");
+        out.append("        String contents = input.substring(start, end);\n");
+        out.append("        ").append(tree).append(" tree;\n");
+        out.append("        if (kids.size() == mark) {\n");
+        out.append("            budget.token();\n");
+        out.append("            tree = new ParseTree<>(contents);\n");
+        out.append("            tree.setName(name);\n");
+        out.append("        } else {\n");
+        out.append("            tree = IndexedParseTree.create(name, contents, take(mark));\n");
+        out.append("        }\n");
+        out.append("        kids.add(tree);\n");
+        out.append("        return end;\n");
+        out.append("    }\n\n");
+        out.append("    // slot of the memo table for key, the rule ordinal plus RULES times the position\n");
+        out.append("    private int memoSlot(long key) {\n");
+        out.append("        long hash = key * 0x9E3779B97F4A7C15L;\n");
+        out.append("        return (int) (hash >>> 32) & (memoKeys.length - 1);\n");
+        out.append("    }\n\n");
+        out.append("    // what the rule with ordinal rule returned at pos, replaying its tree onto kids, or MISS if not remembered\n");
+        out.append("    private int recall(int rule, int pos) {\n");
+        out.append("        if (memoKeys == null) {\n");
+        out.append("            return MISS;\n");
+        out.append("        }\n");
+        out.append("        long key = (long) pos * RULES + rule;\n");
+        out.append("        int slot = memoSlot(key);\n");
+        out.append("        if (memoKeys[slot] != key) {\n");
+        out.append("            return MISS;\n");
+        out.append("        }\n");
+        out.append("        if (memoEnds[slot] != FAIL) {\n");
+        out.append("            kids.add(memoTrees[slot]);\n");
+        out.append("        }\n");
+        out.append("        return memoEnds[slot];\n");
+        out.append("    }\n\n");
+        out.append("    // remember that the rule with ordinal rule returned end at pos, with its tree last in kids; returns end\n");
+        out.append("    private int remember(int rule, int pos, int end) {\n");
+        out.append("        if (memoKeys != null) {\n");
+        out.append("            long key = (long) pos * RULES + rule;\n");
+        out.append("            int slot = memoSlot(key);\n");
+        out.append("            memoKeys[slot] = key;\n");
+        out.append("            memoEnds[slot] = end;\n");
+        out.append("            memoTrees[slot] = end == FAIL ? null : kids.get(kids.size() - 1);\n");
+        out.append("        }\n");
+        out.append("        return end;\n");
+        out.append("    }\n");
+        for (int i = 0; i < characterTests.size(); i++) {
+            out.append("\n    private static boolean character").append(i).append("(char c) {\n");
+            out.append("        return ").append(characterTests.get(i)).append(";\n");
+            out.append("    }\n");
+        }
+        out.append(methods);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    // generate the method for a rule, and those for the compound terms in it
+    private void generateRule(Enum<?> symbol) {
+        GrammarTerm<?> body = grammar.get(symbol);
+        rule = ruleMethod(symbol);
+        termCount = 0;
+        int at = methods.length();
+        String match = expression(body);
+        StringBuilder code = new StringBuilder();
+        code.append("\n    // ").append(comment(symbol.name().toLowerCase() + " ::= " + body)).append("\n");
+        code.append("    private int ").append(rule).append("(int pos) throws ParseLimitException {\n");
+        code.append("        int recalled = recall(").append(symbol.ordinal()).append(", pos);\n");
+        code.append("        if (recalled != MISS) {\n");
+        code.append("            return recalled;\n");
+        code.append("        }\n");
+        code.append("        budget.enter();\n");
+        code.append("        int mark = kids.size();\n");
+        code.append("        int end = ").append(match).append(";\n");
+        code.append("        budget.exit();\n");
+        code.append("        return remember(").append(symbol.ordinal()).append(", pos, end == FAIL ? FAIL : node(")
+            .append(symbols).append(".").append(symbol.name()).append(", pos, end, mark));\n");
+        code.append("    }\n");
+        methods.insert(at, code);
+    }
+
+    // a Java expression that matches term at pos, evaluating to FAIL or the position after the match
+    private String expression(GrammarTerm<?> term) {
+        if (term instanceof NonTerminal) {
+            return ruleMethod(((NonTerminal<?>) term).getName()) + "(pos)";
+        } else if (term instanceof Constant) {
+            String literal = ((Constant<?>) term).getContents();
+            if (literal.length() == 1) {
+                return "(pos < length && input.charAt(pos) == " + charLiteral(literal.charAt(0))
+                        + " ? pos + 1 : fail(pos))";
+            }
+            return "(input.startsWith(" + stringLiteral(literal) + ", pos) ? pos + " + literal.length() + " : fail(pos))";
+        } else if (term instanceof OneCharacterRegex) {
+            String test = characterTest(term.toString());
+            int index = characterTests.indexOf(test);
+            if (index < 0) {
+                index = characterTests.size();
+                characterTests.add(test);
+            }
+            return "(pos < length && character" + index + "(input.charAt(pos)) ? pos + 1 : fail(pos))";
+        }
+        // terms that read the same match the same way, so they share a method
+        if (termMethods.containsKey(term.toString())) {
+            return termMethods.get(term.toString()) + "(pos)";
+        }
+        String method = rule + (++termCount);
+        termMethods.put(term.toString(), method);
+        if (!methodNames.add(method)) {
+            throw new IllegalArgumentException("the method name " + method + " is taken by a rule");
+        }
+        // the methods for the terms inside this one go after it
+        int at = methods.length();
+        StringBuilder code = new StringBuilder();
+        code.append("\n    // ").append(comment(term.toString())).append("\n");
+        code.append("    private int ").append(method).append("(int pos) throws ParseLimitException {\n");
+        if (term instanceof Concatenation) {
+            concatenation(flatten(term, Concatenation.class), code);
+        } else if (term instanceof Choice) {
+            choice(flatten(term, Choice.class), code);
+        } else if (term instanceof Repetition) {
+            repetition((Repetition<?>) term, code);
+        } else {
+            throw new IllegalArgumentException("unknown kind of grammar term: " + term);
+        }
+        code.append("    }\n");
+        methods.insert(at, code);
+        return method + "(pos)";
+    }
+
+    // parts one after another; on failure, drop the trees of the parts that matched
+    private void concatenation(List<? extends GrammarTerm<?>> parts, StringBuilder code) {
+        boolean hasKids = parts.stream().anyMatch(ParserGenerator::producesTrees);
+        if (hasKids) {
+            code.append("        int mark = kids.size();\n");
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            code.append("        pos = ").append(expression(parts.get(i))).append(";\n");
+            code.append("        if (pos == FAIL) {\n");
+            if (hasKids && i > 0) {
+                code.append("            truncate(mark);\n");
+            }
+            code.append("            return FAIL;\n");
+            code.append("        }\n");
+        }
+        code.append("        return pos;\n");
+    }
+
+    // every alternative from pos; keep the longest match, the first of them on a tie
+    private void choice(List<? extends GrammarTerm<?>> alternatives, StringBuilder code) {
+        boolean hasKids = alternatives.stream().anyMatch(ParserGenerator::producesTrees);
+        code.append("        int best = FAIL;\n");
+        code.append("        int end;\n");
+        if (hasKids) {
+            code.append("        int mark = kids.size();\n");
+            code.append("        List<ParseTree<").append(symbols).append(">> bestKids = null;\n");
+        }
+        for (int i = 0; i < alternatives.size(); i++) {
+            GrammarTerm<?> alternative = alternatives.get(i);
+            boolean last = i == alternatives.size() - 1;
+            code.append("        end = ").append(expression(alternative)).append(";\n");
+            if (!hasKids) {
+                code.append("        if (end > best) {\n");
+                code.append("            best = end;\n");
+                code.append("        }\n");
+            } else if (!last) {
+                code.append("        if (end > best) {\n");
+                code.append("            best = end;\n");
+                code.append("            bestKids = take(mark);\n");
+                code.append("        } else {\n");
+                code.append("            truncate(mark);\n");
+                code.append("        }\n");
+            } else {
+                // the last alternative's trees are already in place if it is the longest
+                code.append("        if (end > best) {\n");
+                code.append("            return end;\n");
+                code.append("        }\n");
+                code.append("        truncate(mark);\n");
+                code.append("        if (bestKids != null) {\n");
+                code.append("            kids.addAll(bestKids);\n");
+                code.append("        }\n");
+            }
+        }
+        code.append("        return best;\n");
+    }
+
+    // body as many times as lib6005's Repetition would match it
+    private void repetition(Repetition<?> term, StringBuilder code) {
+        String howMany = term.toString().substring(term.toString().length() - 1);
+        String body = expression(term.getBody());
+        code.append("        int end = ").append(body).append(";\n");
+        code.append("        if (end == FAIL) {\n");
+        code.append("            return ").append(howMany.equals("+") ? "FAIL" : "pos").append(";\n");
+        code.append("        }\n");
+        if (howMany.equals("?")) {
+            code.append("        return end;\n");
+            return;
+        }
+        // a first match of nothing is kept, trees and all; a later one ends the repetition and is dropped
+        code.append("        while (end != pos) {\n");
+        if (producesTrees(term.getBody())) {
+            code.append("            int mark = kids.size();\n");
+        }
+        code.append("            pos = end;\n");
+        code.append("            end = ").append(body).append(";\n");
+        code.append("            if (end == FAIL) {\n");
+        code.append("                return pos;\n");
+        code.append("            }\n");
+        if (producesTrees(term.getBody())) {
+            code.append("            if (end == pos) {\n");
+            code.append("                truncate(mark);\n");
+            code.append("            }\n");
+        }
+        code.append("        }\n");
+        code.append("        return pos;\n");
+    }
+
+    /**
+     * Flatten nested concatenations, or nested choices. GrammarCompiler builds both out of pairs,
+     * but matching (a b) c is the same as matching a b c, trees and all, and so is choosing between
+     * (a | b) and c the same as choosing between a, b and c, since the first of the longest wins either way.
+     * @param term a Concatenation or Choice
+     * @param kind term's class
+     * @return the terms that term is made of, with those of kind kind replaced by what they are made of
+     */
+    private static List<GrammarTerm<?>> flatten(GrammarTerm<?> term, Class<?> kind) {
+        List<GrammarTerm<?>> flat = new ArrayList<>();
+        if (!kind.isInstance(term)) {
+            flat.add(term);
+            return flat;
+        }
+        List<? extends GrammarTerm<?>> parts = term instanceof Choice
+                ? ((Choice<?>) term).getChoices() : ((Concatenation<?>) term).getParts();
+        for (GrammarTerm<?> part : parts) {
+            flat.addAll(flatten(part, kind));
+        }
+        return flat;
+    }
+
+    // true iff matching term can add trees to kids, i.e. it contains a nonterminal
+    private static boolean producesTrees(GrammarTerm<?> term) {
+        if (term instanceof NonTerminal) {
+            return true;
+        } else if (term instanceof Concatenation) {
+            return ((Concatenation<?>) term).getParts().stream().anyMatch(ParserGenerator::producesTrees);
+        } else if (term instanceof Choice) {
+            return ((Choice<?>) term).getChoices().stream().anyMatch(ParserGenerator::producesTrees);
+        } else if (term instanceof Repetition) {
+            return producesTrees(((Repetition<?>) term).getBody());
+        }
+        return false;
+    }
+
+    /**
+     * Translate a one-character regex, as lib6005 grammars write them, into a test on a char.
+     * @param regex ".", "\d", "\s", "\w", or a character set "[...]" or "[^...]" of characters, ranges
+     *        and escapes \t \r \n or \ followed by punctuation
+     * @return Java boolean expression on the char variable c that is true iff c matches regex
+     * @throws IllegalArgumentException if regex is not of one of those forms
+     */
+    static String characterTest(String regex) {
+        switch (regex) {
+        case ".":
+            return "c != '\\n' && c != '\\r' && c != '\\u0085' && c != '\\u2028' && c != '\\u2029'";
+        case "\\d":
+            return "(c >= '0' && c <= '9')";
+        case "\\s":
+            return "(c == ' ' || c == '\\t' || c == '\\n' || c == '\\u000b' || c == '\\f' || c == '\\r')";
+        case "\\w":
+            return "((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')";
+        default:
+            break;
+        }
+        if (regex.length() < 3 || regex.charAt(0) != '[' || regex.charAt(regex.length() - 1) != ']') {
+            throw new IllegalArgumentException("cannot translate the character class " + regex);
+        }
+        boolean negated = regex.charAt(1) == '^';
+        List<Character> chars = new ArrayList<>();
+        List<Boolean> escapes = new ArrayList<>();
+        for (int i = negated ? 2 : 1; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            escapes.add(c == '\\');
+            if (c == '\\') {
+                i++;
+                char escaped = regex.charAt(i);
+                if (escaped == 'n') {
+                    c = '\n';
+                } else if (escaped == 'r') {
+                    c = '\r';
+                } else if (escaped == 't') {
+                    c = '\t';
+                } else if (!Character.isLetterOrDigit(escaped)) {
+                    c = escaped;
+                } else {
+                    throw new IllegalArgumentException("cannot translate the escape \\" + escaped + " in " + regex);
+                }
+            } else if (c == '[' || c == '&') {
+                throw new IllegalArgumentException("cannot translate the character class " + regex);
+            }
+            chars.add(c);
+        }
+        List<String> tests = new ArrayList<>();
+        for (int i = 0; i < chars.size(); i++) {
+            // a '-' between two characters makes a range; first or last, it is itself
+            if (i + 2 < chars.size() && chars.get(i + 1) == '-' && !escapes.get(i + 1)) {
+                tests.add("(c >= " + charLiteral(chars.get(i)) + " && c <= " + charLiteral(chars.get(i + 2)) + ")");
+                i += 2;
+            } else {
+                tests.add("c == " + charLiteral(chars.get(i)));
+            }
+        }
+        if (tests.isEmpty()) {
+            throw new IllegalArgumentException("empty character class " + regex);
+        }
+        String test = "(" + String.join(" || ", tests) + ")";
+        return negated ? "!" + test : test;
+    }
+
+    // text, such as a term of the grammar, made safe to put in a // comment
+    private static String comment(String text) {
+        StringBuilder safe = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            safe.append(escape(c));
+        }
+        return safe.toString();
+    }
+
+    // method name for the rule of symbol, e.g. abcTune for ABC_TUNE
+    private static String ruleMethod(Enum<?> symbol) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = false;
+        for (char c : symbol.name().toLowerCase().toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+
+    // Java literal for c
+    private static String charLiteral(char c) {
+        return c == '\'' ? "'\\''" : "'" + escape(c) + "'";
+    }
+
+    // Java literal for s
+    private static String stringLiteral(String s) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            literal.append(c == '"' ? "\\\"" : escape(c));
+        }
+        return literal.append('"').toString();
+    }
+
+    // c as it may appear inside a Java char or string literal, except for the quotes
+    private static String escape(char c) {
+        switch (c) {
+        case '\n': return "\\n";
+        case '\r': return "\\r";
+        case '\t': return "\\t";
+        case '\f': return "\\f";
+        case '\\': return "\\\\";
+        default:
+            return c >= ' ' && c < 0x7f ? String.valueOf(c) : String.format("\\u%04x", (int) c);
+        }
+    }
+
+    /**
+     * Generate a parser from a grammar file and write its source.
+     * @param args grammar file, fully qualified name of the enum of its symbols, root symbol, and the .java
+     *        file to write, whose name without .java is the name of the class
+     * @throws IOException if the grammar cannot be read or the source cannot be written
+     * @throws UnableToParseException if the file is not a valid grammar for the enum
+     * @throws ReflectiveOperationException if the enum cannot be loaded
+     * @throws IllegalArgumentException if the class named is not an enum, or has no constant named root-symbol
+     */
+    public static void main(String[] args) throws IOException, UnableToParseException, ReflectiveOperationException {
+        if (args.length != 4) {
+            System.out.println("usage: ParserGenerator grammar-file symbols-enum root-symbol output-file");
+            return;
+        }
+        String grammarText = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        Path output = Paths.get(args[3]);
+        String className = output.getFileName().toString().replaceFirst("\\.java$", "");
+        String source = generate(grammarText, args[1], args[2], className);
+        Files.write(output, source.getBytes(StandardCharsets.UTF_8));
+        System.out.println("wrote " + output);
+    }
+
+    // the source of a parser for grammarText, whose root is the constant named root of the enum named symbols
+    private static <Sym extends Enum<Sym>> String generate(String grammarText, String symbols, String root,
+            String className) throws UnableToParseException, ClassNotFoundException {
+        Class<Sym> symbolClass = enumClass(Class.forName(symbols));
+        return generate(grammarText, Enum.valueOf(symbolClass, root), className);
+    }
+
+    // c as the class of an enum; the enum is only known by name, so this is the one place its type is taken on trust
+    @SuppressWarnings("unchecked")
+    private static <Sym extends Enum<Sym>> Class<Sym> enumClass(Class<?> c) {
+        if (!c.isEnum()) {
+            throw new IllegalArgumentException(c.getName() + " is not an enum");
+        }
+        return (Class<Sym>) c;
+    }
+}
@@ -0,0 +1,62 @@
+package abc.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for one run of a phase timed by PlaybackMetrics.
+ * Only loaded on a JVM that has Flight Recorder; PlaybackMetrics refers to it as an Object otherwise.
+ * Kept by every running recording unless its settings turn "abc.PlaybackPhase" off;
+ * with no recording running, begin and commit cost next to nothing.
+ */
+@Name("abc.PlaybackPhase")
+@Label("Playback Phase")
+@Category({"abc", "Playback"})
+@Description("A phase of parsing or playing an abc song")
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+
+    /**
+     * Start an event for a run of phase, timed from now.
+     * @param phase the phase
+     * @return the event, as an Object so callers need not load this class
+     */
+    static Object begin(PlaybackMetrics.Phase phase) {
+        PhaseEvent event = new PhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.name();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * End an event started by begin, and commit it if a recording wants it.
+     * @param event an event returned by begin
+     * @param cpuTime CPU nanoseconds the phase took
+     * @param allocated bytes the phase allocated
+     */
+    static void commit(Object event, long cpuTime, long allocated) {
+        PhaseEvent phaseEvent = (PhaseEvent) event;
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.cpuTime = cpuTime;
+            phaseEvent.allocated = allocated;
+            phaseEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package abc.parser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Mutable record of where the time and memory of loading and playing a song went, phase by phase:
+ * for each phase, how often it ran, its wall-clock time, and the CPU time and bytes allocated by the thread
+ * that ran it, as the JVM's ThreadMXBean reports them; and counts of what the phases made.
+ * Pass one to AbcParser.parse and Song.play, then read it back with the get methods or toString.
+ *
+ * Work a phase hands to other threads, e.g. voices built on a voice executor, shows in its wall time only.
+ * CPU time and allocation are 0 on a JVM that cannot measure them for a thread.
+ * When the JVM has Java Flight Recorder, every phase that runs is also committed as an "abc.PlaybackPhase"
+ * event, which any running recording keeps unless its settings turn it off,
+ * so the same phases show up in recordings of production runs.
+ * Safe to share between threads.
+ */
+public class PlaybackMetrics {
+
+    /**
+     * The phases of loading and playing a song
+     */
+    public enum Phase {
+        /** turning text into a parse tree with the grammar engine, or straight into a Song with the others */
+        PARSE,
+        /** turning the grammar engine's parse tree into a Song */
+        BUILD,
+        /** unrolling the repeats and endings of every voice */
+        EXPAND,
+        /** compiling the notes into a Timeline, once per song, and turning it into MIDI events on a new SequencePlayer */
+        SCHEDULE,
+        /** opening the SequencePlayer's MIDI sequencer and starting it playing */
+        START_SEQUENCER
+    }
+
+    /**
+     * The things the phases make
+     */
+    public enum Count {
+        /** nodes of the grammar engine's parse tree */
+        TREE_NODES,
+        /** tokens read by the parser, as ParseLimits.Limit.TOKENS counts them */
+        TOKENS,
+        /** measures played, once repeats are unrolled */
+        MEASURES,
+        /** MIDI events scheduled, including the end of the track */
+        MIDI_EVENTS
+    }
+
+    /**
+     * Metrics that record nothing, for callers that do not want any
+     */
+    public static final PlaybackMetrics NONE = new PlaybackMetrics(false);
+
+    // the span NONE.start returns, which is never timed or recorded
+    private static final Span NOTHING = NONE.new Span();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATION = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+    private static final boolean FLIGHT_RECORDER = flightRecorderPresent();
+
+    private final boolean enabled;
+    private final Map<Phase, long[]> phases = new EnumMap<>(Phase.class);
+    private final Map<Count, Long> counts = new EnumMap<>(Count.class);
+
+    // indices into the values of phases
+    private static final int CALLS = 0;
+    private static final int WALL = 1;
+    private static final int CPU = 2;
+    private static final int ALLOCATED = 3;
+
+    //AF:
+    //  represents, if enabled, the phases run so far, where phases.get(p) holds how many times phase p ran,
+    //  and its total wall-clock nanoseconds, CPU nanoseconds and bytes allocated, at CALLS, WALL, CPU
+    //  and ALLOCATED; and the total count of each thing c made so far, counts.get(c);
+    //  a phase or count that is not a key is 0; if not enabled, represents nothing at all
+    //RI:
+    //  every value of phases has 4 elements, all >= 0, and every value of counts is >= 0
+    //  if !enabled, phases and counts are empty
+    //rep exposure:
+    //  all fields are private and final, and guarded by this; nothing mutable is returned
+
+    // check RI
+    private synchronized void checkRep() {
+        for (long[] values : phases.values()) {
+            assert values.length == 4;
+            for (long value : values) {
+                assert value >= 0;
+            }
+        }
+        for (long count : counts.values()) {
+            assert count >= 0;
+        }
+        assert enabled || (phases.isEmpty() && counts.isEmpty());
+    }
+
+    /**
+     * Make metrics with nothing recorded yet.
+     */
+    public PlaybackMetrics() {
+        this(true);
+    }
+
+    private PlaybackMetrics(boolean enabled) {
+        this.enabled = enabled;
+        checkRep();
+    }
+
+    // true iff this JVM has Java Flight Recorder's event API
+    private static boolean flightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * A phase being timed, from start until close, on one thread.
+     */
+    public final class Span implements AutoCloseable {
+        private final Phase phase;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+        private final Object event;
+        private boolean closed = false;
+
+        // a span of no phase, that records nothing when closed
+        private Span() {
+            this.phase = null;
+            this.event = null;
+            this.allocatedStart = 0;
+            this.cpuStart = 0;
+            this.wallStart = 0;
+        }
+
+        private Span(Phase phase) {
+            this.phase = phase;
+            this.event = FLIGHT_RECORDER ? PhaseEvent.begin(phase) : null;
+            this.allocatedStart = allocatedBytes();
+            this.cpuStart = CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+            this.wallStart = System.nanoTime();
+        }
+
+        /**
+         * End the phase and add it to the metrics; later calls have no effect, as do all calls on a span of NONE.
+         * Must be called on the thread that started it.
+         */
+        @Override
+        public void close() {
+            if (phase == null || closed) {
+                return;
+            }
+            closed = true;
+            long wall = System.nanoTime() - wallStart;
+            long cpu = CPU_TIME ? THREADS.getCurrentThreadCpuTime() - cpuStart : 0;
+            long allocated = allocatedBytes() - allocatedStart;
+            record(phase, wall, Math.max(0, cpu), Math.max(0, allocated));
+            if (event != null) {
+                PhaseEvent.commit(event, cpu, allocated);
+            }
+        }
+    }
+
+    // bytes allocated so far by the current thread, or 0 if the JVM cannot tell
+    private static long allocatedBytes() {
+        return ALLOCATION ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    // add one run of phase to the metrics
+    private synchronized void record(Phase phase, long wall, long cpu, long allocated) {
+        long[] values = phases.computeIfAbsent(phase, p -> new long[4]);
+        values[CALLS]++;
+        values[WALL] += wall;
+        values[CPU] += cpu;
+        values[ALLOCATED] += allocated;
+        checkRep();
+    }
+
+    /**
+     * Start timing a phase on the current thread, to be used as
+     * Span span = metrics.start(Phase.PARSE); try { ... } finally { span.close(); }
+     * @param phase the phase
+     * @return the phase being timed, added to these metrics when closed; if these are NONE, a span
+     *         that times nothing and records nothing
+     */
+    public Span start(Phase phase) {
+        return enabled ? new Span(phase) : NOTHING;
+    }
+
+    /**
+     * Add to the count of something made.
+     * @param count what was made
+     * @param n how many more, >= 0
+     */
+    public synchronized void add(Count count, long n) {
+        if (enabled) {
+            counts.merge(count, n, Long::sum);
+            checkRep();
+        }
+    }
+
+    /**
+     * @return true iff these metrics record anything, i.e. they are not NONE
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // the value at index of phase, or 0 if it has not run
+    private synchronized long get(Phase phase, int index) {
+        return phases.containsKey(phase) ? phases.get(phase)[index] : 0;
+    }
+
+    /**
+     * @param phase a phase
+     * @return how many times phase has run
+     */
+    public long getCalls(Phase phase) {
+        return get(phase, CALLS);
+    }
+
+    /**
+     * @param phase a phase
+     * @return total wall-clock nanoseconds phase has taken
+     */
+    public long getWallNanos(Phase phase) {
+        return get(phase, WALL);
+    }
+
+    /**
+     * @param phase a phase
+     * @return total CPU nanoseconds of the threads that ran phase, while they ran it
+     */
+    public long getCpuNanos(Phase phase) {
+        return get(phase, CPU);
+    }
+
+    /**
+     * @param phase a phase
+     * @return total bytes allocated by the threads that ran phase, while they ran it
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return get(phase, ALLOCATED);
+    }
+
+    /**
+     * @param count something the phases make
+     * @return how many of it have been made
+     */
+    public synchronized long getCount(Count count) {
+        return counts.getOrDefault(count, 0L);
+    }
+
+    /**
+     * @return a table of every phase that has run, with its calls, wall and CPU milliseconds and allocated
+     *         kilobytes, one per line in the order of Phase, followed by every count, one per line
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder string = new StringBuilder();
+        for (Map.Entry<Phase, long[]> phase : phases.entrySet()) {
+            long[] values = phase.getValue();
+            string.append(String.format("%-16s %4d calls %10.3f ms wall %10.3f ms cpu %12d KB%n", phase.getKey(),
+                    values[CALLS], values[WALL] / 1e6, values[CPU] / 1e6, values[ALLOCATED] / 1024));
+        }
+        for (Map.Entry<Count, Long> count : counts.entrySet()) {
+            string.append(String.format("%-16s %d%n", count.getKey(), count.getValue()));
+        }
+        return string.toString();
+    }
+}
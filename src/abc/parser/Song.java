@@ -18,12 +18,23 @@ public class Song {
     //RI:
     //  music != null
     //  header != null
+    //  timeline, once compiled, is the notes of music at the ticks per beat TickPlan chooses for it
     //rep exposure:
-    //  all fields are private and final and immutable data type
+    //  all fields are private and immutable data types, and all but timeline are final;
+    //  timeline is volatile, so a thread that reads it sees the whole compiled Timeline; two threads
+    //  asking at once may both compile it, but they compile the same notes and either may be kept
+    
+    /**
+     * Ticks per beat used to play songs whose music is not known before they start playing, as when streaming;
+     * chosen so that every note and tuplet length lands on a whole tick. Songs played whole use
+     * TickPlan.ticksPerBeat of their music instead, which is usually far smaller.
+     */
+    public static final int TICKS_PER_BEAT = 64*27*125;
     
     //field
     private final Music music;
     private final Header header;
+    private volatile Timeline timeline;
     
     private void checkRep() {
         assert music != null;
@@ -34,18 +45,63 @@ public class Song {
      * play the song
      */
     public void play() {
+        play(PlaybackMetrics.NONE);
+    }
+    
+    /**
+     * play the song, recording how long each step of getting it playing took in metrics;
+     * the time the song itself plays for is not part of any phase
+     * @param metrics where to record the EXPAND, SCHEDULE and START_SEQUENCER phases, and the MEASURES
+     *        and MIDI_EVENTS made
+     */
+    public void play(PlaybackMetrics metrics) {
         int beatsPerMinute = (int)header.getBeatsPerMinute();
-        final int ticksPerBeat = 64*27*125; // this number is chosen to avoid decimal ticks
         try {
-            SequencePlayer player = new SequencePlayer(beatsPerMinute, ticksPerBeat);
-            music.play(player, 0);
+            PlaybackMetrics.Span expanding = metrics.start(PlaybackMetrics.Phase.EXPAND);
+            try {
+                // every voice unrolls its repeats once, the first time it is asked for its length
+                music.duration();
+            } finally {
+                expanding.close();
+            }
+            SequencePlayer player;
+            PlaybackMetrics.Span scheduling = metrics.start(PlaybackMetrics.Phase.SCHEDULE);
+            try {
+                Timeline notes = getTimeline();
+                // the player only looks up a sequencer here; play opens it
+                player = new SequencePlayer(beatsPerMinute, notes.ticksPerBeat());
+                player.addAll(notes);
+            } finally {
+                scheduling.close();
+            }
+            metrics.add(PlaybackMetrics.Count.MEASURES, countMeasures(music));
+            metrics.add(PlaybackMetrics.Count.MIDI_EVENTS, player.getEventCount());
             System.out.println(header);
-            player.play();
+            PlaybackMetrics.Span starting = metrics.start(PlaybackMetrics.Phase.START_SEQUENCER);
+            try {
+                player.play();
+            } finally {
+                starting.close();
+            }
         } catch (MidiUnavailableException | InvalidMidiDataException e) {
             e.printStackTrace();
         }
     }
     
+    // number of measures music plays, once repeats are unrolled, over all its voices
+    private static long countMeasures(Music music) {
+        if (music instanceof Voice) {
+            return ((Voice) music).getNumMeasures();
+        }
+        long measures = 0;
+        if (music instanceof Voices) {
+            for (Music voice : ((Voices) music).getVoices().values()) {
+                measures += countMeasures(voice);
+            }
+        }
+        return measures;
+    }
+    
     /**
      * create a song with music and header
      * @param music the music in the song
@@ -65,6 +121,20 @@ public class Song {
         return music;
     }
     
+    /**
+     * Get the notes of the song compiled for playing, at the ticks per beat TickPlan chooses for them.
+     * They are compiled the first time they are asked for, and the same timeline is returned after that.
+     * @return the timeline of the music
+     */
+    public Timeline getTimeline() {
+        Timeline compiled = timeline;
+        if (compiled == null) {
+            compiled = Timeline.compile(music);
+            timeline = compiled;
+        }
+        return compiled;
+    }
+    
     /**
      * Get the header.
      * @return the header of the song
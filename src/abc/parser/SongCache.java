@@ -0,0 +1,242 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * A directory of parsed Songs, keyed by a hash of the abc text they were parsed from, so that
+ * a file that has been parsed before is read back from its binary form instead of parsed again.
+ * Entries are in SongFormat; an entry in any other version of the format, or one that cannot
+ * be read, is thrown away and the text is parsed again.
+ * The directory is kept under a size limit by deleting the least recently used entries.
+ * Each cache keeps a running total of the size of the directory, and only lists it again when a write
+ * takes that total over the limit.
+ * Several caches, in this or other programs, may share a directory; entries another cache writes are
+ * counted the next time this one lists the directory.
+ */
+public class SongCache {
+
+    private static final String SUFFIX = ".song";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicLong bytes;
+    private long lastUse = 0;
+
+    //AF:
+    //  represents the cache stored in directory, where the file <h>.song holds the Song parsed from
+    //  the abc text whose SHA-256 hash in hex is h, and the file's last-modified time is when it was
+    //  last used; hits and misses count the lookups made through this object that found or did not
+    //  find a usable entry; bytes is the total size of the entries when this cache last listed the
+    //  directory, plus the size of each entry it has written since
+    //RI:
+    //  maxBytes >= 0
+    //  hits >= 0, misses >= 0, bytes >= 0
+    //rep exposure:
+    //  all fields are private and final except lastUse, which is private and never returned;
+    //  directory is an immutable Path, and the counters are only returned as ints
+
+    // check RI
+    private void checkRep() {
+        assert maxBytes >= 0;
+        assert hits.get() >= 0 && misses.get() >= 0 && bytes.get() >= 0;
+    }
+
+    /**
+     * Make a cache stored in directory, creating the directory if it does not exist,
+     * and add up the size of the entries already in it.
+     * @param directory where entries are kept
+     * @param maxBytes total size the entries may take before the least recently used are deleted, >= 0
+     * @throws IOException if directory cannot be created or read
+     */
+    public SongCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("negative size limit " + maxBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.bytes = new AtomicLong(sizeInBytes());
+        checkRep();
+    }
+
+    /**
+     * Parse abc text, reading the result from the cache if the same text has been parsed before,
+     * and storing it otherwise.
+     * @param source text of an abc file
+     * @return the song source describes, equal to AbcParser.parse(source)
+     * @throws UnableToParseException if source is not a valid abc file
+     * @throws IOException if the cache directory cannot be read or written
+     */
+    public Song parse(String source) throws UnableToParseException, IOException {
+        Path entry = directory.resolve(key(source) + SUFFIX);
+        Song song = read(entry);
+        if (song != null) {
+            hits.incrementAndGet();
+            touch(entry);
+            return song;
+        }
+        misses.incrementAndGet();
+        song = AbcParser.parse(source);
+        if (bytes.addAndGet(write(entry, song)) > maxBytes) {
+            evict();
+        }
+        checkRep();
+        return song;
+    }
+
+    /**
+     * @return the number of calls to parse that were answered from the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of calls to parse that had to parse the text
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the total size in bytes of the entries in the cache directory
+     * @throws IOException if the directory cannot be read
+     */
+    public long sizeInBytes() throws IOException {
+        long total = 0;
+        for (Path entry : entries()) {
+            total += sizeOf(entry);
+        }
+        return total;
+    }
+
+    /**
+     * @param source text of an abc file
+     * @return the SHA-256 hash of source's UTF-8 bytes, in lowercase hex
+     */
+    static String key(String source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("every Java platform has SHA-256", e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest(source.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    // the song stored in entry, or null if there is no usable one; unusable entries are deleted.
+    // Entries are small, so they are read into the heap rather than mapped, which would keep
+    // a deleted entry's pages alive until the mapping is collected
+    private Song read(Path entry) throws IOException {
+        try {
+            return SongFormat.read(ByteBuffer.wrap(Files.readAllBytes(entry)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // in another format version, or truncated or corrupt, e.g. copied in from elsewhere
+            Files.deleteIfExists(entry);
+            return null;
+        }
+    }
+
+    // store song as entry, replacing it in one step so that readers never see part of an entry;
+    // return the size of the entry
+    private long write(Path entry, Song song) throws IOException {
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                SongFormat.write(song, out);
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        touch(entry);
+        return sizeOf(entry);
+    }
+
+    // mark entry as the most recently used, strictly later than any entry this cache used before
+    private synchronized void touch(Path entry) throws IOException {
+        lastUse = Math.max(System.currentTimeMillis(), lastUse + 1);
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(lastUse));
+        } catch (NoSuchFileException e) {
+            // evicted by another cache sharing the directory
+        }
+    }
+
+    // delete the least recently used entries until the rest fit in maxBytes, and start the running total
+    // again from what is left
+    private void evict() throws IOException {
+        List<Path> entries = entries();
+        List<FileTime> times = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Path entry = entries.get(i);
+            times.add(lastModified(entry));
+            order.add(i);
+            total += sizeOf(entry);
+        }
+        order.sort(Comparator.comparing(times::get));
+        for (int i : order) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long size = sizeOf(entries.get(i));
+            Files.deleteIfExists(entries.get(i));
+            total -= size;
+        }
+        bytes.set(total);
+    }
+
+    private List<Path> entries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    // size of entry, or 0 if another cache has deleted it
+    private static long sizeOf(Path entry) throws IOException {
+        try {
+            return Files.size(entry);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path entry) throws IOException {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (NoSuchFileException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package abc.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import abc.header.*;
+import abc.sound.*;
+
+/**
+ * Versioned binary form of a Song, much faster to load than the abc text it was parsed from.
+ * A song is written as the magic bytes "ABCS", a format version byte, the header, and then
+ * the music in MusicWriter's encoding. Readers reject any other version, so whenever the bytes
+ * written for a Song change, VERSION must change too.
+ */
+public class SongFormat {
+
+    /**
+     * Version of the format written by write and accepted by read
+     */
+    public static final int VERSION = 4;
+
+    /**
+     * Index of the version byte in the binary form
+     */
+    static final int VERSION_OFFSET = 4;
+
+    private static final byte[] MAGIC = {'A', 'B', 'C', 'S'};
+
+    private SongFormat() {
+        // not instantiable
+    }
+
+    /**
+     * Write a song.
+     * @param song song to write
+     * @param out destination of the binary form; it is flushed but not closed
+     * @throws IOException if out cannot be written
+     */
+    public static void write(Song song, OutputStream out) throws IOException {
+        MusicWriter writer = new MusicWriter(out);
+        for (byte b : MAGIC) {
+            writer.writeByte(b);
+        }
+        writer.writeByte(VERSION);
+        writeHeader(song.getHeader(), writer);
+        writer.write(song.getMusic());
+        writer.flush();
+    }
+
+    /**
+     * Read a song written by write.
+     * @param in the binary form, from in.position() to in.limit(); in's position is not changed
+     * @return the song that was written
+     * @throws IOException if in does not hold a song in this version of the format
+     */
+    public static Song read(ByteBuffer in) throws IOException {
+        MusicReader reader = new MusicReader(in);
+        for (byte b : MAGIC) {
+            if (reader.remaining() == 0 || reader.readByte() != b) {
+                throw new IOException("not a song");
+            }
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("song written in format version " + version + ", expected " + VERSION);
+        }
+        Header header = readHeader(reader);
+        Music music = reader.read();
+        if (reader.remaining() != 0) {
+            throw new IOException(reader.remaining() + " bytes after the song");
+        }
+        return new Song(music, header);
+    }
+
+    /**
+     * Read a song written by write to a file, decoding it from a memory mapping of the file.
+     * @param file path of the file
+     * @return the song that was written
+     * @throws IOException if the file cannot be read, is larger than 2GB, or does not hold a song
+     *         in this version of the format
+     */
+    public static Song read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2GB");
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static void writeHeader(Header header, MusicWriter out) throws IOException {
+        List<String> voices = header.getVoice();
+        KeySignature key = header.getKeySignature();
+        out.writeVarint(header.getIndexNumber());
+        out.writeString(header.getTitle());
+        out.writeString(header.getComposer());
+        out.writeString(key.getKeyBase());
+        out.writeString(keyAccidental(key.getKeyAccidental()));
+        out.writeByte(key.getIsMinor() ? 1 : 0);
+        out.writeDuration(header.getExactDefaultLength());
+        out.writeVarint(header.getMeter().getNumerator());
+        out.writeVarint(header.getMeter().getDenominator());
+        out.writeDouble(header.getTempo().getBeatLength());
+        out.writeVarint(header.getTempo().getTempo());
+        out.writeVarint(voices.size());
+        for (String voice : voices) {
+            out.writeString(voice);
+        }
+    }
+
+    private static Header readHeader(MusicReader in) throws IOException {
+        int indexNumber = (int) in.readVarint();
+        String title = in.readString();
+        String composer = in.readString();
+        KeySignature key = new KeySignature(in.readString(), in.readString(), in.readByte() != 0);
+        Rational defaultLength = in.readDuration();
+        if (defaultLength.signum() == 0) {
+            throw new IOException("zero default length");
+        }
+        Meter meter = new Meter((int) in.readVarint(), (int) in.readVarint());
+        Tempo tempo = new Tempo(in.readDouble(), (int) in.readVarint());
+        long size = in.readVarint();
+        if (size > in.remaining()) {
+            throw new IOException("bad voice count " + size);
+        }
+        List<String> voices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            voices.add(in.readString());
+        }
+        return new Header(voices, composer, key, defaultLength, meter, tempo, title, indexNumber);
+    }
+
+    // the keyAccidental string that KeySignature turns into accidental
+    private static String keyAccidental(Accidental accidental) {
+        switch (accidental) {
+        case SHARP:
+            return "#";
+        case FLAT:
+            return "b";
+        default:
+            return "=";
+        }
+    }
+}
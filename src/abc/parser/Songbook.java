@@ -0,0 +1,133 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Immutable collection of the tunes in one abc file, each of which either parsed into a Song
+ * or failed to parse on its own.
+ */
+public class Songbook {
+    
+    //AF:
+    //  represents the tunes of an abc file in file order, where tune i starts on line startLines.get(i)
+    //  and is songs.get(i) if it parsed or failed with errors.get(i) if it did not
+    //RI:
+    //  startLines, songs, errors != null
+    //  startLines is strictly increasing and every line is >= 1
+    //  songs and errors have disjoint key sets whose union is 0..startLines.size()-1
+    //  no keys or values are null
+    //rep exposure:
+    //  all fields are private and final, defensively copied in the constructor and never returned;
+    //  Song is immutable, and UnableToParseException is never modified after it is thrown
+    
+    private final List<Integer> startLines;
+    private final Map<Integer, Song> songs;
+    private final Map<Integer, UnableToParseException> errors;
+    
+    /**
+     * check RI
+     */
+    private void checkRep() {
+        assert startLines != null && songs != null && errors != null;
+        for (int i = 0; i < startLines.size(); i++) {
+            assert startLines.get(i) >= 1;
+            assert i == 0 || startLines.get(i) > startLines.get(i - 1);
+            assert songs.containsKey(i) != errors.containsKey(i);
+            assert songs.get(i) != null || errors.get(i) != null;
+        }
+        assert songs.size() + errors.size() == startLines.size();
+    }
+    
+    /**
+     * Make a songbook.
+     * @param startLines the line of the file each tune starts on, 1-based, in increasing order
+     * @param songs the tunes that parsed, keyed by their index in startLines
+     * @param errors why the other tunes did not parse, keyed by their index in startLines
+     */
+    public Songbook(List<Integer> startLines, Map<Integer, Song> songs, Map<Integer, UnableToParseException> errors) {
+        this.startLines = new ArrayList<>(startLines);
+        this.songs = new TreeMap<>(songs);
+        this.errors = new TreeMap<>(errors);
+        checkRep();
+    }
+    
+    /**
+     * @return the number of tunes in the file, parsed or not
+     */
+    public int size() {
+        return startLines.size();
+    }
+    
+    /**
+     * @param index index of a tune, 0 <= index < size()
+     * @return the line of the file the tune starts on, counting from 1
+     */
+    public int getStartLine(int index) {
+        return startLines.get(index);
+    }
+    
+    /**
+     * Get one tune.
+     * @param index index of a tune, 0 <= index < size()
+     * @return the tune as a Song
+     * @throws UnableToParseException the reason the tune did not parse, if it did not
+     */
+    public Song getSong(int index) throws UnableToParseException {
+        if (errors.containsKey(index)) {
+            throw errors.get(index);
+        }
+        return songs.get(index);
+    }
+    
+    /**
+     * @return the tunes that parsed, in file order, leaving out the ones that did not
+     */
+    public List<Song> getSongs() {
+        return new ArrayList<>(songs.values());
+    }
+    
+    /**
+     * @return why each tune that did not parse failed, keyed by the index of the tune
+     */
+    public Map<Integer, UnableToParseException> getErrors() {
+        return new TreeMap<>(errors);
+    }
+    
+    /**
+     * 2 Songbooks are equal if and only if they have the same tunes starting on the same lines,
+     * and the same tunes failed to parse
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof Songbook) {
+            Songbook that = (Songbook)thatObject;
+            return this.startLines.equals(that.startLines) && this.songs.equals(that.songs)
+                    && this.errors.keySet().equals(that.errors.keySet());
+        }
+        return false;
+    }
+    
+    @Override
+    public int hashCode() {
+        return startLines.hashCode() + songs.hashCode();
+    }
+    
+    /**
+     * Get human readable string representation of Songbook
+     */
+    @Override
+    public String toString() {
+        String string = "";
+        for (int i = 0; i < size(); i++) {
+            string += "line " + startLines.get(i) + ": "
+                    + (songs.containsKey(i) ? songs.get(i).getHeader().getTitle() : "error: " + errors.get(i).getMessage())
+                    + "\n";
+        }
+        return string;
+    }
+}
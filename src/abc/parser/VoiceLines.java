@@ -0,0 +1,75 @@
+package abc.parser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import abc.sound.Measure;
+import abc.sound.Voice;
+import abc.sound.Voices;
+
+/**
+ * Mutable measures of each voice of a tune body, gathered in order one call of
+ * AbcRecursiveDescentParser.nextLine at a time. A body parsed in pieces gathers each piece
+ * separately and then adds them together in order.
+ * Not safe to share between threads.
+ */
+class VoiceLines {
+
+    private final List<Measure> defaultVoice = new ArrayList<>();
+    private final Map<String, List<Measure>> namedVoices = new LinkedHashMap<>();
+
+    //AF:
+    //  represents the part of a body read so far, where defaultVoice holds the measures written before
+    //  any voice field and namedVoices the measures of each voice named by a voice field, in order
+    //RI:
+    //  true
+    //rep exposure:
+    //  all fields are private and never returned; Measure is immutable
+
+    /**
+     * Add what one call of nextLine read.
+     * @param name the voice nextLine returned
+     * @param inVoices true iff the parser was past the default voice's lines afterwards
+     * @param measures the measures nextLine read; copied
+     */
+    void add(String name, boolean inVoices, List<Measure> measures) {
+        if (name.equals(Voices.DEFAULT_VOICE) && !inVoices) {
+            defaultVoice.addAll(measures);
+        } else if (namedVoices.containsKey(name)) {
+            namedVoices.get(name).addAll(measures);
+        } else {
+            namedVoices.put(name, new ArrayList<>(measures));
+        }
+    }
+
+    /**
+     * Add everything gathered from the part of the body that comes right after this one.
+     * @param later the lines after these
+     */
+    void addAll(VoiceLines later) {
+        defaultVoice.addAll(later.defaultVoice);
+        for (Map.Entry<String, List<Measure>> voice : later.namedVoices.entrySet()) {
+            if (namedVoices.containsKey(voice.getKey())) {
+                namedVoices.get(voice.getKey()).addAll(voice.getValue());
+            } else {
+                namedVoices.put(voice.getKey(), new ArrayList<>(voice.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @return the voices gathered: the default voice if it has any measures, and every named voice
+     */
+    Voices toVoices() {
+        Voices voices = new Voices();
+        if (!defaultVoice.isEmpty()) {
+            voices = new Voices(new Voice(defaultVoice));
+        }
+        for (Map.Entry<String, List<Measure>> voice : namedVoices.entrySet()) {
+            voices = voices.append(voice.getKey(), new Voice(voice.getValue()));
+        }
+        return voices;
+    }
+}
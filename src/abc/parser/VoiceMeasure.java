@@ -0,0 +1,77 @@
+package abc.parser;
+
+import abc.sound.Measure;
+
+/**
+ * Immutable pair of a measure read from an abc file and the name of the voice that plays it.
+ */
+public class VoiceMeasure {
+    
+    //AF:
+    //  represents measure, as the next measure played by the voice named voice
+    //RI:
+    //  voice != null, measure != null
+    //rep exposure:
+    //  all fields are private, final and immutable data types
+    
+    private final String voice;
+    private final Measure measure;
+    
+    /**
+     * check RI
+     */
+    private void checkRep() {
+        assert voice != null;
+        assert measure != null;
+    }
+    
+    /**
+     * Pair a measure with its voice.
+     * @param voice name of the voice, Voices.DEFAULT_VOICE for music before any voice field
+     * @param measure the measure
+     */
+    public VoiceMeasure(String voice, Measure measure) {
+        this.voice = voice;
+        this.measure = measure;
+        checkRep();
+    }
+    
+    /**
+     * @return name of the voice that plays the measure
+     */
+    public String getVoice() {
+        return voice;
+    }
+    
+    /**
+     * @return the measure
+     */
+    public Measure getMeasure() {
+        return measure;
+    }
+    
+    /**
+     * 2 VoiceMeasures are equal if and only if their voices and measures are equal
+     */
+    @Override
+    public boolean equals(Object thatObject) {
+        if (thatObject instanceof VoiceMeasure) {
+            VoiceMeasure that = (VoiceMeasure)thatObject;
+            return this.voice.equals(that.voice) && this.measure.equals(that.measure);
+        }
+        return false;
+    }
+    
+    @Override
+    public int hashCode() {
+        return voice.hashCode() + measure.hashCode();
+    }
+    
+    /**
+     * Get human readable string representation of VoiceMeasure
+     */
+    @Override
+    public String toString() {
+        return voice + ": " + measure;
+    }
+}
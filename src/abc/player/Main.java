@@ -1,10 +1,21 @@
 package abc.player;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+
+import abc.header.Header;
 import abc.parser.*;
+import abc.sound.MeasureScheduler;
+import abc.sound.SequencePlayer;
 import lib6005.parser.UnableToParseException;
 
 /**
@@ -12,6 +23,16 @@ import lib6005.parser.UnableToParseException;
  */
 public class Main {
 
+    /**
+     * Beats of music scheduled ahead before streaming playback starts
+     */
+    private static final double STREAM_LEAD_BEATS = 8;
+
+    /**
+     * Size the song cache directory is kept under
+     */
+    private static final long CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
     /**
      * Plays the input file using Java MIDI API and displays
      * header information to the standard output stream.
@@ -22,24 +43,178 @@ public class Main {
      * @param file the name of input abc file
      */
     public static void play(String file) {
-        String contents = "";
+        Song song;
         try {
-            contents = new String(Files.readAllBytes(Paths.get(file)));
-        } catch (IOException e) {
+            song = AbcParser.parse(Paths.get(file), ParserEngine.GRAMMAR);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found: " + file);
+        } catch (UnableToParseException | IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Invalid file: " + file);
+        }
+        song.play();
+    }
+
+    /**
+     * Plays the input file like play, and then prints how long each phase of parsing it and getting it
+     * playing took, and how much each allocated, to the standard output stream.
+     * 
+     * @param file the name of input abc file
+     * @return the metrics printed
+     */
+    public static PlaybackMetrics playWithMetrics(String file) {
+        PlaybackMetrics metrics = new PlaybackMetrics();
+        Song song;
+        try {
+            song = AbcParser.parse(Paths.get(file), ParserEngine.GRAMMAR, metrics);
+        } catch (NoSuchFileException e) {
             throw new RuntimeException("File not found: " + file);
+        } catch (UnableToParseException | IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Invalid file: " + file);
         }
+        song.play(metrics);
+        System.out.print(metrics);
+        return metrics;
+    }
+
+    /**
+     * Plays the input file like play, but reads the parsed song from a cache directory
+     * if the same text has been played before, and adds it to the cache otherwise.
+     * 
+     * @param file the name of input abc file
+     * @param cacheDirectory the name of the cache directory, created if it does not exist
+     */
+    public static void playCached(String file, String cacheDirectory) {
+        Song song;
         try {
-            AbcParser.parse(contents).play();
+            SongCache cache = new SongCache(Paths.get(cacheDirectory), CACHE_MAX_BYTES);
+            song = cache.parse(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found: " + e.getFile());
         } catch (UnableToParseException | IOException e) {
             e.printStackTrace();
-            throw new RuntimeException("Invalid file: " + contents);
+            throw new RuntimeException("Invalid file: " + file);
+        }
+        song.play();
+    }
+
+    /**
+     * Plays the input file like play, but starts playing once the first few measures have been parsed
+     * instead of waiting for the whole file, and keeps parsing while the music plays.
+     * If the file turns out to be invalid part way through, the measures before the error still play.
+     * 
+     * @param file the name of input abc file
+     */
+    public static void playStreaming(String file) {
+        try (Reader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            MeasureStream stream = AbcParser.stream(in);
+            Header header = stream.getHeader();
+            System.out.println(header);
+            SequencePlayer player = new SequencePlayer((int)header.getBeatsPerMinute(), Song.TICKS_PER_BEAT);
+            MeasureScheduler scheduler = new MeasureScheduler(player, header.getVoice());
+            boolean playing = false;
+            try {
+                for (VoiceMeasure next = stream.next(); next != null; next = stream.next()) {
+                    scheduler.add(next.getVoice(), next.getMeasure());
+                    if (!playing && scheduler.scheduledBeats() >= STREAM_LEAD_BEATS) {
+                        player.play();
+                        playing = true;
+                    }
+                }
+            } finally {
+                scheduler.finish();
+                if (!playing) {
+                    player.play();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found: " + file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Unreadable file: " + file + ": " + e.getMessage());
+        } catch (UnableToParseException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Invalid file: " + file);
+        } catch (MidiUnavailableException | InvalidMidiDataException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks the input file without playing it, printing each error in it to the standard
+     * output stream as "file:line:column: message", all in one pass; if the parser itself fails,
+     * prints "file: error: message" instead and counts that as one error.
+     * 
+     * @param file the name of input abc file
+     * @return the number of errors found
+     */
+    public static int check(String file) {
+        ParseResult result;
+        try {
+            result = AbcParser.parseRecovering(Paths.get(file));
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found: " + file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Unreadable file: " + file);
+        } catch (RuntimeException e) {
+            // a failure of the parser rather than an error it found; report it against this file,
+            // so a sweep of many files carries on to the next one
+            e.printStackTrace();
+            System.out.println(file + ": error: " + e);
+            return 1;
+        }
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            System.out.println(file + ":" + diagnostic.getLine() + ":" + diagnostic.getColumn()
+                    + ": expected " + diagnostic.getExpected() + " but saw " + diagnostic.getFound());
+        }
+        return result.getDiagnostics().size();
+    }
+
+    /**
+     * Lists the header of every abc file in a directory and its subdirectories without parsing their bodies,
+     * printing "file: title by composer, key" for each, and "file: error: message" for each that cannot be read.
+     * 
+     * @param directory the name of the directory
+     * @return the number of files listed
+     */
+    public static int index(String directory) {
+        HeaderIndex index;
+        try {
+            index = AbcHeaderScanner.index(Paths.get(directory));
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Unreadable directory: " + directory);
+        }
+        for (Map.Entry<Path, Header> file : index.getHeaders().entrySet()) {
+            Header header = file.getValue();
+            System.out.println(file.getKey() + ": " + header.getTitle() + " by " + header.getComposer()
+                    + ", " + header.getKeySignature());
+        }
+        for (Map.Entry<Path, Exception> file : index.getErrors().entrySet()) {
+            System.out.println(file.getKey() + ": error: " + file.getValue().getMessage());
         }
+        return index.size();
     }
 
     public static void main(String[] args) {
         try {
-            String file = args[0];
-            Main.play(file);
+            if (args[0].equals("--stream")) {
+                Main.playStreaming(args[1]);
+            } else if (args[0].equals("--check")) {
+                for (int i = 1; i < args.length; i++) {
+                    Main.check(args[i]);
+                }
+            } else if (args[0].equals("--index")) {
+                Main.index(args[1]);
+            } else if (args[0].equals("--metrics")) {
+                Main.playWithMetrics(args[1]);
+            } else if (args[0].equals("--cache")) {
+                Main.playCached(args[2], args[1]);
+            } else {
+                Main.play(args[0]);
+            }
         } catch (IndexOutOfBoundsException e) {
             System.out.println("Error: missing file name");
         }
@@ -10,17 +10,20 @@ import java.util.Set;
 public class Chord implements Music {
     
     private final Set<Note> notes;
-    private final double duration;
+    private final Rational duration;
+    private final int hashCode;
     
     // Abstraction function:
     //  notes represents all of the notes that are played in the chord
     //  duration represents how long the chord is held
+    //  hashCode is the hash code of the chord, worked out once
     // RI:
     //  duration >= 0
+    //  hashCode is the sum of the hash codes of notes
     // Rep exposure:
     //  notes are private and final and are never return to the user
     //  notes are defensively copied
-    //  duration is private, final, and primitive
+    //  duration and hashCode are private, final, and immutable
     
     /**
      * Create a new chord
@@ -29,6 +32,11 @@ public class Chord implements Music {
     public Chord(Set<Note> notes){
         this.notes = new HashSet<>(notes);
         duration = getDuration();
+        int code = 0;
+        for (Music note : this.notes) {
+            code += note.hashCode();
+        }
+        hashCode = code;
         checkRep();
     }
     
@@ -36,11 +44,11 @@ public class Chord implements Music {
      * check RI
      */
     private void checkRep(){
-        assert this.duration >= 0: "no duration of chord";
+        assert this.duration.signum() >= 0: "no duration of chord";
     }
     
     @Override
-    public double duration() {
+    public Rational exactDuration() {
         return this.duration;
     }
     
@@ -48,12 +56,10 @@ public class Chord implements Music {
      * Get the length of the longest note in the chord
      * @return duration of the chord
      */
-    private double getDuration(){
-        double maxDuration = 0;
+    private Rational getDuration(){
+        Rational maxDuration = Rational.ZERO;
         for (Note note: this.notes){
-            if (note.duration() > maxDuration){
-                maxDuration = note.duration();
-            }
+            maxDuration = maxDuration.max(note.exactDuration());
         }
         return maxDuration;
     }
@@ -67,17 +73,22 @@ public class Chord implements Music {
     }
 
     @Override
-    public void play(SequencePlayer player, double atBeat) {
+    public long noteCount() {
+        return notes.size();
+    }
+
+    @Override
+    public void play(SequencePlayer player, Rational atBeat) {
         for (Note note: notes){
             note.play(player, atBeat);
         }
     }
 
     @Override
-    public Music rescale(double scale) {
+    public Music rescale(Rational scale) {
         Set<Note> rescaledNotes = new HashSet<>();
         for (Note note: notes){
-            rescaledNotes.add((Note) note.rescale(scale));
+            rescaledNotes.add(note.rescale(scale));
         }
         return new Chord(rescaledNotes);
     }
@@ -94,17 +105,13 @@ public class Chord implements Music {
     public boolean equals(Object thatObject) {
         if(thatObject instanceof Chord) {
             Chord that = (Chord)thatObject;
-            return this.getNotes().equals(that.getNotes());
+            return this.hashCode == that.hashCode && this.notes.equals(that.notes);
         }
         return false;
     }
     
     @Override
     public int hashCode() {
-        int code = 0;
-        for (Music note : notes) {
-            code += note.hashCode();
-        }
-        return code;
+        return hashCode;
     }
 }
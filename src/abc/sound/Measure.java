@@ -16,6 +16,9 @@ public class Measure implements Music {
     private final boolean startFirstEnding;
     private final boolean startSecondEnding;
     private final boolean endMajorSection;
+    private final Rational duration;
+    private final long noteCount;
+    private final int hashCode;
     
     /* 
      * AF:
@@ -27,16 +30,18 @@ public class Measure implements Music {
      *      startFirstEnding whether this measure is a start of a first ending
      *      startSecondEnding whether this measure is a start of a second ending
      *      endMajorSection whether measure is the end of major section
+     *      duration, noteCount and hashCode the length, number of notes and hash code of the measure, worked out once
      *   
      * RI:
      *   none of the objects in notes are null
      *   measureDuration >= 0
+     *   duration, noteCount and hashCode are the sums of those of notes
      *   
      * Safety from rep exposure:
      *   notes is private and final
-     *   all other values are private and primitive
+     *   all other values are private and primitive or immutable
      *   in constructor copied notes input list
-     *   notes never returned to client
+     *   notes only returned by notes(), as a copy
      */
     
     /**
@@ -79,6 +84,20 @@ public class Measure implements Music {
         return endMajorSection;
     }
     
+    /**
+     * @return the notes of this measure, in order
+     */
+    List<Music> notes() {
+        return new ArrayList<>(notes);
+    }
+    
+    /**
+     * @return the specified duration of an ordinary measure, as given to the constructor
+     */
+    int measureDuration() {
+        return measureDuration;
+    }
+    
     
     /**
      * create a measure
@@ -100,6 +119,17 @@ public class Measure implements Music {
         this.startFirstEnding = startFirstEnding;
         this.startSecondEnding = startSecondEnding;
         this.endMajorSection = endMajorSection;
+        Rational duration = Rational.ZERO;
+        long noteCount = 0;
+        int hashCode = 0;
+        for (Music note : this.notes) {
+            duration = duration.plus(note.exactDuration());
+            noteCount += note.noteCount();
+            hashCode += note.hashCode();
+        }
+        this.duration = duration;
+        this.noteCount = noteCount;
+        this.hashCode = hashCode;
         checkRep();
     }
     
@@ -112,31 +142,37 @@ public class Measure implements Music {
     }
     
     @Override
-    public double duration() {
-        double duration = 0;
-        for (Music note : notes) {
-            duration += note.duration();
-        }
+    public Rational exactDuration() {
         return duration;
     }
     
     @Override
-    public void play(SequencePlayer player, double atBeat) {
-        double location = atBeat;
+    public long noteCount() {
+        return noteCount;
+    }
+    
+    @Override
+    public void play(SequencePlayer player, Rational atBeat) {
+        Rational location = atBeat;
         for (Music note : notes) {
             note.play(player, location);
-            location += note.duration();
+            location = location.plus(note.exactDuration());
         }
     }
 
     @Override
     public Measure rescale(double scale) {
+        return rescale(Rational.valueOf(scale));
+    }
+
+    @Override
+    public Measure rescale(Rational scale) {
         List<Music> newNotes = new ArrayList<>();
         for (Music note : notes) {
             newNotes.add(note.rescale(scale));
         }
         checkRep();
-        return new Measure(newNotes, (int)(measureDuration*scale) , startRepeat, endRepeat, startFirstEnding, startSecondEnding, endMajorSection);
+        return new Measure(newNotes, (int) Rational.of(measureDuration).times(scale).floor(), startRepeat, endRepeat, startFirstEnding, startSecondEnding, endMajorSection);
     }
     
     /**
@@ -158,7 +194,10 @@ public class Measure implements Music {
             return false;
         }
         Measure that = (Measure)obj;
-        if (notes.size() != that.notes.size()) {
+        if (this == that) {
+            return true;
+        }
+        if (hashCode != that.hashCode || notes.size() != that.notes.size()) {
             return false;
         }
         for (int i = 0; i < notes.size(); i++) {
@@ -171,11 +210,7 @@ public class Measure implements Music {
     
     @Override
     public int hashCode() {
-        int result = 0;
-        for (Music note : notes) {
-            result += note.hashCode();
-        }
-        return result;
+        return hashCode;
     }
 
 }
@@ -0,0 +1,256 @@
+package abc.sound;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list of measures that shares its structure with the lists it was made from, so that appending one
+ * to another copies neither and takes time logarithmic in their sizes. It is a rope: a binary tree kept balanced
+ * by height, whose leaves each hold up to LEAF_SIZE measures in order. Like any other immutable list, every method
+ * that would modify it throws UnsupportedOperationException.
+ */
+final class MeasureRope extends AbstractList<Measure> {
+
+    /** the empty list */
+    static final MeasureRope EMPTY = new MeasureRope(new Measure[0]);
+
+    // most measures in a leaf; leaves this short are copied rather than shared when appending to them
+    private static final int LEAF_SIZE = 32;
+
+    private final Measure[] leaf;
+    private final MeasureRope left;
+    private final MeasureRope right;
+    private final int size;
+    private final int height;
+
+    //AF:
+    //  if leaf != null, represents the measures of leaf in order; otherwise, the measures of left followed by
+    //  those of right
+    //RI:
+    //  exactly one of leaf and (left and right) is null
+    //  leaf: 0 < leaf.length <= LEAF_SIZE, unless this is EMPTY, its elements are not null, height == 0
+    //  branch: left and right are not empty, height == 1 + max(left.height, right.height),
+    //          |left.height - right.height| <= 1
+    //  size is the number of measures represented
+    //rep exposure:
+    //  all fields are private and final; leaf arrays are made here, and never returned or changed after
+
+    // assert RI, without descending into the children
+    private void checkRep() {
+        assert (leaf == null) == (left != null) && (left == null) == (right == null);
+        if (leaf != null) {
+            assert leaf.length <= LEAF_SIZE && size == leaf.length && height == 0;
+        } else {
+            assert !left.isEmpty() && !right.isEmpty();
+            assert size == left.size + right.size;
+            assert height == 1 + Math.max(left.height, right.height);
+            assert Math.abs(left.height - right.height) <= 1;
+        }
+    }
+
+    // make a leaf that owns measures
+    private MeasureRope(Measure[] measures) {
+        this.leaf = measures;
+        this.left = null;
+        this.right = null;
+        this.size = measures.length;
+        this.height = 0;
+        checkRep();
+    }
+
+    // make a branch of left and right, which are nonempty and balanced with each other
+    private MeasureRope(MeasureRope left, MeasureRope right) {
+        this.leaf = null;
+        this.left = left;
+        this.right = right;
+        this.size = Math.addExact(left.size, right.size);
+        this.height = 1 + Math.max(left.height, right.height);
+        checkRep();
+    }
+
+    /**
+     * @param measures measures, none of them null
+     * @return a balanced rope of measures, in order, taking time linear in their number
+     */
+    static MeasureRope of(List<Measure> measures) {
+        if (measures instanceof MeasureRope) {
+            return (MeasureRope) measures;
+        }
+        Measure[] all = measures.toArray(new Measure[0]);
+        for (Measure measure : all) {
+            assert measure != null;
+        }
+        return of(all, 0, all.length);
+    }
+
+    // a balanced rope of all[from, to)
+    private static MeasureRope of(Measure[] all, int from, int to) {
+        if (to - from <= LEAF_SIZE) {
+            return from == to ? EMPTY : new MeasureRope(Arrays.copyOfRange(all, from, to));
+        }
+        // halve on a leaf boundary, so the leaves are full but for the last
+        int leaves = (to - from + LEAF_SIZE - 1) / LEAF_SIZE;
+        int middle = from + (leaves / 2) * LEAF_SIZE;
+        return new MeasureRope(of(all, from, middle), of(all, middle, to));
+    }
+
+    /**
+     * @param that measures to follow this
+     * @return the measures of this followed by those of that, sharing all but O(log size) nodes of both,
+     *         taking time O(log size)
+     */
+    MeasureRope append(MeasureRope that) {
+        if (that.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return that;
+        }
+        if (this.leaf != null && that.leaf != null && size + that.size <= LEAF_SIZE) {
+            Measure[] joined = Arrays.copyOf(leaf, size + that.size);
+            System.arraycopy(that.leaf, 0, joined, size, that.size);
+            return new MeasureRope(joined);
+        }
+        if (height > that.height + 1) {
+            return balanced(left, right.append(that));
+        }
+        if (that.height > height + 1) {
+            return balanced(this.append(that.left), that.right);
+        }
+        return new MeasureRope(this, that);
+    }
+
+    // a branch of left and right, which are nonempty and differ in height by at most 2, rotated to be balanced
+    private static MeasureRope balanced(MeasureRope left, MeasureRope right) {
+        if (left.height > right.height + 1) {
+            if (left.left.height >= left.right.height) {
+                return new MeasureRope(left.left, balanced(left.right, right));
+            }
+            return new MeasureRope(balanced(left.left, left.right.left), balanced(left.right.right, right));
+        }
+        if (right.height > left.height + 1) {
+            if (right.right.height >= right.left.height) {
+                return new MeasureRope(balanced(left, right.left), right.right);
+            }
+            return new MeasureRope(balanced(left, right.left.left), balanced(right.left.right, right.right));
+        }
+        return new MeasureRope(left, right);
+    }
+
+    @Override
+    public Measure get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + size);
+        }
+        MeasureRope node = this;
+        while (node.leaf == null) {
+            if (index < node.left.size) {
+                node = node.left;
+            } else {
+                index -= node.left.size;
+                node = node.right;
+            }
+        }
+        return node.leaf[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param fromIndex index of the first measure to keep, 0 <= fromIndex <= toIndex
+     * @param toIndex index just past the last measure to keep, toIndex <= size()
+     * @return the measures of this from fromIndex up to toIndex, sharing all but O(log size) nodes of this,
+     *         taking time O(log size); unlike AbstractList's, it is a rope of its own rather than a view
+     */
+    @Override
+    public MeasureRope subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("measures " + fromIndex + " to " + toIndex + " of " + size);
+        }
+        if (fromIndex == 0 && toIndex == size) {
+            return this;
+        }
+        if (fromIndex == toIndex) {
+            return EMPTY;
+        }
+        if (leaf != null) {
+            return new MeasureRope(Arrays.copyOfRange(leaf, fromIndex, toIndex));
+        }
+        if (toIndex <= left.size) {
+            return left.subList(fromIndex, toIndex);
+        }
+        if (fromIndex >= left.size) {
+            return right.subList(fromIndex - left.size, toIndex - left.size);
+        }
+        // the appends down each side are of trees of rising height, so together they take O(log size)
+        return left.subList(fromIndex, left.size).append(right.subList(0, toIndex - left.size));
+    }
+
+    @Override
+    public Iterator<Measure> iterator() {
+        return new Iterator<Measure>() {
+            // the branches still to visit the right of, innermost first, and the leaf being read
+            private final Deque<MeasureRope> pending = new ArrayDeque<>();
+            private Measure[] current = descend(MeasureRope.this);
+            private int next = 0;
+
+            // push the branches down the left edge of node, and return its leftmost leaf
+            private Measure[] descend(MeasureRope node) {
+                while (node.leaf == null) {
+                    pending.push(node);
+                    node = node.left;
+                }
+                return node.leaf;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < current.length || !pending.isEmpty();
+            }
+
+            @Override
+            public Measure next() {
+                if (next == current.length) {
+                    if (pending.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    current = descend(pending.pop().right);
+                    next = 0;
+                }
+                return current[next++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] all = new Object[size];
+        copyInto(all, 0);
+        return all;
+    }
+
+    // copy the measures of this into all, starting at from
+    private void copyInto(Object[] all, int from) {
+        if (leaf != null) {
+            System.arraycopy(leaf, 0, all, from, leaf.length);
+        } else {
+            left.copyInto(all, from);
+            right.copyInto(all, from + left.size);
+        }
+    }
+
+    /**
+     * @return the height of this rope's tree, 0 for a single leaf
+     */
+    int height() {
+        return height;
+    }
+}
@@ -0,0 +1,150 @@
+package abc.sound;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mutable scheduler that adds measures to a SequencePlayer as they are read, so that playback
+ * can start before the whole tune has been parsed.
+ * 
+ * Voices are played in lockstep the same way as Voices.play: the i-th played measure of every voice
+ * starts at the same beat, and the next index starts after the longest of them. An index is scheduled
+ * as soon as every expected voice has reached it, or when finish() is called.
+ * The expected voices are those named in the header, plus the default voice until some other voice
+ * turns out to come first in the body. A voice that shows up later than that is fitted into the
+ * beats already scheduled for the indices it has missed, which may differ from Voices.play
+ * if its measures are longer than the ones already there.
+ */
+public class MeasureScheduler {
+    
+    private final SequencePlayer player;
+    private final Set<String> expected = new LinkedHashSet<>();
+    private final Map<String, List<Measure>> written = new HashMap<>();
+    private final Map<String, List<Measure>> played = new HashMap<>();
+    private final Map<String, RepeatExpander> expanders = new HashMap<>();
+    private final List<Rational> startBeats = new ArrayList<>();
+    private Rational beat = Rational.ZERO;
+    
+    //AF:
+    //  represents the music scheduled on player so far, where written.get(v) are the measures of voice v
+    //  as read, played.get(v) is their unrolling so far by expanders.get(v), startBeats.get(i) is the beat
+    //  at which the i-th played measure of every voice starts, and beat is where the next index starts
+    //RI:
+    //  player != null
+    //  written, played and expanders have the same key set, which includes expected
+    //  beat >= every value in startBeats
+    //rep exposure:
+    //  all fields are private and final except beat, which is immutable;
+    //  no method returns or keeps a reference to a mutable argument except player, which clients share on purpose
+    
+    // assert RI
+    private void checkRep() {
+        assert player != null;
+        assert written.keySet().equals(played.keySet());
+        assert written.keySet().equals(expanders.keySet());
+        assert written.keySet().containsAll(expected);
+        for (Rational start : startBeats) {
+            assert start.compareTo(beat) <= 0;
+        }
+    }
+    
+    /**
+     * Make a scheduler that adds notes to player, starting at beat 0.
+     * @param player player to schedule the notes on
+     * @param voiceNames names of the voices in the header of the tune
+     */
+    public MeasureScheduler(SequencePlayer player, Collection<String> voiceNames) {
+        this.player = player;
+        addVoice(Voices.DEFAULT_VOICE);
+        for (String name : voiceNames) {
+            addVoice(name);
+        }
+        checkRep();
+    }
+    
+    /**
+     * Start tracking a voice.
+     * @param name name of the voice
+     */
+    private void addVoice(String name) {
+        if (!written.containsKey(name)) {
+            written.put(name, new ArrayList<>());
+            played.put(name, new ArrayList<>());
+            expanders.put(name, new RepeatExpander());
+        }
+        expected.add(name);
+    }
+    
+    /**
+     * Add the next measure written for a voice, scheduling whatever it makes ready to play.
+     * @param voice name of the voice
+     * @param measure the measure, in the order of the voice's measures in the file
+     */
+    public void add(String voice, Measure measure) {
+        if (!voice.equals(Voices.DEFAULT_VOICE) && written.get(Voices.DEFAULT_VOICE).isEmpty()) {
+            expected.remove(Voices.DEFAULT_VOICE);
+        }
+        addVoice(voice);
+        written.get(voice).add(measure);
+        List<Measure> voicePlayed = played.get(voice);
+        int before = voicePlayed.size();
+        expanders.get(voice).expand(written.get(voice), voicePlayed);
+        for (int i = before; i < Math.min(voicePlayed.size(), startBeats.size()); i++) {
+            voicePlayed.get(i).play(player, startBeats.get(i));
+        }
+        scheduleReady(false);
+        checkRep();
+    }
+    
+    /**
+     * Schedule everything added so far, once no more measures are coming.
+     */
+    public void finish() {
+        scheduleReady(true);
+        checkRep();
+    }
+    
+    /**
+     * @return the beat at which everything scheduled so far has finished playing
+     */
+    public double scheduledBeats() {
+        return beat.toDouble();
+    }
+    
+    /**
+     * Schedule the next indices while they are ready.
+     * @param all true to schedule up to the longest voice, false to stop at the shortest expected voice
+     */
+    private void scheduleReady(boolean all) {
+        while (true) {
+            int index = startBeats.size();
+            boolean anyLeft = false;
+            boolean allReady = true;
+            for (String name : expected) {
+                if (played.get(name).size() > index) {
+                    anyLeft = true;
+                } else {
+                    allReady = false;
+                }
+            }
+            if (!anyLeft || !(allReady || all)) {
+                return;
+            }
+            Rational maxDuration = Rational.ZERO;
+            for (List<Measure> voicePlayed : played.values()) {
+                if (index < voicePlayed.size()) {
+                    Measure measure = voicePlayed.get(index);
+                    measure.play(player, beat);
+                    maxDuration = maxDuration.max(measure.exactDuration());
+                }
+            }
+            startBeats.add(beat);
+            beat = beat.plus(maxDuration);
+        }
+    }
+}
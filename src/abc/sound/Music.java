@@ -5,22 +5,43 @@ package abc.sound;
  */
 public interface Music {
     
-    // Music = Note(duration: double, pitch: Pitch, instrument: Instrument) + Rest(duration: double) + Chord(notes: Set<Note>) 
+    // Music = Note(duration: Rational, pitch: Pitch, instrument: Instrument) + Rest(duration: Rational) + Chord(notes: Set<Note>) 
     //        + Measure(notes: List<Music>, measureDuration: int, startRepeat: boolean, endRepeat: boolean,
     //                  startFirstEnding: boolean, startSecondEnding: boolean, endMajorSection: boolean)
     //        + Tuplet(notes: Music[]) + Voice(measures: List<Measure>) + Voices(voices: Map<String, Voice>)
     
     /**
-     * @return total duration of this piece in beats
+     * @return total duration of this piece in beats, exactly
      */
-    public double duration();
+    public Rational exactDuration();
+    
+    /**
+     * @return total duration of this piece in beats, as the nearest double to exactDuration()
+     */
+    public default double duration() {
+        return exactDuration().toDouble();
+    }
+    
+    /**
+     * @return the number of notes this piece plays, with its repeats unrolled and every note of a chord counted
+     */
+    public long noteCount();
     
     /**
      * Play this piece.
      * @param player player to play on
-     * @param atBeat when to play
+     * @param atBeat when to play, >= 0
      */
-    public void play(SequencePlayer player, double atBeat);
+    public void play(SequencePlayer player, Rational atBeat);
+    
+    /**
+     * Play this piece, as play(player, Rational.valueOf(atBeat)) does.
+     * @param player player to play on
+     * @param atBeat when to play, >= 0
+     */
+    public default void play(SequencePlayer player, double atBeat) {
+        play(player, Rational.valueOf(atBeat));
+    }
 
     /**
      * Scale the duration of this piece of music by factor scale
@@ -29,7 +50,18 @@ public interface Music {
      *         except for a proportional speed, which result in
      *         a duration proportion of scale
      */
-    public Music rescale(double scale);
+    public Music rescale(Rational scale);
+    
+    /**
+     * Scale the duration of this piece of music by factor scale, as rescale(Rational.valueOf(scale)) does
+     * @param scale the non-negative scaling factor
+     * @return a piece of music that is identical to this music 
+     *         except for a proportional speed, which result in
+     *         a duration proportion of scale
+     */
+    public default Music rescale(double scale) {
+        return rescale(Rational.valueOf(scale));
+    }
     
     /**
      * 
@@ -0,0 +1,265 @@
+package abc.sound;
+
+import static abc.sound.MusicWriter.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads Music trees written by MusicWriter, decoding straight from a ByteBuffer,
+ * e.g. a file mapped into memory, without copying the bytes first.
+ * Reads must be made in the order the matching writes were made.
+ */
+public class MusicReader {
+
+    private static final Instrument[] INSTRUMENTS = Instrument.values();
+
+    private final ByteBuffer in;
+    private Instrument instrument = null;
+    private final Rational[] recentDurations = new Rational[RECENT_DURATIONS];
+    private int measureDuration = -1;
+
+    //AF:
+    //  represents a reader whose remaining input is in[in.position():in.limit()];
+    //  instrument is that of the last note read, or null if there is none; recentDurations are the
+    //  distinct durations of the notes and rests read, most recent first, padded with null;
+    //  measureDuration is the specified duration of the last measure read, or -1 if there is none
+    //RI:
+    //  in != null
+    //  recentDurations.length == RECENT_DURATIONS
+    //rep exposure:
+    //  in is a private view of the caller's buffer, so reading moves only its own position;
+    //  it is never returned
+
+    // check RI
+    private void checkRep() {
+        assert in != null;
+        assert recentDurations.length == RECENT_DURATIONS;
+    }
+
+    /**
+     * Make a reader.
+     * @param in bytes written by MusicWriter, from in.position() to in.limit(); the reader
+     *           does not change in's position or contents
+     */
+    public MusicReader(ByteBuffer in) {
+        this.in = in.duplicate();
+        checkRep();
+    }
+
+    /**
+     * @return the number of bytes left to read
+     */
+    public int remaining() {
+        return in.remaining();
+    }
+
+    /**
+     * Read music written by MusicWriter.write.
+     * @return the music that was written
+     * @throws IOException if the input does not hold music in this format
+     */
+    public Music read() throws IOException {
+        int tag = readByte();
+        if ((tag & ~NOTE_FLAGS) == NOTE) {
+            return readNote(tag);
+        }
+        if ((tag & ~NEW_DURATION) == REST) {
+            return new Rest(readTime(tag));
+        }
+        switch (tag) {
+        case CHORD: {
+            int size = readCount();
+            Set<Note> notes = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                notes.add(readNote(readByte()));
+            }
+            return new Chord(notes);
+        }
+        case TUPLET: {
+            int size = readCount();
+            if (size < 2 || size > 4) {
+                throw new IOException("bad tuplet size " + size);
+            }
+            Music[] notes = new Music[size];
+            for (int i = 0; i < size; i++) {
+                notes[i] = read();
+            }
+            return Tuplet.ofScaled(notes);
+        }
+        case MEASURE:
+            return readMeasure();
+        case VOICE:
+            return readVoice();
+        case VOICES: {
+            int size = readCount();
+            Map<String, Voice> voices = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                String name = readString();
+                voices.put(name, readVoice());
+            }
+            return new Voices(voices);
+        }
+        default:
+            throw new IOException("bad tag " + tag);
+        }
+    }
+
+    /**
+     * Read a byte written by MusicWriter.writeByte.
+     * @return the byte, 0 to 255
+     * @throws IOException if there is no byte left
+     */
+    public int readByte() throws IOException {
+        try {
+            return in.get() & 0xFF;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated input", e);
+        }
+    }
+
+    /**
+     * Read a number written by MusicWriter.writeVarint.
+     * @return the number
+     * @throws IOException if the input does not hold a varint
+     */
+    public long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new IOException("varint too long");
+    }
+
+    /**
+     * Read a number written by MusicWriter.writeSignedVarint.
+     * @return the number
+     * @throws IOException if the input does not hold a varint
+     */
+    public long readSignedVarint() throws IOException {
+        long zigzag = readVarint();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Read a duration written by MusicWriter.writeDuration.
+     * @return the duration
+     * @throws IOException if the input does not hold a duration
+     */
+    public Rational readDuration() throws IOException {
+        long numerator = readVarint();
+        long denominator = readVarint();
+        if (numerator < 0 || denominator <= 0) {
+            throw new IOException("bad duration " + numerator + "/" + denominator);
+        }
+        return Rational.of(numerator, denominator);
+    }
+
+    /**
+     * Read a number written by MusicWriter.writeDouble.
+     * @return the number
+     * @throws IOException if there are not 8 bytes left
+     */
+    public double readDouble() throws IOException {
+        long bits = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            bits |= (long) readByte() << shift;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Read a string written by MusicWriter.writeString.
+     * @return the string
+     * @throws IOException if the input does not hold a string
+     */
+    public String readString() throws IOException {
+        int length = readCount();
+        if (length > in.remaining()) {
+            throw new IOException("truncated input");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // a count of things that follow, each of which takes at least one byte
+    private int readCount() throws IOException {
+        long count = readVarint();
+        if (count > in.remaining()) {
+            throw new IOException("bad count " + count);
+        }
+        return (int) count;
+    }
+
+    private Note readNote(int tag) throws IOException {
+        if ((tag & ~NOTE_FLAGS) != NOTE) {
+            throw new IOException("expected a note but saw tag " + tag);
+        }
+        if ((tag & NEW_INSTRUMENT) != 0) {
+            long ordinal = readVarint();
+            if (ordinal >= INSTRUMENTS.length) {
+                throw new IOException("bad instrument " + ordinal);
+            }
+            instrument = INSTRUMENTS[(int) ordinal];
+        }
+        if (instrument == null) {
+            throw new IOException("note before any instrument was given");
+        }
+        Rational duration = readTime(tag);
+        return new Note(duration, Pitch.MIDDLE_C.transpose((int) readSignedVarint()), instrument);
+    }
+
+    // the duration of a note or rest with this tag: the one that follows if the tag says so,
+    // else the recent one it names
+    private Rational readTime(int tag) throws IOException {
+        int slot = (tag & NEW_DURATION) >> DURATION_SHIFT;
+        Rational duration = slot == RECENT_DURATIONS ? readDuration() : recentDurations[slot];
+        if (duration == null) {
+            throw new IOException("note or rest refers to a duration that was not given");
+        }
+        useDuration(recentDurations, slot, duration);
+        return duration;
+    }
+
+    private Measure readMeasure() throws IOException {
+        int flags = readByte();
+        if ((flags & NEW_MEASURE_DURATION) != 0) {
+            long duration = readVarint();
+            if (duration > Integer.MAX_VALUE) {
+                throw new IOException("bad measure duration " + duration);
+            }
+            measureDuration = (int) duration;
+        } else if (measureDuration < 0) {
+            throw new IOException("measure before any duration was given");
+        }
+        int size = readCount();
+        List<Music> notes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            notes.add(read());
+        }
+        return new Measure(notes, measureDuration, (flags & START_REPEAT) != 0, (flags & END_REPEAT) != 0,
+                (flags & START_FIRST_ENDING) != 0, (flags & START_SECOND_ENDING) != 0, (flags & END_MAJOR_SECTION) != 0);
+    }
+
+    private Voice readVoice() throws IOException {
+        int size = readCount();
+        List<Measure> measures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            measures.add(readMeasure());
+        }
+        return new Voice(measures);
+    }
+}
@@ -0,0 +1,284 @@
+package abc.sound;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes Music trees to an OutputStream in a compact binary form that MusicReader reads back.
+ * Music is written as it is visited, through a small buffer, so no copy of the whole encoding
+ * is ever held in memory.
+ *
+ * Each node is a tag byte followed by its fields and then its children. Counts, pitches and
+ * durations are varints (7 bits per byte, low bits first): a pitch is its zigzag-encoded
+ * distance from middle C, and a duration is the exact fraction of beats it lasts, as its numerator
+ * and then its denominator in lowest terms. Fields that usually repeat are left out when they do:
+ * a note's tag says whether its instrument differs from the last note's, and a note's or rest's
+ * tag says which of the last RECENT_DURATIONS distinct durations it has, if any, so most notes
+ * take two bytes and most rests one; a measure only gives its specified duration when it changes.
+ * The format has no version of its own; whoever stores it is responsible for versioning it.
+ */
+public class MusicWriter {
+
+    static final int CHORD = 4;
+    static final int TUPLET = 5;
+    static final int MEASURE = 6;
+    static final int VOICE = 7;
+    static final int VOICES = 8;
+    static final int NOTE = 16;
+    static final int REST = 32;
+    static final int NOTE_FLAGS = 7;
+    static final int NEW_INSTRUMENT = 1;
+    static final int DURATION_SHIFT = 1;
+    static final int RECENT_DURATIONS = 3;
+    static final int NEW_DURATION = RECENT_DURATIONS << DURATION_SHIFT;
+
+    static final int START_REPEAT = 1;
+    static final int END_REPEAT = 2;
+    static final int START_FIRST_ENDING = 4;
+    static final int START_SECOND_ENDING = 8;
+    static final int END_MAJOR_SECTION = 16;
+    static final int NEW_MEASURE_DURATION = 32;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count = 0;
+    private Instrument instrument = null;
+    private final Rational[] recentDurations = new Rational[RECENT_DURATIONS];
+    private int measureDuration = -1;
+
+    //AF:
+    //  represents a writer whose output so far is everything written to out followed by buffer[0:count];
+    //  instrument is that of the last note written, or null if there is none; recentDurations are the
+    //  distinct durations of the notes and rests written, most recent first, padded with null;
+    //  measureDuration is the specified duration of the last measure written, or -1 if there is none
+    //RI:
+    //  0 <= count <= buffer.length
+    //  recentDurations.length == RECENT_DURATIONS
+    //rep exposure:
+    //  all fields are private; buffer is never returned, and out is only written to
+
+    // check RI
+    private void checkRep() {
+        assert 0 <= count && count <= buffer.length;
+        assert recentDurations.length == RECENT_DURATIONS;
+    }
+
+    /**
+     * Make a writer.
+     * @param out destination of the binary form; the writer does not close it
+     */
+    public MusicWriter(OutputStream out) {
+        this.out = out;
+        checkRep();
+    }
+
+    /**
+     * Write music.
+     * @param music music made of Note, Rest, Chord, Tuplet, Measure, Voice and Voices
+     * @throws IOException if out cannot be written
+     */
+    public void write(Music music) throws IOException {
+        if (music instanceof Note) {
+            writeNote((Note) music);
+        } else if (music instanceof Rest) {
+            int slot = durationSlot(music.exactDuration());
+            writeByte(REST | slot << DURATION_SHIFT);
+            writeTime(slot, music.exactDuration());
+        } else if (music instanceof Chord) {
+            writeByte(CHORD);
+            writeVarint(((Chord) music).getNotes().size());
+            for (Note note : ((Chord) music).getNotes()) {
+                writeNote(note);
+            }
+        } else if (music instanceof Tuplet) {
+            Music[] notes = ((Tuplet) music).notes();
+            writeByte(TUPLET);
+            writeVarint(notes.length);
+            for (Music note : notes) {
+                write(note);
+            }
+        } else if (music instanceof Measure) {
+            writeByte(MEASURE);
+            writeMeasure((Measure) music);
+        } else if (music instanceof Voice) {
+            writeByte(VOICE);
+            writeVoice((Voice) music);
+        } else if (music instanceof Voices) {
+            Map<String, Music> voices = ((Voices) music).getVoices();
+            writeByte(VOICES);
+            writeVarint(voices.size());
+            for (Map.Entry<String, Music> entry : voices.entrySet()) {
+                writeString(entry.getKey());
+                writeVoice((Voice) entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("cannot write " + music.getClass().getName());
+        }
+        checkRep();
+    }
+
+    /**
+     * Write a single byte.
+     * @param b byte to write, in its low 8 bits
+     * @throws IOException if out cannot be written
+     */
+    public void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    /**
+     * Write a non-negative number as a varint.
+     * @param value number to write, >= 0
+     * @throws IOException if out cannot be written
+     */
+    public void writeVarint(long value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative varint " + value);
+        }
+        writeUnsigned(value);
+    }
+
+    // write value as a varint, treating it as unsigned
+    private void writeUnsigned(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    /**
+     * Write a number that may be negative as a zigzag-encoded varint, so small magnitudes stay short.
+     * @param value number to write
+     * @throws IOException if out cannot be written
+     */
+    public void writeSignedVarint(long value) throws IOException {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write a duration exactly, as its numerator and then its denominator.
+     * @param duration duration to write, >= 0
+     * @throws IOException if out cannot be written
+     */
+    public void writeDuration(Rational duration) throws IOException {
+        writeVarint(duration.numerator());
+        writeVarint(duration.denominator());
+    }
+
+    /**
+     * Write a double exactly, as the 8 bytes of its bits, low byte first.
+     * @param value number to write
+     * @throws IOException if out cannot be written
+     */
+    public void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            writeByte((int) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Write a string as its length in UTF-8 bytes, then the bytes.
+     * @param string string to write
+     * @throws IOException if out cannot be written
+     */
+    public void writeString(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    /**
+     * Write everything written so far to out, and flush out.
+     * @throws IOException if out cannot be written
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    private void writeNote(Note note) throws IOException {
+        boolean newInstrument = note.instrument() != instrument;
+        int slot = durationSlot(note.exactDuration());
+        writeByte(NOTE | (newInstrument ? NEW_INSTRUMENT : 0) | slot << DURATION_SHIFT);
+        if (newInstrument) {
+            instrument = note.instrument();
+            writeVarint(instrument.ordinal());
+        }
+        writeTime(slot, note.exactDuration());
+        writeSignedVarint(note.pitch().difference(Pitch.MIDDLE_C));
+    }
+
+    // the index of duration in recentDurations, or RECENT_DURATIONS if it is not there
+    private int durationSlot(Rational duration) {
+        int slot = 0;
+        while (slot < RECENT_DURATIONS && !duration.equals(recentDurations[slot])) {
+            slot++;
+        }
+        return slot;
+    }
+
+    // write duration if it is new, and make it the most recent
+    private void writeTime(int slot, Rational duration) throws IOException {
+        if (slot == RECENT_DURATIONS) {
+            writeDuration(duration);
+        }
+        useDuration(recentDurations, slot, duration);
+    }
+
+    /**
+     * Make duration the most recent of recent.
+     * @param recent distinct durations, most recent first, modified
+     * @param slot index of duration in recent, or recent.length if it is not there
+     * @param duration the duration
+     */
+    static void useDuration(Rational[] recent, int slot, Rational duration) {
+        for (int i = Math.min(slot, recent.length - 1); i > 0; i--) {
+            recent[i] = recent[i - 1];
+        }
+        recent[0] = duration;
+    }
+
+    private void writeMeasure(Measure measure) throws IOException {
+        List<Music> notes = measure.notes();
+        int flags = (measure.isStartRepeat() ? START_REPEAT : 0)
+                | (measure.isEndRepeat() ? END_REPEAT : 0)
+                | (measure.isStartFirstEnding() ? START_FIRST_ENDING : 0)
+                | (measure.isStartSecondEnding() ? START_SECOND_ENDING : 0)
+                | (measure.isEndMajorSection() ? END_MAJOR_SECTION : 0)
+                | (measure.measureDuration() != measureDuration ? NEW_MEASURE_DURATION : 0);
+        writeByte(flags);
+        if ((flags & NEW_MEASURE_DURATION) != 0) {
+            measureDuration = measure.measureDuration();
+            writeVarint(measureDuration);
+        }
+        writeVarint(notes.size());
+        for (Music note : notes) {
+            write(note);
+        }
+    }
+
+    private void writeVoice(Voice voice) throws IOException {
+        List<Measure> measures = voice.measures();
+        writeVarint(measures.size());
+        for (Measure measure : measures) {
+            writeMeasure(measure);
+        }
+    }
+}
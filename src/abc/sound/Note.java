@@ -10,13 +10,13 @@ public class Note implements Music {
     //  using duration, pitch and instrument to represent 
     //  a note with a pitch played by an instrument that lasts for a duration
     //RI:
-    //  duration is nonegative
+    //  duration is nonegative and not null
     //  pitch != null
     //  instrument != null
     //rep exposure:
-    //  duration, pitch and instrument are all private final and either immutable data type or primitive
+    //  duration, pitch and instrument are all private final and immutable data types
     
-    private final double duration;
+    private final Rational duration;
     private final Pitch pitch;
     private final Instrument instrument;
     private static final Instrument DEFAULT_INSTRUMENT = Instrument.GOBLINS;
@@ -25,7 +25,7 @@ public class Note implements Music {
      * check RI
      */
     private void checkRep() {
-        assert duration >= 0;
+        assert duration.signum() >= 0;
         assert pitch != null;
         assert instrument != null;
     }
@@ -36,7 +36,7 @@ public class Note implements Music {
      * @param pitch pitch to play
      * @param instrument instrument to use
      */
-    public Note(double duration, Pitch pitch, Instrument instrument) {
+    public Note(Rational duration, Pitch pitch, Instrument instrument) {
         this.duration = duration;
         this.pitch = pitch;
         this.instrument = instrument;
@@ -44,16 +44,31 @@ public class Note implements Music {
     }
     
     /**
-     * Make a Note played by instrument for duration beats.
+     * Make a Note played by the default instrument for duration beats.
+     * @param duration duration in beats, must be >= 0
+     * @param pitch pitch to play
+     */
+    public Note(Rational duration, Pitch pitch) {
+        this(duration, pitch, DEFAULT_INSTRUMENT);
+    }
+    
+    /**
+     * Make a Note played by instrument for duration beats, taken as Rational.valueOf(duration).
      * @param duration duration in beats, must be >= 0
      * @param pitch pitch to play
      * @param instrument instrument to use
      */
+    public Note(double duration, Pitch pitch, Instrument instrument) {
+        this(Rational.valueOf(duration), pitch, instrument);
+    }
+    
+    /**
+     * Make a Note played by the default instrument for duration beats, taken as Rational.valueOf(duration).
+     * @param duration duration in beats, must be >= 0
+     * @param pitch pitch to play
+     */
     public Note(double duration, Pitch pitch) {
-        this.duration = duration;
-        this.pitch = pitch;
-        this.instrument = DEFAULT_INSTRUMENT;
-        checkRep();
+        this(Rational.valueOf(duration), pitch, DEFAULT_INSTRUMENT);
     }
     
     /**
@@ -73,7 +88,8 @@ public class Note implements Music {
     /**
      * @return duration of this note
      */
-    public double duration() {
+    @Override
+    public Rational exactDuration() {
         return duration;
     }
     
@@ -87,14 +103,18 @@ public class Note implements Music {
     }
     
     @Override
-    public void play(SequencePlayer player, double atBeat) {
+    public long noteCount() {
+        return 1;
+    }
+    
+    @Override
+    public void play(SequencePlayer player, Rational atBeat) {
         player.addNote(pitch.toMidiNote(), atBeat, duration);
     }
 
     @Override
     public int hashCode() {
-        long durationBits = Double.doubleToLongBits(duration);
-        return (int) (durationBits ^ (durationBits >>> 32))
+        return duration.hashCode()
                 + instrument.hashCode()
                 + pitch.hashCode();
     }
@@ -106,7 +126,7 @@ public class Note implements Music {
         if (getClass() != obj.getClass()) return false;
         
         final Note other = (Note) obj;
-        return duration == other.duration
+        return duration.equals(other.duration)
                 && instrument.equals(other.instrument)
                 && pitch.equals(other.pitch);
     }
@@ -116,11 +136,16 @@ public class Note implements Music {
      */
     @Override
     public String toString() {
-        return pitch.toString() + duration;
+        return pitch.toString() + duration();
+    }
+
+    @Override
+    public Note rescale(Rational scale) {
+        return new Note(duration.times(scale), pitch, instrument);
     }
 
     @Override
     public Note rescale(double scale) {
-        return new Note(scale * duration, pitch, instrument);
+        return rescale(Rational.valueOf(scale));
     }
 }
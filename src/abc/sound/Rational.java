@@ -0,0 +1,321 @@
+package abc.sound;
+
+import java.math.BigInteger;
+
+/**
+ * An exact fraction, for lengths and times in beats: immutable, and always in lowest terms with a positive
+ * denominator, so equal fractions are equal objects. Arithmetic that would overflow a long throws ArithmeticException
+ * rather than lose precision. Small whole numbers and the lengths of common notes are shared rather than made anew.
+ */
+public final class Rational implements Comparable<Rational> {
+
+    /** 0 */
+    public static final Rational ZERO = new Rational(0, 1);
+    /** 1 */
+    public static final Rational ONE = new Rational(1, 1);
+
+    // shared fractions n/d for 0 <= n < CACHED_NUMERATORS and d in 1, 2, 4, ..., 2^(CACHED_POWERS - 1)
+    private static final int CACHED_NUMERATORS = 64;
+    private static final int CACHED_POWERS = 6;
+    private static final Rational[][] CACHE = new Rational[CACHED_POWERS][CACHED_NUMERATORS];
+    static {
+        for (int power = 0; power < CACHED_POWERS; power++) {
+            for (int n = 0; n < CACHED_NUMERATORS; n++) {
+                long d = 1L << power;
+                long divisor = gcd(n, d);
+                CACHE[power][n] = n == 0 ? ZERO : n == d ? ONE : new Rational(n / divisor, d / divisor);
+            }
+        }
+    }
+
+    // how close, relative to its size, the fraction valueOf gives must be to the double it is given
+    private static final double VALUE_OF_TOLERANCE = 1e-12;
+
+    private final long numerator;
+    private final long denominator;
+
+    //AF:
+    //  represents the fraction numerator / denominator
+    //RI:
+    //  denominator > 0, and gcd(|numerator|, denominator) == 1, so 0 is 0/1
+    //rep exposure:
+    //  all fields are private final primitives
+
+    // check RI
+    private void checkRep() {
+        assert denominator > 0;
+        assert gcd(Math.abs(numerator), denominator) == 1;
+    }
+
+    private Rational(long numerator, long denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        checkRep();
+    }
+
+    /**
+     * @param numerator the numerator
+     * @param denominator the denominator, != 0
+     * @return numerator / denominator
+     * @throws ArithmeticException if denominator == 0, or the fraction cannot be held in lowest terms in longs
+     */
+    public static Rational of(long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("zero denominator: " + numerator + "/0");
+        }
+        if (denominator < 0) {
+            numerator = Math.negateExact(numerator);
+            denominator = Math.negateExact(denominator);
+        }
+        long divisor = gcd(Math.abs(numerator), denominator);
+        return make(numerator / divisor, denominator / divisor);
+    }
+
+    /**
+     * @param n a whole number
+     * @return n / 1
+     */
+    public static Rational of(long n) {
+        return make(n, 1);
+    }
+
+    // the fraction n / d, already in lowest terms with d > 0, shared if it is cached
+    private static Rational make(long n, long d) {
+        if (n >= 0 && n < CACHED_NUMERATORS && (d & (d - 1)) == 0) {
+            int power = Long.numberOfTrailingZeros(d);
+            if (power < CACHED_POWERS) {
+                return CACHE[power][(int) n];
+            }
+        }
+        return new Rational(n, d);
+    }
+
+    /**
+     * The simplest fraction that a double stands for, found from its continued fraction: e.g. 0.5 is 1/2,
+     * 1.0/3 is 1/3, and 0.1 * 3, which is a little over 0.3 as a double, is 3/10. Doubles that come from
+     * arithmetic on note lengths carry rounding error that would otherwise give fractions with enormous
+     * denominators, which overflow as soon as a few of them are added up.
+     * @param value a finite number
+     * @return the first convergent of value's continued fraction within VALUE_OF_TOLERANCE of value, relative
+     *         to its size, or the closest one that fits in longs
+     * @throws IllegalArgumentException if value is NaN or infinite
+     * @throws ArithmeticException if |value| >= 2^63, too large for a long
+     */
+    public static Rational valueOf(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("not a number of beats: " + value);
+        }
+        // (double) Long.MAX_VALUE is 2^63; every double that large is whole, and none of them fits in a long
+        if (Math.abs(value) >= Long.MAX_VALUE) {
+            throw new ArithmeticException("too large for a fraction of longs: " + value);
+        }
+        if (value == Math.rint(value)) {
+            return of((long) value);
+        }
+        // convergents h/k of the continued fraction of value
+        long h = 1, k = 0, previousH = 0, previousK = 1;
+        double rest = value;
+        while (true) {
+            double whole = Math.floor(rest);
+            // only a later term can be this large, once k > 0, since value itself is checked above
+            if (Math.abs(whole) >= Long.MAX_VALUE) {
+                return of(h, k);
+            }
+            long a = (long) whole;
+            long nextH, nextK;
+            try {
+                nextH = Math.addExact(Math.multiplyExact(a, h), previousH);
+                nextK = Math.addExact(Math.multiplyExact(a, k), previousK);
+            } catch (ArithmeticException e) {
+                return of(h, k);
+            }
+            previousH = h;
+            previousK = k;
+            h = nextH;
+            k = nextK;
+            if (Math.abs((double) h / k - value) <= VALUE_OF_TOLERANCE * Math.abs(value) || rest == whole) {
+                return of(h, k);
+            }
+            rest = 1 / (rest - whole);
+        }
+    }
+
+    // greatest common divisor of a >= 0 and b >= 0, not both 0
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * @return the numerator, in lowest terms
+     */
+    public long numerator() {
+        return numerator;
+    }
+
+    /**
+     * @return the denominator, in lowest terms, > 0
+     */
+    public long denominator() {
+        return denominator;
+    }
+
+    /**
+     * @param that a fraction
+     * @return this + that
+     * @throws ArithmeticException if the result does not fit in longs
+     */
+    public Rational plus(Rational that) {
+        if (that.numerator == 0) {
+            return this;
+        }
+        if (this.numerator == 0) {
+            return that;
+        }
+        if (denominator == that.denominator) {
+            return of(Math.addExact(numerator, that.numerator), denominator);
+        }
+        // add over the least common denominator, to keep the intermediate numbers small
+        long divisor = gcd(denominator, that.denominator);
+        long thisScale = that.denominator / divisor;
+        long thatScale = denominator / divisor;
+        return of(Math.addExact(Math.multiplyExact(numerator, thisScale), Math.multiplyExact(that.numerator, thatScale)),
+                Math.multiplyExact(denominator, thisScale));
+    }
+
+    /**
+     * @param that a fraction
+     * @return this - that
+     * @throws ArithmeticException if the result does not fit in longs
+     */
+    public Rational minus(Rational that) {
+        return plus(that.negate());
+    }
+
+    /**
+     * @return -this
+     * @throws ArithmeticException if the result does not fit in longs
+     */
+    public Rational negate() {
+        return make(Math.negateExact(numerator), denominator);
+    }
+
+    /**
+     * @param that a fraction
+     * @return this * that
+     * @throws ArithmeticException if the result does not fit in longs
+     */
+    public Rational times(Rational that) {
+        if (that.denominator == 1 && that.numerator == 1) {
+            return this;
+        }
+        if (numerator == 0 || that.numerator == 0) {
+            return ZERO;
+        }
+        // cancel across before multiplying, so the products are already in lowest terms
+        long a = gcd(Math.abs(numerator), that.denominator);
+        long b = gcd(Math.abs(that.numerator), denominator);
+        return make(Math.multiplyExact(numerator / a, that.numerator / b),
+                Math.multiplyExact(denominator / b, that.denominator / a));
+    }
+
+    /**
+     * @param n a whole number
+     * @return this * n
+     * @throws ArithmeticException if the result does not fit in longs
+     */
+    public Rational times(long n) {
+        return times(make(n, 1));
+    }
+
+    /**
+     * @param that a fraction, != 0
+     * @return this / that
+     * @throws ArithmeticException if that == 0, or the result does not fit in longs
+     */
+    public Rational dividedBy(Rational that) {
+        if (that.numerator == 0) {
+            throw new ArithmeticException("division by zero");
+        }
+        return times(that.numerator < 0 ? make(Math.negateExact(that.denominator), -that.numerator)
+                : make(that.denominator, that.numerator));
+    }
+
+    /**
+     * @return -1, 0 or 1 as this is negative, 0 or positive
+     */
+    public int signum() {
+        return Long.signum(numerator);
+    }
+
+    /**
+     * @param that a fraction
+     * @return the larger of this and that
+     */
+    public Rational max(Rational that) {
+        return compareTo(that) >= 0 ? this : that;
+    }
+
+    /**
+     * @return the largest whole number <= this
+     */
+    public long floor() {
+        return Math.floorDiv(numerator, denominator);
+    }
+
+    /**
+     * @param ticksPerBeat ticks in a beat, > 0
+     * @return the tick this many beats falls on, rounded down to a whole tick
+     * @throws ArithmeticException if the tick does not fit in a long
+     */
+    public long toTicks(long ticksPerBeat) {
+        return times(ticksPerBeat).floor();
+    }
+
+    /**
+     * @return the double nearest this
+     */
+    public double toDouble() {
+        return (double) numerator / denominator;
+    }
+
+    @Override
+    public int compareTo(Rational that) {
+        if (denominator == that.denominator) {
+            return Long.compare(numerator, that.numerator);
+        }
+        try {
+            return Long.compare(Math.multiplyExact(numerator, that.denominator),
+                    Math.multiplyExact(that.numerator, denominator));
+        } catch (ArithmeticException e) {
+            return BigInteger.valueOf(numerator).multiply(BigInteger.valueOf(that.denominator))
+                    .compareTo(BigInteger.valueOf(that.numerator).multiply(BigInteger.valueOf(denominator)));
+        }
+    }
+
+    @Override
+    public boolean equals(Object thatObject) {
+        if (!(thatObject instanceof Rational)) {
+            return false;
+        }
+        Rational that = (Rational) thatObject;
+        return numerator == that.numerator && denominator == that.denominator;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(numerator) * 31 + Long.hashCode(denominator);
+    }
+
+    /**
+     * @return "n" if this is whole, otherwise "n/d" in lowest terms
+     */
+    @Override
+    public String toString() {
+        return denominator == 1 ? Long.toString(numerator) : numerator + "/" + denominator;
+    }
+}
@@ -0,0 +1,74 @@
+package abc.sound;
+
+import java.util.List;
+
+/**
+ * Mutable unrolling of the repeats and endings in a growing list of written measures into the
+ * list of measures actually played. The unrolling only ever looks at measures it has already
+ * reached, so it can be run again each time more measures are written, and picks up where it stopped.
+ */
+class RepeatExpander {
+    
+    private boolean repeating = false;
+    private int startRepeatPosition = 0;
+    private int endRepeatPosition = 0;
+    private int pos = 0;
+    
+    //AF:
+    //  represents the progress through a list of written measures, where pos is the next measure to read,
+    //  startRepeatPosition is where the current repeat goes back to, and if repeating,
+    //  the repeat ending at endRepeatPosition is being played for the second time
+    //RI:
+    //  0 <= startRepeatPosition, 0 <= endRepeatPosition, 0 <= pos
+    //rep exposure:
+    //  all fields are private and primitive
+    
+    // assert RI
+    private void checkRep() {
+        assert startRepeatPosition >= 0;
+        assert endRepeatPosition >= 0;
+        assert pos >= 0;
+    }
+    
+    /**
+     * Play through as much of measures as has not been played yet.
+     * @param measures the measures written so far; must start with the measures passed to
+     *        every earlier call on this expander
+     * @param expanded list to add the measures played to, in order
+     */
+    void expand(List<Measure> measures, List<Measure> expanded) {
+        while (pos < measures.size()) {
+            if(measures.get(pos).isStartRepeat() && pos > startRepeatPosition) {
+                startRepeatPosition = pos;
+            }
+            if(measures.get(pos).isEndMajorSection()) {
+                startRepeatPosition = pos + 1;
+            }
+            if(repeating) {
+                if(measures.get(pos).isStartFirstEnding()) {
+                    pos = endRepeatPosition + 1;
+                    repeating = false;
+                    continue;
+                }
+                if(measures.get(pos).isEndRepeat()) {
+                    repeating = false;
+                    expanded.add(measures.get(pos));
+                    pos++;
+                    continue;
+                }
+            }
+            else {
+                if(measures.get(pos).isEndRepeat()) {
+                    repeating = true;
+                    endRepeatPosition = pos;
+                    expanded.add(measures.get(pos));
+                    pos = startRepeatPosition;
+                    continue;
+                }
+            }
+            expanded.add(measures.get(pos));
+            pos++;
+        }
+        checkRep();
+    }
+}
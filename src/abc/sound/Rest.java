@@ -9,42 +9,54 @@ public class Rest implements Music {
     //  represents a rest lasting for a length of duration
     //  use a rest of length 0 to represent empty music
     //RI:
-    //  duration is non-negative
+    //  duration is non-negative and not null
     //rep exposure:
-    //  duration is private, final, and primitive
+    //  duration is private, final, and immutable
     
-    private final double duration;
+    private final Rational duration;
     
     /**
      * check RI
      */
     private void checkRep() {
-        assert duration >= 0;
+        assert duration.signum() >= 0;
     }
     
     /**
      * Make a Rest that lasts for duration beats.
      * @param duration duration in beats, must be >= 0
      */
-    public Rest(double duration) { 
+    public Rest(Rational duration) { 
         this.duration = duration; 
         checkRep();
     }
     
+    /**
+     * Make a Rest that lasts for duration beats, taken as Rational.valueOf(duration).
+     * @param duration duration in beats, must be >= 0
+     */
+    public Rest(double duration) { 
+        this(Rational.valueOf(duration));
+    }
+    
     @Override
-    public double duration() { 
+    public Rational exactDuration() { 
         return duration; 
     }
     
     @Override
-    public void play(SequencePlayer player, double atBeat) {
+    public long noteCount() {
+        return 0;
+    }
+    
+    @Override
+    public void play(SequencePlayer player, Rational atBeat) {
         return;
     }
     
     @Override
     public int hashCode() {
-        long durationBits = Double.doubleToLongBits(duration);
-        return (int) (durationBits ^ (durationBits >>> 32));
+        return duration.hashCode();
     }
 
     @Override
@@ -54,7 +66,7 @@ public class Rest implements Music {
         if (getClass() != obj.getClass()) return false;
         
         final Rest other = (Rest) obj;
-        return duration == other.duration;
+        return duration.equals(other.duration);
     }
     
     /**
@@ -62,11 +74,16 @@ public class Rest implements Music {
      */
     @Override
     public String toString() {
-        return "." + duration;
+        return "." + duration();
+    }
+
+    @Override
+    public Rest rescale(Rational scale) {
+        return new Rest(duration.times(scale));
     }
 
     @Override
     public Rest rescale(double scale) {
-        return new Rest(duration * scale);
+        return rescale(Rational.valueOf(scale));
     }
 }
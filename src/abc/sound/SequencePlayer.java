@@ -20,9 +20,9 @@ import javax.sound.midi.Track;
 public class SequencePlayer {
 
     // MIDI channel
-    private static final int DEFAULT_CHANNEL = 0;
+    static final int DEFAULT_CHANNEL = 0;
     // the volume
-    private static final int DEFAULT_VELOCITY = 100;
+    static final int DEFAULT_VELOCITY = 100;
 
     // the "end_of_track" meta message type
     private static final int META_END_OF_TRACK = 47;
@@ -77,7 +77,7 @@ public class SequencePlayer {
      * @param startTick the starting tick; must be >= 0
      * @param numTicks the number of ticks for which this note should be played; must be >= 0
      */
-    public void addNote(int note, int startTick, int numTicks) {
+    public void addNote(int note, long startTick, long numTicks) {
         try {
             // schedule two events in the track, one for starting a note and
             // the other for ending the note.
@@ -97,12 +97,58 @@ public class SequencePlayer {
      * @param duration number of beats of note
      */
     public void addNote(int note, double atBeat, double duration) {
-        int startTick = (int)(atBeat*ticksPerBeat);
-        int numTicks = (int)(duration*ticksPerBeat);
+        long startTick = (long)(atBeat*ticksPerBeat);
+        long numTicks = (long)(duration*ticksPerBeat);
+        addNote(note, startTick, numTicks);
+    }
+
+    /**
+     * Schedule a note to be played at an exact beat for an exact number of beats; the start and the end
+     * fall on the tick at or before them, worked out without rounding error.
+     * @param note note to be played
+     * @param atBeat beat to start playing note, >= 0
+     * @param duration number of beats of note, >= 0
+     */
+    public void addNote(int note, Rational atBeat, Rational duration) {
+        long startTick = atBeat.toTicks(ticksPerBeat);
+        long numTicks = duration.toTicks(ticksPerBeat);
         addNote(note, startTick, numTicks);
     }
 
 
+    /**
+     * Schedule every note of a timeline. The events are added in order of their tick, a note ending before
+     * any other starts on the same tick, so that each one goes on the end of the track.
+     * @param timeline notes to schedule, at the same number of ticks per beat as this player
+     * @throws IllegalArgumentException if timeline counts a different number of ticks per beat
+     */
+    public void addAll(Timeline timeline) {
+        if (timeline.ticksPerBeat() != ticksPerBeat) {
+            throw new IllegalArgumentException("timeline has " + timeline.ticksPerBeat()
+                    + " ticks per beat, player has " + ticksPerBeat);
+        }
+        int size = timeline.size();
+        int on = 0;
+        int off = 0;
+        try {
+            while (off < size) {
+                int ending = timeline.endOrder(off);
+                // a note ends only once it has started, even if it is 0 ticks long
+                if (on < size && (timeline.startTick(on) < timeline.endTick(ending) || ending >= on)) {
+                    addMidiNoteEvent(ShortMessage.NOTE_ON, timeline.channel(on), timeline.midiNote(on),
+                            timeline.velocity(on), timeline.startTick(on));
+                    on++;
+                } else {
+                    addMidiNoteEvent(ShortMessage.NOTE_OFF, timeline.channel(ending), timeline.midiNote(ending),
+                            timeline.velocity(ending), timeline.endTick(ending));
+                    off++;
+                }
+            }
+        } catch (InvalidMidiDataException imde) {
+            throw new RuntimeException("Cannot add the notes of " + timeline, imde);
+        }
+    }
+
     /**
      * Schedule a MIDI note event.
      * 
@@ -111,11 +157,24 @@ public class SequencePlayer {
      * @param tick tick >= 0
      * @throws InvalidMidiDataException
      */
-    private void addMidiNoteEvent(int eventType, int note, int tick) throws InvalidMidiDataException {
-        ShortMessage msg = new ShortMessage(eventType, DEFAULT_CHANNEL, note, DEFAULT_VELOCITY);
+    private void addMidiNoteEvent(int eventType, int note, long tick) throws InvalidMidiDataException {
+        addMidiNoteEvent(eventType, DEFAULT_CHANNEL, note, DEFAULT_VELOCITY, tick);
+    }
+
+    // schedule a MIDI note event on a channel at a velocity, as addMidiNoteEvent(eventType, note, tick) does
+    private void addMidiNoteEvent(int eventType, int channel, int note, int velocity, long tick)
+            throws InvalidMidiDataException {
+        ShortMessage msg = new ShortMessage(eventType, channel, note, velocity);
         this.track.add(new MidiEvent(msg, tick));
     }
 
+    /**
+     * @return the number of MIDI events scheduled so far, two for each note, plus the end of the track
+     */
+    public int getEventCount() {
+        return track.size();
+    }
+
     /**
      * Open the MIDI sequencer and play the scheduled music.
      * 
@@ -0,0 +1,107 @@
+package abc.sound;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Works out how many ticks per beat to play music at, by walking it once before it is scheduled.
+ * Every note and rest starts at a sum of the lengths of the notes and rests before it, so if each of their
+ * lengths is a whole number of ticks, every note starts and ends on a whole tick. The least such resolution
+ * is the least common multiple of the denominators of all the lengths: 2 for a tune of eighth notes in 4/4,
+ * 6 once it has triplets, and so on, instead of one fixed resolution large enough for any tune.
+ *
+ * A resolution above MAX_TICKS_PER_BEAT is not used: such music is played at MAX_TICKS_PER_BEAT,
+ * and each note starts and ends on the tick at or before where it should, at most 1/MAX_TICKS_PER_BEAT
+ * of a beat early.
+ */
+public class TickPlan {
+
+    /**
+     * Most ticks per beat a plan uses: the largest resolution a standard MIDI file can record
+     */
+    public static final int MAX_TICKS_PER_BEAT = 0x7FFF;
+
+    private TickPlan() {
+        // not to be instantiated
+    }
+
+    /**
+     * @param music music made of Note, Rest, Chord, Tuplet, Measure, Voice and Voices
+     * @return the least number of ticks per beat at which every note and rest of music, played from a whole beat,
+     *         starts and ends on a whole tick, or Long.MAX_VALUE if that is more than a long holds
+     */
+    public static long resolution(Music music) {
+        return resolution(music, new IdentityHashMap<>());
+    }
+
+    /**
+     * @param music music made of Note, Rest, Chord, Tuplet, Measure, Voice and Voices
+     * @return the number of ticks per beat to play music at: its resolution, or MAX_TICKS_PER_BEAT
+     *         if that is larger, when notes are moved to the tick at or before where they should be
+     */
+    public static int ticksPerBeat(Music music) {
+        return (int) Math.min(resolution(music), MAX_TICKS_PER_BEAT);
+    }
+
+    // resolution of music, where seen holds the resolutions of the measures already walked, since repeated
+    // and appended voices share them
+    private static long resolution(Music music, Map<Measure, Long> seen) {
+        if (music instanceof Note || music instanceof Rest) {
+            return music.exactDuration().denominator();
+        } else if (music instanceof Chord) {
+            long resolution = 1;
+            for (Note note : ((Chord) music).getNotes()) {
+                resolution = lcm(resolution, resolution(note, seen));
+            }
+            return resolution;
+        } else if (music instanceof Tuplet) {
+            long resolution = 1;
+            for (Music note : ((Tuplet) music).notes()) {
+                resolution = lcm(resolution, resolution(note, seen));
+            }
+            return resolution;
+        } else if (music instanceof Measure) {
+            Long known = seen.get(music);
+            if (known != null) {
+                return known;
+            }
+            long resolution = 1;
+            for (Music note : ((Measure) music).notes()) {
+                resolution = lcm(resolution, resolution(note, seen));
+            }
+            seen.put((Measure) music, resolution);
+            return resolution;
+        } else if (music instanceof Voice) {
+            long resolution = 1;
+            for (Measure measure : ((Voice) music).measures()) {
+                resolution = lcm(resolution, resolution(measure, seen));
+            }
+            return resolution;
+        } else if (music instanceof Voices) {
+            long resolution = 1;
+            for (Music voice : ((Voices) music).getVoices().values()) {
+                resolution = lcm(resolution, resolution(voice, seen));
+            }
+            return resolution;
+        }
+        throw new IllegalArgumentException("cannot plan " + music.getClass().getName());
+    }
+
+    // least common multiple of a > 0 and b > 0, or Long.MAX_VALUE if it is at least that
+    private static long lcm(long a, long b) {
+        if (a == Long.MAX_VALUE || b == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        long x = a, y = b;
+        while (y != 0) {
+            long r = x % y;
+            x = y;
+            y = r;
+        }
+        long multiple = a / x;
+        if (multiple > Long.MAX_VALUE / b) {
+            return Long.MAX_VALUE;
+        }
+        return multiple * b;
+    }
+}
@@ -0,0 +1,308 @@
+package abc.sound;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline is the notes of a piece of music flattened into the MIDI notes it plays, in order of their start tick,
+ * so that it can be scheduled on a SequencePlayer without walking the music again, as many times as it is played.
+ * Notes are kept in parallel arrays of primitives, a column per field, rather than an object per note.
+ * Timeline is immutable.
+ */
+public class Timeline {
+
+    // the highest MIDI note number
+    private static final int MAX_MIDI_NOTE = 127;
+
+    private final int ticksPerBeat;
+    private final int size;
+    private final long[] startTick;
+    private final int[] lengthTicks;
+    private final byte[] midiNote;
+    private final byte[] channel;
+    private final byte[] velocity;
+    private final int[] endOrder;
+
+    //AF:
+    //  represents the notes i in [0, size), where note i plays MIDI note midiNote[i] on channel[i] at velocity[i],
+    //  from tick startTick[i] for lengthTicks[i] ticks, at ticksPerBeat ticks per beat;
+    //  endOrder lists the notes in order of the tick they end on
+    //RI:
+    //  ticksPerBeat > 0
+    //  every array has length size, and endOrder is a permutation of [0, size)
+    //  startTick[i] >= 0, lengthTicks[i] >= 0, midiNote[i], channel[i] and velocity[i] are valid MIDI data
+    //  startTick is nondecreasing over [0, size), and startTick + lengthTicks is nondecreasing in endOrder
+    //rep exposure:
+    //  all fields are private and final; the arrays are made here, never returned, and only read by accessors
+
+    // assert RI
+    private void checkRep() {
+        assert ticksPerBeat > 0;
+        assert endOrder.length == size;
+        for (int i = 0; i < size; i++) {
+            assert startTick[i] >= 0 && lengthTicks[i] >= 0;
+            assert midiNote[i] >= 0;
+            assert i == 0 || startTick[i - 1] <= startTick[i];
+            assert i == 0 || endTick(endOrder[i - 1]) <= endTick(endOrder[i]);
+        }
+    }
+
+    private Timeline(int ticksPerBeat, Builder builder) {
+        this.ticksPerBeat = ticksPerBeat;
+        this.size = builder.size;
+        // order the notes by start tick, and then once more by end tick
+        int[] byStart = sortedBy(builder.startTick, null, size);
+        this.startTick = new long[size];
+        this.lengthTicks = new int[size];
+        this.midiNote = new byte[size];
+        this.channel = new byte[size];
+        this.velocity = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int from = byStart[i];
+            startTick[i] = builder.startTick[from];
+            lengthTicks[i] = builder.lengthTicks[from];
+            midiNote[i] = builder.midiNote[from];
+            channel[i] = (byte) SequencePlayer.DEFAULT_CHANNEL;
+            velocity[i] = (byte) SequencePlayer.DEFAULT_VELOCITY;
+        }
+        this.endOrder = sortedBy(startTick, lengthTicks, size);
+        checkRep();
+    }
+
+    /**
+     * Compile music into a timeline at the ticks per beat TickPlan chooses for it.
+     * @param music music made of Note, Rest, Chord, Tuplet, Measure, Voice and Voices
+     * @return the notes music plays from beat 0, the same as music.play would schedule them
+     */
+    public static Timeline compile(Music music) {
+        return compile(music, TickPlan.ticksPerBeat(music));
+    }
+
+    /**
+     * Compile music into a timeline.
+     * @param music music made of Note, Rest, Chord, Tuplet, Measure, Voice and Voices
+     * @param ticksPerBeat ticks in a beat, > 0
+     * @return the notes music plays from beat 0, the same as music.play would schedule them on a SequencePlayer
+     *         with ticksPerBeat ticks per beat
+     * @throws ArithmeticException if a note is more than Integer.MAX_VALUE ticks long, or there are more
+     *         than Integer.MAX_VALUE notes
+     * @throws IllegalArgumentException if a note is outside the MIDI range of 0 to 127
+     */
+    public static Timeline compile(Music music, int ticksPerBeat) {
+        Builder builder = new Builder(ticksPerBeat, Math.toIntExact(music.noteCount()));
+        builder.add(music, Rational.ZERO);
+        return new Timeline(ticksPerBeat, builder);
+    }
+
+    /**
+     * @return the number of ticks per beat the ticks of this timeline count
+     */
+    public int ticksPerBeat() {
+        return ticksPerBeat;
+    }
+
+    /**
+     * @return the number of notes in this timeline
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size(); notes are in order of start tick
+     * @return the tick note i starts on
+     */
+    public long startTick(int i) {
+        return startTick[i];
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size()
+     * @return the number of ticks note i plays for
+     */
+    public int lengthTicks(int i) {
+        return lengthTicks[i];
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size()
+     * @return the tick note i ends on
+     */
+    public long endTick(int i) {
+        return startTick[i] + lengthTicks[i];
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size()
+     * @return the MIDI note number note i plays
+     */
+    public int midiNote(int i) {
+        return midiNote[i];
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size()
+     * @return the MIDI channel note i plays on
+     */
+    public int channel(int i) {
+        return channel[i];
+    }
+
+    /**
+     * @param i index of a note, 0 <= i < size()
+     * @return the MIDI velocity note i plays at
+     */
+    public int velocity(int i) {
+        return velocity[i];
+    }
+
+    /**
+     * @param k 0 <= k < size()
+     * @return the index of the note that ends k-th, counting ties in order of index
+     */
+    public int endOrder(int k) {
+        return endOrder[k];
+    }
+
+    /**
+     * @return an estimate of the bytes this timeline takes up beyond its object headers
+     */
+    public long sizeInBytes() {
+        return (long) size * (Long.BYTES + Integer.BYTES + 3 * Byte.BYTES + Integer.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return "Timeline(" + size + " notes at " + ticksPerBeat + " ticks per beat)";
+    }
+
+    // the indices [0, size) in order of start[i] + (lengths == null ? 0 : lengths[i]), stably
+    private static int[] sortedBy(long[] start, int[] lengths, int size) {
+        long[] key = new long[size];
+        int[] order = new int[size];
+        boolean sorted = true;
+        for (int i = 0; i < size; i++) {
+            key[i] = lengths == null ? start[i] : start[i] + lengths[i];
+            order[i] = i;
+            sorted &= i == 0 || key[i - 1] <= key[i];
+        }
+        if (!sorted) {
+            mergeSort(key, order, new int[size], 0, size);
+        }
+        return order;
+    }
+
+    // stably sort order[from, to) by key[order[i]], using scratch[from, to)
+    private static void mergeSort(long[] key, int[] order, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(key, order, scratch, from, middle);
+        mergeSort(key, order, scratch, middle, to);
+        if (key[order[middle - 1]] <= key[order[middle]]) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && key[scratch[left]] <= key[scratch[right]])) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Mutable collector of the notes of music in the order they are walked, with growable columns.
+     */
+    private static class Builder {
+        private final int ticksPerBeat;
+        private int size = 0;
+        private long[] startTick;
+        private int[] lengthTicks;
+        private byte[] midiNote;
+
+        // a builder for about capacity notes
+        private Builder(int ticksPerBeat, int capacity) {
+            this.ticksPerBeat = ticksPerBeat;
+            this.startTick = new long[capacity];
+            this.lengthTicks = new int[capacity];
+            this.midiNote = new byte[capacity];
+        }
+
+        // add the notes of music played at atBeat, as music.play would; return its duration
+        private Rational add(Music music, Rational atBeat) {
+            if (music instanceof Note) {
+                Note note = (Note) music;
+                addNote(note.pitch().toMidiNote(), atBeat, note.exactDuration());
+                return note.exactDuration();
+            } else if (music instanceof Rest) {
+                return music.exactDuration();
+            } else if (music instanceof Chord) {
+                for (Note note : ((Chord) music).getNotes()) {
+                    add(note, atBeat);
+                }
+                return music.exactDuration();
+            } else if (music instanceof Tuplet) {
+                return addInSequence(Arrays.asList(((Tuplet) music).notes()), atBeat);
+            } else if (music instanceof Measure) {
+                return addInSequence(((Measure) music).notes(), atBeat);
+            } else if (music instanceof Voice) {
+                return addInSequence(((Voice) music).playedMeasures(), atBeat);
+            } else if (music instanceof Voices) {
+                return addInLockstep(((Voices) music).getVoices(), atBeat);
+            }
+            throw new IllegalArgumentException("cannot compile " + music.getClass().getName());
+        }
+
+        // add pieces one after another from atBeat; return their total duration
+        private Rational addInSequence(List<? extends Music> pieces, Rational atBeat) {
+            Rational location = atBeat;
+            for (Music piece : pieces) {
+                location = location.plus(add(piece, location));
+            }
+            return location.minus(atBeat);
+        }
+
+        // add voices the way Voices.play does, the i-th measure of each starting after the longest (i-1)-th;
+        // return the total duration
+        private Rational addInLockstep(Map<String, Music> voices, Rational atBeat) {
+            int numMeasures = 0;
+            for (Music voice : voices.values()) {
+                numMeasures = Math.max(numMeasures, ((Voice) voice).playedMeasures().size());
+            }
+            Rational beat = atBeat;
+            for (int i = 0; i < numMeasures; i++) {
+                Rational maxDuration = Rational.ZERO;
+                for (Music voice : voices.values()) {
+                    List<Measure> played = ((Voice) voice).playedMeasures();
+                    if (i < played.size()) {
+                        maxDuration = maxDuration.max(add(played.get(i), beat));
+                    }
+                }
+                beat = beat.plus(maxDuration);
+            }
+            return beat.minus(atBeat);
+        }
+
+        // add a note the way SequencePlayer.addNote(int, Rational, Rational) schedules it
+        private void addNote(int note, Rational atBeat, Rational duration) {
+            if (note < 0 || note > MAX_MIDI_NOTE) {
+                throw new IllegalArgumentException("MIDI note out of range: " + note);
+            }
+            if (size == startTick.length) {
+                int capacity = Math.max(size * 2, size + 1);
+                startTick = Arrays.copyOf(startTick, capacity);
+                lengthTicks = Arrays.copyOf(lengthTicks, capacity);
+                midiNote = Arrays.copyOf(midiNote, capacity);
+            }
+            startTick[size] = atBeat.toTicks(ticksPerBeat);
+            lengthTicks[size] = Math.toIntExact(duration.toTicks(ticksPerBeat));
+            midiNote[size] = (byte) note;
+            size++;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package abc.sound;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Tuplet represents a tuplet of type duplet, triplet, or quadruplet, and no other tuplets.
  * It is an immutable concrete implementation of Music.
@@ -7,9 +10,12 @@ package abc.sound;
 public class Tuplet implements Music{
     
     private final Music[] notes;
-    private final double dupletLength = 1.5;
-    private final double tripletLength = 2.0/3.0;
-    private final double quadrupletLength = .75; 
+    private final Rational duration;
+    private final long noteCount;
+    private final int hashCode;
+    private static final Rational DUPLET_LENGTH = Rational.of(3, 2);
+    private static final Rational TRIPLET_LENGTH = Rational.of(2, 3);
+    private static final Rational QUADRUPLET_LENGTH = Rational.of(3, 4);
     
     /*
      * Abstraction function:
@@ -17,15 +23,18 @@ public class Tuplet implements Music{
      *   it represents a duplet if it contains 2 notes and/or chords,
      *   a triplet if it contains 3 notes and/or chords,
      *   and a quadruplet if it contains 4 notes and/or chords
+     *   duration, noteCount and hashCode are the length, number of notes and hash code of the tuplet, worked out once
      * Rep invariant:
      *   2 <= notes.length <= 4
      *   can contain notes and chords
      *   notes and chords should have the same length 
      *   cannot contain rests
+     *   duration is the sum of the durations of notes, and noteCount and hashCode the sums of theirs
      * Safety from rep exposure:
      *   notes is private and final and contains immutable types
-     *   is never returned by a method
-     *   other fields private, final, primitive, and only used for calculations, never returned
+     *   is only returned by notes(), as a copy
+     *   the lengths are constants, immutable, and only used for calculations
+     *   duration, noteCount and hashCode are private, final and immutable
      */
     
     /**
@@ -33,71 +42,114 @@ public class Tuplet implements Music{
      * @param notes can contain types Note and Chord and should have the same length, 2 <= notes.length <= 4
      */
     public Tuplet(Music[] notes) {
+        this(Arrays.asList(scaled(notes)));
+    }
+    
+    // make a tuplet from notes already rescaled to their played length
+    private Tuplet(List<Music> scaledNotes) {
+        this.notes = scaledNotes.toArray(new Music[scaledNotes.size()]);
+        // summed rather than multiplied out, since the grammar lets a tuplet's notes differ in length
+        Rational duration = Rational.ZERO;
+        long noteCount = 0;
+        int hashCode = 0;
+        for (Music note : notes) {
+            duration = duration.plus(note.exactDuration());
+            noteCount += note.noteCount();
+            hashCode += note.hashCode();
+        }
+        this.duration = duration;
+        this.noteCount = noteCount;
+        this.hashCode = hashCode;
+        checkRep();
+    }
+    
+    // notes rescaled to the length they play for in a tuplet of their number
+    private static Music[] scaled(Music[] notes) {
         assert notes.length >= 2 && notes.length <= 4 : "incorrect tuplet size";
-        this.notes = new Music[notes.length];
+        Music[] scaledNotes = new Music[notes.length];
         final int dupletSize = 2;
         final int tripletSize = 3;
         if (notes.length == dupletSize) {
             for (int i = 0; i < notes.length; i++) {
-                this.notes[i] = notes[i].rescale(dupletLength);
+                scaledNotes[i] = notes[i].rescale(DUPLET_LENGTH);
             }
         } else if (notes.length == tripletSize) {
             for (int i = 0; i < notes.length; i++) {
-                this.notes[i] = notes[i].rescale(tripletLength);
+                scaledNotes[i] = notes[i].rescale(TRIPLET_LENGTH);
             }
         } else {
             for (int i = 0; i < notes.length; i++) {
-                this.notes[i] = notes[i].rescale(quadrupletLength);
+                scaledNotes[i] = notes[i].rescale(QUADRUPLET_LENGTH);
             }
         }
-        checkRep();
+        return scaledNotes;
+    }
+    
+    /**
+     * Make a tuplet from the notes of another, as returned by notes().
+     * @param scaledNotes notes already rescaled to the length they play for in the tuplet, 2 <= scaledNotes.length <= 4
+     * @return tuplet playing scaledNotes as given
+     */
+    static Tuplet ofScaled(Music[] scaledNotes) {
+        return new Tuplet(Arrays.asList(scaledNotes));
+    }
+    
+    /**
+     * @return the notes of this tuplet, rescaled to the length they play for
+     */
+    Music[] notes() {
+        return notes.clone();
     }
     
     // check the rep invariant
     private void checkRep() {
         assert notes.length >= 2 && notes.length <= 4 : "too few or too many notes";
-        double duration = notes[0].duration();
+        Rational duration = notes[0].exactDuration();
         for (Music note: notes) {
-            assert note.duration() == duration;
+            assert note.exactDuration().equals(duration);
         }
     }
 
     @Override
-    public double duration(){
-        double duration = 0;
-        for (Music note : notes) {
-            duration += note.duration();
-        }
-        checkRep();
+    public Rational exactDuration(){
         return duration;
     }
     
     @Override
-    public void play(SequencePlayer player, double atBeat){
-        checkRep();
-        double location = atBeat;
+    public long noteCount() {
+        return noteCount;
+    }
+    
+    @Override
+    public void play(SequencePlayer player, Rational atBeat){
+        Rational location = atBeat;
         for (Music note : notes) {
             note.play(player, location);
-            location += note.duration();
+            location = location.plus(note.exactDuration());
         }
     }
 
     @Override
     public Tuplet rescale(double scale) {
+        return rescale(Rational.valueOf(scale));
+    }
+
+    @Override
+    public Tuplet rescale(Rational scale) {
         final int dupletSize = 2;
         final int tripletSize = 3;
         Music[] newNotes = new Music[notes.length];
         if (notes.length == dupletSize) {
             for (int i = 0; i < notes.length; i++) {
-                newNotes[i] = notes[i].rescale(1.0/dupletLength).rescale(scale);
+                newNotes[i] = notes[i].rescale(scale.dividedBy(DUPLET_LENGTH));
             }
         } else if (notes.length == tripletSize) {
             for (int i = 0; i < notes.length; i++) {
-                newNotes[i] = notes[i].rescale(1.0/tripletLength).rescale(scale);
+                newNotes[i] = notes[i].rescale(scale.dividedBy(TRIPLET_LENGTH));
             }
         } else {
             for (int i = 0; i < notes.length; i++) {
-                newNotes[i] = notes[i].rescale(1.0/quadrupletLength).rescale(scale);
+                newNotes[i] = notes[i].rescale(scale.dividedBy(QUADRUPLET_LENGTH));
             }
         }
         checkRep();
@@ -122,7 +174,7 @@ public class Tuplet implements Music{
             return false;
         }
         Tuplet that = (Tuplet)obj;
-        if (notes.length != that.notes.length) {
+        if (hashCode != that.hashCode || notes.length != that.notes.length) {
             return false;
         }
         for (int i = 0; i < notes.length; i++) {
@@ -135,11 +187,7 @@ public class Tuplet implements Music{
     
     @Override
     public int hashCode() {
-        int code = 0;
-        for (Music note : notes) {
-            code += note.hashCode();
-        }
-        return code;
+        return hashCode;
     }
     
 }
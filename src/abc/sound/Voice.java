@@ -1,6 +1,8 @@
 package abc.sound;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -11,124 +13,137 @@ import java.util.List;
  */
 public class Voice implements Music {
 
-    private final List<Measure> measures;
-    private List<Measure> expandedMeasures;
+    private final MeasureRope measures;
+    private final int hashCode;
+    private volatile Played played;
     
     //AF: 
-    //   Using a list most measures to represent a voice
+    //   Using a list most measures to represent a voice, as a rope that shares its structure with the voices
+    //   it was appended from
+    //   hashCode is the hash code of the voice; played, once it has been asked for, is what the voice plays,
+    //   and null before
     //RI: 
     //   measures != null
     //   nothing contained in measures is null
+    //   hashCode is the sum of the hash codes of measures
+    //   played is null, or measures with its repeats and endings expanded, with their total length and notes
     //Rep Exposure: 
-    //   measures is private and final, and methods always return defensive copy.
-    //   use defensive copying in constructor
+    //   measures is private and final, and immutable, so it is shared rather than copied
+    //   the constructor copies its argument into a new rope
     //   measures contains immutable data types
-    //   expandedMeasures is private, contains immutable types, and never used as input or output of a method
+    //   hashCode is private and final
+    //   played is private and immutable, and its measures are only returned unmodifiable, within the package;
+    //   it is worked out when first asked for, rather than on construction, since the parser makes a new voice
+    //   for each line it appends and only asks the last one; it is volatile, so a thread that reads it sees
+    //   all of it, and threads asking at once may each work it out, but they work out the same thing
+    
+    // the measures a voice plays once its repeats and endings are expanded, with their total length and notes
+    private static final class Played {
+        private final List<Measure> measures;
+        private final Rational duration;
+        private final long noteCount;
+        
+        private Played(List<Measure> measures) {
+            Rational totalDuration = Rational.ZERO;
+            long totalNotes = 0;
+            for (Measure measure: measures) {
+                totalDuration = totalDuration.plus(measure.exactDuration());
+                totalNotes += measure.noteCount();
+            }
+            this.measures = Collections.unmodifiableList(measures);
+            this.duration = totalDuration;
+            this.noteCount = totalNotes;
+        }
+    }
     
     /**
      * Create a Voice.
      * @param measures measures that the voice will play
      */
     public Voice(List<Measure> measures){
-        this.measures = new ArrayList<>(measures);
-        this.expandedMeasures = new ArrayList<>();
-        checkRep();
+        this(MeasureRope.of(measures), hashCode(measures));
     }
     
     /**
      * Create a voice that won't play any measures
      */
     public Voice(){
-        this.measures = new ArrayList<>();
+        this(MeasureRope.EMPTY, 0);
+    }
+    
+    // make a voice of measures, whose hash code is given
+    private Voice(MeasureRope measures, int hashCode) {
+        this.measures = measures;
+        this.hashCode = hashCode;
         checkRep();
     }
     
-    // assert RI
+    // the sum of the hash codes of measures
+    private static int hashCode(List<Measure> measures) {
+        int code = 0;
+        for (Measure measure: measures) {
+            code += measure.hashCode();
+        }
+        return code;
+    }
+    
+    // assert RI; MeasureRope checks its measures are not null as it is made, so appending stays O(log n)
     private void checkRep() {
         assert measures != null;
-        for (Measure measure : measures) {
-            assert measure != null;
-        }
     }
     
-    private List<Measure> expand() {
-        List<Measure> list = new ArrayList<>();
-        boolean repeating = false;
-        int startRepeatPosition = 0;
-        int endRepeatPosition = 0;
-        int pos = 0;
-        while (pos < measures.size()) {
-            if(measures.get(pos).isStartRepeat() && pos > startRepeatPosition) {
-                startRepeatPosition = pos;
-            }
-            if(measures.get(pos).isEndMajorSection()) {
-                startRepeatPosition = pos + 1;
-            }
-            if(repeating) {
-                if(measures.get(pos).isStartFirstEnding()) {
-                    pos = endRepeatPosition + 1;
-                    repeating = false;
-                    continue;
-                }
-                if(measures.get(pos).isEndRepeat()) {
-                    repeating = false;
-                    list.add(measures.get(pos));
-                    pos++;
-                    continue;
-                }
-            }
-            else {
-                if(measures.get(pos).isEndRepeat()) {
-                    repeating = true;
-                    endRepeatPosition = pos;
-                    list.add(measures.get(pos));
-                    pos = startRepeatPosition;
-                    continue;
-                }
-            }
-            list.add(measures.get(pos));
-            pos++;
+    // what this voice plays, expanding its repeats the first time it is asked for
+    private Played played() {
+        Played expanded = played;
+        if (expanded == null) {
+            List<Measure> list = new ArrayList<>();
+            // the expander reads the measures by index, which is quicker from an array than down the rope
+            new RepeatExpander().expand(Arrays.asList(measures.toArray(new Measure[0])), list);
+            expanded = new Played(list);
+            played = expanded;
         }
-        checkRep();
-        return list;
+        return expanded;
     }
     
     @Override
-    public double duration() {
-        if (measures.isEmpty())
-            return 0;
-        if (expandedMeasures.isEmpty()){
-            expandedMeasures = expand();
-        }
-        double duration = 0;
-        for (Measure measure: expandedMeasures) {
-            duration += measure.duration();
-        }
-        checkRep();
-        return duration;
+    public Rational exactDuration() {
+        return played().duration;
+    }
+    
+    @Override
+    public long noteCount() {
+        return played().noteCount;
     }
 
     @Override
-    public void play(SequencePlayer player, double atBeat) {
-        if (expandedMeasures.isEmpty()){
-            expandedMeasures = expand();
-        }
-        double location = atBeat;
-        for (Measure measure: expandedMeasures) {
+    public void play(SequencePlayer player, Rational atBeat) {
+        Rational location = atBeat;
+        for (Measure measure: played().measures) {
             measure.play(player, location);
-            location += measure.duration();
+            location = location.plus(measure.exactDuration());
         }
     }
     
+    /**
+     * @return the measures of this voice as written, before repeats are expanded
+     */
+    List<Measure> measures() {
+        return measures;
+    }
+    
+    /**
+     * @return the measures this voice plays, with its repeats and endings expanded; not to be modified
+     */
+    List<Measure> playedMeasures() {
+        return played().measures;
+    }
+    
     /**
      * Get the total of measures that voice will play
      * @return number of measures
      */
     public int getNumMeasures(){
-        if (expandedMeasures.isEmpty()){
-            expandedMeasures = expand();
-        }
-        return expandedMeasures.size();
+        return played().measures.size();
     }
     
     /**
@@ -139,21 +154,30 @@ public class Voice implements Music {
      * @return duration of measure
      */
     public double playMeasure(SequencePlayer player, double atBeat, int measureIndex){
-        if (expandedMeasures.isEmpty()){
-            expandedMeasures = expand();
-        }
+        return playMeasure(player, Rational.valueOf(atBeat), measureIndex).toDouble();
+    }
+    
+    /**
+     * Play a particular measure, exactly
+     * @param player sequence player
+     * @param atBeat beat to beginning playing at
+     * @param measureIndex index of measure
+     * @return duration of measure, or 0 if there is no such measure
+     */
+    public Rational playMeasure(SequencePlayer player, Rational atBeat, int measureIndex){
+        List<Measure> expandedMeasures = played().measures;
         if (measureIndex < expandedMeasures.size()){
             Measure measure = expandedMeasures.get(measureIndex);
             measure.play(player, atBeat);
-            return measure.duration();
+            return measure.exactDuration();
         }
-        return 0;
+        return Rational.ZERO;
     }
     
 
 
     @Override
-    public Music rescale(double scale) {
+    public Music rescale(Rational scale) {
         List<Measure> newMeasures = new ArrayList<>();
         for (Measure measure: measures) {
             newMeasures.add(measure.rescale(scale));
@@ -163,43 +187,52 @@ public class Voice implements Music {
     }
     
     /**
-     * Add measures for the voice to play
+     * Add measures for the voice to play, in time O(log n + measures.size()) for a voice of n measures
      * @param measures measures to play
-     * @return new instance of Voice
+     * @return new instance of Voice, sharing the measures of this one
      */
     public Voice append(List<Measure> measures){
-        List<Measure> newMeasures = new ArrayList<>(this.measures);
-        newMeasures.addAll(measures);
         checkRep();
-        return new Voice(newMeasures);
+        return new Voice(this.measures.append(MeasureRope.of(measures)), hashCode + hashCode(measures));
     }
     
     /**
-     * Add the measures of another voice to play
+     * Add the measures of another voice to play, in time O(log n) for voices of up to n measures
      * @param newVoice voice with new measures
-     * @return new instance of Voice
+     * @return new instance of Voice, sharing the measures of this one and newVoice
      */
     public Voice append(Voice newVoice){
-        List<Measure> newMeasures = new ArrayList<>(this.measures);
-        newMeasures.addAll(newVoice.measures);
         checkRep();
-        return new Voice(newMeasures);
+        return new Voice(this.measures.append(newVoice.measures), hashCode + newVoice.hashCode);
     }
     
+    /**
+     * Replace some of the measures of the voice as written, in time O(log n + (to - from) + measures.size())
+     * for a voice of n measures
+     * @param from index of the first measure to replace, 0 <= from <= to
+     * @param to index just past the last measure to replace, to <= the number of measures written
+     * @param measures measures to play in their place
+     * @return new instance of Voice, sharing the rest of the measures of this one
+     * @throws IndexOutOfBoundsException if from and to do not describe measures of this voice
+     */
+    public Voice replace(int from, int to, List<Measure> measures) {
+        checkRep();
+        MeasureRope replaced = this.measures.subList(from, to);
+        MeasureRope spliced = this.measures.subList(0, from).append(MeasureRope.of(measures))
+                .append(this.measures.subList(to, this.measures.size()));
+        return new Voice(spliced, hashCode - hashCode(replaced) + hashCode(measures));
+    }
+
     @Override public boolean equals(Object thatObj) {
         if (thatObj instanceof Voice) {
             Voice that = (Voice)thatObj;
-            return this.measures.equals(that.measures);
+            return this.hashCode == that.hashCode && this.measures.equals(that.measures);
         }
         return false;
     }
     
     @Override public int hashCode() {
-        int code = 0;
-        for (Measure measure: measures) {
-            code += measure.hashCode();
-        }
-        return code;
+        return hashCode;
     }
     
     /**
@@ -11,14 +11,37 @@ import java.util.Map;
 public class Voices implements Music {
     
     //AF: using a map mapping voices name to their music to represent a multiple voices music
+    //    hashCode is the hash code of the music; totals, once they have been asked for, are its length
+    //    and number of notes, and null before
     //RI: voices != null
     //    voices.values() contain no null values
+    //    hashCode is the sum of the hash codes of voices.values()
+    //    totals is null, or the longest length of voices.values() and the sum of their notes
     //rep exposure: voices is private, final, and no method returns a reference of voices or elements of voices
     //    map keys and values contain immutable values, use defensive copying in constructor
+    //    hashCode is private and final; totals is private and immutable, and worked out when first asked for,
+    //    since that unrolls the repeats of every voice; it is volatile, so a thread that reads it sees all of it,
+    //    and threads asking at once may each work it out, but they work out the same thing
+    
+    // the length and number of notes of some music
+    private static final class Totals {
+        private final Rational duration;
+        private final long noteCount;
+        
+        private Totals(Rational duration, long noteCount) {
+            this.duration = duration;
+            this.noteCount = noteCount;
+        }
+    }
     
     //field
     private final Map<String, Voice> voices;
-    private static final String DEFAULT_VOICE = "Default";
+    private final int hashCode;
+    private volatile Totals totals;
+    /**
+     * Name of the voice that plays music written before any voice field
+     */
+    public static final String DEFAULT_VOICE = "Default";
     
     /**
      * Generate multiple voices music
@@ -26,6 +49,7 @@ public class Voices implements Music {
      */
     public Voices(Map<String, Voice> voices){
         this.voices = new HashMap<>(voices);
+        this.hashCode = hashCode(this.voices);
         checkRep();
     }
     
@@ -36,6 +60,7 @@ public class Voices implements Music {
     public Voices(Voice music){
         this.voices = new HashMap<>();
         voices.put(DEFAULT_VOICE, music);
+        this.hashCode = hashCode(voices);
         checkRep();
     }
     
@@ -44,9 +69,19 @@ public class Voices implements Music {
      */
     public Voices(){
         this.voices = new HashMap<>();
+        this.hashCode = 0;
         checkRep();
     }
     
+    // the sum of the hash codes of the voices of voices
+    private static int hashCode(Map<String, Voice> voices) {
+        int code = 0;
+        for (Music music: voices.values()) {
+            code += music.hashCode();
+        }
+        return code;
+    }
+    
     // assert RI
     private void checkRep() {
         assert voices != null;
@@ -120,41 +155,59 @@ public class Voices implements Music {
     }
     
     
+    // the length and notes of this music, working them out the first time they are asked for
+    private Totals totals() {
+        Totals counted = totals;
+        if (counted == null) {
+            Rational maxDuration = Rational.ZERO;
+            long notes = 0;
+            for (Music music: voices.values()) {
+                maxDuration = maxDuration.max(music.exactDuration());
+                notes += music.noteCount();
+            }
+            counted = new Totals(maxDuration, notes);
+            totals = counted;
+        }
+        return counted;
+    }
+    
+    @Override
+    public Rational exactDuration() {
+        return totals().duration;
+    }
+    
     @Override
-    public double duration() {
-        double maxDuration = 0;
-        for (Music music: voices.values())
-            if (music.duration() > maxDuration)
-                maxDuration = music.duration();
-        checkRep();
-        return maxDuration;
+    public long noteCount() {
+        return totals().noteCount;
     }
 
     @Override
     //play one measure at a time
-    public void play(SequencePlayer player, double atBeat) {
+    public void play(SequencePlayer player, Rational atBeat) {
         int numMeasures = 0;
         for (Voice voice: voices.values()){
             if (voice.getNumMeasures() > numMeasures){
                 numMeasures= voice.getNumMeasures();
             }
         }
-        double beat = atBeat;
+        Rational beat = atBeat;
         for (int i = 0; i < numMeasures; i++){
-            double maxDuration = 0;
+            Rational maxDuration = Rational.ZERO;
             for (Voice voice : voices.values()){
-                double duration = voice.playMeasure(player, beat, i);
-                if (duration > maxDuration){
-                    maxDuration = duration;
-                }
+                maxDuration = maxDuration.max(voice.playMeasure(player, beat, i));
             }
-            beat += maxDuration;
+            beat = beat.plus(maxDuration);
         }
     }
 
 
     @Override
     public Voices rescale(double scale) {
+        return rescale(Rational.valueOf(scale));
+    }
+
+    @Override
+    public Voices rescale(Rational scale) {
         Map<String, Voice> newVoices = new HashMap<String, Voice>();
         for (String name: voices.keySet()) {
             newVoices.put(name, (Voice)voices.get(name).rescale(scale));
@@ -167,18 +220,14 @@ public class Voices implements Music {
     public boolean equals(Object thatObject) {
         if (thatObject instanceof Voices) {
             Voices that = (Voices)thatObject;
-            return this.voices.equals(that.getVoices());
+            return this.hashCode == that.hashCode && this.voices.equals(that.voices);
         }
         return false;
     }
     
     @Override
     public int hashCode() {
-        int code = 0;
-        for (Music music: voices.values()) {
-            code += music.hashCode();
-        }
-        return code;
+        return hashCode;
     }
     
     /**
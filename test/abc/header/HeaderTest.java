@@ -7,6 +7,8 @@ import java.util.Arrays;
 
 import org.junit.Test;
 
+import abc.sound.Rational;
+
 /**
  * Tests Header
  *
@@ -21,8 +23,8 @@ public class HeaderTest {
      * Partition for getKeySignature:
      *   create a Header and get its key signature
      *   
-     * Partition for getDefaultLength:
-     *   create a Header and get its default length
+     * Partition for getDefaultLength / getExactDefaultLength:
+     *   create a Header and get its default length, as a double and exactly
      *   
      * Partition for getMeter:
      *   create a Header and get its meter
@@ -56,7 +58,7 @@ public class HeaderTest {
      */
     
     private static Header HEADER = new Header(new ArrayList<String>(Arrays.asList("up","middle","low")), "Bach", 
-            new KeySignature("C"), 2.0, new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
+            new KeySignature("C"), Rational.of(2), new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -76,6 +78,7 @@ public class HeaderTest {
     @Test
     public void testGetDefaultLength() {
         assertTrue("expected 2.0", 2.0 == HEADER.getDefaultLength());
+        assertEquals(Rational.of(2), HEADER.getExactDefaultLength());
     }
     
     @Test
@@ -122,21 +125,21 @@ public class HeaderTest {
     @Test
     public void testEqualsNotEqual() {
         Header header2 = new Header(new ArrayList<String>(Arrays.asList("up","middle","low")), "Bach", 
-                new KeySignature("C"), 2.0, new Meter("C|"), new Tempo(1.0,100), "Untitled (I)", 1024);
+                new KeySignature("C"), Rational.of(2), new Meter("C|"), new Tempo(1.0,100), "Untitled (I)", 1024);
         assertFalse(HEADER.equals(header2));
     }
     
     @Test
     public void testEqualsEqual() {
         Header header2 = new Header(new ArrayList<String>(Arrays.asList("up","middle","low")), "Bach", 
-                new KeySignature("C"), 2.0, new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
+                new KeySignature("C"), Rational.of(2), new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
         assertTrue(HEADER.equals(header2));
     }
     
     @Test
     public void testHashCode() {
         Header header2 = new Header(new ArrayList<String>(Arrays.asList("up","middle","low")), "Bach", 
-                new KeySignature("C"), 2.0, new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
+                new KeySignature("C"), Rational.of(2), new Meter("C"), new Tempo(1.0,100), "Untitled (I)", 1024);
         assertTrue(HEADER.hashCode() == header2.hashCode());
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import abc.header.KeySignature;
+import abc.sound.Voice;
+import abc.sound.Voices;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for AbcCorpusGenerator.
+ *
+ */
+public class AbcCorpusGeneratorTest {
+
+    /*
+     * Testing strategy for AbcCorpusGenerator
+     *
+     * Partition for generate and write:
+     *   voices: 1, > 1
+     *   measures: 1, less than a section, several sections and a part of one
+     *   densities: 0, in between, 1
+     *   key: from seed, given
+     *   seed: same as another recipe's, different
+     *   output: String, file
+     *
+     * Partition for the with methods:
+     *   argument: valid, out of range
+     *   chord and tuplet densities: adding up to at most 1, to over 1
+     *
+     * Partition for equals and hashCode:
+     *   recipes: equal, differing in one setting
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // assert tune parses to the same Song with every engine, and return it
+    private static Song parseAll(String tune) throws UnableToParseException, IOException {
+        Song song = AbcParser.parse(tune, ParserEngine.RECURSIVE_DESCENT);
+        for (ParserEngine engine : ParserEngine.values()) {
+            assertEquals(engine.toString(), song, AbcParser.parse(tune, engine));
+        }
+        return song;
+    }
+
+    // the number of measures played by the only voice of song
+    private static int measuresPlayed(Song song) {
+        return ((Voice) ((Voices) song.getMusic()).getVoice(Voices.DEFAULT_VOICE)).getNumMeasures();
+    }
+
+    //covers 1 voice, 1 measure, densities in between, key from seed, String output
+    @Test
+    public void testOneMeasure() throws UnableToParseException, IOException {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withMeasures(1);
+        Song song = parseAll(generator.generate());
+        assertEquals(1, measuresPlayed(song));
+        assertEquals(4.0, song.getMusic().duration(), 0.001);
+    }
+
+    //covers > 1 voice, several sections and a part of one, densities 0 and 1, key given
+    @Test
+    public void testVoicesWithoutRepeats() throws UnableToParseException, IOException {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withVoices(3).withMeasures(21)
+                .withRepeatDensity(0).withTupletDensity(0).withChordDensity(1).withAccidentalDensity(1).withKey("Ebm");
+        Song song = parseAll(generator.generate());
+        Voices voices = (Voices) song.getMusic();
+        assertEquals(3, voices.getVoices().size());
+        for (int v = 1; v <= 3; v++) {
+            assertEquals(21, ((Voice) voices.getVoice("v" + v)).getNumMeasures());
+        }
+        assertEquals(new KeySignature("E", "b", true), song.getHeader().getKeySignature());
+    }
+
+    //covers less than a section, all repeats and endings in full sections
+    @Test
+    public void testRepeats() throws UnableToParseException, IOException {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withMeasures(2 * AbcCorpusGenerator.SECTION_MEASURES + 3)
+                .withRepeatDensity(1).withEndingDensity(0).withChordDensity(0).withTupletDensity(1);
+        String tune = generator.generate();
+        assertEquals(2, tune.split(":\\|", -1).length - 1);
+        // each full section is played twice, the rest once
+        assertEquals(4 * AbcCorpusGenerator.SECTION_MEASURES + 3, measuresPlayed(parseAll(tune)));
+
+        String withEndings = generator.withEndingDensity(1).generate();
+        assertTrue(withEndings.contains("[1 ") && withEndings.contains("[2 "));
+        // each full section is played twice, with its first ending the first time and its second the second time
+        assertEquals(2 * (2 * AbcCorpusGenerator.SECTION_MEASURES - 2) + 3, measuresPlayed(parseAll(withEndings)));
+    }
+
+    //covers same seed and different seed
+    @Test
+    public void testSeed() {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withVoices(2).withMeasures(40).withSeed(42);
+        assertEquals(generator.generate(), AbcCorpusGenerator.DEFAULT.withSeed(42).withMeasures(40).withVoices(2).generate());
+        assertNotEquals(generator.generate(), generator.withSeed(43).generate());
+    }
+
+    //covers file output
+    @Test
+    public void testWriteFile() throws IOException, UnableToParseException {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withVoices(2).withSeed(9);
+        Path file = Files.createTempFile("corpus", ".abc");
+        try {
+            generator.write(file);
+            assertEquals(generator.generate(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertEquals(parseAll(generator.generate()), AbcParser.parse(file, ParserEngine.RECURSIVE_DESCENT));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //covers arguments out of range, chord and tuplet densities adding up to over 1
+    @Test
+    public void testInvalidArguments() {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withChordDensity(0.6);
+        for (Runnable bad : new Runnable[] {
+                () -> generator.withVoices(0),
+                () -> generator.withMeasures(0),
+                () -> generator.withAccidentalDensity(-0.1),
+                () -> generator.withRepeatDensity(1.5),
+                () -> generator.withEndingDensity(Double.NaN),
+                () -> generator.withTupletDensity(0.5),
+                () -> generator.withTupletDensity(0.2).withChordDensity(0.9),
+                () -> generator.withKey("H")}) {
+            try {
+                bad.run();
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    //covers equal recipes and recipes differing in one setting
+    @Test
+    public void testEquality() {
+        AbcCorpusGenerator generator = AbcCorpusGenerator.DEFAULT.withKey("G").withVoices(2);
+        AbcCorpusGenerator same = AbcCorpusGenerator.DEFAULT.withVoices(2).withKey("G");
+        assertEquals(generator, same);
+        assertEquals(generator.hashCode(), same.hashCode());
+        assertNotEquals(generator, generator.withKey(null));
+        assertNotEquals(generator, generator.withSeed(1));
+        assertNotEquals(generator, generator.withChordDensity(0.2));
+    }
+}
@@ -0,0 +1,167 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.Test;
+
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for AbcEditSession, checked against parsing the edited text from scratch.
+ *
+ */
+public class AbcEditSessionTest {
+    
+    /*
+     * Testing strategy for AbcEditSession
+     * 
+     * Partition for constructor:
+     *   text: valid, invalid
+     *   
+     * Partition for edit:
+     *   where: header, first line of the body, middle of the body, end of the text, a voice field
+     *   what: insert, delete, replace; inside a line, joining lines, splitting a line
+     *   result: valid text, invalid text, valid text after invalid text
+     *   offset and length: inside the text, outside it
+     *   output: Song equal to AbcParser.parse of the new text; lines parsed again:
+     *           one line for an edit inside a line of a long file, the rest of a voice for an edit to its field
+     *   
+     * Partition for getText / getSong / isUpToDate:
+     *   after a valid edit, after an invalid edit
+     */
+    
+    private static final String TUNE = "X:1\nT:t\nV:1\nV:2\nK:D\n"
+            + "z8 |\n"
+            + "V:1\n"
+            + "A B c d | e f g a |\n"
+            + "V:2\n"
+            + "f2 =f2 [ce] z2 | (3ABc d2 z4 |\n"
+            + "|: C D E F :|\n"
+            + "V:1\n"
+            + "[1 G A B c :| [2 d e f g |]\n";
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // make an edit to session, and assert its song is the same as parsing the new text from scratch
+    private static void assertEdit(AbcEditSession session, int offset, int length, String replacement)
+            throws UnableToParseException, IOException {
+        String expectedText = session.getText().substring(0, offset) + replacement
+                + session.getText().substring(offset + length);
+        Song expected = AbcParser.parse(expectedText, ParserEngine.RECURSIVE_DESCENT);
+        Song result = session.edit(offset, length, replacement);
+        assertEquals(expectedText, session.getText());
+        assertTrue(session.isUpToDate());
+        assertEquals(expected, result);
+        assertEquals(expected.getHeader().toString(), result.getHeader().toString());
+        assertEquals(expected.getMusic().duration(), result.getMusic().duration(), 0.0001);
+        assertEquals(expected.getMusic().toString().length(), result.getMusic().toString().length());
+    }
+    
+    //covers constructor with valid text
+    @Test
+    public void testConstructor() throws UnableToParseException, IOException {
+        AbcEditSession session = new AbcEditSession(TUNE);
+        assertEquals(TUNE, session.getText());
+        assertTrue(session.isUpToDate());
+        assertEquals(AbcParser.parse(TUNE), session.getSong());
+    }
+    
+    //covers constructor with invalid text
+    @Test(expected=UnableToParseException.class)
+    public void testConstructorInvalid() throws UnableToParseException {
+        new AbcEditSession("X:1\nK:C\nA B |\n");
+    }
+    
+    //covers header, first line, middle, end, voice field; insert, delete, replace; joining and splitting lines
+    @Test
+    public void testEdits() throws UnableToParseException, IOException {
+        AbcEditSession session = new AbcEditSession(TUNE);
+        assertEdit(session, TUNE.indexOf("K:D") + 2, 1, "G");             // header
+        assertEdit(session, session.getText().indexOf("z8"), 0, "A2 ");    // first line, insert
+        assertEdit(session, session.getText().indexOf("e f g a"), 2, "");  // middle, delete
+        assertEdit(session, session.getText().indexOf("=f2"), 1, "^");     // replace
+        assertEdit(session, session.getText().indexOf(" | (3ABc"), 3, "|\n"); // split a line
+        assertEdit(session, session.getText().indexOf("|\n(3ABc") + 1, 1, " "); // join lines
+        assertEdit(session, session.getText().indexOf("V:2\n") + 2, 1, "3"); // voice field
+        assertEdit(session, session.getText().indexOf("V:1\n[1") + 2, 1, "2"); // last voice field
+        assertEdit(session, session.getText().length(), 0, "V:1\nC4 C4 |\n"); // end of the text
+        assertEdit(session, session.getText().length() - 1, 1, "");       // end of the text, no newline
+        assertEdit(session, session.getText().indexOf("V:3\n"), 4, "");   // remove a voice field
+    }
+    
+    //covers invalid text, valid text after invalid text
+    @Test
+    public void testInvalidEdit() throws UnableToParseException, IOException {
+        AbcEditSession session = new AbcEditSession(TUNE);
+        Song before = session.getSong();
+        int at = TUNE.indexOf("e f g a");
+        try {
+            session.edit(at, 1, "?");
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            // expected
+        }
+        assertFalse(session.isUpToDate());
+        assertEquals(before, session.getSong());
+        assertEquals(TUNE.replace("e f g a", "? f g a"), session.getText());
+        assertEdit(session, at, 1, "g");
+    }
+    
+    //covers offset and length outside the text
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testOutOfBounds() throws UnableToParseException {
+        new AbcEditSession(TUNE).edit(TUNE.length() - 1, 2, "");
+    }
+    
+    //covers one line parsed again for an edit inside a line of a long file,
+    //the rest of a voice for an edit to its field
+    @Test
+    public void testReparsedLines() throws UnableToParseException, IOException {
+        StringBuilder text = new StringBuilder("X:1\nT:t\nK:C\nV:1\n");
+        for (int i = 0; i < 1000; i++) {
+            text.append("A B c d | e f g a | G A B c | d e f g |\n");
+            if (i == 500) {
+                text.append("V:2\n");
+            }
+        }
+        AbcEditSession session = new AbcEditSession(text.toString());
+        int middle = text.indexOf("\n", text.length() / 3) + 3;
+        assertEdit(session, middle, 1, "^a");
+        assertEquals(1, session.reparsedLines());
+        assertEdit(session, session.getText().indexOf("V:2") + 2, 1, "3");
+        assertEquals(1 + 499, session.reparsedLines());
+    }
+    
+    //covers random edits of a sample file, checked against parsing from scratch
+    @Test
+    public void testRandomEdits() throws UnableToParseException, IOException {
+        String tune = new String(Files.readAllBytes(Paths.get("sample_abc/invention.abc")), StandardCharsets.UTF_8);
+        AbcEditSession session = new AbcEditSession(tune);
+        Random random = new Random(6005);
+        String[] replacements = {"", "A", " ", "|", "\n", "z2 ", "^", "C D |\n"};
+        for (int i = 0; i < 300; i++) {
+            String text = session.getText();
+            int offset = random.nextInt(text.length() + 1);
+            int length = random.nextInt(Math.min(4, text.length() - offset) + 1);
+            String replacement = replacements[random.nextInt(replacements.length)];
+            String edited = text.substring(0, offset) + replacement + text.substring(offset + length);
+            Song expected;
+            try {
+                expected = AbcParser.parse(edited, ParserEngine.RECURSIVE_DESCENT);
+            } catch (UnableToParseException | RuntimeException e) {
+                continue;
+            }
+            assertEquals(expected, session.edit(offset, length, replacement));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import abc.header.Header;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for AbcHeaderScanner and HeaderIndex.
+ *
+ */
+public class AbcHeaderScannerTest {
+
+    /*
+     * Testing strategy for AbcHeaderScanner
+     *
+     * Partition for scan:
+     *   input: every file in sample_abc/, body not in the language of Abc.g, header not in it, long body
+     *   source: text, Reader, file
+     *   output: header equal to AbcParser.parse's, UnableToParseException; the Reader is read no further
+     *           than one buffer past the header
+     *
+     * Partition for index:
+     *   directory: empty, abc files at the top and in a subdirectory, files not ending in .abc,
+     *              a file whose header does not parse, a file whose header is in the language but has a bad number
+     *
+     * Partition for HeaderIndex:
+     *   getHeader: file scanned, file failed, file not in the index
+     *   equals: same files and headers, a different header
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X:2\nT:scanned\nC:someone\nM:3/4\nQ:1/4=90\nV:a\nV:b\nK:Bb\nV:a\nA B c |\nV:b\nC D E |\n";
+
+    // a Reader of text that counts how much of it has been read
+    private static class CountingReader extends Reader {
+        private final Reader in;
+        private long read = 0;
+
+        CountingReader(String text) {
+            this.in = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = in.read(buffer, offset, length);
+            read += Math.max(0, count);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // delete directory and everything in it
+    private static void deleteAll(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>)walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    //covers every file in sample_abc/, text and file sources, header equal to parse's
+    @Test
+    public void testSamples() throws UnableToParseException, IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                Header expected = AbcParser.parse(text).getHeader();
+                assertEquals(expected, AbcHeaderScanner.scan(text));
+                assertEquals(expected, AbcHeaderScanner.scan(file));
+            }
+        }
+    }
+
+    //covers body not in the language, Reader source, all fields given
+    @Test
+    public void testBadBody() throws UnableToParseException, IOException {
+        Header expected = AbcParser.parse(TUNE).getHeader();
+        assertEquals(expected, AbcHeaderScanner.scan(TUNE + "& not music &\n"));
+        assertEquals(expected, AbcHeaderScanner.scan(new StringReader(TUNE + "& not music &\n")));
+        assertEquals("someone", expected.getComposer());
+    }
+
+    //covers header not in the language
+    @Test(expected=UnableToParseException.class)
+    public void testBadHeader() throws UnableToParseException {
+        AbcHeaderScanner.scan("X:1\nK:C\nT:title after key\n");
+    }
+
+    //covers long body read from a Reader
+    @Test
+    public void testReadsOnlyHeader() throws UnableToParseException, IOException {
+        StringBuilder tune = new StringBuilder(TUNE);
+        while (tune.length() < 1 << 20) {
+            tune.append("A B c d | e f g a |\n");
+        }
+        CountingReader in = new CountingReader(tune.toString());
+        assertEquals(AbcHeaderScanner.scan(TUNE), AbcHeaderScanner.scan(in));
+        assertTrue("read " + in.read, in.read <= TUNE.length() + 8192);
+    }
+
+    //covers empty directory, files at the top and in a subdirectory, other files, bad header, bad number;
+    //HeaderIndex getHeader of a file scanned, failed, not in the index, equals
+    @Test
+    public void testIndex() throws Exception {
+        Path directory = Files.createTempDirectory("index");
+        try {
+            assertEquals(0, AbcHeaderScanner.index(directory).size());
+            Path top = directory.resolve("top.abc");
+            Path nested = Files.createDirectory(directory.resolve("nested")).resolve("nested.abc");
+            Path bad = directory.resolve("bad.abc");
+            Path badNumber = directory.resolve("number.abc");
+            Files.write(top, TUNE.getBytes(StandardCharsets.UTF_8));
+            Files.write(nested, "X:3\nT:nested\nK:D\n&\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(bad, "T:no number\nK:C\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(badNumber, "X:99999999999\nT:t\nK:C\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve("notes.txt"), TUNE.getBytes(StandardCharsets.UTF_8));
+
+            HeaderIndex index = AbcHeaderScanner.index(directory);
+            assertEquals(4, index.size());
+            assertEquals(AbcHeaderScanner.scan(TUNE), index.getHeader(top));
+            assertEquals("nested", index.getHeader(nested).getTitle());
+            assertEquals(2, index.getHeaders().size());
+            assertTrue(index.getErrors().get(bad) instanceof UnableToParseException);
+            assertTrue(index.getErrors().get(badNumber) instanceof UnableToParseException);
+            try {
+                index.getHeader(bad);
+                fail("expected UnableToParseException");
+            } catch (UnableToParseException e) {
+                // expected
+            }
+            try {
+                index.getHeader(directory.resolve("notes.txt"));
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            assertEquals(index, AbcHeaderScanner.index(directory));
+            assertEquals(index.hashCode(), AbcHeaderScanner.index(directory).hashCode());
+            Files.write(nested, "X:3\nT:renamed\nK:D\n".getBytes(StandardCharsets.UTF_8));
+            assertNotEquals(index, AbcHeaderScanner.index(directory));
+        } finally {
+            deleteAll(directory);
+        }
+    }
+}
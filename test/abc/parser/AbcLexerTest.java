@@ -0,0 +1,129 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for the AbcLexer.
+ *
+ */
+public class AbcLexerTest {
+    
+    /*
+     * Testing strategy for AbcLexer
+     *   
+     * Partition for peek:
+     *   position: start, middle, past end
+     *   
+     * Partition for accept, lookingAt:
+     *   input: continues with the literal, does not, too short for the literal
+     *   
+     * Partition for skipWhitespace, digits, text:
+     *   run: empty, spaces and tabs, ends at end of input, ends at newline
+     *   
+     * Partition for newline:
+     *   "\n", "\r", "\r\n", not a newline
+     *   
+     * Partition for reset:
+     *   back to an earlier position
+     *   
+     * Partition for error:
+     *   failure on first line, later line, at end of input; before an earlier failure
+     *   line ends: "\n", "\r\n", "\r" alone
+     *   
+     * Partition for lastError:
+     *   error not called, called once, called more than once
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testPeek() {
+        AbcLexer lexer = new AbcLexer("ab");
+        assertEquals('a', lexer.peek());
+        assertEquals('b', lexer.peek(1));
+        assertEquals(AbcLexer.EOF, lexer.peek(2));
+        assertFalse(lexer.atEnd());
+    }
+    
+    @Test
+    public void testAcceptAndReset() {
+        AbcLexer lexer = new AbcLexer("|: A");
+        assertFalse(lexer.accept(":|"));
+        assertTrue(lexer.lookingAt("|:"));
+        assertTrue(lexer.accept("|:"));
+        assertEquals(2, lexer.position());
+        assertFalse(lexer.accept(" A B"));
+        lexer.reset(0);
+        assertTrue(lexer.accept('|'));
+    }
+    
+    @Test
+    public void testWhitespaceDigitsText() {
+        AbcLexer lexer = new AbcLexer(" \t12x title %c\nrest");
+        lexer.skipWhitespace();
+        assertEquals("12", lexer.digits());
+        assertEquals("", lexer.digits());
+        assertEquals("x title %c", lexer.text());
+        assertTrue(lexer.newline());
+        assertEquals("rest", lexer.text());
+        assertTrue(lexer.atEnd());
+    }
+    
+    @Test
+    public void testNewline() {
+        AbcLexer lexer = new AbcLexer("\r\n\r\nx");
+        assertTrue(lexer.newline());
+        assertEquals(2, lexer.position());
+        assertTrue(lexer.newline());
+        assertFalse(lexer.newline());
+        assertEquals('x', lexer.peek());
+    }
+    
+    @Test
+    public void testError() {
+        AbcLexer lexer = new AbcLexer("X: 1\nT: title\n");
+        lexer.accept("X: 1\nT:");
+        String message = lexer.error("a title").getMessage();
+        assertTrue(message, message.contains("line 2 col 3"));
+        assertTrue(message, message.contains("\" title\""));
+        lexer.text();
+        lexer.newline();
+        assertTrue(lexer.error("a field").getMessage().contains("end of input"));
+        assertEquals(new Diagnostic(3, 1, "a field", "end of input"), lexer.lastError());
+    }
+    
+    @Test
+    public void testErrorLineEnds() {
+        AbcLexer lexer = new AbcLexer("X: 1\rT: title\rK: C\r");
+        lexer.accept("X: 1\rT: title\rK:");
+        assertEquals(new Diagnostic(3, 3, "a key", "\" C\""), diagnostic(lexer, "a key"));
+        lexer = new AbcLexer("X: 1\r\nT: title\rK: C\n");
+        lexer.accept("X: 1\r\nT: title\rK:");
+        assertEquals(new Diagnostic(3, 3, "a key", "\" C\""), diagnostic(lexer, "a key"));
+        lexer.reset(5);
+        assertEquals(new Diagnostic(1, 6, "a title", "\"\""), diagnostic(lexer, "a title"));
+    }
+    
+    // the failure that lexer.error(expected) describes
+    private static Diagnostic diagnostic(AbcLexer lexer, String expected) {
+        lexer.error(expected);
+        return lexer.lastError();
+    }
+    
+    @Test
+    public void testErrorAfterReset() {
+        AbcLexer lexer = new AbcLexer("X: 1\nT: title\n");
+        assertNull(lexer.lastError());
+        lexer.accept("X: 1\nT:");
+        lexer.error("a title");
+        lexer.reset(2);
+        String message = lexer.error("a digit").getMessage();
+        assertEquals(new Diagnostic(1, 3, "a digit", "\" 1\""), lexer.lastError());
+        assertEquals(message, lexer.lastError().toString());
+    }
+}
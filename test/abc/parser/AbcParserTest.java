@@ -1,14 +1,24 @@
 package abc.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -30,6 +40,25 @@ public class AbcParserTest {
      *           body contains notes, octave changes, sharps, flats, naturals, duration changes, bars,
      *           repeat bars, multiple ending labels, rests, chords, tuplets, multiple voices
      *   output: a Song that contains a Header and a Music
+     *   calls: first parse in the JVM, after warmUp, concurrent parses from several threads
+     *   voiceExecutor: not given, runs tasks in the calling thread, thread pool
+     *                  with default voice only, several voices, a voice name used twice
+     *   
+     * Partition for warmUp:
+     *   called once, called more than once
+     *   
+     * Partition for parseAll:
+     *   string: empty, text before the first tune, one tune, many tunes, CRLF line endings,
+     *           X: indented on its line, some tunes invalid
+     *   engine: GRAMMAR, RECURSIVE_DESCENT, PARALLEL_RECURSIVE_DESCENT
+     *   output: Songs equal to parsing each tune alone, start lines, per-tune errors
+     *   
+     * Partition for parse and parseAll from a file:
+     *   file: every file in sample_abc/, all of them in one file; engine: GRAMMAR, RECURSIVE_DESCENT, PARALLEL_RECURSIVE_DESCENT
+     *   output: equal to parsing the text of the file
+     *   
+     * Partition for tuneStarts:
+     *   string: no tunes, X: at start of input, X: after newline, X: after spaces, "X:" not at start of a line
      */
     
     private final static Note A = new Note(1, new Pitch('A'));
@@ -54,7 +83,7 @@ public class AbcParserTest {
     // output is a Song that contains a Header and a Music
     @Test
     public void testParseDefaultValues() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -76,7 +105,7 @@ public class AbcParserTest {
     // output is a Song that contains a Header and a Music
     @Test
     public void testParseOctaves() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(LOW_G, HIGH_HIGH_G);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -98,7 +127,7 @@ public class AbcParserTest {
     // output is a Song that contains a Header and a Music
     @Test
     public void testParseAccidentalCarryover() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(B, B, B_FLAT, B_FLAT);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -120,7 +149,7 @@ public class AbcParserTest {
     // output is a Song that contains a Header and a Music
     @Test
     public void testParseCMRestDurationOctave() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), 1.0/8.0, new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
+        Header header = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), Rational.of(1, 8), new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
         Note cFlat = C.transpose(-1);
         Note highCFlat = HIGH_C.transpose(-1);
         List<Music> bar1 = Arrays.asList(cFlat, cFlat, highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), new Rest(4));
@@ -148,7 +177,7 @@ public class AbcParserTest {
     // body contains notes, rests, bars, durations, sharps, chords, tuplets
     @Test
     public void testParseLQChordTuplet() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("F", "#", true), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 200), "Test Piece 3", 3);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("F", "#", true), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 200), "Test Piece 3", 3);
         Music[] tuplet1 = {F.transpose(1), F.transpose(1), new Rest(1)};
         List<Music> bar1 = Arrays.asList(F.transpose(1), new Tuplet(tuplet1), F.transpose(1));
         Music[] tuplet2 = {E.transpose(1).rescale(0.5), E.transpose(1).rescale(0.5), E.transpose(1).rescale(0.5)};
@@ -174,7 +203,7 @@ public class AbcParserTest {
     // body contains notes, rests, durations, repeat bars, flats
     @Test
     public void testParseRepeat() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "The Awesome Team", new KeySignature("F", "", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 150), "Test Piece 4", 4);
+        Header header = new Header(new ArrayList<>(), "The Awesome Team", new KeySignature("F", "", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 150), "Test Piece 4", 4);
         Rest oneBeat = new Rest(1);
         Note cHalf = C.transpose(-1).rescale(0.5);
         Note dHalf = D.rescale(0.5);
@@ -204,7 +233,7 @@ public class AbcParserTest {
     // body contains major section bars, repeat bars, notes
     @Test
     public void testParseMajorSectionRepeat() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C"), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece Some Number", 567);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C"), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece Some Number", 567);
         List<Music> bar1 = Arrays.asList(C, C, C, C);
         List<Music> bar2 = Arrays.asList(HIGH_C, HIGH_C, HIGH_C, HIGH_C);
         Measure measure1 = new Measure(bar1, 4, false, false, false, false, true);
@@ -226,7 +255,7 @@ public class AbcParserTest {
     // body contains notes, rests, durations, repeat bars, multiple endings
     @Test
     public void testParseMultipleEndings() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "=", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 5", 5);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "=", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 5", 5);
         Rest oneBeat = new Rest(1);
         Note highA = new Note(1, new Pitch('A')).transpose(12);
         Note highB = new Note(1, new Pitch('B')).transpose(12);
@@ -254,7 +283,7 @@ public class AbcParserTest {
     // body contains notes, rests, durations, multiple voices
     @Test
     public void testParseMultipleVoices() throws UnableToParseException, IOException {
-        Header header = new Header(Arrays.asList("upper", "lower"), "Unknown", new KeySignature("F", "#", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 6", 6);
+        Header header = new Header(Arrays.asList("upper", "lower"), "Unknown", new KeySignature("F", "#", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 6", 6);
         
         Note aSharp = A.transpose(1);
         Note cSharp = C.transpose(1);
@@ -300,7 +329,7 @@ public class AbcParserTest {
     // body contains all elements
     @Test
     public void testParseEverything() throws UnableToParseException, IOException {
-        Header header = new Header(Arrays.asList("upper", "lower"), "A Person", new KeySignature("F", "=", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 120), "Test Piece 7", 7);
+        Header header = new Header(Arrays.asList("upper", "lower"), "A Person", new KeySignature("F", "=", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 120), "Test Piece 7", 7);
         
         Note highA = A.transpose(12);
         Note bFlat = B.transpose(-1);
@@ -353,4 +382,162 @@ public class AbcParserTest {
         assertEquals(expected, result);
     }
 
+    // Testing warmUp
+    // Tests warmUp called more than once, followed by a parse
+    @Test
+    public void testWarmUpThenParse() throws UnableToParseException, IOException {
+        AbcParser.warmUp();
+        AbcParser.warmUp();
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Measure measure = new Measure(Arrays.asList(G, A, B, HIGH_C), 4, false, false, false, false, false);
+        Song expected = new Song(new Voices(new Voice(Arrays.asList(measure))), header);
+        
+        String input = "X: 1\n"
+                     + "T: Test Piece 1\n"
+                     + "K: C\n"
+                     + "G2 A2 B2 c2|\n";
+        assertEquals(expected, AbcParser.parse(input));
+    }
+    
+    // Testing parse
+    // Tests concurrent parses from several threads sharing the compiled grammar
+    @Test
+    public void testParseConcurrent() throws Exception {
+        final String input = "X: 1\n"
+                           + "T: Test Piece 1\n"
+                           + "K: D\n"
+                           + "f2 c2 F2 =F2| (3FGA [ce] z2 |\n";
+        final Song expected = AbcParser.parse(input);
+        final int threads = 8;
+        List<Song> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Song>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> AbcParser.parse(input)));
+            }
+            for (Future<Song> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Song result : results) {
+            assertEquals(expected, result);
+        }
+    }
+    
+    // Testing parseAll
+    // Tests string is every file in sample_abc/ one after another, both engines
+    // output is equal to parsing each tune alone, with the line each starts on
+    @Test
+    public void testParseAllSampleFiles() throws UnableToParseException, IOException {
+        List<String> tunes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                String tune = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                tunes.add(tune.endsWith("\n") ? tune : tune + "\n");
+            }
+        }
+        String book = String.join("", tunes);
+        for (ParserEngine engine : ParserEngine.values()) {
+            Songbook songbook = AbcParser.parseAll(book, engine);
+            assertEquals(tunes.size(), songbook.size());
+            assertTrue(songbook.getErrors().isEmpty());
+            int line = 1;
+            for (int i = 0; i < tunes.size(); i++) {
+                assertEquals(AbcParser.parse(tunes.get(i), engine), songbook.getSong(i));
+                assertEquals(line, songbook.getStartLine(i));
+                line += tunes.get(i).split("\n", -1).length - 1;
+            }
+        }
+    }
+    
+    // Testing parseAll
+    // Tests string has text before the first tune, CRLF line endings, indented X:, one tune invalid
+    // output has an error for the invalid tune only
+    @Test
+    public void testParseAllWithErrors() throws UnableToParseException, IOException {
+        String first = "X:1\r\nT:first\r\nK:C\r\nA B c d|\r\n\r\n";
+        String bad = "X:2\r\nT:bad\r\nK:C\r\nA B ? d|\r\n";
+        String last = "  X:3\r\nT:last\r\nK:G\r\nA B c d|\r\n";
+        Songbook songbook = AbcParser.parseAll("% a songbook\r\n\r\n" + first + bad + last);
+        assertEquals(3, songbook.size());
+        assertEquals(Arrays.asList(3, 8, 12), Arrays.asList(songbook.getStartLine(0), songbook.getStartLine(1), songbook.getStartLine(2)));
+        assertEquals(Arrays.asList(AbcParser.parse(first), AbcParser.parse(last)), songbook.getSongs());
+        assertEquals(new HashSet<>(Arrays.asList(1)), songbook.getErrors().keySet());
+        try {
+            songbook.getSong(1);
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            // expected
+        }
+    }
+    
+    // Testing parseAll
+    // Tests string is empty, output has no tunes
+    @Test
+    public void testParseAllEmpty() throws IOException {
+        assertEquals(0, AbcParser.parseAll("").size());
+        assertEquals(0, AbcParser.parseAll("% just a comment\n").size());
+    }
+    
+    // Testing tuneStarts
+    // Tests every partition of string
+    @Test
+    public void testTuneStarts() {
+        assertEquals(Arrays.asList(), AbcParser.tuneStarts("T:X:1\nK:C\n"));
+        assertEquals(Arrays.asList(0, 4, 10), AbcParser.tuneStarts("X:1\n\t X:2\rX:3"));
+        assertEquals(Arrays.asList(5), AbcParser.tuneStarts("%\r\n\r\nX:1\n"));
+    }
+    
+    // Testing parse with a voiceExecutor
+    // Tests default voice only, several voices, a voice name used twice, executors in the calling thread and a pool
+    // output is equal to parsing without an executor
+    @Test
+    public void testParseVoiceExecutor() throws UnableToParseException, IOException {
+        List<String> inputs = Arrays.asList(
+                "X:1\nT:t\nK:C\nA B c d | e f g a |\n",
+                "X:1\nT:t\nV:1\nV:2\nV:3\nK:D\nz8 |\nV:1\nA B c d |\nV:2\nf2 =f2 [ce] z2 |\nV:3\n(3ABc d2 |\nV:1\ne f g a |\n");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (String input : inputs) {
+                Song expected = AbcParser.parse(input);
+                assertEquals(expected, AbcParser.parse(input, Runnable::run));
+                for (int i = 0; i < 10; i++) {
+                    Song result = AbcParser.parse(input, executor);
+                    assertEquals(expected, result);
+                    assertEquals(expected.getMusic().duration(), result.getMusic().duration(), 0.0001);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    // Testing parse and parseAll from a file
+    // Tests every file in sample_abc/, all of them in one file, both engines
+    // output is equal to parsing the text of the file
+    @Test
+    public void testParseFile() throws UnableToParseException, IOException {
+        StringBuilder book = new StringBuilder();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                String tune = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                book.append(tune).append("\n");
+                for (ParserEngine engine : ParserEngine.values()) {
+                    assertEquals(AbcParser.parse(tune, engine), AbcParser.parse(file, engine));
+                }
+            }
+        }
+        Path bookFile = Files.createTempFile("songbook", ".abc");
+        try {
+            Files.write(bookFile, book.toString().getBytes(StandardCharsets.UTF_8));
+            for (ParserEngine engine : ParserEngine.values()) {
+                assertEquals(AbcParser.parseAll(book.toString(), engine), AbcParser.parseAll(bookFile, engine));
+            }
+        } finally {
+            Files.delete(bookFile);
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for the recursive-descent parser, checked against the grammar-based parser.
+ *
+ */
+public class AbcRecursiveDescentParserTest {
+    
+    /*
+     * Testing strategy for AbcRecursiveDescentParser
+     *   
+     * Partition for parse:
+     *   input: every file in sample_abc/, header with comments and whitespace inside fields,
+     *          body with repeats and endings, tuplets, chords, accidentals, several voices,
+     *          not in the language of Abc.g (bad header, bad body, voice field without newline),
+     *          in the language but rejected while building the Song (comment among the header fields,
+     *          rest in a chord, zero or overflowing note length, index number or tempo too large for an int)
+     *   output: a Song equal to the grammar-based parser's, with the same measures after repeats are expanded,
+     *           or UnableToParseException when the grammar-based parser also rejects the input
+     *
+     * Partition for parseRecovering:
+     *   errors: none, in the header (bad field, missing X:/T:, missing K:, number too large), in the body (one,
+     *           several on a line, on several lines, in the default voice, in a named voice, found part way
+     *           through a measure: rest in a chord, zero denominator)
+     *   output: song equal to parse's and no diagnostics when there are no errors; otherwise one diagnostic
+     *           per error, in order, and a song of the rest of the file
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // assert both engines build the same song from input, down to the repeat structure of each voice
+    private static void assertSameAsGrammar(String input) throws UnableToParseException, IOException {
+        Song expected = AbcParser.parse(input, ParserEngine.GRAMMAR);
+        Song result = AbcParser.parse(input, ParserEngine.RECURSIVE_DESCENT);
+        assertEquals(expected, result);
+        assertEquals(expected.getHeader().toString(), result.getHeader().toString());
+        Map<String, Music> expectedVoices = ((Voices)expected.getMusic()).getVoices();
+        Map<String, Music> resultVoices = ((Voices)result.getMusic()).getVoices();
+        assertEquals(expectedVoices.keySet(), resultVoices.keySet());
+        for (String name : expectedVoices.keySet()) {
+            Voice expectedVoice = (Voice)expectedVoices.get(name);
+            Voice resultVoice = (Voice)resultVoices.get(name);
+            assertEquals(expectedVoice.getNumMeasures(), resultVoice.getNumMeasures());
+            assertEquals(expectedVoice.duration(), resultVoice.duration(), 0.0001);
+        }
+    }
+    
+    // assert both engines reject input
+    private static void assertBothReject(String input) throws IOException {
+        try {
+            AbcParser.parse(input, ParserEngine.GRAMMAR);
+            fail("grammar engine accepted " + input);
+        } catch (UnableToParseException e) {
+            // expected
+        }
+        try {
+            AbcParser.parse(input, ParserEngine.RECURSIVE_DESCENT);
+            fail("recursive-descent engine accepted " + input);
+        } catch (UnableToParseException e) {
+            // expected
+        }
+    }
+    
+    // Tests every file in sample_abc/
+    @Test
+    public void testParseSampleFiles() throws UnableToParseException, IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                assertSameAsGrammar(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                count++;
+            }
+        }
+        assertTrue(count > 0);
+    }
+    
+    // Tests header with comments and whitespace inside fields
+    @Test
+    public void testParseHeaderWhitespaceAndComments() throws UnableToParseException, IOException {
+        assertSameAsGrammar("X: 1 2\n"
+                          + "% a comment before the title\n"
+                          + "T:   Spaced Title  \n"
+                          + "  C: Someone % not a comment\n"
+                          + "M: C|\n"
+                          + "L: 1/4 % a comment after the length\n"
+                          + "Q: 1 / 4=90\n"
+                          + "K:  B b m\n"
+                          + "A B c d |\n");
+        assertSameAsGrammar("X: 1\nT: t\nM: 3 / 4\nQ: 1/4 = 9 0\nK: C\nA B c |\n");
+    }
+    
+    // Tests body with repeats, endings, tuplets, chords and accidentals
+    @Test
+    public void testParseRepeatsTupletsChords() throws UnableToParseException, IOException {
+        assertSameAsGrammar("X: 2\n"
+                          + "T: Piece\n"
+                          + "M: 3/4\n"
+                          + "K: D\n"
+                          + "|: (3ABc [c2e2] ^f/2 f/2 |[1 _B,,3/2 =B z/ :|[2 (2[CE]G c'' | | G2 |\n"
+                          + "% a comment in the body\n"
+                          + "\n"
+                          + "  G4 ^^F __E ||\n");
+    }
+    
+    // Tests several voices, including a repeated voice name and a line of music before the first voice
+    @Test
+    public void testParseVoices() throws UnableToParseException, IOException {
+        assertSameAsGrammar("X: 3\n"
+                          + "T: Voices\n"
+                          + "V: upper\n"
+                          + "V: lower\n"
+                          + "K: Am\n"
+                          + "C D E F |\n"
+                          + "V: upper\n"
+                          + "A B c d |\n"
+                          + "V: lower\n"
+                          + "A, B, C D |\n"
+                          + "V: upper\n"
+                          + "e f g a |]");
+    }
+    
+    // Tests inputs that are not in the language of Abc.g
+    @Test
+    public void testParseRejected() throws IOException {
+        assertBothReject("X: 1\nK: C\nA B |\n");
+        assertBothReject("X: 1\nT: t\n\nK: C\nA B |\n");
+        assertBothReject("X: 1\nT: t\nK: C\nA B | x |\n");
+        assertBothReject("X: 1\nT: t\nK: C\n(3 A B C |\n");
+        assertBothReject("X: 1\nT: t\nK: C\n[CE]2 A B |\n");
+        assertBothReject("X: 1\nT: t\n% a comment among the fields\nK: C\nA B |\n");
+        assertBothReject("X: 1\nT: t\nK: C\nA B |\nV: upper");
+        assertBothReject("X: 1\nT: t\nK: C\n[zC] D |\n");
+        assertBothReject("X: 1\nT: t\nK: C\nA/0 B |\n");
+        assertBothReject("X: 1\nT: t\nK: C\nA99999999999999999999 B |\n");
+        assertBothReject("X: 99999999999\nT: t\nK: C\nA B |\n");
+        assertBothReject("X: 1\nT: t\nQ: 1/4=99999999999\nK: C\nA B |\n");
+    }
+    
+    // Tests the error message locates the failure
+    @Test
+    public void testParseErrorPosition() {
+        try {
+            AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nA B | x |\n");
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 4 col 7"));
+        }
+    }
+    
+    //covers no errors, every file in sample_abc/
+    @Test
+    public void testParseRecoveringValid() throws UnableToParseException, IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                String input = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                ParseResult result = AbcRecursiveDescentParser.parseRecovering(input);
+                assertTrue(file.toString(), result.isValid());
+                assertEquals(file.toString(), AbcRecursiveDescentParser.parse(input), result.getSong());
+            }
+        }
+    }
+    
+    //covers several errors on a line and on several lines, in the default voice
+    @Test
+    public void testParseRecoveringBody() throws UnableToParseException {
+        ParseResult result = AbcRecursiveDescentParser.parseRecovering(
+                "X: 1\nT: t\nK: C\nA B | x C | D E $ F |\nG A |\n# B c |\n");
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        assertEquals(3, diagnostics.size());
+        assertEquals(new Diagnostic(4, 7, "a measure, comment, or voice field", "\"x C | D E $ F |\""), diagnostics.get(0));
+        assertEquals(4, diagnostics.get(1).getLine());
+        assertEquals(17, diagnostics.get(1).getColumn());
+        assertEquals(6, diagnostics.get(2).getLine());
+        assertEquals(1, diagnostics.get(2).getColumn());
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nA B | D E | G A |\n"), result.getSong());
+    }
+    
+    //covers an error in a named voice
+    @Test
+    public void testParseRecoveringVoice() throws UnableToParseException {
+        ParseResult result = AbcRecursiveDescentParser.parseRecovering(
+                "X: 1\nT: t\nV: 1\nV: 2\nK: C\nV: 1\nA B | ? c | d\nV: 2\nC D |\n");
+        assertEquals(1, result.getDiagnostics().size());
+        assertEquals(7, result.getDiagnostics().get(0).getLine());
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nV: 1\nV: 2\nK: C\nV: 1\nA B | d\nV: 2\nC D |\n"),
+                result.getSong());
+    }
+    
+    //covers a bad header field, missing X: and T:, missing K:
+    @Test
+    public void testParseRecoveringHeader() throws UnableToParseException {
+        ParseResult result = AbcRecursiveDescentParser.parseRecovering("T: t\nM: 3\nK: G#\nA B |\n");
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        assertEquals(3, diagnostics.size());
+        assertEquals("\"X:\"", diagnostics.get(0).getExpected());
+        assertEquals(2, diagnostics.get(1).getLine());
+        assertEquals(new Diagnostic(3, 4, "a key with a key signature", "\"G#\""), diagnostics.get(2));
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nA B |\n"), result.getSong());
+
+        result = AbcRecursiveDescentParser.parseRecovering("X: 1\nL: 1/4\nA B |\n");
+        assertEquals(2, result.getDiagnostics().size());
+        assertEquals("\"T:\"", result.getDiagnostics().get(0).getExpected());
+        assertEquals(new Diagnostic(3, 1, "\"K:\"", "\"A B |\""), result.getDiagnostics().get(1));
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: Untitled\nL: 1/4\nK: C\nA B |\n"), result.getSong());
+    }
+    
+    //covers errors found part way through a measure: rest in a chord, zero denominator; number too large
+    @Test
+    public void testParseRecoveringBuildErrors() throws UnableToParseException {
+        ParseResult result = AbcRecursiveDescentParser.parseRecovering("X: 1\nT: t\nK: C\nA B | [zC] D | E |\n");
+        assertEquals(1, result.getDiagnostics().size());
+        assertEquals(new Diagnostic(4, 8, "a note", "\"zC] D | E |\""), result.getDiagnostics().get(0));
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nA B | E |\n"), result.getSong());
+
+        result = AbcRecursiveDescentParser.parseRecovering("X: 1\nT: t\nK: C\nA/0 B | C |\nD |\n");
+        assertEquals(1, result.getDiagnostics().size());
+        assertEquals(4, result.getDiagnostics().get(0).getLine());
+        assertEquals(2, result.getDiagnostics().get(0).getColumn());
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nC |\nD |\n"), result.getSong());
+
+        result = AbcRecursiveDescentParser.parseRecovering("X: 99999999999\nT: t\nK: C\nA B |\n");
+        assertEquals(1, result.getDiagnostics().size());
+        assertEquals(new Diagnostic(1, 4, "an index number that fits in an int", "\"99999999999\""),
+                result.getDiagnostics().get(0));
+        assertEquals(AbcRecursiveDescentParser.parse("X: 1\nT: t\nK: C\nA B |\n"), result.getSong());
+    }
+}
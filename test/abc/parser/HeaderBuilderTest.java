@@ -0,0 +1,116 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import abc.header.*;
+import abc.sound.Rational;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for the HeaderBuilder.
+ *
+ */
+public class HeaderBuilderTest {
+    
+    /*
+     * Testing strategy for HeaderBuilder
+     *   
+     * Partition for build:
+     *   fields set: only the required X:, T:, K:; all fields
+     *   
+     * Partition for setMeter, setMeterFraction:
+     *   meter: "C", "C|", fraction, not a meter; before or after setDefaultLength
+     *   
+     * Partition for setTempo:
+     *   before or after setDefaultLength
+     *   
+     * Partition for setDefaultLength:
+     *   length: a power of 2, not a power of 2, 0, too large for a long
+     *   
+     * Partition for setKey:
+     *   key: has a key signature, has none
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testBuildDefaults() throws UnableToParseException {
+        HeaderBuilder builder = new HeaderBuilder();
+        builder.setIndexNumber("12");
+        builder.setTitle("Title");
+        builder.setKey("G", "=", false);
+        Header expected = new Header(Arrays.asList(), "Unknown", new KeySignature("G", "=", false), Rational.of(1, 8),
+                new Meter(4, 4), new Tempo(1.0/8.0, 100), "Title", 12);
+        assertEquals(expected, builder.build());
+    }
+    
+    @Test
+    public void testBuildAllFields() throws UnableToParseException {
+        HeaderBuilder builder = new HeaderBuilder();
+        builder.setIndexNumber("1");
+        builder.setTitle("Title");
+        builder.setComposer("Bach");
+        builder.setMeterFraction("3/4");
+        builder.setTempo("1/4=120", "1/4");
+        builder.setDefaultLength("1/4");
+        builder.addVoice("upper");
+        builder.addVoice("lower");
+        builder.setKey("B", "b", true);
+        Header expected = new Header(Arrays.asList("upper", "lower"), "Bach", new KeySignature("B", "b", true), Rational.of(1, 4),
+                new Meter(3, 4), new Tempo(1.0/4.0, 120), "Title", 1);
+        assertEquals(expected, builder.build());
+    }
+    
+    @Test
+    public void testSetMeterInfersDefaultLength() throws UnableToParseException {
+        HeaderBuilder builder = new HeaderBuilder();
+        builder.setIndexNumber("1");
+        builder.setTitle("Title");
+        builder.setKey("C", "=", false);
+        builder.setMeter("C|");
+        assertEquals(1.0/8.0, builder.build().getDefaultLength(), 0.0001);
+        builder.setDefaultLength("1/2");
+        builder.setMeter("C");
+        Header header = builder.build();
+        assertEquals(new Meter(4, 4), header.getMeter());
+        assertEquals(1.0/2.0, header.getDefaultLength(), 0.0001);
+        assertEquals(new Tempo(1.0/2.0, 100), header.getTempo());
+    }
+    
+    @Test
+    public void testSetDefaultLengthExact() throws UnableToParseException {
+        HeaderBuilder builder = new HeaderBuilder();
+        builder.setDefaultLength("1/3");
+        assertEquals(Rational.of(1, 3), builder.build().getExactDefaultLength());
+        assertEquals(Rational.of(4, 3), builder.build().getExactBeatsPerDefaultNote());
+        builder.setDefaultLength("3/16");
+        assertEquals(Rational.of(3, 16), builder.build().getExactDefaultLength());
+    }
+    
+    @Test(expected=UnableToParseException.class)
+    public void testSetDefaultLengthZero() throws UnableToParseException {
+        new HeaderBuilder().setDefaultLength("0/8");
+    }
+    
+    @Test(expected=UnableToParseException.class)
+    public void testSetDefaultLengthTooLarge() throws UnableToParseException {
+        new HeaderBuilder().setDefaultLength("1/99999999999999999999");
+    }
+    
+    @Test(expected=UnableToParseException.class)
+    public void testSetMeterInvalid() throws UnableToParseException {
+        new HeaderBuilder().setMeter("C ");
+    }
+    
+    @Test(expected=UnableToParseException.class)
+    public void testSetKeyInvalid() throws UnableToParseException {
+        new HeaderBuilder().setKey("G", "#", false);
+    }
+}
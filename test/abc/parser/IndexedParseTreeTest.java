@@ -0,0 +1,86 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import lib6005.parser.ParseTree;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for IndexedParseTree.
+ *
+ */
+public class IndexedParseTreeTest {
+
+    /*
+     * Testing strategy for IndexedParseTree
+     *
+     * Partition for create, as GeneratedAbcParser uses it:
+     *   node: with children, leaf (stays a plain ParseTree)
+     *   output: childrenByName and children agree with has, first and inOrder
+     *
+     * Partition for of:
+     *   tree: made by create, made by lib6005's Parser
+     *
+     * Partition for has, first, contents, child:
+     *   rule: no child, one child, several children (first of them)
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X:1\nT:t\nC:c\nK:Am\n|: A B c [CEG] | (3ABc z2 :|\n";
+
+    // assert every inner node under tree is indexed, and its index agrees with lib6005's view of its children
+    private static void assertIndexed(ParseTree<MusicGrammar> tree) {
+        if (tree.isTerminal()) {
+            assertFalse(tree instanceof IndexedParseTree);
+            return;
+        }
+        assertTrue(tree instanceof IndexedParseTree);
+        IndexedParseTree<MusicGrammar> node = IndexedParseTree.of(tree);
+        assertEquals(tree.children(), node.inOrder());
+        for (MusicGrammar rule : MusicGrammar.values()) {
+            assertEquals(!tree.childrenByName(rule).isEmpty(), node.has(rule));
+            assertEquals(tree.childrenByName(rule).isEmpty() ? null : tree.childrenByName(rule).get(0), node.first(rule));
+        }
+        for (ParseTree<MusicGrammar> child : tree.children()) {
+            assertIndexed(child);
+        }
+    }
+
+    //covers create for nodes with children and leaves, of a tree made by create
+    @Test
+    public void testGenerated() throws UnableToParseException {
+        ParseTree<MusicGrammar> tree = GeneratedAbcParser.parse(TUNE);
+        assertIndexed(tree);
+        assertSame(tree, IndexedParseTree.of(tree));
+    }
+
+    //covers of a tree made by lib6005's Parser; no child, one child, several children
+    @Test
+    public void testLookups() throws UnableToParseException, IOException {
+        IndexedParseTree<MusicGrammar> header = IndexedParseTree.of(AbcParser.getParser().parse(TUNE))
+                .child(MusicGrammar.ABC_HEADER);
+        assertEquals(GeneratedAbcParser.parse(TUNE).toString(), AbcParser.getParser().parse(TUNE).toString());
+        assertFalse(header.has(MusicGrammar.MEASURE));
+        assertNull(header.first(MusicGrammar.MEASURE));
+        assertNull(header.contents(MusicGrammar.MEASURE));
+        assertEquals("t", header.child(MusicGrammar.FIELD_TITLE).contents(MusicGrammar.TEXT));
+        assertEquals("C:c\n", header.contents(MusicGrammar.OTHER_FIELDS));
+        IndexedParseTree<MusicGrammar> key = header.child(MusicGrammar.FIELD_KEY).child(MusicGrammar.KEY);
+        assertTrue(key.has(MusicGrammar.MODE_MINOR));
+        assertEquals("A", key.child(MusicGrammar.KEYNOTE).contents(MusicGrammar.BASENOTE));
+        try {
+            key.child(MusicGrammar.TEMPO);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -19,7 +19,10 @@ public class KeySignatureMapTest {
      * Testing strategy for KeySignatureMap
      *   
      * Partition for getKey:
-     *   key: major, minor, flat, neutral, sharp
+     *   key: major, minor, flat, neutral, sharp, no signature (e.g. G# major)
+     *   
+     * Partition for offsets:
+     *   key: sharp, flat, neutral, no signature, base not a letter A-G
      *   
      * Partition for equals:
      *   thatObj: not KeySignatureMap, KeySignatureMap
@@ -61,6 +64,21 @@ public class KeySignatureMapTest {
         assertEquals(4, map.getKey(new KeySignature("A", "b", false)).size());
     }
 
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetKeyNoSignature() {
+        new KeySignatureMap().getKey(new KeySignature("G", "#", false));
+    }
+    
+    //covers sharp, flat, neutral, no signature, base not a letter A-G
+    @Test
+    public void testOffsets() {
+        assertArrayEquals(new byte[] {0, 0, 1, 0, 0, 1, 0}, KeySignatureMap.offsets(new KeySignature("D", false)));
+        assertArrayEquals(new byte[] {0, -1, 0, 0, -1, 0, 0}, KeySignatureMap.offsets(new KeySignature("G", true)));
+        assertArrayEquals(new byte[KeySignatureMap.LETTERS], KeySignatureMap.offsets(new KeySignature("A", true)));
+        assertNull(KeySignatureMap.offsets(new KeySignature("G", "#", false)));
+        assertNull(KeySignatureMap.offsets(new KeySignature("g", false)));
+    }
+    
     @Test
     public void testEqualsEqual() {
         KeySignatureMap map = new KeySignatureMap();
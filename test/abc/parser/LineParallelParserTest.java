@@ -0,0 +1,152 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for LineParallelParser, checked against the sequential recursive-descent parser.
+ *
+ */
+public class LineParallelParserTest {
+
+    /*
+     * Testing strategy for LineParallelParser
+     *
+     * Partition for parse:
+     *   body: one chunk, several chunks
+     *   voices: default voice only, default voice then named voices, a voice name used in several chunks
+     *   voice fields: each at the start of its line, one part way through a line
+     *   line endings: LF, CRLF
+     *   input: valid, invalid in the first chunk, invalid in a later chunk
+     *   limits: none reached, steps or tokens reached only by all chunks together, depth
+     *   output: Song equal to AbcRecursiveDescentParser.parse's, or the same exception
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String HEADER = "X:1\nT:big\nM:4/4\nL:1/8\nK:G\n";
+
+    // a body long enough to be split into several chunks: some default-voice lines, then lines alternating
+    // between voices 1 and 2, with a comment now and then
+    private static String bigTune(String newline) {
+        StringBuilder tune = new StringBuilder(HEADER.replace("\n", newline));
+        for (int i = 0; i < 20; i++) {
+            tune.append("|: G A B c | d2 e f :| [1 g4 |][2 (3gfe d2 |]").append(newline);
+        }
+        for (int i = 0; i < 40 * LineParallelParser.MIN_CHUNK / 60; i++) {
+            if (i % 10 == 0) {
+                tune.append("V: ").append(1 + i / 10 % 2).append(newline);
+            }
+            tune.append(i % 7 == 0 ? "% comment" : "[CEG] ^F _B =c z | A/2B/2 c'3 C,,").append(newline);
+        }
+        return tune.toString();
+    }
+
+    private static Song parallel(String input, ParseLimits limits) throws UnableToParseException {
+        return LineParallelParser.parse(input, new ParseBudget(limits));
+    }
+
+    // assert the parallel parser gives the same Song as the sequential one
+    private static void assertSameAsSequential(String input) throws UnableToParseException {
+        assertEquals(AbcRecursiveDescentParser.parse(input), parallel(input, ParseLimits.UNLIMITED));
+    }
+
+    // assert both parsers reject input with the same message
+    private static void assertSameError(String input) {
+        String expected = null;
+        try {
+            AbcRecursiveDescentParser.parse(input);
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            expected = e.getMessage();
+        }
+        try {
+            parallel(input, ParseLimits.UNLIMITED);
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    //covers one chunk, default voice only and named voices, valid
+    @Test
+    public void testSamples() throws UnableToParseException, IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                assertSameAsSequential(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    //covers several chunks, voice names used in several chunks, voice fields at the start of lines, LF and CRLF
+    @Test
+    public void testSeveralChunks() throws UnableToParseException, IOException {
+        assertTrue(bigTune("\n").length() > 8 * LineParallelParser.MIN_CHUNK);
+        assertSameAsSequential(bigTune("\n"));
+        assertSameAsSequential(bigTune("\r\n"));
+        assertEquals(AbcParser.parse(bigTune("\n"), ParserEngine.RECURSIVE_DESCENT),
+                AbcParser.parse(bigTune("\n"), ParserEngine.PARALLEL_RECURSIVE_DESCENT, ParseLimits.UNLIMITED));
+    }
+
+    //covers a voice field part way through a line, so that the chunks after it guess their voice wrongly
+    @Test
+    public void testVoiceFieldInLine() throws UnableToParseException {
+        StringBuilder tune = new StringBuilder(HEADER).append("G A B c |\nd e f g | V:2\n");
+        while (tune.length() < 8 * LineParallelParser.MIN_CHUNK) {
+            tune.append("A B c d | e f g a |\n");
+        }
+        assertSameAsSequential(tune.toString());
+        assertSameAsSequential(tune.toString().replace("d e f g | V:2\n", "V:1\nd e f g | V:2\n"));
+    }
+
+    //covers invalid in the first chunk, invalid in a later chunk
+    @Test
+    public void testErrors() {
+        String tune = bigTune("\n");
+        assertSameError(tune.replaceFirst("d2 e f", "d2 & f"));
+        int late = tune.length() - 3 * LineParallelParser.MIN_CHUNK;
+        assertSameError(tune.substring(0, late) + tune.substring(late).replaceFirst("\\^F", "^F &"));
+    }
+
+    //covers steps and tokens reached only by all chunks together, none reached, depth
+    @Test
+    public void testLimits() throws UnableToParseException {
+        String tune = bigTune("\n");
+        ParseBudget sequential = new ParseBudget(ParseLimits.UNLIMITED);
+        Song expected = AbcRecursiveDescentParser.parse(tune, sequential);
+        ParseLimits limits = ParseLimits.UNLIMITED.withMaxTokens(sequential.tokens()).withMaxSteps(sequential.steps())
+                .withMaxDepth(10);
+        assertEquals(expected, parallel(tune, limits));
+        try {
+            parallel(tune, limits.withMaxTokens(sequential.tokens() - 1));
+            fail("expected ParseLimitException");
+        } catch (ParseLimitException e) {
+            assertEquals(ParseLimits.Limit.TOKENS, e.getLimit());
+        }
+        try {
+            parallel(tune, limits.withMaxSteps(sequential.steps() - 1));
+            fail("expected ParseLimitException");
+        } catch (ParseLimitException e) {
+            assertEquals(ParseLimits.Limit.STEPS, e.getLimit());
+        }
+        try {
+            parallel(tune, limits.withMaxDepth(2));
+            fail("expected ParseLimitException");
+        } catch (ParseLimitException e) {
+            assertEquals(ParseLimits.Limit.DEPTH, e.getLimit());
+        }
+    }
+}
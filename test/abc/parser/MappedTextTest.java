@@ -0,0 +1,102 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedText.
+ *
+ */
+public class MappedTextTest {
+    
+    /*
+     * Testing strategy for MappedText
+     * 
+     * Partition for open:
+     *   file: empty, ASCII, ASCII after a byte order mark, UTF-8 with non-ASCII characters, not UTF-8
+     *   output: MappedText for ASCII, other CharSequence otherwise; same text as decoding the whole file
+     *   
+     * Partition for charAt / subSequence:
+     *   index: first, last, out of range
+     *   subSequence: empty, whole, middle, of a subSequence
+     *   
+     * Partition for toString:
+     *   empty, non-empty
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // write bytes to a temporary file that is deleted when the JVM exits
+    private static Path file(byte[] bytes) throws IOException {
+        Path file = Files.createTempFile("mapped", ".abc");
+        file.toFile().deleteOnExit();
+        Files.write(file, bytes);
+        return file;
+    }
+    
+    //covers empty file, empty toString
+    @Test
+    public void testEmpty() throws IOException {
+        CharSequence text = MappedText.open(file(new byte[0]));
+        assertEquals(0, text.length());
+        assertEquals("", text.toString());
+    }
+    
+    //covers ASCII file, first and last index, subSequences, toString
+    @Test
+    public void testAscii() throws IOException {
+        String contents = "X:1\nT:t\nK:C\nA B c d|\n";
+        CharSequence text = MappedText.open(file(contents.getBytes(StandardCharsets.US_ASCII)));
+        assertTrue(text instanceof MappedText);
+        assertEquals(contents.length(), text.length());
+        assertEquals('X', text.charAt(0));
+        assertEquals('\n', text.charAt(contents.length() - 1));
+        assertEquals(contents, text.toString());
+        assertEquals("", text.subSequence(3, 3).toString());
+        assertEquals(contents, text.subSequence(0, contents.length()).toString());
+        CharSequence middle = text.subSequence(4, 11);
+        assertEquals("T:t\nK:C", middle.toString());
+        assertEquals('K', middle.charAt(4));
+        assertEquals("K:C", middle.subSequence(4, 7).toString());
+    }
+    
+    //covers index out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testOutOfRange() throws IOException {
+        MappedText.open(file("abc".getBytes(StandardCharsets.US_ASCII))).subSequence(1, 2).charAt(1);
+    }
+    
+    //covers ASCII after a byte order mark
+    @Test
+    public void testByteOrderMark() throws IOException {
+        byte[] bytes = {(byte)0xEF, (byte)0xBB, (byte)0xBF, 'X', ':', '1'};
+        CharSequence text = MappedText.open(file(bytes));
+        assertTrue(text instanceof MappedText);
+        assertEquals("X:1", text.toString());
+    }
+    
+    //covers UTF-8 with non-ASCII characters
+    @Test
+    public void testUtf8() throws IOException {
+        String contents = "X:1\nT:F\u00fcr Elise\nC:Beethoven \u266a\nK:Am\n";
+        CharSequence text = MappedText.open(file(contents.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(text instanceof MappedText);
+        assertEquals(contents, text.toString());
+    }
+    
+    //covers not UTF-8
+    @Test(expected=CharacterCodingException.class)
+    public void testNotUtf8() throws IOException {
+        MappedText.open(file("T:F\u00fcr Elise".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+}
@@ -0,0 +1,101 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import abc.header.KeySignature;
+import abc.sound.Pitch;
+
+/**
+ * Tests for MeasureAccidentals.
+ *
+ */
+public class MeasureAccidentalsTest {
+
+    /*
+     * Testing strategy for MeasureAccidentals
+     *
+     * Partition for MeasureAccidentals(KeySignature):
+     *   key: has a signature, has none
+     *
+     * Partition for resolve:
+     *   baseNote: uppercase, lowercase; in the key's signature, not
+     *   accidental: none, sharp, double sharp, flat, double flat, natural
+     *   octaves: <0, 0, >0
+     *   earlier accidental on the same letter in the measure: none, some
+     *
+     * Partition for reset:
+     *   accidentals written before: none, some
+     *
+     * Partition for accidental, octaves:
+     *   written: null, one mark, two marks
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final KeySignature D_MAJOR = new KeySignature("D", false);
+
+    //covers no accidental, uppercase and lowercase, in the key's signature and not, octaves 0
+    @Test
+    public void testResolveKey() {
+        MeasureAccidentals accidentals = new MeasureAccidentals(D_MAJOR);
+        assertEquals(new Pitch('F').addSharp(), accidentals.resolve('F', MeasureAccidentals.NO_ACCIDENTAL, 0));
+        assertEquals(new Pitch('C').addSharp().addOctave(), accidentals.resolve('c', MeasureAccidentals.NO_ACCIDENTAL, 0));
+        assertEquals(new Pitch('G'), accidentals.resolve('G', MeasureAccidentals.NO_ACCIDENTAL, 0));
+    }
+
+    //covers every accidental, octaves <0 and >0
+    @Test
+    public void testResolveAccidentals() {
+        MeasureAccidentals accidentals = new MeasureAccidentals(D_MAJOR);
+        assertEquals(new Pitch('A').addDoubleSharp().subtractOctave(), accidentals.resolve('A', 2, -1));
+        assertEquals(new Pitch('B').addSharp(), accidentals.resolve('B', 1, 0));
+        assertEquals(new Pitch('E').addFlat().addOctave().addOctave(), accidentals.resolve('e', -1, 1));
+        assertEquals(new Pitch('G').addDoubleFlat(), accidentals.resolve('G', -2, 0));
+        assertEquals(new Pitch('F'), accidentals.resolve('F', 0, 0));
+    }
+
+    //covers earlier accidental on the same letter, in another octave
+    @Test
+    public void testResolveCarriesThroughMeasure() {
+        MeasureAccidentals accidentals = new MeasureAccidentals(D_MAJOR);
+        accidentals.resolve('F', 0, 0);
+        assertEquals(new Pitch('F').addOctave(), accidentals.resolve('f', MeasureAccidentals.NO_ACCIDENTAL, 0));
+        accidentals.resolve('B', -1, 0);
+        assertEquals(new Pitch('B').addFlat().subtractOctave(), accidentals.resolve('B', MeasureAccidentals.NO_ACCIDENTAL, -1));
+    }
+
+    //covers reset with accidentals written before and none
+    @Test
+    public void testReset() {
+        MeasureAccidentals accidentals = new MeasureAccidentals(D_MAJOR);
+        accidentals.reset();
+        accidentals.resolve('F', 0, 0);
+        accidentals.resolve('G', 1, 0);
+        accidentals.reset();
+        assertEquals(new Pitch('F').addSharp(), accidentals.resolve('F', MeasureAccidentals.NO_ACCIDENTAL, 0));
+        assertEquals(new Pitch('G'), accidentals.resolve('G', MeasureAccidentals.NO_ACCIDENTAL, 0));
+    }
+
+    //covers key with no signature
+    @Test(expected=IllegalArgumentException.class)
+    public void testNoSignature() {
+        new MeasureAccidentals(new KeySignature("G", "#", false));
+    }
+
+    //covers null, one mark, two marks
+    @Test
+    public void testAccidentalAndOctaves() {
+        assertEquals(MeasureAccidentals.NO_ACCIDENTAL, MeasureAccidentals.accidental(null));
+        assertEquals(0, MeasureAccidentals.accidental("="));
+        assertEquals(1, MeasureAccidentals.accidental("^"));
+        assertEquals(-2, MeasureAccidentals.accidental("__"));
+        assertEquals(0, MeasureAccidentals.octaves(null));
+        assertEquals(2, MeasureAccidentals.octaves("''"));
+        assertEquals(-1, MeasureAccidentals.octaves(","));
+    }
+}
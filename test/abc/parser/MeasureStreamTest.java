@@ -0,0 +1,184 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for MeasureStream, checked against parsing the whole file at once.
+ *
+ */
+public class MeasureStreamTest {
+    
+    /*
+     * Testing strategy for MeasureStream
+     * 
+     * Partition for constructor / getHeader:
+     *   input: valid header, invalid header, Reader that throws while reading the header
+     *   
+     * Partition for next:
+     *   input: every file in sample_abc/, default voice only, several voices, voice field with no measures,
+     *          invalid body after some valid lines, Reader that throws part way through the body
+     *   output: measures equal to those of AbcParser.parse, in file order, then null;
+     *           exception only after the measures before the error
+     *   reading: whole input read, only a prefix of a long input read after the first measure
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // read every measure of input, grouped by voice in the order the voices appear
+    private static Map<String, List<Measure>> readAll(MeasureStream stream) throws UnableToParseException, IOException {
+        Map<String, List<Measure>> voices = new LinkedHashMap<>();
+        for (VoiceMeasure next = stream.next(); next != null; next = stream.next()) {
+            voices.computeIfAbsent(next.getVoice(), name -> new ArrayList<>()).add(next.getMeasure());
+        }
+        assertNull(stream.next());
+        return voices;
+    }
+    
+    // assert streaming input gives the same header and measures as parsing it whole
+    private static void assertSameAsParse(String input) throws UnableToParseException, IOException {
+        Song expected = AbcParser.parse(input, ParserEngine.RECURSIVE_DESCENT);
+        MeasureStream stream = AbcParser.stream(new StringReader(input));
+        assertEquals(expected.getHeader(), stream.getHeader());
+        Map<String, Music> expectedVoices = ((Voices)expected.getMusic()).getVoices();
+        Map<String, List<Measure>> result = readAll(stream);
+        for (String name : result.keySet()) {
+            assertTrue(expectedVoices.containsKey(name));
+            assertEquals(expectedVoices.get(name), new Voice(result.get(name)));
+        }
+        for (String name : expectedVoices.keySet()) {
+            if (!result.containsKey(name)) {
+                assertEquals(new Voice(), expectedVoices.get(name));
+            }
+        }
+    }
+    
+    // Reader over text that throws instead of returning anything past failAt, and records how far it got
+    private static class CountingReader extends Reader {
+        private final String text;
+        private final int failAt;
+        private int read = 0;
+        
+        CountingReader(String text, int failAt) {
+            this.text = text;
+            this.failAt = failAt;
+        }
+        
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (read >= text.length()) {
+                return -1;
+            }
+            if (read >= failAt) {
+                throw new IOException("disk on fire");
+            }
+            int count = Math.min(length, Math.min(text.length(), failAt) - read);
+            text.getChars(read, read + count, buffer, offset);
+            read += count;
+            return count;
+        }
+        
+        @Override
+        public void close() {}
+    }
+    
+    //covers every file in sample_abc/, whole input read
+    @Test
+    public void testSampleFiles() throws UnableToParseException, IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                assertSameAsParse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+    }
+    
+    //covers default voice only, output in file order then null
+    @Test
+    public void testDefaultVoice() throws UnableToParseException, IOException {
+        String input = "X:1\nT:t\nK:C\nA B c d | e f g a |\n|: C D E F :|\n";
+        MeasureStream stream = AbcParser.stream(new StringReader(input));
+        assertEquals("t", stream.getHeader().getTitle());
+        List<String> voices = new ArrayList<>();
+        int count = 0;
+        for (VoiceMeasure next = stream.next(); next != null; next = stream.next()) {
+            voices.add(next.getVoice());
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(Voices.DEFAULT_VOICE, voices.get(0));
+        assertNull(stream.next());
+        assertSameAsParse(input);
+    }
+    
+    //covers several voices, voice field with no measures
+    @Test
+    public void testVoices() throws UnableToParseException, IOException {
+        assertSameAsParse("X:1\nT:t\nV:1\nV:2\nV:3\nK:C\nV:1\nA B c d |\nV:2\nC D E F |\nV:1\ne f g a |\nV:3\n");
+        assertSameAsParse("X:1\nT:t\nK:C\nA B c d |\nV:1\nC D E F |\n");
+    }
+    
+    //covers invalid header
+    @Test(expected=UnableToParseException.class)
+    public void testInvalidHeader() throws UnableToParseException, IOException {
+        AbcParser.stream(new StringReader("T:t\nX:1\nK:C\nA B |\n"));
+    }
+    
+    //covers invalid body after some valid lines
+    @Test
+    public void testInvalidBody() throws UnableToParseException, IOException {
+        MeasureStream stream = AbcParser.stream(new StringReader("X:1\nT:t\nK:C\nA B c d |\n? C D E |\n"));
+        assertNotNull(stream.next());
+        try {
+            stream.next();
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            // expected
+        }
+    }
+    
+    //covers Reader that throws while reading the header
+    @Test(expected=IOException.class)
+    public void testReaderFailsInHeader() throws UnableToParseException, IOException {
+        AbcParser.stream(new CountingReader("X:1\nT:t\nK:C\nA B c d |\n", 5));
+    }
+    
+    //covers Reader that throws part way through the body, only a prefix read after the first measure
+    @Test
+    public void testReadOnDemand() throws UnableToParseException, IOException {
+        StringBuilder input = new StringBuilder("X:1\nT:t\nK:C\n");
+        for (int i = 0; i < 10000; i++) {
+            input.append("A B c d | e f g a |\n");
+        }
+        int failAt = input.length() / 2;
+        CountingReader reader = new CountingReader(input.toString(), failAt);
+        MeasureStream stream = AbcParser.stream(reader);
+        assertNotNull(stream.next());
+        assertTrue(reader.read < failAt);
+        try {
+            readAll(stream);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("disk on fire", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for ParseLimits, and for parsing within them.
+ *
+ */
+public class ParseLimitsTest {
+
+    /*
+     * Testing strategy for ParseLimits
+     *
+     * Partition for with... methods:
+     *   max: 0, > 0, NO_LIMIT, < 0
+     *
+     * Partition for equals, hashCode, toString:
+     *   limits: UNLIMITED, some limits set
+     *
+     * Partition for AbcParser.parse(String, ParserEngine, ParseLimits):
+     *   engine: GRAMMAR, RECURSIVE_DESCENT, PARALLEL_RECURSIVE_DESCENT
+     *   limit reached: none, input length, tokens, depth, steps, time
+     *   input: valid tune, invalid tune within the limits
+     *
+     * Partition for AbcParser.parse(Path, ParserEngine, ParseLimits):
+     *   file: shorter than the input limit, longer
+     *
+     * Partition for AbcParser.parseAll(CharSequence, ParserEngine, ParseLimits):
+     *   tunes: all within the limits, one past them
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X:1\nT:t\nK:C\n|: A B c [CEG] | (3ABc z2 :|\n";
+    private static final ParserEngine[] ENGINES = ParserEngine.values();
+
+    // a tune whose body is one line of the given number of notes
+    private static String longTune(int notes) {
+        StringBuilder tune = new StringBuilder("X:1\nT:long\nK:C\n");
+        for (int i = 0; i < notes; i++) {
+            tune.append(i % 4 == 3 ? "c | " : "A ");
+        }
+        return tune.append("\n").toString();
+    }
+
+    private static void assertLimit(ParseLimits.Limit limit, String tune, ParserEngine engine, ParseLimits limits) {
+        try {
+            AbcParser.parse(tune, engine, limits);
+            fail("expected ParseLimitException for " + limit + " with " + engine);
+        } catch (ParseLimitException e) {
+            assertEquals(engine.toString(), limit, e.getLimit());
+        } catch (UnableToParseException e) {
+            fail("expected ParseLimitException, got " + e);
+        }
+    }
+
+    //covers max 0, > 0, NO_LIMIT; toString with some limits set
+    @Test
+    public void testWith() {
+        ParseLimits limits = ParseLimits.UNLIMITED.withMaxInputLength(100).withMaxTokens(0).withMaxMillis(ParseLimits.NO_LIMIT);
+        assertEquals(100, limits.getMaxInputLength());
+        assertEquals(0, limits.getMaxTokens());
+        assertEquals(ParseLimits.NO_LIMIT, limits.getMaxDepth());
+        assertEquals(ParseLimits.NO_LIMIT, limits.getMaxSteps());
+        assertEquals(ParseLimits.NO_LIMIT, limits.getMaxMillis());
+        assertEquals("input <= 100, tokens <= 0", limits.toString());
+    }
+
+    //covers max < 0
+    @Test(expected=IllegalArgumentException.class)
+    public void testWithNegative() {
+        ParseLimits.UNLIMITED.withMaxSteps(-1);
+    }
+
+    //covers equals, hashCode, toString of UNLIMITED and some limits set
+    @Test
+    public void testEquals() {
+        ParseLimits limits = ParseLimits.UNLIMITED.withMaxDepth(20);
+        assertEquals(limits, ParseLimits.UNLIMITED.withMaxDepth(20));
+        assertEquals(limits.hashCode(), ParseLimits.UNLIMITED.withMaxDepth(20).hashCode());
+        assertNotEquals(limits, ParseLimits.UNLIMITED);
+        assertEquals(ParseLimits.UNLIMITED, limits.withMaxDepth(ParseLimits.NO_LIMIT));
+        assertEquals("unlimited", ParseLimits.UNLIMITED.toString());
+    }
+
+    //covers every engine, no limit reached, valid and invalid tunes
+    @Test
+    public void testWithinLimits() throws UnableToParseException, IOException {
+        ParseLimits limits = ParseLimits.UNLIMITED.withMaxInputLength(TUNE.length()).withMaxTokens(1000)
+                .withMaxDepth(50).withMaxSteps(100000).withMaxMillis(60000);
+        for (ParserEngine engine : ENGINES) {
+            assertEquals(AbcParser.parse(TUNE, engine), AbcParser.parse(TUNE, engine, limits));
+            try {
+                AbcParser.parse("X:1\nT:t\nK:C\nA & B\n", engine, limits);
+                fail("expected UnableToParseException");
+            } catch (ParseLimitException e) {
+                fail("expected no limit to be reached, got " + e);
+            } catch (UnableToParseException e) {
+                // expected
+            }
+        }
+    }
+
+    //covers every engine, input length, tokens, depth, steps reached
+    @Test
+    public void testLimitsReached() {
+        for (ParserEngine engine : ENGINES) {
+            assertLimit(ParseLimits.Limit.INPUT_LENGTH, TUNE, engine, ParseLimits.UNLIMITED.withMaxInputLength(TUNE.length() - 1));
+            assertLimit(ParseLimits.Limit.TOKENS, TUNE, engine, ParseLimits.UNLIMITED.withMaxTokens(5));
+            assertLimit(ParseLimits.Limit.DEPTH, TUNE, engine, ParseLimits.UNLIMITED.withMaxDepth(1));
+            assertLimit(ParseLimits.Limit.STEPS, TUNE, engine, ParseLimits.UNLIMITED.withMaxSteps(10));
+        }
+    }
+
+    //covers every engine, time reached
+    @Test
+    public void testTimeReached() {
+        String tune = longTune(5000);
+        for (ParserEngine engine : ENGINES) {
+            assertLimit(ParseLimits.Limit.TIME, tune, engine, ParseLimits.UNLIMITED.withMaxMillis(0));
+        }
+    }
+
+    //covers file shorter than the input limit, longer
+    @Test
+    public void testFile() throws UnableToParseException, IOException {
+        Path file = Files.createTempFile("limits", ".abc");
+        try {
+            Files.write(file, TUNE.getBytes(StandardCharsets.UTF_8));
+            ParseLimits limits = ParseLimits.UNLIMITED.withMaxInputLength(TUNE.length());
+            assertEquals(AbcParser.parse(TUNE), AbcParser.parse(file, ParserEngine.RECURSIVE_DESCENT, limits));
+            try {
+                AbcParser.parse(file, ParserEngine.GRAMMAR, limits.withMaxInputLength(10));
+                fail("expected ParseLimitException");
+            } catch (ParseLimitException e) {
+                assertEquals(ParseLimits.Limit.INPUT_LENGTH, e.getLimit());
+                assertEquals(10, e.getMax());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //covers tunes all within the limits, one past them
+    @Test
+    public void testParseAll() throws UnableToParseException, IOException {
+        String book = TUNE + longTune(200);
+        ParseLimits limits = ParseLimits.UNLIMITED.withMaxTokens(100);
+        for (ParserEngine engine : ENGINES) {
+            Songbook songbook = AbcParser.parseAll(book, engine, limits);
+            assertEquals(2, songbook.size());
+            assertEquals(AbcParser.parse(TUNE), songbook.getSong(0));
+            assertEquals(1, songbook.getErrors().size());
+            assertTrue(songbook.getErrors().get(1) instanceof ParseLimitException);
+            assertEquals(2, AbcParser.parseAll(book, engine, ParseLimits.UNLIMITED).getSongs().size());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for ParseResult and Diagnostic, and AbcParser.parseRecovering.
+ *
+ */
+public class ParseResultTest {
+
+    /*
+     * Testing strategy for ParseResult
+     *
+     * Partition for getSong, getDiagnostics, isValid:
+     *   diagnostics: none, several
+     *   list passed to the constructor or returned: modified afterwards
+     *
+     * Partition for equals, hashCode:
+     *   that: equal, different song, different diagnostics, not a ParseResult
+     *
+     * Partition for toString:
+     *   diagnostics: none, several
+     *
+     * Partition for Diagnostic getters, equals, toString:
+     *   that: equal, different position, different expected, not a Diagnostic
+     *
+     * Partition for AbcParser.parseRecovering:
+     *   input: String with and without errors, file
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X: 1\nT: t\nK: C\nA B |\n";
+    private static final Diagnostic FIRST = new Diagnostic(4, 5, "a measure", "\"x\"");
+    private static final Diagnostic SECOND = new Diagnostic(5, 1, "a measure", "\"y\"");
+
+    //covers no diagnostics, string without errors, toString without diagnostics
+    @Test
+    public void testValid() throws UnableToParseException, IOException {
+        ParseResult result = AbcParser.parseRecovering(TUNE);
+        assertTrue(result.isValid());
+        assertEquals(Collections.emptyList(), result.getDiagnostics());
+        assertEquals(AbcParser.parse(TUNE), result.getSong());
+        assertEquals("t\n", result.toString());
+    }
+
+    //covers several diagnostics, lists modified afterwards, toString with diagnostics
+    @Test
+    public void testDiagnostics() throws UnableToParseException, IOException {
+        Song song = AbcParser.parse(TUNE);
+        List<Diagnostic> diagnostics = new ArrayList<>(Arrays.asList(FIRST, SECOND));
+        ParseResult result = new ParseResult(song, diagnostics);
+        diagnostics.clear();
+        result.getDiagnostics().clear();
+        assertFalse(result.isValid());
+        assertEquals(Arrays.asList(FIRST, SECOND), result.getDiagnostics());
+        assertEquals(song, result.getSong());
+        assertEquals("t\n" + FIRST + "\n" + SECOND + "\n", result.toString());
+    }
+
+    //covers equal, different song, different diagnostics, not a ParseResult
+    @Test
+    public void testEquals() throws UnableToParseException, IOException {
+        Song song = AbcParser.parse(TUNE);
+        ParseResult result = new ParseResult(song, Arrays.asList(FIRST));
+        assertEquals(result, new ParseResult(AbcParser.parse(TUNE), Arrays.asList(FIRST)));
+        assertEquals(result.hashCode(), new ParseResult(AbcParser.parse(TUNE), Arrays.asList(FIRST)).hashCode());
+        assertNotEquals(result, new ParseResult(AbcParser.parse(TUNE.replace("B", "C")), Arrays.asList(FIRST)));
+        assertNotEquals(result, new ParseResult(song, Arrays.asList(SECOND)));
+        assertNotEquals(result, song);
+    }
+
+    //covers Diagnostic getters, equal, different position, different expected, not a Diagnostic
+    @Test
+    public void testDiagnostic() {
+        assertEquals(4, FIRST.getLine());
+        assertEquals(5, FIRST.getColumn());
+        assertEquals("a measure", FIRST.getExpected());
+        assertEquals("\"x\"", FIRST.getFound());
+        assertEquals("line 4 col 5: expected a measure but saw \"x\"", FIRST.toString());
+        assertEquals(FIRST, new Diagnostic(4, 5, "a measure", "\"x\""));
+        assertEquals(FIRST.hashCode(), new Diagnostic(4, 5, "a measure", "\"x\"").hashCode());
+        assertNotEquals(FIRST, new Diagnostic(4, 6, "a measure", "\"x\""));
+        assertNotEquals(FIRST, new Diagnostic(4, 5, "a note", "\"x\""));
+        assertNotEquals(FIRST, "line 4 col 5: expected a measure but saw \"x\"");
+    }
+
+    //covers string with errors, file
+    @Test
+    public void testParseRecovering() throws UnableToParseException, IOException {
+        String input = TUNE + "x C |\n";
+        ParseResult result = AbcParser.parseRecovering(input);
+        assertEquals(1, result.getDiagnostics().size());
+        assertEquals(AbcParser.parse(TUNE), result.getSong());
+        Path file = Files.createTempFile("tune", ".abc");
+        try {
+            Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+            assertEquals(result, AbcParser.parseRecovering(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import lib6005.parser.ParseTree;
+import lib6005.parser.Parser;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for ParserGenerator and the GeneratedAbcParser it wrote.
+ *
+ */
+public class ParserGeneratorTest {
+
+    /*
+     * Testing strategy for ParserGenerator
+     *
+     * Partition for generate:
+     *   grammar: Abc.g
+     *   output: same as the checked in GeneratedAbcParser.java
+     *
+     * Partition for characterTest:
+     *   regex: ".", "\d", "\s", "\w", set with ranges, negated set, '-' first or last, escapes,
+     *          unsupported (nested class, letter escape, not a class)
+     *
+     * Partition for GeneratedAbcParser.parse:
+     *   input: every file in sample_abc/, tune with every header field, voices, comments, \r\n line ends,
+     *          header only, empty, no newline after the header, not a tune, bad body
+     *   memoSlots: 0, 1 (every result collides), enough for every result
+     *   output: the same tree as lib6005's Parser for Abc.g, or UnableToParseException when it throws
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final List<String> TUNES = Arrays.asList(
+            "X: 1\nT: t\nK: C\nA B | z |\n",
+            "X: 1\nT: t\n% c\nK: C\nA B |\n",
+            "X:1\nT:t\nK:C\n",
+            "X:1\n%c\nT:t\nC:me\nM:C|\nL:1/4\nQ:1/4=100\nV:1\nK:Bbm %k\n%x\n\n  \nV:1\n"
+                    + "|:A,,B'' [^C_E] (3ABc z/2 z3/|[1 A :|[2 B ||\r\nV:1\r  \t\n");
+
+    private static final List<String> REJECTED = Arrays.asList(
+            "", "X:1", "X:1\nT:t\nK:C", "not a tune", "X:1\nT:t\nK:C\nA B | & |\n", "X:1\nT:t\nK:C\nA B |\nV: upper");
+
+    private static void assertSameTree(ParseTree<MusicGrammar> expected, ParseTree<MusicGrammar> actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getContents(), actual.getContents());
+        assertEquals(expected.isTerminal(), actual.isTerminal());
+        assertEquals(expected.children().size(), actual.children().size());
+        for (int i = 0; i < expected.children().size(); i++) {
+            assertSameTree(expected.children().get(i), actual.children().get(i));
+        }
+        for (MusicGrammar name : MusicGrammar.values()) {
+            assertEquals(expected.childrenByName(name).toString(), actual.childrenByName(name).toString());
+        }
+    }
+
+    private static void assertSameParse(Parser<MusicGrammar> parser, String input) {
+        ParseTree<MusicGrammar> expected;
+        try {
+            expected = parser.parse(input);
+        } catch (UnableToParseException | RuntimeException e) {
+            // lib6005 can fail to work out where the error is, but it still rejects the input
+            try {
+                GeneratedAbcParser.parse(input);
+                fail("expected UnableToParseException for " + input);
+            } catch (UnableToParseException e2) {
+                // expected
+            }
+            return;
+        }
+        try {
+            assertSameTree(expected, GeneratedAbcParser.parse(input));
+        } catch (UnableToParseException e) {
+            throw new AssertionError("generated parser rejected " + input, e);
+        }
+    }
+
+    //covers grammar Abc.g, output same as checked in source
+    @Test
+    public void testGeneratedSourceIsCurrent() throws UnableToParseException, IOException {
+        String grammar = new String(Files.readAllBytes(Paths.get("src/abc/parser/Abc.g")), StandardCharsets.UTF_8);
+        String checkedIn = new String(Files.readAllBytes(Paths.get("src/abc/parser/GeneratedAbcParser.java")),
+                StandardCharsets.UTF_8);
+        assertEquals("GeneratedAbcParser.java is stale; rerun ParserGenerator",
+                checkedIn, ParserGenerator.generate(grammar, MusicGrammar.ABC_TUNE, "GeneratedAbcParser"));
+    }
+
+    //covers ".", "\d", "\s", "\w"
+    @Test
+    public void testCharacterTestShorthands() {
+        assertEquals("(c >= '0' && c <= '9')", ParserGenerator.characterTest("\\d"));
+        assertTrue(ParserGenerator.characterTest(".").contains("c != '\\n'"));
+        assertTrue(ParserGenerator.characterTest("\\s").contains("c == '\\t'"));
+        assertTrue(ParserGenerator.characterTest("\\w").contains("c == '_'"));
+    }
+
+    //covers set with ranges, negated set, '-' first or last, escapes
+    @Test
+    public void testCharacterTestSets() {
+        assertEquals("((c >= 'a' && c <= 'g') || c == '_')", ParserGenerator.characterTest("[a-g_]"));
+        assertEquals("!(c == '\\n' || c == '\\r')", ParserGenerator.characterTest("[^\\n\\r]"));
+        assertEquals("(c == '-' || c == 'x')", ParserGenerator.characterTest("[-x]"));
+        assertEquals("(c == 'x' || c == '-')", ParserGenerator.characterTest("[x-]"));
+        assertEquals("(c == 'a' || c == '-' || c == 'b')", ParserGenerator.characterTest("[a\\-b]"));
+    }
+
+    //covers unsupported
+    @Test
+    public void testCharacterTestUnsupported() {
+        for (String regex : Arrays.asList("[a[b]]", "[\\p]", "a")) {
+            try {
+                ParserGenerator.characterTest(regex);
+                fail("expected IllegalArgumentException for " + regex);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    //covers every file in sample_abc/, same tree as lib6005
+    @Test
+    public void testSampleFilesSameTree() throws UnableToParseException, IOException {
+        Parser<MusicGrammar> parser = AbcParser.compileGrammar();
+        List<String> inputs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                inputs.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        assertTrue(inputs.size() > 0);
+        for (String input : inputs) {
+            assertSameParse(parser, input);
+        }
+    }
+
+    //covers every header field, voices, comments, \r\n, header only
+    @Test
+    public void testTunesSameTree() throws UnableToParseException, IOException {
+        Parser<MusicGrammar> parser = AbcParser.compileGrammar();
+        for (String tune : TUNES) {
+            assertSameParse(parser, tune);
+            GeneratedAbcParser.parse(tune);
+        }
+    }
+
+    //covers memoSlots 0, 1, enough for every result; every file in sample_abc/, long line
+    @Test
+    public void testMemoizedSameTree() throws UnableToParseException, IOException {
+        List<String> inputs = new ArrayList<>(TUNES);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                inputs.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        StringBuilder longLine = new StringBuilder("X:1\nT:long line\nK:C\n");
+        for (int i = 0; i < 500; i++) {
+            longLine.append(i % 4 == 3 ? "c/2 | " : "A B,2 ");
+        }
+        inputs.add(longLine.append("\n").toString());
+        for (String input : inputs) {
+            ParseTree<MusicGrammar> expected = GeneratedAbcParser.parse(input);
+            assertSameTree(expected, GeneratedAbcParser.parse(input, 1));
+            assertSameTree(expected, GeneratedAbcParser.parse(input, AbcParser.MEMO_SLOTS));
+        }
+    }
+
+    //covers memoSlots enough for every result; bad body
+    @Test
+    public void testMemoizedRejected() {
+        for (String input : REJECTED) {
+            try {
+                GeneratedAbcParser.parse(input, AbcParser.MEMO_SLOTS);
+                fail("expected UnableToParseException for " + input);
+            } catch (UnableToParseException e) {
+                // expected
+            }
+        }
+    }
+
+    //covers empty, no newline after the header, not a tune, bad body
+    @Test
+    public void testRejected() throws UnableToParseException, IOException {
+        Parser<MusicGrammar> parser = AbcParser.compileGrammar();
+        for (String input : REJECTED) {
+            assertSameParse(parser, input);
+            try {
+                GeneratedAbcParser.parse(input);
+                fail("expected UnableToParseException for " + input);
+            } catch (UnableToParseException e) {
+                // expected
+            }
+        }
+    }
+}
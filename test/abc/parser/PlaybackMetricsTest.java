@@ -0,0 +1,125 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for PlaybackMetrics, and for the phases AbcParser.parse records in it.
+ * Song.play(PlaybackMetrics) needs a MIDI device, so it is tested by hand with Main --metrics.
+ *
+ */
+public class PlaybackMetricsTest {
+
+    /*
+     * Testing strategy for PlaybackMetrics
+     *
+     * Partition for start and Span.close:
+     *   metrics: new, NONE
+     *   span: closed once, closed twice
+     *   phase: run once, run several times
+     *   work in span: none, allocating
+     *
+     * Partition for add and getCount:
+     *   count: never added, added once, added several times
+     *
+     * Partition for AbcParser.parse(.., PlaybackMetrics):
+     *   engine: GRAMMAR, RECURSIVE_DESCENT, PARALLEL_RECURSIVE_DESCENT
+     *   input: String, Path
+     *
+     * Partition for toString:
+     *   metrics: empty, with phases and counts
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X:1\nT:t\nK:C\n|: A B c [CEG] | (3ABc z2 :|\n";
+
+    //covers new metrics, nothing recorded; empty toString
+    @Test
+    public void testEmpty() {
+        PlaybackMetrics metrics = new PlaybackMetrics();
+        assertTrue(metrics.isEnabled());
+        for (PlaybackMetrics.Phase phase : PlaybackMetrics.Phase.values()) {
+            assertEquals(0, metrics.getCalls(phase));
+            assertEquals(0, metrics.getWallNanos(phase));
+            assertEquals(0, metrics.getCpuNanos(phase));
+            assertEquals(0, metrics.getAllocatedBytes(phase));
+        }
+        assertEquals(0, metrics.getCount(PlaybackMetrics.Count.TOKENS));
+        assertEquals("", metrics.toString());
+    }
+
+    //covers closed once and twice, run several times, allocating work; count added several times; toString
+    @Test
+    public void testSpans() {
+        PlaybackMetrics metrics = new PlaybackMetrics();
+        metrics.start(PlaybackMetrics.Phase.EXPAND).close();
+        PlaybackMetrics.Span span = metrics.start(PlaybackMetrics.Phase.EXPAND);
+        int[][] garbage = new int[64][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new int[1024];
+        }
+        span.close();
+        span.close();
+        assertEquals(2, metrics.getCalls(PlaybackMetrics.Phase.EXPAND));
+        assertTrue(metrics.getWallNanos(PlaybackMetrics.Phase.EXPAND) > 0);
+        assertTrue(metrics.getCpuNanos(PlaybackMetrics.Phase.EXPAND) >= 0);
+        long allocated = metrics.getAllocatedBytes(PlaybackMetrics.Phase.EXPAND);
+        assertTrue(allocated == 0 || allocated >= garbage.length * 1024 * 4);
+        assertEquals(0, metrics.getCalls(PlaybackMetrics.Phase.SCHEDULE));
+
+        metrics.add(PlaybackMetrics.Count.MEASURES, 3);
+        metrics.add(PlaybackMetrics.Count.MEASURES, 4);
+        assertEquals(7, metrics.getCount(PlaybackMetrics.Count.MEASURES));
+        assertTrue(metrics.toString().startsWith("EXPAND"));
+        assertTrue(metrics.toString().contains("MEASURES"));
+        assertFalse(metrics.toString().contains("SCHEDULE"));
+    }
+
+    //covers NONE
+    @Test
+    public void testNone() {
+        assertFalse(PlaybackMetrics.NONE.isEnabled());
+        PlaybackMetrics.Span span = PlaybackMetrics.NONE.start(PlaybackMetrics.Phase.PARSE);
+        span.close();
+        span.close();
+        assertEquals(0, PlaybackMetrics.NONE.getCalls(PlaybackMetrics.Phase.PARSE));
+        PlaybackMetrics.NONE.add(PlaybackMetrics.Count.TOKENS, 5);
+        assertEquals(0, PlaybackMetrics.NONE.getCount(PlaybackMetrics.Count.TOKENS));
+        assertEquals("", PlaybackMetrics.NONE.toString());
+    }
+
+    //covers GRAMMAR engine, String input; count added once
+    @Test
+    public void testGrammarEngine() throws UnableToParseException, IOException {
+        PlaybackMetrics metrics = new PlaybackMetrics();
+        Song song = AbcParser.parse(TUNE, ParserEngine.GRAMMAR, metrics);
+        assertEquals(AbcParser.parse(TUNE, ParserEngine.GRAMMAR), song);
+        assertEquals(1, metrics.getCalls(PlaybackMetrics.Phase.PARSE));
+        assertEquals(1, metrics.getCalls(PlaybackMetrics.Phase.BUILD));
+        assertTrue(metrics.getCount(PlaybackMetrics.Count.TREE_NODES) > 20);
+        assertTrue(metrics.getCount(PlaybackMetrics.Count.TOKENS) > 0);
+        assertEquals(0, metrics.getCalls(PlaybackMetrics.Phase.EXPAND));
+    }
+
+    //covers RECURSIVE_DESCENT and PARALLEL_RECURSIVE_DESCENT engines, String and Path input
+    @Test
+    public void testRecursiveDescentEngines() throws UnableToParseException, IOException {
+        PlaybackMetrics metrics = new PlaybackMetrics();
+        AbcParser.parse(TUNE, ParserEngine.RECURSIVE_DESCENT, metrics);
+        AbcParser.parse(Paths.get("sample_abc/fur_elise.abc"), ParserEngine.PARALLEL_RECURSIVE_DESCENT, metrics);
+        assertEquals(2, metrics.getCalls(PlaybackMetrics.Phase.PARSE));
+        assertEquals(0, metrics.getCalls(PlaybackMetrics.Phase.BUILD));
+        assertEquals(0, metrics.getCount(PlaybackMetrics.Count.TREE_NODES));
+        assertTrue(metrics.getCount(PlaybackMetrics.Count.TOKENS) > 0);
+    }
+}
@@ -0,0 +1,225 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for SongCache.
+ *
+ */
+public class SongCacheTest {
+
+    /*
+     * Testing strategy for SongCache
+     *
+     * Partition for parse:
+     *   entry: none, written by this cache, written by another cache on the same directory,
+     *          other format version, corrupt
+     *   source: valid, invalid
+     *   output: equal to AbcParser.parse(source)
+     *
+     * Partition for getHits / getMisses:
+     *   0, >0
+     *
+     * Partition for eviction:
+     *   maxBytes: 0, fits some entries, fits all entries
+     *   least recently used entry: parsed first, read again after a later one
+     *   entries over the limit: written by this cache, in the directory before this cache was made
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE_A = "X:1\nT:A\nK:C\nA B c d|\n";
+    private static final String TUNE_B = "X:2\nT:B\nK:G\nV:1\nV:2\nV:1\n(3ABc [CE] z|\nV:2\n|: G4 :|\n";
+    private static final String TUNE_C = "X:3\nT:C\nK:F\nc d e f|\n";
+
+    // a new empty directory, deleted by deleteTree
+    private static Path directory() throws IOException {
+        return Files.createTempDirectory("songcache");
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Path entry(Path directory, String source) {
+        return directory.resolve(SongCache.key(source) + ".song");
+    }
+
+    //covers no entry, entry written by this cache, hits and misses 0 and >0
+    @Test
+    public void testParseMissThenHit() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            assertEquals(0, cache.getHits());
+            assertEquals(0, cache.getMisses());
+            assertEquals(AbcParser.parse(TUNE_B), cache.parse(TUNE_B));
+            assertEquals(0, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            assertTrue(Files.exists(entry(directory, TUNE_B)));
+            assertEquals(AbcParser.parse(TUNE_B), cache.parse(TUNE_B));
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers entry written by another cache on the same directory
+    @Test
+    public void testParseSharedDirectory() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            new SongCache(directory, Long.MAX_VALUE).parse(TUNE_A);
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            assertEquals(AbcParser.parse(TUNE_A), cache.parse(TUNE_A));
+            assertEquals(1, cache.getHits());
+            assertEquals(0, cache.getMisses());
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers entry in another format version, which is replaced
+    @Test
+    public void testParseOtherVersion() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            cache.parse(TUNE_A);
+            byte[] bytes = Files.readAllBytes(entry(directory, TUNE_A));
+            bytes[SongFormat.VERSION_OFFSET] = (byte) (SongFormat.VERSION + 1);
+            Files.write(entry(directory, TUNE_A), bytes);
+            assertEquals(AbcParser.parse(TUNE_A), cache.parse(TUNE_A));
+            assertEquals(0, cache.getHits());
+            assertEquals(2, cache.getMisses());
+            assertEquals(SongFormat.VERSION, Files.readAllBytes(entry(directory, TUNE_A))[SongFormat.VERSION_OFFSET]);
+            cache.parse(TUNE_A);
+            assertEquals(1, cache.getHits());
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers corrupt entry
+    @Test
+    public void testParseCorruptEntry() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            cache.parse(TUNE_B);
+            byte[] bytes = Files.readAllBytes(entry(directory, TUNE_B));
+            byte[] truncated = new byte[bytes.length / 2];
+            System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+            Files.write(entry(directory, TUNE_B), truncated);
+            assertEquals(AbcParser.parse(TUNE_B), cache.parse(TUNE_B));
+            assertEquals(2, cache.getMisses());
+            assertArrayEquals(bytes, Files.readAllBytes(entry(directory, TUNE_B)));
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers invalid source, which stores nothing
+    @Test
+    public void testParseInvalid() throws IOException {
+        Path directory = directory();
+        try {
+            SongCache cache = new SongCache(directory, Long.MAX_VALUE);
+            try {
+                cache.parse("X:1\nK:C\n? C D E |\n");
+                fail("expected UnableToParseException");
+            } catch (UnableToParseException e) {
+                // expected
+            }
+            assertEquals(1, cache.getMisses());
+            assertEquals(0, cache.sizeInBytes());
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers maxBytes fitting some entries, least recently used read again after a later one
+    @Test
+    public void testEvictLeastRecentlyUsed() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache sizer = new SongCache(directory, Long.MAX_VALUE);
+            sizer.parse(TUNE_A);
+            sizer.parse(TUNE_C);
+            long twoEntries = sizer.sizeInBytes();
+            Files.delete(entry(directory, TUNE_A));
+            Files.delete(entry(directory, TUNE_C));
+
+            SongCache cache = new SongCache(directory, twoEntries);
+            cache.parse(TUNE_A);
+            cache.parse(TUNE_C);
+            cache.parse(TUNE_A);
+            assertEquals(1, cache.getHits());
+            cache.parse(TUNE_C.replace("c d", "d c"));
+            assertTrue(Files.exists(entry(directory, TUNE_A)));
+            assertFalse(Files.exists(entry(directory, TUNE_C)));
+            assertTrue(cache.sizeInBytes() <= twoEntries);
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers entries over the limit in the directory before this cache was made
+    @Test
+    public void testEvictEntriesAlreadyThere() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache sizer = new SongCache(directory, Long.MAX_VALUE);
+            sizer.parse(TUNE_A);
+            sizer.parse(TUNE_C);
+            long twoEntries = sizer.sizeInBytes();
+
+            SongCache cache = new SongCache(directory, twoEntries);
+            cache.parse(TUNE_B);
+            assertTrue(Files.exists(entry(directory, TUNE_B)));
+            assertFalse(Files.exists(entry(directory, TUNE_A)));
+            assertTrue(cache.sizeInBytes() <= twoEntries);
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    //covers maxBytes 0 and fitting all entries
+    @Test
+    public void testEvictLimits() throws UnableToParseException, IOException {
+        Path directory = directory();
+        try {
+            SongCache none = new SongCache(directory, 0);
+            assertEquals(AbcParser.parse(TUNE_A), none.parse(TUNE_A));
+            assertEquals(0, none.sizeInBytes());
+
+            SongCache all = new SongCache(directory, Long.MAX_VALUE);
+            all.parse(TUNE_A);
+            all.parse(TUNE_B);
+            all.parse(TUNE_C);
+            assertTrue(Files.exists(entry(directory, TUNE_A)));
+            assertTrue(Files.exists(entry(directory, TUNE_B)));
+            assertTrue(Files.exists(entry(directory, TUNE_C)));
+        } finally {
+            deleteTree(directory);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for SongFormat.
+ *
+ */
+public class SongFormatTest {
+
+    /*
+     * Testing strategy for SongFormat
+     *
+     * Partition for write / read(ByteBuffer):
+     *   song: every file in sample_abc/, header with every optional field and several voices
+     *   output: read back as a song equal to the input; smaller than the text unless the tune is so short
+     *           that the header dominates
+     *
+     * Partition for read(ByteBuffer):
+     *   input: other version, not a song, empty, extra bytes after the song
+     *
+     * Partition for read(Path):
+     *   file: written by write, missing
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final String TUNE = "X:7\nT:Title\nC:Composer\nM:3/4\nL:1/4\nQ:3/8=120\nK:Ebm\nV:upper\nV:lower\n"
+                                     + "V:upper\n(3A,Bc' [^C=E_G] z|[1 A :|[2 B ||\nV:lower\n|: G,,4 :|\n";
+
+    private static byte[] write(Song song) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SongFormat.write(song, bytes);
+        return bytes.toByteArray();
+    }
+
+    private static void assertInvalid(byte[] bytes) {
+        try {
+            SongFormat.read(ByteBuffer.wrap(bytes));
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    //covers every file in sample_abc/, output smaller than the text of files of 1000 bytes or more
+    @Test
+    public void testSampleFiles() throws UnableToParseException, IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("sample_abc"), "*.abc")) {
+            for (Path file : files) {
+                byte[] text = Files.readAllBytes(file);
+                Song song = AbcParser.parse(new String(text, StandardCharsets.UTF_8));
+                byte[] bytes = write(song);
+                assertEquals(file.toString(), song, SongFormat.read(ByteBuffer.wrap(bytes)));
+                if (text.length >= 1000) {
+                    assertTrue(file.toString(), bytes.length < text.length);
+                }
+                count++;
+            }
+        }
+        assertTrue(count > 0);
+    }
+
+    //covers header with every optional field and several voices
+    @Test
+    public void testHeaderAndVoices() throws UnableToParseException, IOException {
+        Song song = AbcParser.parse(TUNE);
+        Song copy = SongFormat.read(ByteBuffer.wrap(write(song)));
+        assertEquals(song, copy);
+        assertEquals(song.getHeader().toString(), copy.getHeader().toString());
+        assertEquals(song.getMusic().duration(), copy.getMusic().duration(), 0);
+    }
+
+    //covers other version, not a song, empty, extra bytes
+    @Test
+    public void testReadInvalid() throws UnableToParseException, IOException {
+        byte[] bytes = write(AbcParser.parse(TUNE));
+        assertInvalid(new byte[0]);
+        assertInvalid(TUNE.getBytes(StandardCharsets.US_ASCII));
+        assertInvalid(Arrays.copyOf(bytes, bytes.length + 1));
+        bytes[SongFormat.VERSION_OFFSET]++;
+        assertInvalid(bytes);
+    }
+
+    //covers file written by write, missing file
+    @Test
+    public void testReadFile() throws UnableToParseException, IOException {
+        Song song = AbcParser.parse(TUNE);
+        Path file = Files.createTempFile("song", ".song");
+        try {
+            Files.write(file, write(song));
+            assertEquals(song, SongFormat.read(file));
+        } finally {
+            Files.delete(file);
+        }
+        try {
+            SongFormat.read(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -41,7 +41,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayDefaultValues() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -55,7 +55,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayCMRestDurationOctave() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), 1.0/8.0, new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
+        Header header = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), Rational.of(1, 8), new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
         Note cFlat = C.transpose(-1);
         Note highCFlat = HIGH_C.transpose(-1);
         List<Music> bar1 = Arrays.asList(cFlat, cFlat, highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), new Rest(4));
@@ -72,7 +72,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayLQChordTuplet() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("F", "#", true), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/8.0, 200), "Test Piece 3", 3);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("F", "#", true), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/8.0, 200), "Test Piece 3", 3);
         Music[] tuplet1 = {F.transpose(1), F.transpose(1), new Rest(1)};
         List<Music> bar1 = Arrays.asList(F.transpose(1), new Tuplet(tuplet1), F.transpose(1));
         Music[] tuplet2 = {E.transpose(1).rescale(0.5), E.transpose(1).rescale(0.5), E.transpose(1).rescale(0.5)};
@@ -89,7 +89,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayRepeat() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(new ArrayList<>(), "The Awesome Team", new KeySignature("F", "", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 150), "Test Piece 4", 4);
+        Header header = new Header(new ArrayList<>(), "The Awesome Team", new KeySignature("F", "", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 150), "Test Piece 4", 4);
         Rest oneBeat = new Rest(1);
         Note cHalf = C.transpose(-1).rescale(0.5);
         Note dHalf = D.rescale(0.5);
@@ -108,7 +108,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayMultipleEndings() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "=", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 5", 5);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "=", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 5", 5);
         Rest oneBeat = new Rest(1);
         Note highA = new Note(1, new Pitch('A')).transpose(12);
         Note highB = new Note(1, new Pitch('B')).transpose(12);
@@ -128,7 +128,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayMultipleVoices() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(Arrays.asList("upper", "lower"), "Unknown", new KeySignature("F", "#", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 6", 6);
+        Header header = new Header(Arrays.asList("upper", "lower"), "Unknown", new KeySignature("F", "#", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 100), "Test Piece 6", 6);
         
         Note aSharp = A.transpose(1);
         Note cSharp = C.transpose(1);
@@ -161,7 +161,7 @@ public class SongPlayTest {
     
     @Test
     public void testPlayEverything() throws UnableToParseException, IOException, InterruptedException {
-        Header header = new Header(Arrays.asList("upper", "lower"), "A Person", new KeySignature("F", "#", false), 1.0/4.0, new Meter(4, 4), new Tempo(1.0/4.0, 120), "Test Piece 7", 7);
+        Header header = new Header(Arrays.asList("upper", "lower"), "A Person", new KeySignature("F", "#", false), Rational.of(1, 4), new Meter(4, 4), new Tempo(1.0/4.0, 120), "Test Piece 7", 7);
         
         Note highA = A.transpose(12);
         Note bFlat = B.transpose(-1);
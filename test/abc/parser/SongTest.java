@@ -51,7 +51,7 @@ public class SongTest {
     
     @Test
     public void testGetMusic() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -65,7 +65,7 @@ public class SongTest {
     
     @Test
     public void testGetHeader() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -79,7 +79,7 @@ public class SongTest {
     
     @Test
     public void testEqualsNotSong() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -93,7 +93,7 @@ public class SongTest {
     
     @Test
     public void testEqualsNotEquals() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -102,7 +102,7 @@ public class SongTest {
         Voices music = new Voices(voice);
         Song song = new Song(music, header);
         
-        Header header2 = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), 1.0/8.0, new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
+        Header header2 = new Header(new ArrayList<>(), "The Goblin Composer", new KeySignature("C", "b", false), Rational.of(1, 8), new Meter(2, 2), new Tempo(1.0/8.0, 100), "Test Piece 2", 2);
         Note cFlat = C.transpose(-1);
         Note highCFlat = HIGH_C.transpose(-1);
         List<Music> bar1 = Arrays.asList(cFlat, cFlat, highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), highCFlat.rescale(0.5), new Rest(4));
@@ -119,7 +119,7 @@ public class SongTest {
     
     @Test
     public void testEquals() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
@@ -134,7 +134,7 @@ public class SongTest {
     
     @Test
     public void testHashCode() throws UnableToParseException, IOException {
-        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), 1.0/8.0, new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
+        Header header = new Header(new ArrayList<>(), "Unknown", new KeySignature("C", "", false), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "Test Piece 1", 1);
         List<Music> notes = Arrays.asList(G, A, B, HIGH_C);
         
         Measure measure = new Measure(notes, 4, false, false, false, false, false);
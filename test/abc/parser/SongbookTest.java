@@ -0,0 +1,103 @@
+package abc.parser;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import abc.header.*;
+import abc.sound.*;
+import lib6005.parser.UnableToParseException;
+
+/**
+ * Tests for Songbook.
+ *
+ */
+public class SongbookTest {
+    
+    /*
+     * Testing strategy for Songbook
+     * 
+     * Partition for size / getStartLine:
+     *   tunes: 0, >0
+     *   
+     * Partition for getSong:
+     *   tune: parsed, failed
+     *   
+     * Partition for getSongs / getErrors:
+     *   output: empty, non-empty; changing the output leaves the Songbook unchanged
+     *   
+     * Partition for equals / hashCode:
+     *   obj: not Songbook, unequal Songbook, equal Songbook
+     *   
+     * Partition for toString:
+     *   contains the title of a parsed tune and the message of a failed one
+     */
+    
+    private static final Song SONG = new Song(
+            new Voices(new Voice(Arrays.asList(new Measure(Arrays.asList(new Note(1, new Pitch('C'))), 1, false, false, false, false, false)))),
+            new Header(Arrays.asList(), "Unknown", new KeySignature("C"), Rational.of(1, 8), new Meter(4, 4), new Tempo(1.0/8.0, 100), "tune", 1));
+    private static final UnableToParseException ERROR = new UnableToParseException("bad tune");
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // make a songbook of SONG starting at line 1 and ERROR starting at line 7
+    private static Songbook twoTunes() {
+        Map<Integer, Song> songs = new HashMap<>();
+        songs.put(0, SONG);
+        Map<Integer, UnableToParseException> errors = new HashMap<>();
+        errors.put(1, ERROR);
+        return new Songbook(Arrays.asList(1, 7), songs, errors);
+    }
+    
+    //covers 0 tunes, empty output
+    @Test
+    public void testEmpty() {
+        Songbook songbook = new Songbook(Arrays.asList(), new HashMap<>(), new HashMap<>());
+        assertEquals(0, songbook.size());
+        assertTrue(songbook.getSongs().isEmpty());
+        assertTrue(songbook.getErrors().isEmpty());
+    }
+    
+    //covers >0 tunes, parsed and failed tunes, changing the output
+    @Test
+    public void testGetters() throws UnableToParseException {
+        Songbook songbook = twoTunes();
+        assertEquals(2, songbook.size());
+        assertEquals(7, songbook.getStartLine(1));
+        assertEquals(SONG, songbook.getSong(0));
+        try {
+            songbook.getSong(1);
+            fail("expected UnableToParseException");
+        } catch (UnableToParseException e) {
+            assertSame(ERROR, e);
+        }
+        songbook.getSongs().clear();
+        songbook.getErrors().clear();
+        assertEquals(Arrays.asList(SONG), songbook.getSongs());
+        assertEquals(1, songbook.getErrors().size());
+    }
+    
+    //covers equals and hashCode
+    @Test
+    public void testEquals() {
+        assertEquals(twoTunes(), twoTunes());
+        assertEquals(twoTunes().hashCode(), twoTunes().hashCode());
+        assertNotEquals(twoTunes(), new Songbook(Arrays.asList(), new HashMap<>(), new HashMap<>()));
+        assertNotEquals(twoTunes(), SONG);
+    }
+    
+    //covers toString
+    @Test
+    public void testToString() {
+        String string = twoTunes().toString();
+        assertTrue(string.contains("tune"));
+        assertTrue(string.contains("bad tune"));
+    }
+}
@@ -0,0 +1,172 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for MeasureRope.
+ *
+ */
+public class MeasureRopeTest {
+
+    /*
+     * Testing strategy for MeasureRope
+     *
+     * Partition for of:
+     *   measures: none, fewer than a leaf, exactly a leaf, many leaves; a MeasureRope already
+     *
+     * Partition for append:
+     *   this, that: empty, a small leaf, large; that much shorter than, as tall as, much taller than this
+     *   result: compared with appending ArrayLists, balanced with height O(log size)
+     *
+     * Partition for subList:
+     *   range: empty, whole, within a leaf, across leaves, out of range
+     *   result: compared with ArrayList.subList, balanced with height O(log size)
+     *
+     * Partition for get / iterator / toArray:
+     *   index: first, in a later leaf, last, out of range
+     *
+     * Partition for add:
+     *   throws UnsupportedOperationException
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // n different measures, numbered from first
+    private static List<Measure> measures(int first, int n) {
+        List<Measure> measures = new ArrayList<>();
+        for (int i = first; i < first + n; i++) {
+            measures.add(new Measure(Arrays.asList(new Rest(i)), i, false, false, false, false, false));
+        }
+        return measures;
+    }
+
+    // assert that rope holds expected, in every way it can be read
+    private static void assertRope(List<Measure> expected, MeasureRope rope) {
+        assertEquals(expected.size(), rope.size());
+        assertEquals(expected, rope);
+        assertEquals(expected, new ArrayList<>(rope));
+        assertEquals(expected, Arrays.asList(rope.toArray()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), rope.get(i));
+        }
+        // a tree balanced by height, with leaves at least half full but for one at each append
+        int leaves = Math.max(1, expected.size());
+        assertTrue("height " + rope.height(), rope.height() <= 1.45 * Math.log(leaves) / Math.log(2) + 2);
+    }
+
+    //covers of none, fewer than a leaf, exactly a leaf, many leaves, a rope already
+    @Test
+    public void testOf() {
+        assertRope(Collections.emptyList(), MeasureRope.of(Collections.emptyList()));
+        for (int n : new int[] {1, 5, 32, 33, 100, 1000}) {
+            List<Measure> measures = measures(0, n);
+            assertRope(measures, MeasureRope.of(measures));
+        }
+        MeasureRope rope = MeasureRope.of(measures(0, 10));
+        assertSame(rope, MeasureRope.of(rope));
+    }
+
+    //covers append of empty, small leaves, that much shorter than this, much taller than this, as tall as this
+    @Test
+    public void testAppend() {
+        List<Measure> smallMeasures = measures(0, 3);
+        List<Measure> largeMeasures = measures(3, 500);
+        MeasureRope small = MeasureRope.of(smallMeasures);
+        MeasureRope large = MeasureRope.of(largeMeasures);
+        assertSame(small, small.append(MeasureRope.EMPTY));
+        assertSame(small, MeasureRope.EMPTY.append(small));
+        List<Measure> expected = new ArrayList<>(smallMeasures);
+        expected.addAll(largeMeasures);
+        assertRope(expected, small.append(large));
+        Collections.rotate(expected, -3);
+        assertRope(expected, large.append(small));
+        List<Measure> twice = new ArrayList<>(largeMeasures);
+        twice.addAll(largeMeasures);
+        assertRope(twice, large.append(large));
+    }
+
+    //covers append one line at a time, as the parser does, and random concatenations, against ArrayLists
+    @Test
+    public void testAppendRandom() {
+        Random random = new Random(6005);
+        MeasureRope rope = MeasureRope.EMPTY;
+        List<Measure> expected = new ArrayList<>();
+        for (int line = 0; line < 2000; line++) {
+            List<Measure> measures = measures(expected.size(), 1 + random.nextInt(6));
+            rope = rope.append(MeasureRope.of(measures));
+            expected.addAll(measures);
+        }
+        assertRope(expected, rope);
+        List<MeasureRope> ropes = new ArrayList<>();
+        List<List<Measure>> lists = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            List<Measure> measures = measures(i * 1000, random.nextInt(200));
+            ropes.add(MeasureRope.of(measures));
+            lists.add(measures);
+        }
+        while (ropes.size() > 1) {
+            int i = random.nextInt(ropes.size() - 1);
+            ropes.set(i, ropes.get(i).append(ropes.remove(i + 1)));
+            List<Measure> joined = new ArrayList<>(lists.get(i));
+            joined.addAll(lists.remove(i + 1));
+            lists.set(i, joined);
+            assertRope(lists.get(i), ropes.get(i));
+        }
+    }
+
+    //covers subList empty, whole, within a leaf, across leaves, and splicing in the middle
+    @Test
+    public void testSubList() {
+        Random random = new Random(6005);
+        List<Measure> expected = measures(0, 1000);
+        MeasureRope rope = MeasureRope.of(expected);
+        assertSame(rope, rope.subList(0, 1000));
+        assertRope(Collections.emptyList(), rope.subList(500, 500));
+        assertRope(expected.subList(3, 20), rope.subList(3, 20));
+        assertRope(expected.subList(30, 35), rope.subList(30, 35));
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(expected.size() + 1);
+            int to = from + random.nextInt(expected.size() - from + 1);
+            assertRope(expected.subList(from, to), rope.subList(from, to));
+            // splice a few measures in at from, as an edit to a voice does
+            List<Measure> inserted = measures(1000 + i * 10, random.nextInt(5));
+            MeasureRope spliced = rope.subList(0, from).append(MeasureRope.of(inserted))
+                    .append(rope.subList(to, rope.size()));
+            List<Measure> splicedList = new ArrayList<>(expected.subList(0, from));
+            splicedList.addAll(inserted);
+            splicedList.addAll(expected.subList(to, expected.size()));
+            assertRope(splicedList, spliced);
+            rope = spliced;
+            expected = splicedList;
+        }
+    }
+
+    //covers subList out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSubListOutOfRange() {
+        MeasureRope.of(measures(0, 40)).subList(10, 41);
+    }
+
+    //covers get out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        MeasureRope.of(measures(0, 40)).get(40);
+    }
+
+    //covers add
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAdd() {
+        MeasureRope.of(measures(0, 2)).add(measures(2, 1).get(0));
+    }
+}
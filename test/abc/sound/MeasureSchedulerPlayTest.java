@@ -0,0 +1,96 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+
+import org.junit.Test;
+
+/**
+ * Tests that MeasureScheduler schedules the same notes as playing the whole Voices at once.
+ * @category no_didit
+ *
+ */
+public class MeasureSchedulerPlayTest {
+    
+    /*
+     * Testing strategy for MeasureScheduler
+     * 
+     * Partition for add / finish:
+     *   voices: default only, named in header, default and named, named voice not in header
+     *   order: each voice's measures all together, voices interleaved
+     *   measures: with repeats, measures of different lengths at the same index
+     *   compare the player's events with those of Voices.play
+     *   
+     * Partition for scheduledBeats:
+     *   0, before finish, after finish with one voice equal to Voices.duration
+     */
+    
+    private static final Measure CD = new Measure(Arrays.asList(new Note(1, new Pitch('C')), new Note(1, new Pitch('D'))), 2, false, false, false, false, false);
+    private static final Measure EF = new Measure(Arrays.asList(new Note(1, new Pitch('E')), new Note(1, new Pitch('F'))), 2, false, true, false, false, false);
+    private static final Measure G = new Measure(Arrays.asList(new Note(4, new Pitch('G'))), 4, false, false, false, false, false);
+    private static final Measure A = new Measure(Arrays.asList(new Note(1, new Pitch('A'))), 1, false, false, false, false, false);
+    
+    // events of player, ignoring the order of events at the same tick
+    private static List<String> events(SequencePlayer player) {
+        List<String> lines = Arrays.asList(player.toString().split("\n"));
+        Collections.sort(lines);
+        return lines;
+    }
+    
+    // assert scheduling (voice, measure) pairs in order gives the same events as Voices.play
+    private static void assertSameAsVoices(List<String> header, List<String> order, List<Measure> measures)
+            throws MidiUnavailableException, InvalidMidiDataException {
+        Map<String, Voice> voices = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            Voice voice = voices.getOrDefault(order.get(i), new Voice());
+            voices.put(order.get(i), voice.append(Arrays.asList(measures.get(i))));
+        }
+        Voices music = new Voices(voices);
+        SequencePlayer expected = new SequencePlayer(100, 12);
+        music.play(expected, 0);
+        
+        SequencePlayer result = new SequencePlayer(100, 12);
+        MeasureScheduler scheduler = new MeasureScheduler(result, header);
+        assertEquals(0, scheduler.scheduledBeats(), 0.0001);
+        for (int i = 0; i < order.size(); i++) {
+            scheduler.add(order.get(i), measures.get(i));
+        }
+        scheduler.finish();
+        if (voices.size() == 1) {
+            assertEquals(music.duration(), scheduler.scheduledBeats(), 0.0001);
+        }
+        assertEquals(events(expected), events(result));
+    }
+    
+    //covers default only, with repeats, scheduledBeats before finish
+    @Test
+    public void testDefault() throws MidiUnavailableException, InvalidMidiDataException {
+        SequencePlayer player = new SequencePlayer(100, 12);
+        MeasureScheduler scheduler = new MeasureScheduler(player, Arrays.asList());
+        scheduler.add(Voices.DEFAULT_VOICE, CD);
+        assertEquals(2, scheduler.scheduledBeats(), 0.0001);
+        assertSameAsVoices(Arrays.asList(), Arrays.asList("Default", "Default", "Default"), Arrays.asList(CD, EF, G));
+    }
+    
+    //covers named in header, each voice together and interleaved, different lengths at the same index
+    @Test
+    public void testNamedVoices() throws MidiUnavailableException, InvalidMidiDataException {
+        assertSameAsVoices(Arrays.asList("1", "2"), Arrays.asList("1", "1", "2", "2"), Arrays.asList(CD, G, A, EF));
+        assertSameAsVoices(Arrays.asList("1", "2"), Arrays.asList("1", "2", "1", "2"), Arrays.asList(CD, A, G, EF));
+    }
+    
+    //covers default and named, named voice not in header
+    @Test
+    public void testDefaultAndNamed() throws MidiUnavailableException, InvalidMidiDataException {
+        assertSameAsVoices(Arrays.asList("1"), Arrays.asList("Default", "1", "Default", "1"), Arrays.asList(CD, CD, G, A));
+        assertSameAsVoices(Arrays.asList(), Arrays.asList("1", "2", "1", "2"), Arrays.asList(CD, CD, A, A));
+    }
+}
@@ -3,6 +3,7 @@ package abc.sound;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.HashSet;
 
 import org.junit.Test;
 
@@ -51,6 +52,9 @@ public class MeasureTest {
      * 
      * Partition for hashCode:
      *   test equal objects have same hashCode
+     * 
+     * Partition for noteCount:
+     *   notes: none, rests only, notes, chords and tuplets
      */
     
     @Test(expected=AssertionError.class)
@@ -184,6 +188,23 @@ public class MeasureTest {
         assertEquals(measure.hashCode(), obj.hashCode());
     }
     
+    //covers no notes, rests only, notes, chords and tuplets
+    @Test
+    public void testNoteCount() {
+        Measure empty = new Measure(Arrays.asList(), 0, false, false, false, false, false);
+        Measure rests = new Measure(Arrays.asList(new Rest(1), new Rest(3)), 4, false, false, false, false, false);
+        Note c = new Note(1, new Pitch('C'));
+        Note e = new Note(1, new Pitch('E'));
+        Music chord = new Chord(new HashSet<>(Arrays.asList(c, e)));
+        Music tuplet = new Tuplet(new Music[] {c, chord, e});
+        Measure measure = new Measure(Arrays.asList(c, chord, tuplet, new Rest(1)), 6, false, false, false, false, false);
+        assertEquals(0, empty.noteCount());
+        assertEquals(0, rests.noteCount());
+        assertEquals(2, chord.noteCount());
+        assertEquals(4, tuplet.noteCount());
+        assertEquals(7, measure.noteCount());
+    }
+    
     @Test
     public void testHashCodeRest() {
         Rest m1 = new Rest(1);
@@ -0,0 +1,105 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for MusicReader on input that MusicWriter did not write; round trips are in MusicWriterTest.
+ *
+ */
+public class MusicReaderTest {
+
+    /*
+     * Testing strategy for MusicReader
+     *
+     * Partition for MusicReader(ByteBuffer):
+     *   buffer position: 0, >0; buffer position after reading: unchanged
+     *
+     * Partition for read:
+     *   input: unknown tag, truncated, note that keeps an instrument before any was given,
+     *          chord containing a rest, tuplet of 1 or 5, count larger than the input,
+     *          duration with a zero denominator
+     *
+     * Partition for readVarint:
+     *   input: more than 10 bytes with the continuation bit set
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final Note NOTE = new Note(0.5, Pitch.MIDDLE_C);
+
+    private static byte[] write(Music music) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MusicWriter writer = new MusicWriter(bytes);
+        writer.write(music);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void assertInvalid(byte... bytes) {
+        try {
+            new MusicReader(ByteBuffer.wrap(bytes)).read();
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    //covers buffer position >0, position unchanged
+    @Test
+    public void testBufferPosition() throws IOException {
+        byte[] music = write(NOTE);
+        ByteBuffer buffer = ByteBuffer.allocate(music.length + 3);
+        buffer.put(new byte[] {9, 9, 9}).put(music).position(3);
+        assertEquals(NOTE, new MusicReader(buffer).read());
+        assertEquals(3, buffer.position());
+    }
+
+    //covers unknown tag, truncated input, count larger than the input
+    @Test
+    public void testReadMalformed() throws IOException {
+        assertInvalid();
+        assertInvalid((byte) 99);
+        byte[] voice = write(new Voice(Arrays.asList(new Measure(Arrays.asList(NOTE), 1, false, false, false, false, false))));
+        assertInvalid(Arrays.copyOf(voice, voice.length - 1));
+        assertInvalid((byte) MusicWriter.VOICE, (byte) 100);
+    }
+
+    //covers note with no instrument given, chord containing a rest, tuplet of 1 and 5
+    @Test
+    public void testReadWrongShape() throws IOException {
+        assertInvalid((byte) MusicWriter.NOTE, (byte) 0, (byte) 0);
+        assertInvalid((byte) MusicWriter.CHORD, (byte) 1, (byte) (MusicWriter.REST | MusicWriter.NEW_DURATION), (byte) 0);
+        byte[] note = write(NOTE);
+        byte[] tuplet = new byte[2 + note.length];
+        tuplet[0] = (byte) MusicWriter.TUPLET;
+        tuplet[1] = 1;
+        System.arraycopy(note, 0, tuplet, 2, note.length);
+        assertInvalid(tuplet);
+        tuplet[1] = 5;
+        assertInvalid(tuplet);
+    }
+
+    //covers duration with a zero denominator
+    @Test
+    public void testReadZeroDenominator() {
+        assertInvalid((byte) (MusicWriter.REST | MusicWriter.NEW_DURATION), (byte) 1, (byte) 0);
+    }
+
+    //covers overlong varint
+    @Test(expected=IOException.class)
+    public void testReadVarintTooLong() throws IOException {
+        byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        new MusicReader(ByteBuffer.wrap(bytes)).readVarint();
+    }
+}
@@ -0,0 +1,179 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for MusicWriter, reading its output back with MusicReader.
+ *
+ */
+public class MusicWriterTest {
+
+    /*
+     * Testing strategy for MusicWriter
+     *
+     * Partition for write:
+     *   music: Note, Rest, Chord, Tuplet of each size, Measure, Voice, Voices
+     *   note: pitch below, at, above middle C; same instrument as the note before, different
+     *   duration: small fraction, denominator not a divisor of Song.TICKS_PER_BEAT, large numerator and denominator
+     *   tuplet: of notes, of chords
+     *   measure: each repeat and ending flag, empty
+     *   voices: empty, several
+     *   output: read back by MusicReader as music equal to the input, with the same exact duration;
+     *           longer than the buffer
+     *
+     * Partition for writeVarint / writeSignedVarint / writeString / writeDuration / writeDouble:
+     *   value: 0, 1 byte, several bytes, Long.MAX_VALUE / Long.MIN_VALUE, negative; string: empty, non-ASCII;
+     *   duration: 0, whole, fraction; double: not a fraction of small numbers
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static final Note LOW = new Note(0.25, new Pitch('C').transpose(-13));
+    private static final Note MIDDLE = new Note(0.5, Pitch.MIDDLE_C, Instrument.PIANO);
+    private static final Note HIGH = new Note(1.0/3.0, new Pitch('B').transpose(Pitch.OCTAVE));
+    private static final Chord CHORD = new Chord(new HashSet<>(Arrays.asList(LOW, MIDDLE)));
+
+    private static byte[] write(Music music) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MusicWriter writer = new MusicWriter(bytes);
+        writer.write(music);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Music read(byte[] bytes) throws IOException {
+        MusicReader reader = new MusicReader(ByteBuffer.wrap(bytes));
+        Music music = reader.read();
+        assertEquals(0, reader.remaining());
+        return music;
+    }
+
+    private static void assertRoundTrip(Music music) throws IOException {
+        Music copy = read(write(music));
+        assertEquals(music, copy);
+        assertEquals(music.exactDuration(), copy.exactDuration());
+    }
+
+    //covers Note below, at, above middle C, default and other instrument, Rest, Chord
+    @Test
+    public void testNotes() throws IOException {
+        assertRoundTrip(LOW);
+        assertRoundTrip(MIDDLE);
+        assertRoundTrip(HIGH);
+        assertEquals(Instrument.PIANO, ((Note) read(write(MIDDLE))).instrument());
+        assertRoundTrip(new Rest(0.75));
+        assertRoundTrip(CHORD);
+    }
+
+    //covers Tuplet of each size, of notes and chords, duration changed by undoing the scale
+    @Test
+    public void testTuplets() throws IOException {
+        assertRoundTrip(new Tuplet(new Music[] {HIGH, HIGH}));
+        assertRoundTrip(new Tuplet(new Music[] {HIGH, HIGH, HIGH}));
+        assertRoundTrip(new Tuplet(new Music[] {CHORD, new Chord(new HashSet<>(Arrays.asList(MIDDLE, LOW))), CHORD}));
+        assertRoundTrip(new Tuplet(new Music[] {LOW, LOW, LOW, LOW}));
+    }
+
+    //covers Measure with each flag and empty, Voice, Voices empty and several
+    @Test
+    public void testMeasuresAndVoices() throws IOException {
+        Measure notes = new Measure(Arrays.asList(LOW, new Rest(0.25), CHORD), 2, true, false, true, false, false);
+        Measure empty = new Measure(Arrays.asList(), 0, false, true, false, true, true);
+        assertRoundTrip(notes);
+        assertRoundTrip(empty);
+        Measure copy = (Measure) read(write(empty));
+        assertTrue(copy.isEndRepeat() && copy.isStartSecondEnding() && copy.isEndMajorSection());
+        assertFalse(copy.isStartRepeat() || copy.isStartFirstEnding());
+
+        Voice voice = new Voice(Arrays.asList(notes, empty, notes));
+        assertRoundTrip(voice);
+        assertRoundTrip(new Voices());
+        Map<String, Voice> voices = new HashMap<>();
+        voices.put("1", voice);
+        voices.put("2", new Voice());
+        assertRoundTrip(new Voices(voices));
+    }
+
+    //covers durations whose denominators are not divisors of Song.TICKS_PER_BEAT, and large ones
+    @Test
+    public void testExactDurations() throws IOException {
+        assertRoundTrip(new Note(Rational.of(1, 7), Pitch.MIDDLE_C));
+        assertRoundTrip(new Rest(Rational.of(5, 11)));
+        Rational large = Rational.of(Long.MAX_VALUE - 2, Long.MAX_VALUE - 1);
+        Note note = (Note) read(write(new Note(large, Pitch.MIDDLE_C)));
+        assertEquals(large, note.exactDuration());
+        assertRoundTrip(new Tuplet(new Music[] {new Note(Rational.of(1, 13), Pitch.MIDDLE_C),
+                new Note(Rational.of(1, 13), Pitch.MIDDLE_C), new Note(Rational.of(1, 13), Pitch.MIDDLE_C)}));
+    }
+
+    //covers durations of tenths and sevenths, instruments changing between notes, output longer than the buffer
+    @Test
+    public void testLongVoice() throws IOException {
+        List<Measure> measures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Instrument instrument = i % 3 == 0 ? Instrument.PIANO : Instrument.GOBLINS;
+            Note note = new Note(0.1 * (i % 7), Pitch.MIDDLE_C.transpose(i % 50 - 25), instrument);
+            measures.add(new Measure(Arrays.asList(note, note, new Rest(1.0 / 7)), 4, false, false, false, false, false));
+        }
+        Voice voice = new Voice(measures);
+        byte[] bytes = write(voice);
+        assertTrue(bytes.length > 8192);
+        assertRoundTrip(voice);
+    }
+
+    //covers each varint size, signed values, strings
+    @Test
+    public void testPrimitives() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MusicWriter writer = new MusicWriter(bytes);
+        writer.writeVarint(0);
+        writer.writeVarint(127);
+        writer.writeVarint(300);
+        writer.writeVarint(Long.MAX_VALUE);
+        writer.writeSignedVarint(-1);
+        writer.writeSignedVarint(Long.MIN_VALUE);
+        writer.writeString("");
+        writer.writeString("caf\u00e9");
+        writer.writeDuration(Rational.ZERO);
+        writer.writeDuration(Rational.of(3));
+        writer.writeDuration(Rational.of(3, 200));
+        writer.writeDouble(0.1);
+        writer.flush();
+        MusicReader reader = new MusicReader(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(0, reader.readVarint());
+        assertEquals(127, reader.readVarint());
+        assertEquals(300, reader.readVarint());
+        assertEquals(Long.MAX_VALUE, reader.readVarint());
+        assertEquals(-1, reader.readSignedVarint());
+        assertEquals(Long.MIN_VALUE, reader.readSignedVarint());
+        assertEquals("", reader.readString());
+        assertEquals("caf\u00e9", reader.readString());
+        assertEquals(Rational.ZERO, reader.readDuration());
+        assertEquals(Rational.of(3), reader.readDuration());
+        assertEquals(Rational.of(3, 200), reader.readDuration());
+        assertEquals(0.1, reader.readDouble(), 0);
+        assertEquals(0, reader.remaining());
+        assertEquals(1 + 1 + 2 + 9 + 1 + 10 + 1 + 6 + 2 + 2 + 3 + 8, bytes.size());
+    }
+
+    //covers negative varint
+    @Test(expected=IllegalArgumentException.class)
+    public void testWriteVarintNegative() throws IOException {
+        new MusicWriter(new ByteArrayOutputStream()).writeVarint(-1);
+    }
+}
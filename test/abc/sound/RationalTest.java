@@ -0,0 +1,154 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for Rational, and for durations in the music model adding up exactly.
+ *
+ */
+public class RationalTest {
+
+    /*
+     * Testing strategy for Rational
+     *
+     * Partition for of:
+     *   numerator: 0, positive, negative; denominator: 1, positive, negative, 0; in lowest terms, not
+     *
+     * Partition for valueOf:
+     *   value: whole, exact binary fraction, thirds, double with rounding error, NaN / infinite,
+     *          just fits in a long, too large for a long
+     *
+     * Partition for plus / minus / times / dividedBy:
+     *   denominators: same, different; result: 0, whole, fraction; overflows a long, does not;
+     *   divisor: 0, negative, positive
+     *
+     * Partition for compareTo / max / floor / toTicks:
+     *   this <, =, > that; products fit in a long, do not; value: whole, positive fraction, negative fraction
+     *
+     * Partition for the music model:
+     *   durations that are not exact doubles, e.g. triplets, summed over many measures
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //covers numerator 0, positive, negative; denominator 1, positive, negative; lowest terms, not
+    @Test
+    public void testOf() {
+        assertEquals(Rational.ZERO, Rational.of(0, 5));
+        assertEquals(Rational.ONE, Rational.of(3, 3));
+        assertEquals("3/4", Rational.of(6, 8).toString());
+        assertEquals("-1/2", Rational.of(1, -2).toString());
+        assertEquals("7", Rational.of(7).toString());
+        assertEquals(3, Rational.of(-6, -8).numerator());
+        assertEquals(4, Rational.of(-6, -8).denominator());
+        assertSame(Rational.of(1, 8), Rational.of(2, 16));
+    }
+
+    //covers denominator 0
+    @Test(expected=ArithmeticException.class)
+    public void testOfZeroDenominator() {
+        Rational.of(1, 0);
+    }
+
+    //covers whole, exact binary fraction, thirds, rounding error
+    @Test
+    public void testValueOf() {
+        assertEquals(Rational.of(3), Rational.valueOf(3.0));
+        assertEquals(Rational.of(3, 16), Rational.valueOf(0.1875));
+        assertEquals(Rational.of(-1, 3), Rational.valueOf(-1.0 / 3));
+        assertEquals(Rational.of(2, 3), Rational.valueOf(2.0 / 3));
+        assertEquals(Rational.of(3, 10), Rational.valueOf(0.1 * 3));
+        assertEquals(Rational.of(1, 7), Rational.valueOf(1.0 / 7));
+    }
+
+    //covers NaN / infinite
+    @Test(expected=IllegalArgumentException.class)
+    public void testValueOfNaN() {
+        Rational.valueOf(Double.NaN);
+    }
+
+    //covers just fits in a long
+    @Test
+    public void testValueOfLarge() {
+        assertEquals(Rational.of(1L << 62), Rational.valueOf(0x1p62));
+        assertEquals(Rational.of(-(1L << 62)), Rational.valueOf(-0x1p62));
+    }
+
+    //covers too large for a long
+    @Test(expected=ArithmeticException.class)
+    public void testValueOfTooLarge() {
+        Rational.valueOf(1e19 + 0.5);
+    }
+
+    //covers same and different denominators; results 0, whole, fraction
+    @Test
+    public void testArithmetic() {
+        Rational third = Rational.of(1, 3);
+        assertEquals(Rational.of(2, 3), third.plus(third));
+        assertEquals(Rational.ONE, third.plus(third).plus(third));
+        assertEquals(Rational.of(5, 6), third.plus(Rational.of(1, 2)));
+        assertEquals(Rational.ZERO, third.minus(third));
+        assertEquals(Rational.of(-1, 6), third.minus(Rational.of(1, 2)));
+        assertEquals(Rational.of(1, 2), Rational.of(3, 4).times(Rational.of(2, 3)));
+        assertEquals(Rational.of(3, 2), Rational.of(1, 2).times(3));
+        assertEquals(Rational.of(9, 8), Rational.of(3, 4).dividedBy(Rational.of(2, 3)));
+        assertEquals(Rational.of(-9, 8), Rational.of(3, 4).dividedBy(Rational.of(-2, 3)));
+        assertEquals(1, third.signum());
+        assertEquals(-1, third.negate().signum());
+    }
+
+    //covers divisor 0
+    @Test(expected=ArithmeticException.class)
+    public void testDividedByZero() {
+        Rational.ONE.dividedBy(Rational.ZERO);
+    }
+
+    //covers overflowing a long
+    @Test(expected=ArithmeticException.class)
+    public void testOverflow() {
+        Rational.of(1, Long.MAX_VALUE).plus(Rational.of(1, Long.MAX_VALUE - 1));
+    }
+
+    //covers <, =, >, products that do not fit in a long; floor and toTicks of whole, fractions, negatives
+    @Test
+    public void testCompareFloorTicks() {
+        List<Rational> values = new ArrayList<>(Arrays.asList(Rational.of(1, 2), Rational.of(-1, 3),
+                Rational.of(Long.MAX_VALUE, Long.MAX_VALUE - 1), Rational.ONE, Rational.of(2, 3)));
+        Collections.sort(values);
+        assertEquals(Arrays.asList(Rational.of(-1, 3), Rational.of(1, 2), Rational.of(2, 3), Rational.ONE,
+                Rational.of(Long.MAX_VALUE, Long.MAX_VALUE - 1)), values);
+        assertEquals(0, Rational.of(2, 4).compareTo(Rational.of(1, 2)));
+        assertEquals(Rational.of(2, 3), Rational.of(1, 2).max(Rational.of(2, 3)));
+        assertEquals(2, Rational.of(7, 3).floor());
+        assertEquals(-1, Rational.of(-1, 3).floor());
+        assertEquals(4, Rational.of(4).floor());
+        assertEquals(5, Rational.of(1, 3).toTicks(16));
+        assertEquals(24, Rational.of(3, 2).toTicks(16));
+    }
+
+    //covers durations that are not exact doubles, summed over many measures
+    @Test
+    public void testTripletsAddUpExactly() {
+        Music triplet = new Tuplet(new Music[] {new Note(0.5, Pitch.MIDDLE_C), new Note(0.5, Pitch.MIDDLE_C),
+                new Note(0.5, Pitch.MIDDLE_C)});
+        Measure measure = new Measure(Arrays.asList(triplet, triplet), 1, false, false, false, false, false);
+        List<Measure> measures = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            measures.add(measure);
+        }
+        Voice voice = new Voice(measures);
+        assertEquals(Rational.of(2), triplet.exactDuration().times(2));
+        assertEquals(Rational.of(6000), voice.exactDuration());
+        assertEquals(6000.0, voice.duration(), 0);
+    }
+}
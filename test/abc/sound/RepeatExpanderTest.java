@@ -0,0 +1,92 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for RepeatExpander.
+ *
+ */
+public class RepeatExpanderTest {
+    
+    /*
+     * Testing strategy for RepeatExpander
+     * 
+     * Partition for expand:
+     *   measures: empty, without repeat, simple repeat, repeat from start, different endings,
+     *             repeat from end major section
+     *   calls: one call with every measure, one call per measure added
+     *   output: same measures as one call with every measure
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static final List<Music> NOTE = Arrays.asList(new Note(1, new Pitch('C')));
+    private static final Measure PLAIN = new Measure(NOTE, 1, false, false, false, false, false);
+    private static final Measure START = new Measure(Arrays.asList(new Note(1, new Pitch('D'))), 1, true, false, false, false, false);
+    private static final Measure END = new Measure(Arrays.asList(new Note(1, new Pitch('E'))), 1, false, true, false, false, false);
+    private static final Measure FIRST = new Measure(Arrays.asList(new Note(1, new Pitch('F'))), 1, false, true, true, false, false);
+    private static final Measure SECOND = new Measure(Arrays.asList(new Note(1, new Pitch('G'))), 1, false, false, false, true, false);
+    private static final Measure MAJOR = new Measure(Arrays.asList(new Note(1, new Pitch('A'))), 1, false, false, false, false, true);
+    
+    // assert expanding measures all at once gives expected, and so does expanding them one at a time
+    private static void assertExpands(List<Measure> measures, List<Measure> expected) {
+        List<Measure> once = new ArrayList<>();
+        new RepeatExpander().expand(measures, once);
+        assertEquals(expected, once);
+        
+        RepeatExpander expander = new RepeatExpander();
+        List<Measure> incremental = new ArrayList<>();
+        for (int i = 0; i <= measures.size(); i++) {
+            expander.expand(measures.subList(0, i), incremental);
+        }
+        assertEquals(expected, incremental);
+    }
+    
+    //covers empty
+    @Test
+    public void testEmpty() {
+        assertExpands(Arrays.asList(), Arrays.asList());
+    }
+    
+    //covers without repeat
+    @Test
+    public void testNoRepeat() {
+        assertExpands(Arrays.asList(PLAIN, START, PLAIN), Arrays.asList(PLAIN, START, PLAIN));
+    }
+    
+    //covers repeat from start
+    @Test
+    public void testRepeatFromStart() {
+        assertExpands(Arrays.asList(PLAIN, END, SECOND), Arrays.asList(PLAIN, END, PLAIN, END, SECOND));
+    }
+    
+    //covers simple repeat
+    @Test
+    public void testSimpleRepeat() {
+        assertExpands(Arrays.asList(PLAIN, START, END, PLAIN),
+                Arrays.asList(PLAIN, START, END, START, END, PLAIN));
+    }
+    
+    //covers different endings
+    @Test
+    public void testEndings() {
+        assertExpands(Arrays.asList(START, PLAIN, FIRST, SECOND),
+                Arrays.asList(START, PLAIN, FIRST, START, PLAIN, SECOND));
+    }
+    
+    //covers repeat from end major section
+    @Test
+    public void testMajorSection() {
+        assertExpands(Arrays.asList(PLAIN, MAJOR, PLAIN, END),
+                Arrays.asList(PLAIN, MAJOR, PLAIN, END, PLAIN, END));
+    }
+}
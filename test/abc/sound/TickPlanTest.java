@@ -0,0 +1,83 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for TickPlan.
+ *
+ */
+public class TickPlanTest {
+
+    /*
+     * Testing strategy for TickPlan
+     *
+     * Partition for resolution / ticksPerBeat:
+     *   music: Note, Rest, Chord, Tuplet of each size, Measure, Voice, Voices
+     *   lengths: all whole beats, binary fractions, thirds mixed with binary fractions
+     *   resolution: 1, small, above MAX_TICKS_PER_BEAT, more than a long holds
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Note note(long numerator, long denominator) {
+        return new Note(Rational.of(numerator, denominator), Pitch.MIDDLE_C);
+    }
+
+    private static Measure measure(Music... notes) {
+        return new Measure(Arrays.asList(notes), 1, false, false, false, false, false);
+    }
+
+    //covers Note, Rest, whole beats, resolution 1
+    @Test
+    public void testWholeBeats() {
+        assertEquals(1, TickPlan.resolution(note(2, 1)));
+        assertEquals(1, TickPlan.ticksPerBeat(new Rest(Rational.ONE)));
+    }
+
+    //covers Chord, Measure, Voice, binary fractions
+    @Test
+    public void testBinaryFractions() {
+        Chord chord = new Chord(new HashSet<>(Arrays.asList(note(1, 2), new Note(Rational.of(1, 4), new Pitch('E')))));
+        Voice voice = new Voice(Arrays.asList(measure(chord, note(1, 2)), measure(new Rest(Rational.of(3, 8)))));
+        assertEquals(4, TickPlan.resolution(chord));
+        assertEquals(8, TickPlan.resolution(voice));
+    }
+
+    //covers Tuplet of each size, Voices, thirds mixed with binary fractions
+    @Test
+    public void testTuplets() {
+        Music triplet = new Tuplet(new Music[] {note(1, 2), note(1, 2), note(1, 2)});
+        Music duplet = new Tuplet(new Music[] {note(1, 2), note(1, 2)});
+        Music quadruplet = new Tuplet(new Music[] {note(1, 2), note(1, 2), note(1, 2), note(1, 2)});
+        assertEquals(3, TickPlan.resolution(triplet));
+        assertEquals(4, TickPlan.resolution(duplet));
+        assertEquals(8, TickPlan.resolution(quadruplet));
+        Map<String, Voice> voices = new HashMap<>();
+        voices.put("a", new Voice(Collections.singletonList(measure(triplet))));
+        voices.put("b", new Voice(Collections.singletonList(measure(note(1, 4), note(3, 4)))));
+        assertEquals(12, TickPlan.ticksPerBeat(new Voices(voices)));
+    }
+
+    //covers resolution above MAX_TICKS_PER_BEAT, and more than a long holds
+    @Test
+    public void testLargeResolution() {
+        List<Measure> measures = Arrays.asList(measure(note(1, 40009)), measure(note(1, 7)));
+        assertEquals(280063, TickPlan.resolution(new Voice(measures)));
+        assertEquals(TickPlan.MAX_TICKS_PER_BEAT, TickPlan.ticksPerBeat(new Voice(measures)));
+        Chord huge = new Chord(new HashSet<>(Arrays.asList(note(1, Long.MAX_VALUE), note(1, Long.MAX_VALUE - 1))));
+        assertEquals(Long.MAX_VALUE, TickPlan.resolution(huge));
+        assertEquals(TickPlan.MAX_TICKS_PER_BEAT, TickPlan.ticksPerBeat(huge));
+    }
+}
@@ -0,0 +1,129 @@
+package abc.sound;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for Timeline.
+ *
+ */
+public class TimelineTest {
+
+    /*
+     * Testing strategy for Timeline
+     *
+     * Partition for compile:
+     *   music: Note, Rest, Chord, Tuplet, Measure, Voice with a repeat, Voices of different lengths
+     *   ticksPerBeat: planned by TickPlan, given, coarser than the notes
+     *   notes: walked in order of start tick, not; 0 ticks long; outside the MIDI range
+     *
+     * Partition for endOrder:
+     *   notes end in order of start, not; ties
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Note note(char name, long numerator, long denominator) {
+        return new Note(Rational.of(numerator, denominator), new Pitch(name));
+    }
+
+    private static Measure measure(boolean startRepeat, boolean endRepeat, Music... notes) {
+        return new Measure(Arrays.asList(notes), 4, startRepeat, endRepeat, false, false, false);
+    }
+
+    // assert that note i of timeline plays midiNote from start for length ticks
+    private static void assertNote(Timeline timeline, int i, int midiNote, long start, int length) {
+        assertEquals(midiNote, timeline.midiNote(i));
+        assertEquals(start, timeline.startTick(i));
+        assertEquals(length, timeline.lengthTicks(i));
+        assertEquals(SequencePlayer.DEFAULT_CHANNEL, timeline.channel(i));
+        assertEquals(SequencePlayer.DEFAULT_VELOCITY, timeline.velocity(i));
+    }
+
+    //covers Note, Rest, planned ticksPerBeat
+    @Test
+    public void testNoteAndRest() {
+        Timeline timeline = Timeline.compile(note('C', 1, 2));
+        assertEquals(2, timeline.ticksPerBeat());
+        assertEquals(1, timeline.size());
+        assertNote(timeline, 0, 60, 0, 1);
+        assertEquals(0, Timeline.compile(new Rest(Rational.ONE)).size());
+    }
+
+    //covers Chord, Tuplet, Measure, ties in endOrder
+    @Test
+    public void testMeasure() {
+        Music chord = new Chord(new HashSet<>(Arrays.asList(note('C', 1, 1), note('E', 1, 1))));
+        Music triplet = new Tuplet(new Music[] {note('C', 1, 2), note('D', 1, 2), note('E', 1, 2)});
+        Timeline timeline = Timeline.compile(measure(false, false, chord, new Rest(Rational.ONE), triplet));
+        assertEquals(3, timeline.ticksPerBeat());
+        assertEquals(5, timeline.size());
+        assertEquals(0, timeline.startTick(0));
+        assertEquals(0, timeline.startTick(1));
+        assertEquals(new HashSet<>(Arrays.asList(60, 64)),
+                new HashSet<>(Arrays.asList(timeline.midiNote(0), timeline.midiNote(1))));
+        assertNote(timeline, 2, 60, 6, 1);
+        assertNote(timeline, 3, 62, 7, 1);
+        assertNote(timeline, 4, 64, 8, 1);
+        for (int k = 0; k < timeline.size(); k++) {
+            assertEquals(k, timeline.endOrder(k));
+        }
+    }
+
+    //covers Voice with a repeat, given ticksPerBeat
+    @Test
+    public void testRepeat() {
+        Voice voice = new Voice(Arrays.asList(measure(true, false, note('C', 4, 1)), measure(false, true, note('D', 4, 1))));
+        Timeline timeline = Timeline.compile(voice, 12);
+        assertEquals(4, timeline.size());
+        assertNote(timeline, 0, 60, 0, 48);
+        assertNote(timeline, 1, 62, 48, 48);
+        assertNote(timeline, 2, 60, 96, 48);
+        assertNote(timeline, 3, 62, 144, 48);
+    }
+
+    //covers Voices of different lengths, notes walked out of order of start, notes ending out of order of start
+    @Test
+    public void testVoices() {
+        Map<String, Voice> voices = new HashMap<>();
+        voices.put("low", new Voice(Arrays.asList(measure(false, false, note('C', 4, 1)),
+                measure(false, false, note('D', 4, 1)))));
+        voices.put("high", new Voice(Arrays.asList(measure(false, false, note('E', 1, 1), note('F', 3, 1)))));
+        Timeline timeline = Timeline.compile(new Voices(voices));
+        assertEquals(1, timeline.ticksPerBeat());
+        assertEquals(4, timeline.size());
+        for (int i = 1; i < timeline.size(); i++) {
+            assertTrue(timeline.startTick(i - 1) <= timeline.startTick(i));
+            assertTrue(timeline.endTick(timeline.endOrder(i - 1)) <= timeline.endTick(timeline.endOrder(i)));
+        }
+        assertEquals(1, timeline.endTick(timeline.endOrder(0)));
+        assertEquals(64, timeline.midiNote(timeline.endOrder(0)));
+        assertEquals(new HashSet<>(Arrays.asList(60, 65)), new HashSet<>(Arrays.asList(
+                timeline.midiNote(timeline.endOrder(1)), timeline.midiNote(timeline.endOrder(2)))));
+        assertNote(timeline, 3, 62, 4, 4);
+    }
+
+    //covers ticksPerBeat coarser than the notes, notes 0 ticks long
+    @Test
+    public void testCoarseTicks() {
+        Timeline timeline = Timeline.compile(measure(false, false, note('C', 1, 3), note('D', 1, 3), note('E', 1, 3)), 2);
+        assertNote(timeline, 0, 60, 0, 0);
+        assertNote(timeline, 1, 62, 0, 0);
+        assertNote(timeline, 2, 64, 1, 0);
+    }
+
+    //covers notes outside the MIDI range
+    @Test(expected=IllegalArgumentException.class)
+    public void testOutOfRange() {
+        Timeline.compile(new Note(Rational.ONE, Pitch.MIDDLE_C.transpose(100)));
+    }
+}
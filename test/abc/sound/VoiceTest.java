@@ -23,6 +23,11 @@ public class VoiceTest {
      * Partition for append:
      *   empty, non-empty, voice
      * 
+     * Partition for replace:
+     *   range: empty, some measures, all measures, out of range
+     *   measures: none, some
+     *   compare with a voice made directly, and its hashCode
+     * 
      * Partition for play:
      *   player: empty, without repeat, simple repeat, different endings, repeat from start, repeat from end major section
      *   atBeat: 0, >0
@@ -47,7 +52,11 @@ public class VoiceTest {
      *   obj: not Voice, unequal Voice, equal Voice
      * 
      * Partition for hashCode:
-     *   test equal objects have same hashCode
+     *   test equal objects have same hashCode, made directly and by append
+     * 
+     * Partition for noteCount:
+     *   voice: empty, without repeat, with repeat
+     *   asked: once, again, from several threads at once
      */
     
     private final static Note A = new Note(1, new Pitch('A'));
@@ -174,6 +183,30 @@ public class VoiceTest {
         assertEquals(voice2, voice.append(voice1));
     }
 
+    // Testing replace
+    @Test
+    public void testReplace() {
+        Measure measure1 = new Measure(Arrays.asList(A, B), 2, false, false, false, false, false);
+        Measure measure2 = new Measure(Arrays.asList(C, D), 2, false, false, false, false, false);
+        Measure measure3 = new Measure(Arrays.asList(E, F, G), 3, false, false, false, false, false);
+        Voice voice = new Voice(Arrays.asList(measure1, measure2, measure3));
+        Voice expected = new Voice(Arrays.asList(measure1, measure3, measure3));
+        Voice replaced = voice.replace(1, 2, Arrays.asList(measure3));
+        assertEquals(expected, replaced);
+        assertEquals(expected.hashCode(), replaced.hashCode());
+        assertEquals(new Voice(Arrays.asList(measure1, measure2, measure2, measure3)),
+                voice.replace(2, 2, Arrays.asList(measure2)));
+        assertEquals(new Voice(Arrays.asList(measure3)), voice.replace(0, 2, Collections.emptyList()));
+        assertEquals(new Voice(), voice.replace(0, 3, Collections.emptyList()));
+        assertEquals(new Voice(Arrays.asList(measure1, measure2, measure3)), voice);
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testReplaceOutOfRange() {
+        Measure measure1 = new Measure(Arrays.asList(A, B), 2, false, false, false, false, false);
+        new Voice(Arrays.asList(measure1)).replace(0, 2, Collections.emptyList());
+    }
+    
     // Testing equals
     // Tests obj not Voice
     @Test
@@ -247,6 +280,56 @@ public class VoiceTest {
         assertEquals(voice2.hashCode(), voice.hashCode());
     }
     
+    @Test
+    public void testHashCodeAppend() {
+        Measure measure1 = new Measure(Arrays.asList(C, D, E, F), 4, false, false, false, false, false);
+        Measure measure2 = new Measure(Arrays.asList(G, A, B, HIGH_C), 4, false, false, false, false, false);
+        Voice voice = new Voice(Arrays.asList(measure1, measure2));
+        Voice appended = new Voice(Arrays.asList(measure1)).append(Arrays.asList(measure2));
+        Voice appendedVoice = new Voice(Arrays.asList(measure1)).append(new Voice(Arrays.asList(measure2)));
+        assertEquals(voice, appended);
+        assertEquals(voice.hashCode(), appended.hashCode());
+        assertEquals(voice.hashCode(), appendedVoice.hashCode());
+    }
+    
+    // Testing noteCount
+    @Test
+    public void testNoteCount() {
+        Measure measure1 = new Measure(Arrays.asList(C, D, E, new Rest(1)), 4, true, false, false, false, false);
+        Measure measure2 = new Measure(Arrays.asList(G, A, B, HIGH_C), 4, false, true, false, false, false);
+        Measure plain = new Measure(Arrays.asList(G, A, B, HIGH_C), 4, false, false, false, false, false);
+        assertEquals(0, new Voice().noteCount());
+        assertEquals(7, new Voice(Arrays.asList(measure1, plain)).noteCount());
+        assertEquals(14, new Voice(Arrays.asList(measure1, measure2)).noteCount());
+    }
+    
+    @Test
+    public void testNoteCountFromThreads() throws InterruptedException {
+        Measure measure1 = new Measure(Arrays.asList(C, D, E, new Rest(1)), 4, true, false, false, false, false);
+        Measure measure2 = new Measure(Arrays.asList(G, A, B, HIGH_C), 4, false, true, false, false, false);
+        Voice voice = new Voice(Arrays.asList(measure1, measure2));
+        long[] counts = new long[4];
+        Rational[] durations = new Rational[counts.length];
+        Thread[] threads = new Thread[counts.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread(() -> {
+                counts[thread] = voice.noteCount();
+                durations[thread] = voice.exactDuration();
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            assertEquals(14, counts[i]);
+            assertEquals(Rational.of(16), durations[i]);
+        }
+        assertEquals(14, voice.noteCount());
+        assertEquals(4, voice.getNumMeasures());
+    }
+    
     // Testing toString
     @Test
     public void testToString() {
@@ -74,6 +74,9 @@ public class VoicesTest {
      * Partition for hashCode:
      *   test on equal Voices
      * 
+     * Partition for noteCount:
+     *   voices: none, one, several
+     * 
      * Partition for toString:
      *   test toString isn't empty
      */
@@ -373,6 +376,16 @@ public class VoicesTest {
     }
     
     // Tests with multiple voices
+    @Test
+    public void testNoteCount() {
+        Map<String, Voice> voiceMap = new HashMap<>();
+        voiceMap.put("first", VOICE);
+        voiceMap.put("second", VOICE2);
+        assertEquals(0, new Voices().noteCount());
+        assertEquals(4, new Voices(VOICE).noteCount());
+        assertEquals(9, new Voices(voiceMap).noteCount());
+    }
+    
     @Test
     public void testToStringMultiple() {
         Map<String, Voice> voiceMap = new HashMap<>();